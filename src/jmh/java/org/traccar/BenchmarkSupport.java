@@ -0,0 +1,88 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar;
+
+import com.google.inject.Injector;
+import io.netty.channel.Channel;
+import io.netty.util.HashedWheelTimer;
+import org.traccar.broadcast.NullBroadcastService;
+import org.traccar.config.Config;
+import org.traccar.model.Device;
+import org.traccar.session.ConnectionManager;
+import org.traccar.session.DeviceSession;
+import org.traccar.session.LivenessTracker;
+import org.traccar.session.cache.CacheManager;
+import org.traccar.storage.MemoryStorage;
+import org.traccar.storage.StorageException;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Request;
+
+import java.lang.reflect.Field;
+import java.net.SocketAddress;
+
+/**
+ * Decoder dependencies for benchmarks. Unlike test mocks, these are real objects backed by memory storage, so that
+ * measured time and allocations belong to the decoder and not to the mocking framework.
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Make the injector available through Main.getInjector() for code that looks it up statically, without starting
+     * the server.
+     */
+    public static void setInjector(Injector injector) throws ReflectiveOperationException {
+        Field field = Main.class.getDeclaredField("injector");
+        field.setAccessible(true);
+        field.set(null, injector);
+    }
+
+    public static <T extends BaseProtocolDecoder> T inject(T decoder) throws StorageException {
+        Config config = new Config();
+        MemoryStorage storage = new MemoryStorage();
+        NullBroadcastService broadcastService = new NullBroadcastService();
+
+        Device device = new Device();
+        device.setUniqueId("123456789012345");
+        device.setId(storage.addObject(device, new Request(new Columns.Exclude("id"))));
+
+        CacheManager cacheManager = new CacheManager(config, storage, broadcastService);
+        cacheManager.addDevice(device.getId());
+
+        decoder.setConfig(config);
+        decoder.setCacheManager(cacheManager);
+        decoder.setConnectionManager(new ConnectionManager(
+                config, cacheManager, storage, null,
+                new LivenessTracker(config, cacheManager, storage, null, new HashedWheelTimer(), broadcastService),
+                broadcastService, null) {
+            private DeviceSession deviceSession;
+
+            @Override
+            public DeviceSession getDeviceSession(
+                    Protocol protocol, Channel channel, SocketAddress remoteAddress, String... uniqueIds) {
+                if (deviceSession == null) {
+                    deviceSession = new DeviceSession(
+                            device.getId(), device.getUniqueId(), protocol, channel, remoteAddress);
+                }
+                return deviceSession;
+            }
+        });
+        return decoder;
+    }
+
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.traccar.config.Config;
+import org.traccar.helper.DataConverter;
+import org.traccar.model.Device;
+import org.traccar.model.Event;
+import org.traccar.model.Position;
+import org.traccar.protocol.Gl200Protocol;
+import org.traccar.protocol.Gt06Protocol;
+import org.traccar.protocol.H02Protocol;
+import org.traccar.protocol.SuntechProtocol;
+import org.traccar.protocol.TeltonikaProtocol;
+import org.traccar.storage.DatabaseModule;
+import org.traccar.storage.MemoryStorage;
+import org.traccar.storage.Storage;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Request;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * In-process ingest benchmark. Builds the complete server pipeline for simulated device connections on embedded
+ * channels and pushes messages through it from a single thread, so results don't depend on network or OS scheduling.
+ * <p>
+ * Parameters are system properties:
+ * <ul>
+ * <li>ingest.protocols - comma separated list of simulated protocols (default all: gt06, teltonika, gl200, suntech,
+ * h02)</li>
+ * <li>ingest.devices - number of simulated devices (default 1000)</li>
+ * <li>ingest.rate - messages per second per device, 0 for maximum throughput (default 0)</li>
+ * <li>ingest.warmup - warmup duration in seconds (default 10)</li>
+ * <li>ingest.duration - measurement duration in seconds (default 30)</li>
+ * <li>ingest.config - optional configuration file, e.g. with embedded H2 database; by default the in-memory storage
+ * is used and decoded positions are not retained</li>
+ * <li>ingest.fused - run processing handlers as a single pipeline entry, only used without ingest.config (default
+ * false)</li>
+ * </ul>
+ * Connection setup rate, including login messages, and heap retained by each connection, including its device,
+ * are reported before the run, so reconnect cost and idle connection footprint can be compared with a large number of
+ * devices and zero duration.
+ */
+public final class IngestBenchmark {
+
+    private static final Map<String, Workload> WORKLOADS = new LinkedHashMap<>();
+
+    static {
+        WORKLOADS.put("gt06", new Workload(
+                Gt06Protocol.class, 15,
+                id -> binary("78780d010" + id + "00093f040d0a"),
+                id -> binary("787822220f0c1d023305c9027ac8180c46586000140001cc00287d001f71000001000820860d0a")));
+        WORKLOADS.put("teltonika", new Workload(
+                TeltonikaProtocol.class, 15,
+                id -> binary("000f" + DataConverter.printHex(id.getBytes(StandardCharsets.US_ASCII))),
+                id -> binary("000000000000002b080100000140d4e3ec6e000cc661d01674a5e0fffc0000090000000402"
+                        + "0100f0000242322318000000000100007a04")));
+        WORKLOADS.put("gl200", new Workload(
+                Gl200Protocol.class, 15, null,
+                id -> text("+RESP:GTFRI,8020040200," + id + ",,,10,1,1,0.0,0,9.0,-71.596601,-33.524595,"
+                        + "20230722145338,0730,0001,772A,052B253E,00,0.0,,,,,100,210100,,,,20230722145341,0F4C$")));
+        WORKLOADS.put("suntech", new Workload(
+                SuntechProtocol.class, 9, null,
+                id -> text("ST300STT;" + id + ";04;706;20190227;23:59:34;cc719;-12.963490;-038.499587;000.067;"
+                        + "000.00;7;1;57095;12.50;000000;1;0337;000207;0.0;1;0;012E717F010000;1\r")));
+        WORKLOADS.put("h02", new Workload(
+                H02Protocol.class, 10, null,
+                id -> text("*HQ," + id + ",V1,104000,A,2235.1777,N,11357.8913,E,000.27,235,130721,FFFFFBFF,"
+                        + "460,11,d18e105,7752,6#")));
+    }
+
+    private final Map<String, Histogram> stages = new LinkedHashMap<>();
+    private final Histogram total = new Histogram();
+    private Histogram currentStage;
+    private long stageStart;
+
+    private IngestBenchmark() {
+    }
+
+    private static ByteBuf binary(String hex) {
+        return Unpooled.wrappedBuffer(DataConverter.parseHex(hex));
+    }
+
+    private static ByteBuf text(String value) {
+        return Unpooled.copiedBuffer(value, StandardCharsets.US_ASCII);
+    }
+
+    private static final class Workload {
+        private final Class<? extends BaseProtocol> protocolClass;
+        private final int idLength;
+        private final Function<String, ByteBuf> login;
+        private final Function<String, ByteBuf> message;
+
+        private Workload(
+                Class<? extends BaseProtocol> protocolClass, int idLength,
+                Function<String, ByteBuf> login, Function<String, ByteBuf> message) {
+            this.protocolClass = protocolClass;
+            this.idLength = idLength;
+            this.login = login;
+            this.message = message;
+        }
+    }
+
+    private static final class DeviceChannel extends EmbeddedChannel {
+        private final SocketAddress remoteAddress;
+        private final ByteBuf message;
+
+        private DeviceChannel(int index, ByteBuf message) {
+            this.remoteAddress = new InetSocketAddress(
+                    "10." + (index >> 16 & 0xff) + "." + (index >> 8 & 0xff) + "." + (index & 0xff), 5000);
+            this.message = message;
+        }
+
+        @Override
+        protected SocketAddress localAddress0() {
+            return new InetSocketAddress(5000);
+        }
+
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return remoteAddress;
+        }
+
+        private void send(ByteBuf buf) {
+            writeInbound(buf);
+            releaseInbound();
+            releaseOutbound();
+        }
+    }
+
+    /**
+     * Storage that keeps configuration objects in memory, but drops positions and events, so that long runs don't
+     * run out of memory.
+     */
+    private static final class IngestStorage extends MemoryStorage {
+        private final AtomicLong increment = new AtomicLong(1_000_000_000L);
+
+        @Override
+        public <T> long addObject(T entity, Request request) {
+            if (entity instanceof Position || entity instanceof Event) {
+                return increment.incrementAndGet();
+            }
+            return super.addObject(entity, request);
+        }
+    }
+
+    private final class StageProbe extends ChannelInboundHandlerAdapter {
+        private final Histogram histogram;
+
+        private StageProbe(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            mark(histogram);
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    /**
+     * Attributes time since the previous mark to the stage that was running and starts timing the next stage.
+     */
+    private void mark(Histogram next) {
+        long now = System.nanoTime();
+        if (currentStage != null) {
+            currentStage.record(now - stageStart);
+        }
+        currentStage = next;
+        stageStart = now;
+    }
+
+    private void addProbes(ChannelPipeline pipeline) {
+        for (String name : pipeline.names()) {
+            ChannelHandler handler = pipeline.get(name);
+            if (handler instanceof WrapperInboundHandler) {
+                handler = ((WrapperInboundHandler) handler).getWrappedHandler();
+            }
+            if (handler instanceof ChannelInboundHandler) {
+                String stage = handler.getClass().getSimpleName();
+                if (stage.isEmpty()) {
+                    stage = name;
+                }
+                Histogram histogram = stages.computeIfAbsent(stage, key -> new Histogram());
+                pipeline.addBefore(name, null, new StageProbe(histogram));
+            }
+        }
+    }
+
+    private static File createConfig(boolean fused) throws Exception {
+        File file = File.createTempFile("ingest", ".xml");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "<?xml version='1.0' encoding='UTF-8'?>\n"
+                + "<!DOCTYPE properties SYSTEM 'http://java.sun.com/dtd/properties.dtd'>\n"
+                + "<properties>\n"
+                + "<entry key='database.memory'>true</entry>\n"
+                + "<entry key='logger.console'>true</entry>\n"
+                + "<entry key='logger.level'>warning</entry>\n"
+                + "<entry key='processing.fused.enable'>" + fused + "</entry>\n"
+                + "</properties>\n");
+        return file;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long allocatedBytes() {
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private List<DeviceChannel> createDevices(
+            Injector injector, Config config, String[] protocols, int count) throws Exception {
+
+        Storage storage = injector.getInstance(Storage.class);
+        Map<String, BaseProtocol> instances = new LinkedHashMap<>();
+        for (String protocol : protocols) {
+            Workload workload = WORKLOADS.get(protocol);
+            if (workload == null) {
+                throw new IllegalArgumentException("Unknown protocol " + protocol);
+            }
+            instances.put(protocol, injector.getInstance(workload.protocolClass));
+        }
+
+        Map<String, BasePipelineFactory> factories = new HashMap<>();
+        long setupTime = 0;
+        List<DeviceChannel> channels = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String protocol = protocols[i % protocols.length];
+            Workload workload = WORKLOADS.get(protocol);
+            String uniqueId = String.valueOf((long) Math.pow(10, workload.idLength - 1) + i);
+
+            Device device = new Device();
+            device.setName(protocol + " " + i);
+            device.setUniqueId(uniqueId);
+            device.setId(storage.addObject(device, new Request(new Columns.Exclude("id"))));
+
+            BaseProtocol instance = instances.get(protocol);
+            TrackerServer server = (TrackerServer) instance.getConnectorList().iterator().next();
+            long start = System.nanoTime();
+            DeviceChannel channel = new DeviceChannel(i, Unpooled.unreleasableBuffer(
+                    workload.message.apply(uniqueId)));
+            channel.pipeline().addLast(factories.computeIfAbsent(protocol, key -> new BasePipelineFactory(
+                    server, config, instance.getName()) {
+                @Override
+                protected void addTransportHandlers(PipelineBuilder pipeline) {
+                }
+
+                @Override
+                protected void addProtocolHandlers(PipelineBuilder pipeline) {
+                    server.addProtocolHandlers(pipeline, config);
+                }
+            }));
+            setupTime += System.nanoTime() - start;
+            addProbes(channel.pipeline());
+            if (workload.login != null) {
+                start = System.nanoTime();
+                channel.send(workload.login.apply(uniqueId));
+                setupTime += System.nanoTime() - start;
+            }
+            channels.add(channel);
+        }
+        System.out.printf("Connection setup: %.0f connections/s%n", count / (setupTime / 1e9));
+        return channels;
+    }
+
+    private long run(List<DeviceChannel> channels, double rate, long duration) {
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / (rate * channels.size())) : 0;
+        long start = System.nanoTime();
+        long end = start + duration;
+        long next = start;
+        long count = 0;
+        int index = 0;
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                break;
+            }
+            if (interval > 0) {
+                if (next - now > 100_000) {
+                    LockSupport.parkNanos(next - now);
+                    continue;
+                } else if (next > now) {
+                    continue;
+                }
+                next += interval;
+            }
+            DeviceChannel channel = channels.get(index);
+            index = index + 1 < channels.size() ? index + 1 : 0;
+            ByteBuf message = channel.message;
+            message.readerIndex(0);
+            long messageStart = System.nanoTime();
+            channel.send(message);
+            mark(null);
+            total.record(System.nanoTime() - messageStart);
+            count += 1;
+        }
+        return count;
+    }
+
+    private void reset() {
+        stages.values().forEach(Histogram::reset);
+        total.reset();
+    }
+
+    private void report(long count, long duration, long gcCount, long gcTime, long allocated) {
+        double seconds = duration / 1e9;
+        System.out.printf("%nMessages: %d, throughput: %.0f msg/s%n", count, count / seconds);
+        System.out.printf("GC: %d collections, %d ms, allocated %d bytes/msg%n%n",
+                gcCount, gcTime, count > 0 ? allocated / count : 0);
+        System.out.printf("%-40s %10s %10s %10s %10s %10s %10s%n",
+                "Stage (us)", "count", "mean", "p50", "p99", "p99.9", "max");
+        for (Map.Entry<String, Histogram> entry : stages.entrySet()) {
+            entry.getValue().print(entry.getKey());
+        }
+        total.print("Total");
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] protocols = System.getProperty("ingest.protocols", String.join(",", WORKLOADS.keySet())).split(",");
+        int devices = Integer.getInteger("ingest.devices", 1000);
+        double rate = Double.parseDouble(System.getProperty("ingest.rate", "0"));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.getLong("ingest.warmup", 10));
+        long duration = TimeUnit.SECONDS.toNanos(Long.getLong("ingest.duration", 30));
+
+        String configFile = System.getProperty("ingest.config");
+        Injector injector;
+        if (configFile != null) {
+            injector = Guice.createInjector(new MainModule(configFile), new DatabaseModule());
+        } else {
+            String defaultConfig = createConfig(Boolean.getBoolean("ingest.fused")).getAbsolutePath();
+            injector = Guice.createInjector(Modules.override(
+                    new MainModule(defaultConfig), new DatabaseModule()).with(new AbstractModule() {
+                        @Override
+                        protected void configure() {
+                            bind(Storage.class).toInstance(new IngestStorage());
+                        }
+                    }));
+        }
+        BenchmarkSupport.setInjector(injector);
+
+        IngestBenchmark benchmark = new IngestBenchmark();
+        long heap = usedHeap();
+        List<DeviceChannel> channels = benchmark.createDevices(
+                injector, injector.getInstance(Config.class), protocols, devices);
+        System.out.printf("Heap per connection: %d bytes%n", (usedHeap() - heap) / devices);
+
+        benchmark.run(channels, rate, warmup);
+        benchmark.reset();
+
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        long count = benchmark.run(channels, rate, duration);
+        long elapsed = System.nanoTime() - start;
+        benchmark.report(count, elapsed, gcCount() - gcCount, gcTime() - gcTime, allocatedBytes() - allocated);
+
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+        System.exit(0);
+    }
+
+    /**
+     * Log-linear latency histogram with 16 sub-buckets per power of two, which gives about 6% precision.
+     */
+    private static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final long[] counts = new long[64 * SUB_BUCKETS];
+        private long count;
+        private long sum;
+        private long max;
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return exponent * SUB_BUCKETS + (int) (value >>> exponent);
+        }
+
+        private static long value(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS - 1;
+            return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << exponent;
+        }
+
+        private void record(long value) {
+            counts[index(value)] += 1;
+            count += 1;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        private long percentile(double percentile) {
+            long threshold = (long) Math.ceil(count * percentile);
+            long accumulated = 0;
+            for (int i = 0; i < counts.length; i++) {
+                accumulated += counts[i];
+                if (accumulated >= threshold) {
+                    return value(i);
+                }
+            }
+            return max;
+        }
+
+        private void reset() {
+            Arrays.fill(counts, 0);
+            count = 0;
+            sum = 0;
+            max = 0;
+        }
+
+        private void print(String name) {
+            if (count > 0) {
+                System.out.printf("%-40s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                        name, count, sum / 1e3 / count, percentile(0.5) / 1e3, percentile(0.99) / 1e3,
+                        percentile(0.999) / 1e3, max / 1e3);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.traccar.helper.ClassScanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start cost of finding protocol classes and loading the configured ones. Every measurement runs in a new JVM,
+ * because classes stay loaded after the first call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    private static final Set<String> CONFIGURED = Set.of("gt06", "teltonika", "osmand");
+
+    @Param({"scan", "index"})
+    private String discovery;
+
+    @Benchmark
+    public List<Class<?>> loadProtocols() throws Exception {
+        List<String> names = new ArrayList<>();
+        if (discovery.equals("scan")) {
+            for (Class<?> clazz : ClassScanner.findSubclasses(BaseProtocol.class, "org.traccar.protocol")) {
+                names.add(clazz.getName());
+            }
+        } else {
+            names.addAll(ServerManager.getProtocolClassNames());
+        }
+        List<Class<?>> result = new ArrayList<>();
+        for (String name : names) {
+            if (CONFIGURED.contains(BaseProtocol.nameFromClassName(name))) {
+                result.add(Class.forName(name));
+            }
+        }
+        return result;
+    }
+
+}
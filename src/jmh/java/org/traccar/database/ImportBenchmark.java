@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.util.HashedWheelTimer;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.traccar.broadcast.NullBroadcastService;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.handler.DistanceHandler;
+import org.traccar.handler.FilterHandler;
+import org.traccar.helper.DateUtil;
+import org.traccar.model.Device;
+import org.traccar.session.ConnectionManager;
+import org.traccar.session.LivenessTracker;
+import org.traccar.session.cache.CacheManager;
+import org.traccar.storage.DatabasePools;
+import org.traccar.storage.DatabaseStorage;
+import org.traccar.storage.MemoryStorage;
+import org.traccar.storage.ReplicaRouting;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Request;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of CSV position import into an embedded H2 database, in positions per second. Covers parsing, distance
+ * calculation, batched inserts and the latest position update, which is what the import target of 100k positions per
+ * second refers to. The table is emptied before each iteration, so results don't depend on database size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+
+    private static final int POSITIONS = 50000;
+
+    @Param({"1000", "5000"})
+    private int batchSize;
+
+    private JdbcDataSource dataSource;
+    private ImportManager importManager;
+    private long deviceId;
+    private byte[] csv;
+
+    @Setup
+    public void setup() throws Exception {
+        Config config = new Config();
+        config.setString(Keys.DATABASE_IMPORT_BATCH_SIZE, String.valueOf(batchSize));
+        ObjectMapper objectMapper = new ObjectMapper();
+        NullBroadcastService broadcastService = new NullBroadcastService();
+
+        MemoryStorage memoryStorage = new MemoryStorage();
+        Device device = new Device();
+        device.setUniqueId("123456789012345");
+        deviceId = memoryStorage.addObject(device, new Request(new Columns.Exclude("id")));
+        CacheManager cacheManager = new CacheManager(config, memoryStorage, broadcastService);
+        LivenessTracker livenessTracker = new LivenessTracker(
+                config, cacheManager, memoryStorage, null, new HashedWheelTimer(), broadcastService);
+        ConnectionManager connectionManager = new ConnectionManager(
+                config, cacheManager, memoryStorage, null, livenessTracker, broadcastService, null);
+
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:import" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE tc_devices (id INT PRIMARY KEY, positionid INT)");
+            statement.execute("INSERT INTO tc_devices (id) VALUES (" + deviceId + ")");
+            statement.execute("CREATE TABLE tc_positions ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, protocol VARCHAR(128), deviceid INT NOT NULL, "
+                    + "servertime TIMESTAMP NOT NULL, devicetime TIMESTAMP NOT NULL, fixtime TIMESTAMP NOT NULL, "
+                    + "valid BOOLEAN NOT NULL, latitude DOUBLE NOT NULL, longitude DOUBLE NOT NULL, "
+                    + "altitude FLOAT NOT NULL, speed FLOAT NOT NULL, course FLOAT NOT NULL, address VARCHAR(512), "
+                    + "attributes VARCHAR(4000), accuracy DOUBLE NOT NULL, network VARCHAR(4000), "
+                    + "geofenceids VARCHAR(128))");
+        }
+        DatabaseStorage storage = new DatabaseStorage(
+                config, dataSource, objectMapper, new MetricsManager(config),
+                new DatabasePools(dataSource, Map.of()), new ReplicaRouting(null, 0));
+
+        importManager = new ImportManager(
+                config, storage, cacheManager, connectionManager, new DistanceHandler(config, cacheManager),
+                new FilterHandler(config, cacheManager, storage, null), objectMapper);
+
+        StringBuilder builder = new StringBuilder("fixTime,valid,latitude,longitude,speed,course,ignition,power\n");
+        long time = System.currentTimeMillis() - POSITIONS * 10000L;
+        for (int i = 0; i < POSITIONS; i++) {
+            builder.append(DateUtil.formatDate(new Date(time + i * 10000L))).append(",true,")
+                    .append(50 + i * 0.0001).append(',').append(10 + i * 0.0001).append(",21.6,90,true,12.8\n");
+        }
+        csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE tc_positions");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long importCsv() throws Exception {
+        var progress = importManager.importPositions(
+                0, id -> { }, importManager.createCsvReader(new ByteArrayInputStream(csv), deviceId));
+        return progress.getStored();
+    }
+
+}
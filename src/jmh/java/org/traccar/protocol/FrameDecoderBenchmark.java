@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits test corpus streams into frames in round-robin order. One operation is one frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameDecoderBenchmark {
+
+    @Param({"gt06", "gl200", "huabao", "teltonika", "atrack", "suntech"})
+    private String protocol;
+
+    private ProtocolSamples.Decoder decoder;
+    private ByteBuf[] samples;
+    private int index;
+
+    @Setup
+    public void setup() throws Exception {
+        String testName;
+        switch (protocol) {
+            case "gt06":
+                var gt06 = new Gt06FrameDecoder();
+                decoder = buf -> gt06.decode(null, null, buf);
+                testName = "Gt06FrameDecoderTest";
+                break;
+            case "gl200":
+                var gl200 = new Gl200FrameDecoder();
+                decoder = buf -> gl200.decode(null, null, buf);
+                testName = "Gl200FrameDecoderTest";
+                break;
+            case "huabao":
+                var huabao = new HuabaoFrameDecoder();
+                decoder = buf -> huabao.decode(null, null, buf);
+                testName = "HuabaoFrameDecoderTest";
+                break;
+            case "teltonika":
+                var teltonika = new TeltonikaFrameDecoder();
+                decoder = buf -> teltonika.decode(null, null, buf);
+                testName = "TeltonikaFrameDecoderTest";
+                break;
+            case "atrack":
+                var atrack = new AtrackFrameDecoder();
+                decoder = buf -> atrack.decode(null, null, buf);
+                testName = "AtrackFrameDecoderTest";
+                break;
+            case "suntech":
+                var suntech = new SuntechFrameDecoder();
+                decoder = buf -> suntech.decode(null, null, buf);
+                testName = "SuntechFrameDecoderTest";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown protocol " + protocol);
+        }
+        List<ByteBuf> list = ProtocolSamples.filter(ProtocolSamples.load(testName, null), decoder);
+        samples = list.toArray(new ByteBuf[0]);
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        ByteBuf sample = samples[index];
+        index = index + 1 < samples.length ? index + 1 : 0;
+        sample.readerIndex(0);
+        Object frame = decoder.decode(sample);
+        ReferenceCountUtil.release(frame);
+        return frame;
+    }
+
+}
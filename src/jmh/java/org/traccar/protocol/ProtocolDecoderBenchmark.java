@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.protocol;
+
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.traccar.BenchmarkSupport;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes test corpus messages in round-robin order. One operation is one message. Run with the GC profiler to get
+ * allocated bytes per message ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolDecoderBenchmark {
+
+    @Param({
+            "gt06", "gl200", "huabao", "teltonika", "atrack", "suntech",
+            "galileo", "navtelecom", "ruptela", "egts"})
+    private String protocol;
+
+    private ProtocolSamples.Decoder decoder;
+    private ByteBuf[] samples;
+    private int index;
+
+    @Setup
+    public void setup() throws Exception {
+        String testName;
+        String method = null;
+        switch (protocol) {
+            case "gt06":
+                var gt06 = BenchmarkSupport.inject(new Gt06ProtocolDecoder(null));
+                decoder = buf -> gt06.decode(null, null, buf);
+                testName = "Gt06ProtocolDecoderTest";
+                break;
+            case "gl200":
+                var gl200 = BenchmarkSupport.inject(new Gl200TextProtocolDecoder(null));
+                decoder = buf -> gl200.decode(null, null, buf);
+                testName = "Gl200TextProtocolDecoderTest";
+                break;
+            case "huabao":
+                var huabao = BenchmarkSupport.inject(new HuabaoProtocolDecoder(null));
+                decoder = buf -> huabao.decode(null, null, buf);
+                testName = "HuabaoProtocolDecoderTest";
+                break;
+            case "teltonika":
+                var teltonika = BenchmarkSupport.inject(new TeltonikaProtocolDecoder(null, false));
+                decoder = buf -> teltonika.decode(null, null, buf);
+                testName = "TeltonikaProtocolDecoderTest";
+                method = "testDecode";
+                break;
+            case "atrack":
+                var atrack = BenchmarkSupport.inject(new AtrackProtocolDecoder(null));
+                decoder = buf -> atrack.decode(null, null, buf);
+                testName = "AtrackProtocolDecoderTest";
+                break;
+            case "suntech":
+                var suntech = BenchmarkSupport.inject(new SuntechProtocolDecoder(null));
+                decoder = buf -> suntech.decode(null, null, buf);
+                testName = "SuntechProtocolDecoderTest";
+                break;
+            case "galileo":
+                var galileo = BenchmarkSupport.inject(new GalileoProtocolDecoder(null));
+                decoder = buf -> galileo.decode(null, null, buf);
+                testName = "GalileoProtocolDecoderTest";
+                break;
+            case "navtelecom":
+                var navtelecom = BenchmarkSupport.inject(new NavtelecomProtocolDecoder(null));
+                decoder = buf -> navtelecom.decode(null, null, buf);
+                testName = "NavtelecomProtocolDecoderTest";
+                break;
+            case "ruptela":
+                var ruptela = BenchmarkSupport.inject(new RuptelaProtocolDecoder(null));
+                decoder = buf -> ruptela.decode(null, null, buf);
+                testName = "RuptelaProtocolDecoderTest";
+                break;
+            case "egts":
+                var egts = BenchmarkSupport.inject(new EgtsProtocolDecoder(null));
+                decoder = buf -> egts.decode(null, null, buf);
+                testName = "EgtsProtocolDecoderTest";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown protocol " + protocol);
+        }
+        List<ByteBuf> list = ProtocolSamples.filter(ProtocolSamples.load(testName, method), decoder);
+        samples = list.toArray(new ByteBuf[0]);
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        ByteBuf sample = samples[index];
+        index = index + 1 < samples.length ? index + 1 : 0;
+        sample.readerIndex(0);
+        return decoder.decode(sample);
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import org.traccar.helper.DataConverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts messages embedded in protocol unit tests, so benchmarks run on the same corpus as tests. Only calls of
+ * {@code binary(...)} and {@code buffer(...)} with string literal arguments are picked up.
+ */
+public final class ProtocolSamples {
+
+    private static final Pattern METHOD = Pattern.compile("public void (\\w+)\\(");
+    private static final Pattern CALL = Pattern.compile(
+            "\\b(binary|buffer)\\(((?:\\s*+\"(?:[^\"\\\\]++|\\\\.)*+\"\\s*+,?+)++)\\s*+\\)");
+    private static final Pattern LITERAL = Pattern.compile("\"((?:[^\"\\\\]++|\\\\.)*+)\"");
+
+    public interface Decoder {
+        Object decode(ByteBuf buf) throws Exception;
+    }
+
+    private ProtocolSamples() {
+    }
+
+    private static Path getSourcePath(String testName) {
+        String root = System.getProperty("traccar.testSources", "src/test/java");
+        return Path.of(root, "org", "traccar", "protocol", testName + ".java");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                i += 1;
+                c = value.charAt(i);
+                switch (c) {
+                    case 'r':
+                        result.append('\r');
+                        break;
+                    case 'n':
+                        result.append('\n');
+                        break;
+                    case 't':
+                        result.append('\t');
+                        break;
+                    case '0':
+                        result.append('\0');
+                        break;
+                    case 'u':
+                        result.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default:
+                        result.append(c);
+                        break;
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Load samples from the given test class. If method is not null, only samples from that test method are used.
+     */
+    public static List<ByteBuf> load(String testName, String method) throws IOException {
+        String source = Files.readString(getSourcePath(testName));
+
+        List<ByteBuf> result = new ArrayList<>();
+        String currentMethod = null;
+        Matcher methodMatcher = METHOD.matcher(source);
+        Matcher callMatcher = CALL.matcher(source);
+        int methodStart = methodMatcher.find() ? methodMatcher.start() : source.length();
+        while (callMatcher.find()) {
+            while (callMatcher.start() > methodStart) {
+                currentMethod = methodMatcher.group(1);
+                methodStart = methodMatcher.find() ? methodMatcher.start() : source.length();
+            }
+            if (method != null && !method.equals(currentMethod)) {
+                continue;
+            }
+            StringBuilder data = new StringBuilder();
+            Matcher literalMatcher = LITERAL.matcher(callMatcher.group(2));
+            while (literalMatcher.find()) {
+                data.append(unescape(literalMatcher.group(1)));
+            }
+            if (callMatcher.group(1).equals("binary")) {
+                result.add(Unpooled.unreleasableBuffer(
+                        Unpooled.wrappedBuffer(DataConverter.parseHex(data.toString()))));
+            } else {
+                result.add(Unpooled.unreleasableBuffer(
+                        Unpooled.copiedBuffer(data.toString(), StandardCharsets.ISO_8859_1)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Keep only samples that decoder accepts. Samples that fail or produce nothing would only measure error paths.
+     */
+    public static List<ByteBuf> filter(List<ByteBuf> samples, Decoder decoder) {
+        List<ByteBuf> result = new ArrayList<>();
+        for (ByteBuf sample : samples) {
+            try {
+                sample.readerIndex(0);
+                Object decoded = decoder.decode(sample);
+                if (decoded != null) {
+                    ReferenceCountUtil.release(decoded);
+                    result.add(sample);
+                }
+            } catch (Exception e) {
+                continue;
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalStateException("No usable samples");
+        }
+        return result;
+    }
+
+}
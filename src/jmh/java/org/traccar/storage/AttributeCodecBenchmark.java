@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON and compact attribute formats on typical tracker attributes. Decoding is what report generation does
+ * for every stored position. Row size of each format is printed during setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributeCodecBenchmark {
+
+    @Param({"json", "compact"})
+    private String format;
+
+    @Param({"basic", "io"})
+    private String attributes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, Object> value;
+    private String row;
+
+    private static Map<String, Object> createAttributes(String type) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        switch (type) {
+            case "basic":
+                result.put("sat", 9);
+                result.put("ignition", true);
+                result.put("alarm", "overspeed");
+                result.put("power", 12.8);
+                result.put("batteryLevel", 85);
+                result.put("distance", 14.72);
+                result.put("totalDistance", 1853342.33);
+                result.put("motion", true);
+                break;
+            case "io":
+                result.put("priority", 0);
+                result.put("sat", 14);
+                result.put("event", 0);
+                result.put("ignition", true);
+                result.put("motion", true);
+                result.put("rssi", 4);
+                result.put("io200", 0);
+                result.put("io69", 1);
+                result.put("io113", 100);
+                result.put("io181", 7);
+                result.put("io182", 5);
+                result.put("io24", 54);
+                result.put("io205", 22311);
+                result.put("io206", 1502);
+                result.put("io241", 24602);
+                result.put("io199", 12);
+                result.put("io11", 893602033L);
+                result.put("io14", 196734212L);
+                result.put("power", 13.921);
+                result.put("battery", 4.05);
+                result.put("odometer", 123456789L);
+                result.put("iccid", "89370000000000000001");
+                result.put("distance", 14.72);
+                result.put("totalDistance", 1853342.33);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown attributes " + type);
+        }
+        return result;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        value = createAttributes(attributes);
+        row = encode();
+        System.out.println("Row size: " + row.length() + " bytes");
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        if (format.equals("compact")) {
+            return AttributeCodec.encode(value, objectMapper);
+        } else {
+            return objectMapper.writeValueAsString(value);
+        }
+    }
+
+    @Benchmark
+    public Map<?, ?> decode() throws Exception {
+        if (format.equals("compact")) {
+            return AttributeCodec.decode(row, objectMapper);
+        } else {
+            return objectMapper.readValue(row, Map.class);
+        }
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 - 2018 Anton Tananaev (anton@traccar.org)
+ * Copyright 2015 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,11 +28,35 @@ public abstract class BaseDataHandler extends ChannelInboundHandlerAdapter {
             if (position != null) {
                 ctx.fireChannelRead(position);
             }
+        } else if (msg instanceof PositionBatch) {
+            PositionBatch batch = handleBatch((PositionBatch) msg);
+            if (!batch.isEmpty()) {
+                ctx.fireChannelRead(batch);
+            }
         } else {
             super.channelRead(ctx, msg);
         }
     }
 
+    /**
+     * Handle positions of the batch in order. Positions handled so far are passed along, so that handlers can use them
+     * as the last position of the device.
+     */
+    protected PositionBatch handleBatch(PositionBatch batch) {
+        PositionBatch result = new PositionBatch(batch.size());
+        for (Position position : batch.getPositions()) {
+            position = handlePosition(position, result);
+            if (position != null) {
+                result.add(position);
+            }
+        }
+        return result;
+    }
+
+    protected Position handlePosition(Position position, PositionBatch batch) {
+        return handlePosition(position);
+    }
+
     protected abstract Position handlePosition(Position position);
 
 }
@@ -16,6 +16,7 @@
 package org.traccar;
 
 import com.google.inject.Injector;
+import com.google.inject.MembersInjector;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInboundHandler;
@@ -25,7 +26,10 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.database.MessageLogManager;
+import org.traccar.database.MetricsManager;
 import org.traccar.handler.AcknowledgementHandler;
+import org.traccar.handler.BacklogHandler;
 import org.traccar.handler.ComputedAttributesHandler;
 import org.traccar.handler.CopyAttributesHandler;
 import org.traccar.handler.DefaultDataHandler;
@@ -56,20 +60,63 @@ import org.traccar.handler.events.MediaEventHandler;
 import org.traccar.handler.events.MotionEventHandler;
 import org.traccar.handler.events.OverspeedEventHandler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class BasePipelineFactory extends ChannelInitializer<Channel> {
 
+    private static final List<Class<? extends ChannelInboundHandler>> PROCESSING_HANDLERS = List.of(
+            TimeHandler.class,
+            BacklogHandler.class,
+            GeolocationHandler.class,
+            HemisphereHandler.class,
+            DistanceHandler.class,
+            RemoteAddressHandler.class,
+            FilterHandler.class,
+            GeofenceHandler.class,
+            GeocoderHandler.class,
+            SpeedLimitHandler.class,
+            MotionHandler.class,
+            CopyAttributesHandler.class,
+            EngineHoursHandler.class,
+            ComputedAttributesHandler.class,
+            PositionForwardingHandler.class,
+            DefaultDataHandler.class,
+            MediaEventHandler.class,
+            CommandResultEventHandler.class,
+            OverspeedEventHandler.class,
+            BehaviorEventHandler.class,
+            FuelEventHandler.class,
+            MotionEventHandler.class,
+            GeofenceEventHandler.class,
+            AlertEventHandler.class,
+            IgnitionEventHandler.class,
+            MaintenanceEventHandler.class,
+            DriverEventHandler.class,
+            MainEventHandler.class);
+
     private final Injector injector;
     private final TrackerConnector connector;
-    private final Config config;
     private final String protocol;
     private final int timeout;
+    private final MetricsManager metricsManager;
+    private final MessageLogManager messageLogManager;
+    private final boolean acknowledgement;
+    private final Map<Class<?>, MembersInjector<?>> membersInjectors = new ConcurrentHashMap<>();
+
+    private final OpenChannelHandler openChannelHandler;
+    private final NetworkForwarderHandler networkForwarderHandler;
+    private final NetworkMessageHandler networkMessageHandler = new NetworkMessageHandler();
+    private final List<ChannelInboundHandler> processingHandlers;
+    private final ProcessingHandler processingHandler;
 
     public BasePipelineFactory(TrackerConnector connector, Config config, String protocol) {
         this.injector = Main.getInjector();
+        this.metricsManager = injector.getInstance(MetricsManager.class);
+        this.messageLogManager = injector.getInstance(MessageLogManager.class);
         this.connector = connector;
-        this.config = config;
         this.protocol = protocol;
         int timeout = config.getInteger(Keys.PROTOCOL_TIMEOUT.withPrefix(protocol));
         if (timeout == 0) {
@@ -77,19 +124,51 @@ public abstract class BasePipelineFactory extends ChannelInitializer<Channel> {
         } else {
             this.timeout = timeout;
         }
+        acknowledgement = !connector.isDatagram() && !config.getBoolean(Keys.SERVER_INSTANT_ACKNOWLEDGEMENT);
+        openChannelHandler = new OpenChannelHandler(connector);
+        if (config.hasKey(Keys.SERVER_FORWARD)) {
+            networkForwarderHandler = new NetworkForwarderHandler(
+                    config.getInteger(Keys.PROTOCOL_PORT.withPrefix(protocol)));
+            injector.injectMembers(networkForwarderHandler);
+        } else {
+            networkForwarderHandler = null;
+        }
+        processingHandlers = getProcessingHandlers();
+        if (config.getBoolean(Keys.PROCESSING_FUSED_ENABLE)) {
+            processingHandler = new ProcessingHandler(processingHandlers, metricsManager);
+        } else {
+            processingHandler = null;
+        }
     }
 
     protected abstract void addTransportHandlers(PipelineBuilder pipeline);
 
     protected abstract void addProtocolHandlers(PipelineBuilder pipeline);
 
-    @SafeVarargs
-    private void addHandlers(ChannelPipeline pipeline, Class<? extends ChannelHandler>... handlerClasses) {
-        for (Class<? extends ChannelHandler> handlerClass : handlerClasses) {
-            if (handlerClass != null) {
-                pipeline.addLast(injector.getInstance(handlerClass));
+    /**
+     * Position processing and event handlers in pipeline order. Disabled optional handlers are skipped. All of them are
+     * sharable, so instances are created once and reused for every channel.
+     */
+    private List<ChannelInboundHandler> getProcessingHandlers() {
+        List<ChannelInboundHandler> handlers = new ArrayList<>();
+        for (Class<? extends ChannelInboundHandler> handlerClass : PROCESSING_HANDLERS) {
+            ChannelInboundHandler handler = injector.getInstance(handlerClass);
+            if (handler != null) {
+                handlers.add(handler);
             }
         }
+        return handlers;
+    }
+
+    /**
+     * Inject protocol handler dependencies with an injector resolved once per handler class, so that connection setup
+     * doesn't look up injection points for every new channel.
+     */
+    @SuppressWarnings("unchecked")
+    private void injectMembers(ChannelHandler handler) {
+        var membersInjector = (MembersInjector<ChannelHandler>) membersInjectors.computeIfAbsent(
+                handler.getClass(), injector::getMembersInjector);
+        membersInjector.injectMembers(handler);
     }
 
     public static <T extends ChannelHandler> T getHandler(ChannelPipeline pipeline, Class<T> clazz) {
@@ -107,6 +186,25 @@ public abstract class BasePipelineFactory extends ChannelInitializer<Channel> {
         return null;
     }
 
+    private void addMetricsProbes(ChannelPipeline pipeline) {
+        List<String> names = pipeline.names();
+        for (String name : names) {
+            ChannelHandler handler = pipeline.get(name);
+            if (handler instanceof WrapperInboundHandler) {
+                handler = ((WrapperInboundHandler) handler).getWrappedHandler();
+            }
+            if (handler instanceof ChannelInboundHandler && handler != this) {
+                String handlerName = handler.getClass().getSimpleName();
+                if (handlerName.isEmpty()) {
+                    handlerName = name;
+                }
+                pipeline.addBefore(name, null, new MetricsProbeHandler(metricsManager.histogram(
+                        "traccar_handler_duration_seconds", "Message processing time by pipeline handler",
+                        "handler", handlerName)));
+            }
+        }
+    }
+
     @Override
     protected void initChannel(Channel channel) {
         final ChannelPipeline pipeline = channel.pipeline();
@@ -116,22 +214,19 @@ public abstract class BasePipelineFactory extends ChannelInitializer<Channel> {
         if (timeout > 0 && !connector.isDatagram()) {
             pipeline.addLast(new IdleStateHandler(timeout, 0, 0));
         }
-        pipeline.addLast(new OpenChannelHandler(connector));
-        if (config.hasKey(Keys.SERVER_FORWARD)) {
-            int port = config.getInteger(Keys.PROTOCOL_PORT.withPrefix(protocol));
-            var handler = new NetworkForwarderHandler(port);
-            injector.injectMembers(handler);
-            pipeline.addLast(handler);
+        pipeline.addLast(openChannelHandler);
+        if (networkForwarderHandler != null) {
+            pipeline.addLast(networkForwarderHandler);
         }
-        pipeline.addLast(new NetworkMessageHandler());
-        pipeline.addLast(new StandardLoggingHandler(protocol));
-        if (!connector.isDatagram() && !config.getBoolean(Keys.SERVER_INSTANT_ACKNOWLEDGEMENT)) {
+        pipeline.addLast(networkMessageHandler);
+        pipeline.addLast(new StandardLoggingHandler(protocol, messageLogManager));
+        if (acknowledgement) {
             pipeline.addLast(new AcknowledgementHandler());
         }
 
         addProtocolHandlers(handler -> {
             if (handler instanceof BaseProtocolDecoder || handler instanceof BaseProtocolEncoder) {
-                injector.injectMembers(handler);
+                injectMembers(handler);
             } else {
                 if (handler instanceof ChannelInboundHandler) {
                     handler = new WrapperInboundHandler((ChannelInboundHandler) handler);
@@ -142,35 +237,17 @@ public abstract class BasePipelineFactory extends ChannelInitializer<Channel> {
             pipeline.addLast(handler);
         });
 
-        addHandlers(
-                pipeline,
-                TimeHandler.class,
-                GeolocationHandler.class,
-                HemisphereHandler.class,
-                DistanceHandler.class,
-                RemoteAddressHandler.class,
-                FilterHandler.class,
-                GeofenceHandler.class,
-                GeocoderHandler.class,
-                SpeedLimitHandler.class,
-                MotionHandler.class,
-                CopyAttributesHandler.class,
-                EngineHoursHandler.class,
-                ComputedAttributesHandler.class,
-                PositionForwardingHandler.class,
-                DefaultDataHandler.class,
-                MediaEventHandler.class,
-                CommandResultEventHandler.class,
-                OverspeedEventHandler.class,
-                BehaviorEventHandler.class,
-                FuelEventHandler.class,
-                MotionEventHandler.class,
-                GeofenceEventHandler.class,
-                AlertEventHandler.class,
-                IgnitionEventHandler.class,
-                MaintenanceEventHandler.class,
-                DriverEventHandler.class,
-                MainEventHandler.class);
+        if (processingHandler != null) {
+            pipeline.addLast(processingHandler);
+        } else {
+            for (ChannelInboundHandler handler : processingHandlers) {
+                pipeline.addLast(handler);
+            }
+        }
+
+        if (metricsManager.isEnabled()) {
+            addMetricsProbes(pipeline);
+        }
     }
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2015 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -45,8 +45,12 @@ public abstract class BaseProtocol implements Protocol {
     private StringProtocolEncoder textCommandEncoder = null;
 
     public static String nameFromClass(Class<?> clazz) {
-        String className = clazz.getSimpleName();
-        return className.substring(0, className.length() - 8).toLowerCase();
+        return nameFromClassName(clazz.getSimpleName());
+    }
+
+    public static String nameFromClassName(String className) {
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        return simpleName.substring(0, simpleName.length() - 8).toLowerCase();
     }
 
     public BaseProtocol() {
@@ -20,6 +20,7 @@ import io.netty.channel.Channel;
 import org.traccar.config.Keys;
 import org.traccar.database.CommandsManager;
 import org.traccar.database.MediaManager;
+import org.traccar.database.MetricsManager;
 import org.traccar.database.StatisticsManager;
 import org.traccar.helper.UnitsConverter;
 import org.traccar.helper.model.AttributeUtil;
@@ -51,6 +52,7 @@ public abstract class BaseProtocolDecoder extends ExtendedObjectDecoder {
     private StatisticsManager statisticsManager;
     private MediaManager mediaManager;
     private CommandsManager commandsManager;
+    private MetricsManager.Counter messagesReceived;
 
     public BaseProtocolDecoder(Protocol protocol) {
         this.protocol = protocol;
@@ -85,6 +87,12 @@ public abstract class BaseProtocolDecoder extends ExtendedObjectDecoder {
         this.commandsManager = commandsManager;
     }
 
+    @Inject
+    public void setMetricsManager(MetricsManager metricsManager) {
+        messagesReceived = metricsManager.counter(
+                "traccar_messages_received_total", "Decoded messages by protocol", "protocol", getProtocolName());
+    }
+
     public CommandsManager getCommandsManager() {
         return commandsManager;
     }
@@ -173,6 +181,9 @@ public abstract class BaseProtocolDecoder extends ExtendedObjectDecoder {
         if (statisticsManager != null) {
             statisticsManager.registerMessageReceived();
         }
+        if (messagesReceived != null) {
+            messagesReceived.increment();
+        }
         Set<Long> deviceIds = new HashSet<>();
         if (decodedMessage != null) {
             if (decodedMessage instanceof Position) {
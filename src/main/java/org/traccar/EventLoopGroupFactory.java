@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 - 2018 Anton Tananaev (anton@traccar.org)
+ * Copyright 2012 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,22 +16,234 @@
 package org.traccar;
 
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.NettyRuntime;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 public final class EventLoopGroupFactory {
 
-    private static EventLoopGroup bossGroup = new NioEventLoopGroup();
-    private static EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoopGroupFactory.class);
+
+    private static final String DEFAULT_GROUP = "default";
+
+    private static final Map<String, EventLoopGroup> WORKER_GROUPS = new ConcurrentHashMap<>();
+
+    private static boolean epoll;
+    private static int datagramChannels;
+
+    private static EventLoopGroup bossGroup;
+    private static volatile EventLoopGroup workerGroup;
+
+    private static Config config;
+    private static MetricsManager metricsManager;
 
     private EventLoopGroupFactory() {
     }
 
+    public static synchronized void initialize(Config config, MetricsManager metricsManager) {
+        if (bossGroup != null) {
+            return;
+        }
+        EventLoopGroupFactory.config = config;
+        EventLoopGroupFactory.metricsManager = metricsManager;
+
+        String transport = config.getString(Keys.NETWORK_TRANSPORT);
+        if (transport.equals("epoll")) {
+            if (Epoll.isAvailable()) {
+                epoll = true;
+            } else {
+                LOGGER.warn("Epoll transport is not available", Epoll.unavailabilityCause());
+            }
+        }
+
+        int bossThreads = config.getInteger(Keys.NETWORK_BOSS_THREADS);
+        int workerThreads = config.getInteger(Keys.NETWORK_WORKER_THREADS);
+        if (workerThreads <= 0) {
+            workerThreads = NettyRuntime.availableProcessors() * 2;
+        }
+        datagramChannels = config.getInteger(Keys.NETWORK_DATAGRAM_CHANNELS);
+
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(bossThreads);
+            workerGroup = new EpollEventLoopGroup(workerThreads);
+        } else {
+            bossGroup = new NioEventLoopGroup(bossThreads);
+            workerGroup = new NioEventLoopGroup(workerThreads);
+        }
+        WORKER_GROUPS.put(DEFAULT_GROUP, workerGroup);
+        monitor(DEFAULT_GROUP, workerGroup);
+    }
+
+    private static EventLoopGroup createWorkerGroup(String name) {
+        String prefix = "network.eventLoop." + name;
+        int threads = config.getInteger(Keys.NETWORK_EVENT_LOOP_THREADS.withPrefix(prefix));
+        int priority = config.getInteger(Keys.NETWORK_EVENT_LOOP_PRIORITY.withPrefix(prefix));
+        ThreadFactory threadFactory = new DefaultThreadFactory("eventLoop-" + name, priority);
+        EventLoopGroup group;
+        if (epoll) {
+            group = new EpollEventLoopGroup(threads, threadFactory);
+        } else {
+            group = new NioEventLoopGroup(threads, threadFactory);
+        }
+        monitor(name, group);
+        return group;
+    }
+
+    /**
+     * Register group metrics. Delay between submitting a task and running it is sampled every second on each thread,
+     * which shows how busy the group is, because tasks only run after pending I/O is processed.
+     */
+    private static void monitor(String name, EventLoopGroup group) {
+        if (metricsManager == null || !metricsManager.isEnabled()) {
+            return;
+        }
+        List<EventExecutor> executors = new ArrayList<>();
+        group.forEach(executors::add);
+        metricsManager.gauge("traccar_event_loop_threads", "Event loop threads by group",
+                executors::size, "group", name);
+        metricsManager.gauge("traccar_event_loop_pending_tasks", "Tasks waiting in event loops by group",
+                () -> executors.stream()
+                        .filter(executor -> executor instanceof SingleThreadEventExecutor)
+                        .mapToInt(executor -> ((SingleThreadEventExecutor) executor).pendingTasks())
+                        .sum(),
+                "group", name);
+        metricsManager.gauge("traccar_event_loop_channels", "Channels registered in event loops by group",
+                () -> executors.stream()
+                        .filter(executor -> executor instanceof SingleThreadEventLoop)
+                        .mapToInt(executor -> Math.max(((SingleThreadEventLoop) executor).registeredChannels(), 0))
+                        .sum(),
+                "group", name);
+        MetricsManager.Histogram delay = metricsManager.histogram(
+                "traccar_event_loop_delay_seconds", "Time tasks wait for event loop by group", "group", name);
+        for (EventExecutor executor : executors) {
+            executor.scheduleAtFixedRate(() -> {
+                long start = System.nanoTime();
+                executor.execute(() -> delay.recordSince(start));
+            }, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Create default groups if the factory wasn't initialized with configuration. Worker group is assigned last, so
+     * once it's visible all other fields are initialized too.
+     */
+    private static void initializeDefault() {
+        if (workerGroup == null) {
+            synchronized (EventLoopGroupFactory.class) {
+                if (bossGroup == null) {
+                    bossGroup = new NioEventLoopGroup();
+                    workerGroup = new NioEventLoopGroup();
+                }
+            }
+        }
+    }
+
+    /**
+     * Shut down all groups, including per-protocol groups. The factory can be initialized again afterwards.
+     */
+    public static synchronized void release() {
+        for (EventLoopGroup group : WORKER_GROUPS.values()) {
+            if (group != workerGroup) {
+                group.shutdownGracefully();
+            }
+        }
+        WORKER_GROUPS.clear();
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+        }
+        workerGroup = null;
+        bossGroup = null;
+        config = null;
+        metricsManager = null;
+        epoll = false;
+        datagramChannels = 0;
+    }
+
     public static EventLoopGroup getBossGroup() {
+        initializeDefault();
         return bossGroup;
     }
 
     public static EventLoopGroup getWorkerGroup() {
+        initializeDefault();
         return workerGroup;
     }
 
+    /**
+     * Worker group for the protocol. Protocols with a configured event loop group name get that group, which is
+     * created on first use and shared by all protocols with the same name. Others use the default worker group.
+     */
+    public static EventLoopGroup getWorkerGroup(String protocol) {
+        initializeDefault();
+        if (config == null) {
+            return workerGroup;
+        }
+        String name = config.getString(Keys.PROTOCOL_EVENT_LOOP.withPrefix(protocol));
+        if (name == null) {
+            return workerGroup;
+        }
+        return WORKER_GROUPS.computeIfAbsent(name, EventLoopGroupFactory::createWorkerGroup);
+    }
+
+    /**
+     * Number of sockets to bind for each UDP port served by the group. More than one is only possible with
+     * SO_REUSEPORT support. By default it's the number of threads in the group.
+     */
+    public static int getDatagramChannels(EventLoopGroup group) {
+        if (!epoll) {
+            return 1;
+        }
+        if (datagramChannels > 0) {
+            return datagramChannels;
+        }
+        int count = 0;
+        for (EventExecutor ignored : group) {
+            count += 1;
+        }
+        return Math.max(count, 1);
+    }
+
+    public static boolean isEpoll() {
+        return epoll;
+    }
+
+    public static Class<? extends ServerSocketChannel> getServerChannelClass() {
+        return epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public static Class<? extends SocketChannel> getSocketChannelClass() {
+        return epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    public static Class<? extends DatagramChannel> getDatagramChannelClass() {
+        return epoll ? EpollDatagramChannel.class : NioDatagramChannel.class;
+    }
+
 }
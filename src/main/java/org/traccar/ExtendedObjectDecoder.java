@@ -36,6 +36,7 @@ import java.util.List;
 public abstract class ExtendedObjectDecoder extends ChannelInboundHandlerAdapter {
 
     private Config config;
+    private boolean batchEnabled;
 
     public Config getConfig() {
         return config;
@@ -44,6 +45,7 @@ public abstract class ExtendedObjectDecoder extends ChannelInboundHandlerAdapter
     @Inject
     public void setConfig(Config config) {
         this.config = config;
+        batchEnabled = config.getBoolean(Keys.PROCESSING_BATCH_ENABLE);
         init();
     }
 
@@ -66,6 +68,18 @@ public abstract class ExtendedObjectDecoder extends ChannelInboundHandlerAdapter
         }
     }
 
+    private static boolean isBatch(Collection<?> collection) {
+        if (collection.size() < 2) {
+            return false;
+        }
+        for (Object o : collection) {
+            if (!(o instanceof Position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         NetworkMessage networkMessage = (NetworkMessage) msg;
@@ -81,9 +95,18 @@ public abstract class ExtendedObjectDecoder extends ChannelInboundHandlerAdapter
                 if (decodedMessage instanceof Collection) {
                     var collection = (Collection) decodedMessage;
                     ctx.writeAndFlush(new AcknowledgementHandler.EventDecoded(collection));
-                    for (Object o : collection) {
-                        saveOriginal(o, originalMessage);
-                        ctx.fireChannelRead(o);
+                    if (batchEnabled && isBatch(collection)) {
+                        PositionBatch batch = new PositionBatch(collection.size());
+                        for (Object o : collection) {
+                            saveOriginal(o, originalMessage);
+                            batch.add((Position) o);
+                        }
+                        ctx.fireChannelRead(batch);
+                    } else {
+                        for (Object o : collection) {
+                            saveOriginal(o, originalMessage);
+                            ctx.fireChannelRead(o);
+                        }
                     }
                 } else {
                     ctx.writeAndFlush(new AcknowledgementHandler.EventDecoded(List.of(decodedMessage)));
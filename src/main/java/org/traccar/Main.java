@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2012 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import com.google.inject.Injector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.traccar.broadcast.BroadcastService;
+import org.traccar.database.MessageLogManager;
 import org.traccar.helper.model.DeviceUtil;
 import org.traccar.schedule.ScheduleManager;
 import org.traccar.storage.DatabaseModule;
@@ -127,7 +128,8 @@ public final class Main {
             }
 
             var services = Stream.of(
-                    ServerManager.class, WebServer.class, ScheduleManager.class, BroadcastService.class)
+                    ServerManager.class, WebServer.class, ScheduleManager.class, BroadcastService.class,
+                    MessageLogManager.class)
                     .map(injector::getInstance)
                     .filter(Objects::nonNull)
                     .collect(Collectors.toList());
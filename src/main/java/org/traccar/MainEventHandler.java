@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2012 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.database.MessageLogManager;
 import org.traccar.database.StatisticsManager;
 import org.traccar.handler.AcknowledgementHandler;
 import org.traccar.helper.DateUtil;
@@ -61,15 +62,17 @@ public class MainEventHandler extends ChannelInboundHandlerAdapter {
     private final Storage storage;
     private final ConnectionManager connectionManager;
     private final StatisticsManager statisticsManager;
+    private final MessageLogManager messageLogManager;
 
     @Inject
     public MainEventHandler(
             Config config, CacheManager cacheManager, Storage storage, ConnectionManager connectionManager,
-            StatisticsManager statisticsManager) {
+            StatisticsManager statisticsManager, MessageLogManager messageLogManager) {
         this.cacheManager = cacheManager;
         this.storage = storage;
         this.connectionManager = connectionManager;
         this.statisticsManager = statisticsManager;
+        this.messageLogManager = messageLogManager;
         String connectionlessProtocolList = config.getString(Keys.STATUS_IGNORE_OFFLINE);
         if (connectionlessProtocolList != null) {
             connectionlessProtocols.addAll(Arrays.asList(connectionlessProtocolList.split("[, ]")));
@@ -77,6 +80,75 @@ public class MainEventHandler extends ChannelInboundHandlerAdapter {
         logAttributes.addAll(Arrays.asList(config.getString(Keys.LOGGER_ATTRIBUTES).split("[, ]")));
     }
 
+    /**
+     * Copy of the logged values for asynchronous logging, because later handlers can still change the position.
+     */
+    private Position copyLogged(Position position) {
+        Position copy = new Position();
+        copy.setFixTime(position.getFixTime());
+        copy.setLatitude(position.getLatitude());
+        copy.setLongitude(position.getLongitude());
+        copy.setSpeed(position.getSpeed());
+        copy.setCourse(position.getCourse());
+        copy.setAccuracy(position.getAccuracy());
+        copy.setOutdated(position.getOutdated());
+        copy.setValid(position.getValid());
+        for (String attribute : logAttributes) {
+            Object value = position.getAttributes().get(attribute);
+            if (value != null) {
+                copy.getAttributes().put(attribute, value);
+            }
+        }
+        return copy;
+    }
+
+    private String formatPosition(String session, String uniqueId, Position position) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("[").append(session).append("] ");
+        builder.append("id: ").append(uniqueId);
+        for (String attribute : logAttributes) {
+            switch (attribute) {
+                case "time":
+                    builder.append(", time: ").append(DateUtil.formatDate(position.getFixTime(), false));
+                    break;
+                case "position":
+                    builder.append(", lat: ").append(String.format("%.5f", position.getLatitude()));
+                    builder.append(", lon: ").append(String.format("%.5f", position.getLongitude()));
+                    break;
+                case "speed":
+                    if (position.getSpeed() > 0) {
+                        builder.append(", speed: ").append(String.format("%.1f", position.getSpeed()));
+                    }
+                    break;
+                case "course":
+                    builder.append(", course: ").append(String.format("%.1f", position.getCourse()));
+                    break;
+                case "accuracy":
+                    if (position.getAccuracy() > 0) {
+                        builder.append(", accuracy: ").append(String.format("%.1f", position.getAccuracy()));
+                    }
+                    break;
+                case "outdated":
+                    if (position.getOutdated()) {
+                        builder.append(", outdated");
+                    }
+                    break;
+                case "invalid":
+                    if (!position.getValid()) {
+                        builder.append(", invalid");
+                    }
+                    break;
+                default:
+                    Object value = position.getAttributes().get(attribute);
+                    if (value != null) {
+                        builder.append(", ").append(attribute).append(": ").append(value);
+                    }
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof Position) {
@@ -84,8 +156,14 @@ public class MainEventHandler extends ChannelInboundHandlerAdapter {
             Position position = (Position) msg;
             Device device = cacheManager.getObject(Device.class, position.getDeviceId());
 
+            cacheManager.addHistoryPosition(position);
+
+            // within a batch only the latest position of the device updates storage, cache and subscribers
+            PositionBatch batch = ctx.channel().attr(PositionBatch.KEY).get();
+            boolean deferred = batch != null && batch.getLatest(position.getDeviceId()) != position;
+
             try {
-                if (PositionUtil.isLatest(cacheManager, position)) {
+                if (!deferred && PositionUtil.isLatest(cacheManager, position)) {
                     Device updatedDevice = new Device();
                     updatedDevice.setId(position.getDeviceId());
                     updatedDevice.setPositionId(position.getId());
@@ -100,50 +178,20 @@ public class MainEventHandler extends ChannelInboundHandlerAdapter {
                 LOGGER.warn("Failed to update device", error);
             }
 
-            StringBuilder builder = new StringBuilder();
-            builder.append("[").append(NetworkUtil.session(ctx.channel())).append("] ");
-            builder.append("id: ").append(device.getUniqueId());
-            for (String attribute : logAttributes) {
-                switch (attribute) {
-                    case "time":
-                        builder.append(", time: ").append(DateUtil.formatDate(position.getFixTime(), false));
-                        break;
-                    case "position":
-                        builder.append(", lat: ").append(String.format("%.5f", position.getLatitude()));
-                        builder.append(", lon: ").append(String.format("%.5f", position.getLongitude()));
-                        break;
-                    case "speed":
-                        if (position.getSpeed() > 0) {
-                            builder.append(", speed: ").append(String.format("%.1f", position.getSpeed()));
-                        }
-                        break;
-                    case "course":
-                        builder.append(", course: ").append(String.format("%.1f", position.getCourse()));
-                        break;
-                    case "accuracy":
-                        if (position.getAccuracy() > 0) {
-                            builder.append(", accuracy: ").append(String.format("%.1f", position.getAccuracy()));
-                        }
-                        break;
-                    case "outdated":
-                        if (position.getOutdated()) {
-                            builder.append(", outdated");
-                        }
-                        break;
-                    case "invalid":
-                        if (!position.getValid()) {
-                            builder.append(", invalid");
-                        }
-                        break;
-                    default:
-                        Object value = position.getAttributes().get(attribute);
-                        if (value != null) {
-                            builder.append(", ").append(attribute).append(": ").append(value);
-                        }
-                        break;
+            if (LOGGER.isInfoEnabled()) {
+                int sampling = messageLogManager.getSampling(position.getProtocol());
+                if (statisticsManager.messageStoredCount(position.getDeviceId()) % sampling == 0
+                        || messageLogManager.isTraced(position.getDeviceId())) {
+                    String session = NetworkUtil.session(ctx.channel());
+                    String uniqueId = device.getUniqueId();
+                    if (messageLogManager.isAsync()) {
+                        Position logged = copyLogged(position);
+                        messageLogManager.log(LOGGER, () -> formatPosition(session, uniqueId, logged));
+                    } else {
+                        LOGGER.info(formatPosition(session, uniqueId, position));
+                    }
                 }
             }
-            LOGGER.info(builder.toString());
 
             statisticsManager.registerMessageStored(position.getDeviceId(), position.getProtocol());
 
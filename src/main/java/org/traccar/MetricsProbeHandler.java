@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.traccar.database.MetricsManager;
+
+/**
+ * Placed in front of a pipeline handler to measure its processing time. Handlers pass messages down the pipeline
+ * synchronously, so time spent in downstream handlers is tracked per thread and subtracted to get the time of the
+ * handler itself.
+ */
+@ChannelHandler.Sharable
+public class MetricsProbeHandler extends ChannelInboundHandlerAdapter {
+
+    private static final ThreadLocal<long[]> DOWNSTREAM_TIME = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final MetricsManager.Histogram histogram;
+
+    public MetricsProbeHandler(MetricsManager.Histogram histogram) {
+        this.histogram = histogram;
+    }
+
+    /**
+     * Start measuring a handler. Returns downstream time of the enclosing measurement that has to be passed to
+     * {@link #stop}.
+     */
+    static long start() {
+        long[] downstreamTime = DOWNSTREAM_TIME.get();
+        long outerTime = downstreamTime[0];
+        downstreamTime[0] = 0;
+        return outerTime;
+    }
+
+    static void stop(MetricsManager.Histogram histogram, long outerTime, long elapsed) {
+        long[] downstreamTime = DOWNSTREAM_TIME.get();
+        histogram.record(elapsed - downstreamTime[0]);
+        downstreamTime[0] = outerTime + elapsed;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        long outerTime = start();
+        long start = System.nanoTime();
+        try {
+            ctx.fireChannelRead(msg);
+        } finally {
+            stop(histogram, outerTime, System.nanoTime() - start);
+        }
+    }
+
+}
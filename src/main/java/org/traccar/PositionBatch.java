@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar;
+
+import io.netty.util.AttributeKey;
+import org.traccar.model.Position;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Positions decoded from one multi-record message, passed through data handlers as one pipeline message. Handlers
+ * process positions in order, and positions already handled by the same handler take the place of the last cached
+ * position, because the cache is only updated after storage. Asynchronous handlers pass the batch on once all its
+ * positions are done. The batch is split into single positions before event handlers.
+ */
+public class PositionBatch {
+
+    /**
+     * Batch whose positions are currently passing event handlers on the channel.
+     */
+    public static final AttributeKey<PositionBatch> KEY = AttributeKey.valueOf("positionBatch");
+
+    private final List<Position> positions;
+    private final Map<Long, List<Position>> devicePositions = new HashMap<>();
+
+    public PositionBatch(int capacity) {
+        positions = new ArrayList<>(capacity);
+    }
+
+    public PositionBatch(List<Position> positions) {
+        this(positions.size());
+        positions.forEach(this::add);
+    }
+
+    /**
+     * Index of the first position with fix time after the given time in a list sorted by fix time.
+     */
+    private static int upperBound(List<Position> list, Date time) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list.get(middle).getFixTime().after(time)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    public void add(Position position) {
+        positions.add(position);
+        List<Position> list = devicePositions.computeIfAbsent(position.getDeviceId(), key -> new ArrayList<>());
+        if (list.isEmpty() || !list.get(list.size() - 1).getFixTime().after(position.getFixTime())) {
+            list.add(position);
+        } else {
+            list.add(upperBound(list, position.getFixTime()), position);
+        }
+    }
+
+    public List<Position> getPositions() {
+        return positions;
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public boolean isEmpty() {
+        return positions.isEmpty();
+    }
+
+    /**
+     * Position of the device with the latest fix time or null if there are none.
+     */
+    public Position getLatest(long deviceId) {
+        List<Position> list = devicePositions.get(deviceId);
+        return list != null ? list.get(list.size() - 1) : null;
+    }
+
+    /**
+     * Latest position of each device in the batch.
+     */
+    public Collection<Position> getLatestPositions() {
+        List<Position> result = new ArrayList<>(devicePositions.size());
+        for (List<Position> list : devicePositions.values()) {
+            result.add(list.get(list.size() - 1));
+        }
+        return result;
+    }
+
+    /**
+     * Position of the device with the latest fix time not after the given time or null if there are none.
+     */
+    public Position getPreceding(long deviceId, Date time) {
+        List<Position> list = devicePositions.get(deviceId);
+        if (list == null) {
+            return null;
+        }
+        int index = upperBound(list, time);
+        return index > 0 ? list.get(index - 1) : null;
+    }
+
+    /**
+     * Process all positions with an asynchronous processor, which has to call the given callback once the position is
+     * done. Completion runs after all positions are done, on the thread of the last callback.
+     */
+    public void processAsync(BiConsumer<Position, Runnable> processor, Runnable completion) {
+        if (positions.isEmpty()) {
+            completion.run();
+            return;
+        }
+        AtomicInteger pending = new AtomicInteger(positions.size());
+        for (Position position : positions) {
+            processor.accept(position, () -> {
+                if (pending.decrementAndGet() == 0) {
+                    completion.run();
+                }
+            });
+        }
+    }
+
+}
@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
 import org.traccar.forward.PositionData;
 import org.traccar.forward.PositionForwarder;
 import org.traccar.forward.ResultHandler;
@@ -56,7 +57,8 @@ public class PositionForwardingHandler extends BaseDataHandler {
 
     @Inject
     public PositionForwardingHandler(
-            Config config, CacheManager cacheManager, Timer timer, @Nullable PositionForwarder positionForwarder) {
+            Config config, CacheManager cacheManager, Timer timer, MetricsManager metricsManager,
+            @Nullable PositionForwarder positionForwarder) {
 
         this.cacheManager = cacheManager;
         this.timer = timer;
@@ -68,6 +70,8 @@ public class PositionForwardingHandler extends BaseDataHandler {
         this.retryLimit = config.getInteger(Keys.FORWARD_RETRY_LIMIT);
 
         this.deliveryPending = new AtomicInteger();
+        metricsManager.gauge("traccar_forward_pending", "Forwarded messages waiting for delivery",
+                deliveryPending::get, "type", "position");
     }
 
     class AsyncRequestAndCallback implements ResultHandler, TimerTask {
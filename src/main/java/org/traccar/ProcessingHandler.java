@@ -0,0 +1,410 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelProgressivePromise;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.traccar.database.MetricsManager;
+
+import java.net.SocketAddress;
+import java.util.List;
+
+/**
+ * Runs position processing handlers as a single pipeline entry. Handlers are called directly one after another, each
+ * with a lightweight context that continues the chain, so a channel holds one handler context for all processing
+ * instead of one per handler, and messages don't pass through the pipeline between handlers. Contexts behave like
+ * pipeline contexts, so handlers can still continue asynchronously from other threads, and an exception is passed to
+ * the handler that threw it.
+ */
+@ChannelHandler.Sharable
+public class ProcessingHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessingHandler.class);
+
+    /**
+     * Passes every event on to the rest of the pipeline after the last handler.
+     */
+    private static final ChannelInboundHandler TAIL = new ChannelInboundHandlerAdapter();
+
+    private interface Event {
+        void invoke(ChannelInboundHandler handler, ChannelHandlerContext ctx) throws Exception;
+    }
+
+    private final ChannelInboundHandler[] handlers;
+    private final MetricsManager.Histogram[] histograms;
+
+    public ProcessingHandler(List<? extends ChannelInboundHandler> handlers, MetricsManager metricsManager) {
+        this.handlers = handlers.toArray(new ChannelInboundHandler[handlers.size() + 1]);
+        this.handlers[handlers.size()] = TAIL;
+        if (metricsManager != null && metricsManager.isEnabled()) {
+            histograms = new MetricsManager.Histogram[handlers.size()];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = metricsManager.histogram(
+                        "traccar_handler_duration_seconds", "Message processing time by pipeline handler",
+                        "handler", handlers.get(i).getClass().getSimpleName());
+            }
+        } else {
+            histograms = null;
+        }
+    }
+
+    private ChannelHandlerContext getContext(ChannelHandlerContext ctx, int index) {
+        return index < handlers.length - 1 ? new StageContext(ctx, index) : ctx;
+    }
+
+    private void invokeChannelRead(ChannelHandlerContext ctx, int index, Object msg) {
+        ChannelHandlerContext context = getContext(ctx, index);
+        try {
+            if (histograms != null && index < histograms.length) {
+                long outerTime = MetricsProbeHandler.start();
+                long start = System.nanoTime();
+                try {
+                    handlers[index].channelRead(context, msg);
+                } finally {
+                    MetricsProbeHandler.stop(histograms[index], outerTime, System.nanoTime() - start);
+                }
+            } else {
+                handlers[index].channelRead(context, msg);
+            }
+        } catch (Throwable cause) {
+            invokeExceptionCaught(ctx, index, cause);
+        }
+    }
+
+    private void invoke(ChannelHandlerContext ctx, int index, Event event) {
+        try {
+            event.invoke(handlers[index], getContext(ctx, index));
+        } catch (Throwable cause) {
+            invokeExceptionCaught(ctx, index, cause);
+        }
+    }
+
+    private void invokeExceptionCaught(ChannelHandlerContext ctx, int index, Throwable cause) {
+        try {
+            handlers[index].exceptionCaught(getContext(ctx, index), cause);
+        } catch (Throwable error) {
+            LOGGER.warn("Exception handler error", error);
+        }
+    }
+
+    @Override
+    public void channelRegistered(ChannelHandlerContext ctx) {
+        invoke(ctx, 0, ChannelInboundHandler::channelRegistered);
+    }
+
+    @Override
+    public void channelUnregistered(ChannelHandlerContext ctx) {
+        invoke(ctx, 0, ChannelInboundHandler::channelUnregistered);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        invoke(ctx, 0, ChannelInboundHandler::channelActive);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        invoke(ctx, 0, ChannelInboundHandler::channelInactive);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        invokeChannelRead(ctx, 0, msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        invoke(ctx, 0, ChannelInboundHandler::channelReadComplete);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+        invoke(ctx, 0, (handler, context) -> handler.userEventTriggered(context, evt));
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        invoke(ctx, 0, ChannelInboundHandler::channelWritabilityChanged);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        invokeExceptionCaught(ctx, 0, cause);
+    }
+
+    /**
+     * Context of one handler in the chain. Inbound events continue with the next handler, everything else is done by
+     * the pipeline context of the whole chain.
+     */
+    private final class StageContext implements ChannelHandlerContext {
+
+        private final ChannelHandlerContext ctx;
+        private final int index;
+
+        private StageContext(ChannelHandlerContext ctx, int index) {
+            this.ctx = ctx;
+            this.index = index;
+        }
+
+        private void fire(Event event) {
+            if (ctx.executor().inEventLoop()) {
+                invoke(ctx, index + 1, event);
+            } else {
+                ctx.executor().execute(() -> invoke(ctx, index + 1, event));
+            }
+        }
+
+        @Override
+        public Channel channel() {
+            return ctx.channel();
+        }
+
+        @Override
+        public EventExecutor executor() {
+            return ctx.executor();
+        }
+
+        @Override
+        public String name() {
+            return handlers[index].getClass().getName();
+        }
+
+        @Override
+        public ChannelHandler handler() {
+            return handlers[index];
+        }
+
+        @Override
+        public boolean isRemoved() {
+            return ctx.isRemoved();
+        }
+
+        @Override
+        public ChannelHandlerContext fireChannelRegistered() {
+            fire(ChannelInboundHandler::channelRegistered);
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext fireChannelUnregistered() {
+            fire(ChannelInboundHandler::channelUnregistered);
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext fireChannelActive() {
+            fire(ChannelInboundHandler::channelActive);
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext fireChannelInactive() {
+            fire(ChannelInboundHandler::channelInactive);
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext fireExceptionCaught(Throwable cause) {
+            if (ctx.executor().inEventLoop()) {
+                invokeExceptionCaught(ctx, index + 1, cause);
+            } else {
+                ctx.executor().execute(() -> invokeExceptionCaught(ctx, index + 1, cause));
+            }
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext fireUserEventTriggered(Object evt) {
+            fire((handler, context) -> handler.userEventTriggered(context, evt));
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext fireChannelRead(Object msg) {
+            if (ctx.executor().inEventLoop()) {
+                invokeChannelRead(ctx, index + 1, msg);
+            } else {
+                ctx.executor().execute(() -> invokeChannelRead(ctx, index + 1, msg));
+            }
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext fireChannelReadComplete() {
+            fire(ChannelInboundHandler::channelReadComplete);
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext fireChannelWritabilityChanged() {
+            fire(ChannelInboundHandler::channelWritabilityChanged);
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext read() {
+            ctx.read();
+            return this;
+        }
+
+        @Override
+        public ChannelHandlerContext flush() {
+            ctx.flush();
+            return this;
+        }
+
+        @Override
+        public ChannelPipeline pipeline() {
+            return ctx.pipeline();
+        }
+
+        @Override
+        public ByteBufAllocator alloc() {
+            return ctx.alloc();
+        }
+
+        @Override
+        public <T> Attribute<T> attr(AttributeKey<T> key) {
+            return ctx.channel().attr(key);
+        }
+
+        @Override
+        public <T> boolean hasAttr(AttributeKey<T> key) {
+            return ctx.channel().hasAttr(key);
+        }
+
+        @Override
+        public ChannelFuture bind(SocketAddress localAddress) {
+            return ctx.bind(localAddress);
+        }
+
+        @Override
+        public ChannelFuture connect(SocketAddress remoteAddress) {
+            return ctx.connect(remoteAddress);
+        }
+
+        @Override
+        public ChannelFuture connect(SocketAddress remoteAddress, SocketAddress localAddress) {
+            return ctx.connect(remoteAddress, localAddress);
+        }
+
+        @Override
+        public ChannelFuture disconnect() {
+            return ctx.disconnect();
+        }
+
+        @Override
+        public ChannelFuture close() {
+            return ctx.close();
+        }
+
+        @Override
+        public ChannelFuture deregister() {
+            return ctx.deregister();
+        }
+
+        @Override
+        public ChannelFuture bind(SocketAddress localAddress, ChannelPromise promise) {
+            return ctx.bind(localAddress, promise);
+        }
+
+        @Override
+        public ChannelFuture connect(SocketAddress remoteAddress, ChannelPromise promise) {
+            return ctx.connect(remoteAddress, promise);
+        }
+
+        @Override
+        public ChannelFuture connect(
+                SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+            return ctx.connect(remoteAddress, localAddress, promise);
+        }
+
+        @Override
+        public ChannelFuture disconnect(ChannelPromise promise) {
+            return ctx.disconnect(promise);
+        }
+
+        @Override
+        public ChannelFuture close(ChannelPromise promise) {
+            return ctx.close(promise);
+        }
+
+        @Override
+        public ChannelFuture deregister(ChannelPromise promise) {
+            return ctx.deregister(promise);
+        }
+
+        @Override
+        public ChannelFuture write(Object msg) {
+            return ctx.write(msg);
+        }
+
+        @Override
+        public ChannelFuture write(Object msg, ChannelPromise promise) {
+            return ctx.write(msg, promise);
+        }
+
+        @Override
+        public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
+            return ctx.writeAndFlush(msg, promise);
+        }
+
+        @Override
+        public ChannelFuture writeAndFlush(Object msg) {
+            return ctx.writeAndFlush(msg);
+        }
+
+        @Override
+        public ChannelPromise newPromise() {
+            return ctx.newPromise();
+        }
+
+        @Override
+        public ChannelProgressivePromise newProgressivePromise() {
+            return ctx.newProgressivePromise();
+        }
+
+        @Override
+        public ChannelFuture newSucceededFuture() {
+            return ctx.newSucceededFuture();
+        }
+
+        @Override
+        public ChannelFuture newFailedFuture(Throwable cause) {
+            return ctx.newFailedFuture(cause);
+        }
+
+        @Override
+        public ChannelPromise voidPromise() {
+            return ctx.voidPromise();
+        }
+
+    }
+
+}
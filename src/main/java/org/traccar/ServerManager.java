@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2012 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,14 +20,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
 import org.traccar.helper.ClassScanner;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.BindException;
 import java.net.ConnectException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -35,27 +40,34 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Singleton
 public class ServerManager implements LifecycleObject {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerManager.class);
 
+    /**
+     * Protocol class names generated at build time, so that only configured protocols are loaded.
+     */
+    private static final String PROTOCOL_INDEX = "/META-INF/traccar/protocols";
+
     private final List<TrackerConnector> connectorList = new LinkedList<>();
     private final Map<String, BaseProtocol> protocolList = new ConcurrentHashMap<>();
 
     @Inject
     public ServerManager(
             Injector injector, Config config) throws IOException, URISyntaxException, ReflectiveOperationException {
+        EventLoopGroupFactory.initialize(config, injector.getInstance(MetricsManager.class));
         Set<String> enabledProtocols = null;
         if (config.hasKey(Keys.PROTOCOLS_ENABLE)) {
             enabledProtocols = new HashSet<>(Arrays.asList(config.getString(Keys.PROTOCOLS_ENABLE).split("[, ]")));
         }
-        for (Class<?> protocolClass : ClassScanner.findSubclasses(BaseProtocol.class, "org.traccar.protocol")) {
-            String protocolName = BaseProtocol.nameFromClass(protocolClass);
+        for (String protocolClassName : getProtocolClassNames()) {
+            String protocolName = BaseProtocol.nameFromClassName(protocolClassName);
             if (enabledProtocols == null || enabledProtocols.contains(protocolName)) {
                 if (config.hasKey(Keys.PROTOCOL_PORT.withPrefix(protocolName))) {
-                    BaseProtocol protocol = (BaseProtocol) injector.getInstance(protocolClass);
+                    BaseProtocol protocol = (BaseProtocol) injector.getInstance(Class.forName(protocolClassName));
                     connectorList.addAll(protocol.getConnectorList());
                     protocolList.put(protocol.getName(), protocol);
                 }
@@ -63,6 +75,20 @@ public class ServerManager implements LifecycleObject {
         }
     }
 
+    static List<String> getProtocolClassNames()
+            throws IOException, URISyntaxException, ReflectiveOperationException {
+        try (InputStream inputStream = ServerManager.class.getResourceAsStream(PROTOCOL_INDEX)) {
+            if (inputStream != null) {
+                var reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+                return reader.lines().filter(line -> !line.isBlank()).collect(Collectors.toList());
+            }
+        }
+        LOGGER.info("Protocol index not found, scanning classes");
+        return ClassScanner.findSubclasses(BaseProtocol.class, "org.traccar.protocol").stream()
+                .map(Class::getName)
+                .collect(Collectors.toList());
+    }
+
     public BaseProtocol getProtocol(String name) {
         return protocolList.get(name);
     }
@@ -88,6 +114,7 @@ public class ServerManager implements LifecycleObject {
             }
         } finally {
             GlobalTimer.release();
+            EventLoopGroupFactory.release();
         }
     }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2012 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,10 +19,10 @@ import io.netty.bootstrap.AbstractBootstrap;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import org.traccar.config.Config;
@@ -36,6 +36,7 @@ public abstract class TrackerServer implements TrackerConnector {
 
     private final boolean datagram;
     private final boolean secure;
+    private final int datagramChannels;
 
     @SuppressWarnings("rawtypes")
     private final AbstractBootstrap bootstrap;
@@ -59,6 +60,7 @@ public abstract class TrackerServer implements TrackerConnector {
         secure = config.getBoolean(Keys.PROTOCOL_SSL.withPrefix(protocol));
         address = config.getString(Keys.PROTOCOL_ADDRESS.withPrefix(protocol));
         port = config.getInteger(Keys.PROTOCOL_PORT.withPrefix(protocol));
+        this.datagram = datagram;
 
         BasePipelineFactory pipelineFactory = new BasePipelineFactory(this, config, protocol) {
             @Override
@@ -79,16 +81,21 @@ public abstract class TrackerServer implements TrackerConnector {
             }
         };
 
-        this.datagram = datagram;
         if (datagram) {
+            EventLoopGroup workerGroup = EventLoopGroupFactory.getWorkerGroup(protocol);
+            datagramChannels = EventLoopGroupFactory.getDatagramChannels(workerGroup);
             bootstrap = new Bootstrap()
-                    .group(EventLoopGroupFactory.getWorkerGroup())
-                    .channel(NioDatagramChannel.class)
+                    .group(workerGroup)
+                    .channel(EventLoopGroupFactory.getDatagramChannelClass())
                     .handler(pipelineFactory);
+            if (datagramChannels > 1) {
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
         } else {
+            datagramChannels = 0;
             bootstrap = new ServerBootstrap()
-                    .group(EventLoopGroupFactory.getBossGroup(), EventLoopGroupFactory.getWorkerGroup())
-                    .channel(NioServerSocketChannel.class)
+                    .group(EventLoopGroupFactory.getBossGroup(), EventLoopGroupFactory.getWorkerGroup(protocol))
+                    .channel(EventLoopGroupFactory.getServerChannelClass())
                     .childHandler(pipelineFactory);
         }
     }
@@ -117,9 +124,12 @@ public abstract class TrackerServer implements TrackerConnector {
             endpoint = new InetSocketAddress(address, port);
         }
 
-        Channel channel = bootstrap.bind(endpoint).syncUninterruptibly().channel();
-        if (channel != null) {
-            getChannelGroup().add(channel);
+        int count = datagram ? datagramChannels : 1;
+        for (int i = 0; i < count; i++) {
+            Channel channel = bootstrap.bind(endpoint).syncUninterruptibly().channel();
+            if (channel != null) {
+                getChannelGroup().add(channel);
+            }
         }
     }
 
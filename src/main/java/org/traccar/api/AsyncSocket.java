@@ -21,6 +21,7 @@ import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.traccar.database.MetricsManager;
 import org.traccar.helper.model.PositionUtil;
 import org.traccar.session.ConnectionManager;
 import org.traccar.model.Device;
@@ -33,6 +34,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class AsyncSocket extends WebSocketAdapter implements ConnectionManager.UpdateListener {
 
@@ -46,12 +48,16 @@ public class AsyncSocket extends WebSocketAdapter implements ConnectionManager.U
     private final ConnectionManager connectionManager;
     private final Storage storage;
     private final long userId;
+    private final MetricsManager.Histogram updateLag;
 
-    public AsyncSocket(ObjectMapper objectMapper, ConnectionManager connectionManager, Storage storage, long userId) {
+    public AsyncSocket(
+            ObjectMapper objectMapper, ConnectionManager connectionManager, Storage storage, long userId,
+            MetricsManager.Histogram updateLag) {
         this.objectMapper = objectMapper;
         this.connectionManager = connectionManager;
         this.storage = storage;
         this.userId = userId;
+        this.updateLag = updateLag;
     }
 
     @Override
@@ -92,6 +98,10 @@ public class AsyncSocket extends WebSocketAdapter implements ConnectionManager.U
         Map<String, Collection<?>> data = new HashMap<>();
         data.put(KEY_POSITIONS, Collections.singletonList(position));
         sendData(data);
+        if (updateLag != null && position.getServerTime() != null) {
+            long lag = System.currentTimeMillis() - position.getServerTime().getTime();
+            updateLag.record(TimeUnit.MILLISECONDS.toNanos(lag));
+        }
     }
 
     @Override
@@ -21,6 +21,7 @@ import org.eclipse.jetty.websocket.server.JettyWebSocketServletFactory;
 import org.traccar.api.resource.SessionResource;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
 import org.traccar.session.ConnectionManager;
 import org.traccar.storage.Storage;
 
@@ -36,14 +37,18 @@ public class AsyncSocketServlet extends JettyWebSocketServlet {
     private final ObjectMapper objectMapper;
     private final ConnectionManager connectionManager;
     private final Storage storage;
+    private final MetricsManager.Histogram updateLag;
 
     @Inject
     public AsyncSocketServlet(
-            Config config, ObjectMapper objectMapper, ConnectionManager connectionManager, Storage storage) {
+            Config config, ObjectMapper objectMapper, ConnectionManager connectionManager, Storage storage,
+            MetricsManager metricsManager) {
         this.config = config;
         this.objectMapper = objectMapper;
         this.connectionManager = connectionManager;
         this.storage = storage;
+        this.updateLag = metricsManager.histogram(
+                "traccar_websocket_lag_seconds", "Time from position receipt to websocket update");
     }
 
     @Override
@@ -53,7 +58,7 @@ public class AsyncSocketServlet extends JettyWebSocketServlet {
             if (req.getSession() != null) {
                 Long userId = (Long) ((HttpSession) req.getSession()).getAttribute(SessionResource.USER_ID_KEY);
                 if (userId != null) {
-                    return new AsyncSocket(objectMapper, connectionManager, storage, userId);
+                    return new AsyncSocket(objectMapper, connectionManager, storage, userId, updateLag);
                 }
             }
             return null;
@@ -23,6 +23,7 @@ import org.traccar.model.Group;
 import org.traccar.model.Permission;
 import org.traccar.model.User;
 import org.traccar.session.ConnectionManager;
+import org.traccar.session.LivenessTracker;
 import org.traccar.session.cache.CacheManager;
 import org.traccar.storage.StorageException;
 import org.traccar.storage.query.Columns;
@@ -46,6 +47,9 @@ public abstract class BaseObjectResource<T extends BaseModel> extends BaseResour
     @Inject
     private ConnectionManager connectionManager;
 
+    @Inject
+    private LivenessTracker livenessTracker;
+
     protected final Class<T> baseClass;
 
     public BaseObjectResource(Class<T> baseClass) {
@@ -111,6 +115,7 @@ public abstract class BaseObjectResource<T extends BaseModel> extends BaseResour
             }
         }
         cacheManager.updateOrInvalidate(true, entity);
+        livenessTracker.invalidateObject(true, baseClass, entity.getId());
         LogAction.edit(getUserId(), entity);
 
         return Response.ok(entity).build();
@@ -124,6 +129,7 @@ public abstract class BaseObjectResource<T extends BaseModel> extends BaseResour
 
         storage.removeObject(baseClass, new Request(new Condition.Equals("id", id)));
         cacheManager.invalidate(baseClass, id);
+        livenessTracker.invalidateObject(true, baseClass, id);
 
         LogAction.remove(getUserId(), baseClass, id);
 
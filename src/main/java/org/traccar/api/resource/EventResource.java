@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 - 2021 Anton Tananaev (anton@traccar.org)
+ * Copyright 2016 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,27 +16,57 @@
 package org.traccar.api.resource;
 
 import org.traccar.api.BaseResource;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
 import org.traccar.model.Device;
 import org.traccar.model.Event;
+import org.traccar.model.UserRestrictions;
+import org.traccar.reports.EventsReportProvider;
 import org.traccar.storage.StorageException;
 import org.traccar.storage.query.Columns;
 import org.traccar.storage.query.Condition;
 import org.traccar.storage.query.Request;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 @Path("events")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class EventResource extends BaseResource {
 
+    @Inject
+    private Config config;
+
+    @Inject
+    private EventsReportProvider eventsReportProvider;
+
+    @GET
+    public Collection<Event> get(
+            @QueryParam("deviceId") long deviceId, @QueryParam("type") List<String> types,
+            @QueryParam("from") Date from, @QueryParam("to") Date to,
+            @QueryParam("afterTime") Date afterTime, @QueryParam("afterId") long afterId,
+            @QueryParam("limit") int limit) throws StorageException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit is required");
+        }
+        limit = Math.min(limit, config.getInteger(Keys.WEB_PAGE_LIMIT));
+        permissionsService.checkPermission(Device.class, getUserId(), deviceId);
+        permissionsService.checkRestriction(getUserId(), UserRestrictions::getDisableReports);
+        return eventsReportProvider.getPage(getUserId(), deviceId, types, from, to, afterTime, afterId, limit);
+    }
+
     @Path("{id}")
     @GET
     public Event get(@PathParam("id") long id) throws StorageException {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2015 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,11 @@
 package org.traccar.api.resource;
 
 import org.traccar.api.BaseResource;
+import org.traccar.api.CborMessageBodyWriter;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.database.ImportManager;
+import org.traccar.helper.LogAction;
 import org.traccar.helper.model.PositionUtil;
 import org.traccar.model.Device;
 import org.traccar.model.Position;
@@ -32,6 +37,7 @@ import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
@@ -40,17 +46,23 @@ import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.LinkedList;
+import java.util.stream.Collectors;
 
 @Path("positions")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class PositionResource extends BaseResource {
 
+    @Inject
+    private Config config;
+
     @Inject
     private KmlExportProvider kmlExportProvider;
 
@@ -60,10 +72,17 @@ public class PositionResource extends BaseResource {
     @Inject
     private GpxExportProvider gpxExportProvider;
 
+    @Inject
+    private ImportManager importManager;
+
     @GET
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.MEDIA_TYPE})
     public Collection<Position> getJson(
             @QueryParam("deviceId") long deviceId, @QueryParam("id") List<Long> positionIds,
-            @QueryParam("from") Date from, @QueryParam("to") Date to)
+            @QueryParam("from") Date from, @QueryParam("to") Date to,
+            @QueryParam("tolerance") double tolerance, @QueryParam("maxPoints") int maxPoints,
+            @QueryParam("afterTime") Date afterTime, @QueryParam("afterId") long afterId,
+            @QueryParam("limit") int limit)
             throws StorageException {
         if (!positionIds.isEmpty()) {
             var positions = new ArrayList<Position>();
@@ -76,9 +95,14 @@ public class PositionResource extends BaseResource {
             return positions;
         } else if (deviceId > 0) {
             permissionsService.checkPermission(Device.class, getUserId(), deviceId);
-            if (from != null && to != null) {
+            if (limit > 0) {
+                permissionsService.checkRestriction(getUserId(), UserRestrictions::getDisableReports);
+                return PositionUtil.getPositionsPage(
+                        storage, deviceId, from, to, afterTime, afterId,
+                        Math.min(limit, config.getInteger(Keys.WEB_PAGE_LIMIT)));
+            } else if (from != null && to != null) {
                 permissionsService.checkRestriction(getUserId(), UserRestrictions::getDisableReports);
-                return PositionUtil.getPositions(storage, deviceId, from, to);
+                return PositionUtil.getPositions(storage, deviceId, from, to, tolerance, maxPoints);
             } else {
                 return storage.getObjects(Position.class, new Request(
                         new Columns.All(), new Condition.LatestPositions(deviceId)));
@@ -103,6 +127,49 @@ public class PositionResource extends BaseResource {
         return Response.status(Response.Status.NO_CONTENT).build();
     }
 
+    private ImportManager.Progress importPositions(
+            ImportManager.PositionReader reader) throws StorageException {
+        permissionsService.checkRestriction(getUserId(), UserRestrictions::getReadonly);
+        long userId = getUserId();
+        var progress = importManager.importPositions(
+                userId, id -> permissionsService.checkPermission(Device.class, userId, id), reader);
+        LogAction.importPositions(userId, progress.getDeviceIds(), progress.getStored(), progress.getRejected());
+        return progress;
+    }
+
+    @Path("import")
+    @POST
+    @Consumes({"application/x-ndjson", MediaType.APPLICATION_JSON})
+    public ImportManager.Progress importJson(
+            @QueryParam("deviceId") long deviceId, InputStream input) throws StorageException, IOException {
+        return importPositions(importManager.createJsonReader(input, deviceId));
+    }
+
+    @Path("import")
+    @POST
+    @Consumes("text/csv")
+    public ImportManager.Progress importCsv(
+            @QueryParam("deviceId") long deviceId, InputStream input) throws StorageException, IOException {
+        return importPositions(importManager.createCsvReader(input, deviceId));
+    }
+
+    @Path("import")
+    @POST
+    @Consumes("application/gpx+xml")
+    public ImportManager.Progress importGpx(
+            @QueryParam("deviceId") long deviceId, InputStream input) throws StorageException, IOException {
+        return importPositions(importManager.createGpxReader(input, deviceId));
+    }
+
+    @Path("import")
+    @GET
+    public Collection<ImportManager.Progress> getImports() throws StorageException {
+        boolean admin = !permissionsService.notAdmin(getUserId());
+        return importManager.getImports().stream()
+                .filter(progress -> admin || progress.getUserId() == getUserId())
+                .collect(Collectors.toList());
+    }
+
     @Path("kml")
     @GET
     @Produces("application/vnd.google-earth.kml+xml")
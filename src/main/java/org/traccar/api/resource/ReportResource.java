@@ -16,6 +16,7 @@
  */
 package org.traccar.api.resource;
 
+import org.traccar.api.CborMessageBodyWriter;
 import org.traccar.api.SimpleObjectResource;
 import org.traccar.helper.LogAction;
 import org.traccar.model.Event;
@@ -51,6 +52,7 @@ import jakarta.ws.rs.core.StreamingOutput;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Path("reports")
 @Produces(MediaType.APPLICATION_JSON)
@@ -119,10 +121,28 @@ public class ReportResource extends SimpleObjectResource<Report> {
             @QueryParam("deviceId") List<Long> deviceIds,
             @QueryParam("groupId") List<Long> groupIds,
             @QueryParam("from") Date from,
-            @QueryParam("to") Date to) throws StorageException {
+            @QueryParam("to") Date to,
+            @QueryParam("tolerance") double tolerance,
+            @QueryParam("maxPoints") int maxPoints) throws StorageException {
+        permissionsService.checkRestriction(getUserId(), UserRestrictions::getDisableReports);
+        LogAction.logReport(getUserId(), "route", from, to, deviceIds, groupIds);
+        return routeReportProvider.getObjects(getUserId(), deviceIds, groupIds, from, to, tolerance, maxPoints);
+    }
+
+    @Path("route")
+    @GET
+    @Produces(CborMessageBodyWriter.MEDIA_TYPE)
+    public Stream<Position> getRouteStream(
+            @QueryParam("deviceId") List<Long> deviceIds,
+            @QueryParam("groupId") List<Long> groupIds,
+            @QueryParam("from") Date from,
+            @QueryParam("to") Date to,
+            @QueryParam("tolerance") double tolerance,
+            @QueryParam("maxPoints") int maxPoints) throws StorageException {
         permissionsService.checkRestriction(getUserId(), UserRestrictions::getDisableReports);
         LogAction.logReport(getUserId(), "route", from, to, deviceIds, groupIds);
-        return routeReportProvider.getObjects(getUserId(), deviceIds, groupIds, from, to);
+        return routeReportProvider.getObjectsStream(
+                getUserId(), deviceIds, groupIds, from, to, tolerance, maxPoints);
     }
 
     @Path("route")
@@ -18,6 +18,7 @@ package org.traccar.api.resource;
 import org.traccar.api.BaseResource;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.database.MessageLogManager;
 import org.traccar.database.OpenIdProvider;
 import org.traccar.geocoder.Geocoder;
 import org.traccar.helper.Log;
@@ -37,6 +38,8 @@ import jakarta.annotation.Nullable;
 import jakarta.annotation.security.PermitAll;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
@@ -54,7 +57,10 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 @Path("server")
 @Produces(MediaType.APPLICATION_JSON)
@@ -82,6 +88,9 @@ public class ServerResource extends BaseResource {
     @Nullable
     private Geocoder geocoder;
 
+    @Inject
+    private MessageLogManager messageLogManager;
+
     @PermitAll
     @GET
     public Server get() throws StorageException {
@@ -132,6 +141,31 @@ public class ServerResource extends BaseResource {
         return Arrays.asList(TimeZone.getAvailableIDs());
     }
 
+    @Path("trace")
+    @GET
+    public Map<Long, Date> getTraces() throws StorageException {
+        permissionsService.checkAdmin(getUserId());
+        return messageLogManager.getTraces();
+    }
+
+    @Path("trace/{deviceId}")
+    @POST
+    public Response startTrace(
+            @PathParam("deviceId") long deviceId,
+            @QueryParam("duration") @DefaultValue("600") long duration) throws StorageException {
+        permissionsService.checkAdmin(getUserId());
+        messageLogManager.startTrace(deviceId, duration, TimeUnit.SECONDS);
+        return Response.noContent().build();
+    }
+
+    @Path("trace/{deviceId}")
+    @DELETE
+    public Response stopTrace(@PathParam("deviceId") long deviceId) throws StorageException {
+        permissionsService.checkAdmin(getUserId());
+        messageLogManager.stopTrace(deviceId);
+        return Response.noContent().build();
+    }
+
     @Path("file/{path}")
     @POST
     @Consumes("*/*")
@@ -16,6 +16,7 @@
 package org.traccar.api.resource;
 
 import org.traccar.api.BaseResource;
+import org.traccar.database.StatisticsManager;
 import org.traccar.model.Statistics;
 import org.traccar.storage.StorageException;
 import org.traccar.storage.query.Columns;
@@ -23,6 +24,7 @@ import org.traccar.storage.query.Condition;
 import org.traccar.storage.query.Order;
 import org.traccar.storage.query.Request;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
@@ -31,12 +33,16 @@ import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
 @Path("statistics")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class StatisticsResource extends BaseResource {
 
+    @Inject
+    private StatisticsManager statisticsManager;
+
     @GET
     public Collection<Statistics> get(
             @QueryParam("from") Date from, @QueryParam("to") Date to) throws StorageException {
@@ -47,4 +53,11 @@ public class StatisticsResource extends BaseResource {
                 new Order("captureTime")));
     }
 
+    @Path("rates")
+    @GET
+    public Map<String, Map<String, Double>> getRates() throws StorageException {
+        permissionsService.checkAdmin(getUserId());
+        return statisticsManager.getRates();
+    }
+
 }
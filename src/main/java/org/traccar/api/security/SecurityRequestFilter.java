@@ -22,6 +22,7 @@ import org.traccar.api.resource.SessionResource;
 import org.traccar.database.StatisticsManager;
 import org.traccar.helper.DataConverter;
 import org.traccar.model.User;
+import org.traccar.storage.ReplicaRouting;
 import org.traccar.storage.StorageException;
 
 import jakarta.annotation.security.PermitAll;
@@ -67,6 +68,9 @@ public class SecurityRequestFilter implements ContainerRequestFilter {
     @Inject
     private Injector injector;
 
+    @Inject
+    private ReplicaRouting replicaRouting;
+
     @Override
     public void filter(ContainerRequestContext requestContext) {
 
@@ -117,6 +121,7 @@ public class SecurityRequestFilter implements ContainerRequestFilter {
 
         if (securityContext != null) {
             requestContext.setSecurityContext(securityContext);
+            replicaRouting.setUserId(((UserPrincipal) securityContext.getUserPrincipal()).getUserId());
         } else {
             Method method = resourceInfo.getResourceMethod();
             if (!method.isAnnotationPresent(PermitAll.class)) {
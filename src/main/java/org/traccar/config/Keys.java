@@ -69,6 +69,13 @@ public final class Keys {
             ".timeout",
             List.of(KeyType.CONFIG));
 
+    /**
+     * Message logging sampling for the protocol. Overrides global 'logger.sampling' value.
+     */
+    public static final ConfigSuffix<Integer> PROTOCOL_LOGGER_SAMPLING = new IntegerConfigSuffix(
+            ".loggerSampling",
+            List.of(KeyType.CONFIG));
+
     /**
      * Device password. Commonly used in some protocol for sending commands.
      */
@@ -292,6 +299,15 @@ public final class Keys {
             List.of(KeyType.CONFIG, KeyType.DEVICE),
             false);
 
+    /**
+     * Name of the event loop group handling protocol connections. Protocols with the same group name share threads,
+     * so a noisy protocol can be isolated from others. Group threads are configured with 'network.eventLoop.[name]'
+     * keys. By default protocols use the shared worker group.
+     */
+    public static final ConfigSuffix<String> PROTOCOL_EVENT_LOOP = new StringConfigSuffix(
+            ".eventLoop",
+            List.of(KeyType.CONFIG));
+
     /**
      * Server wide connection timeout value in seconds. See protocol timeout for more information.
      */
@@ -314,6 +330,68 @@ public final class Keys {
             "server.statistics",
             List.of(KeyType.CONFIG));
 
+    /**
+     * Network transport used for device connections. Possible values are 'nio' and 'epoll'. Native epoll transport is
+     * only available on Linux. If it can't be loaded, server falls back to 'nio'.
+     */
+    public static final ConfigKey<String> NETWORK_TRANSPORT = new StringConfigKey(
+            "network.transport",
+            List.of(KeyType.CONFIG),
+            "nio");
+
+    /**
+     * Number of threads accepting TCP connections. Accepting is cheap, so by default a single thread serves all ports.
+     */
+    public static final ConfigKey<Integer> NETWORK_BOSS_THREADS = new IntegerConfigKey(
+            "network.bossThreads",
+            List.of(KeyType.CONFIG),
+            1);
+
+    /**
+     * Number of threads processing device connections. By default it's two times the number of CPU cores.
+     */
+    public static final ConfigKey<Integer> NETWORK_WORKER_THREADS = new IntegerConfigKey(
+            "network.workerThreads",
+            List.of(KeyType.CONFIG),
+            0);
+
+    /**
+     * Number of threads in a protocol event loop group. Used with 'network.eventLoop.[name]' prefix.
+     */
+    public static final ConfigSuffix<Integer> NETWORK_EVENT_LOOP_THREADS = new IntegerConfigSuffix(
+            ".threads",
+            List.of(KeyType.CONFIG),
+            1);
+
+    /**
+     * Thread priority of a protocol event loop group from 1 to 10, e.g. higher for groups handling alarm-bearing
+     * protocols. Used with 'network.eventLoop.[name]' prefix. Only has effect if the JVM applies thread priorities on
+     * the platform.
+     */
+    public static final ConfigSuffix<Integer> NETWORK_EVENT_LOOP_PRIORITY = new IntegerConfigSuffix(
+            ".priority",
+            List.of(KeyType.CONFIG),
+            Thread.NORM_PRIORITY);
+
+    /**
+     * Number of sockets bound to each UDP port with SO_REUSEPORT, so that the kernel distributes datagrams between
+     * worker threads. Only used with epoll transport. By default it's equal to the number of threads in the event loop
+     * group serving the protocol.
+     */
+    public static final ConfigKey<Integer> NETWORK_DATAGRAM_CHANNELS = new IntegerConfigKey(
+            "network.datagramChannels",
+            List.of(KeyType.CONFIG),
+            0);
+
+    /**
+     * Enable live metrics. Metrics are available to administrators in Prometheus text format on the `/api/metrics`
+     * endpoint. They include per-handler processing latency, message rates per protocol, database query and connection
+     * pool timings, forwarding queue sizes and websocket update lag.
+     */
+    public static final ConfigKey<Boolean> METRICS_ENABLE = new BooleanConfigKey(
+            "metrics.enable",
+            List.of(KeyType.CONFIG));
+
     /**
      * Fuel drop threshold value. When fuel level drops from one position to another for more the value, an event is
      * generated.
@@ -466,6 +544,32 @@ public final class Keys {
             "database.maxPoolSize",
             List.of(KeyType.CONFIG));
 
+    /**
+     * Time in seconds to wait for a connection from the main pool, which is used for processing positions and by
+     * workloads without a dedicated pool.
+     */
+    public static final ConfigKey<Integer> DATABASE_CONNECTION_TIMEOUT = new IntegerConfigKey(
+            "database.connectionTimeout",
+            List.of(KeyType.CONFIG),
+            30);
+
+    /**
+     * Size of a dedicated connection pool for a workload. Used with 'database.pool.[name]' prefix, where name is
+     * 'api', 'reports' or 'background'. Workloads without a configured size share the main pool.
+     */
+    public static final ConfigSuffix<Integer> DATABASE_POOL_MAX_SIZE = new IntegerConfigSuffix(
+            ".maxPoolSize",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Time in seconds to wait for a connection from a dedicated workload pool. Used with 'database.pool.[name]'
+     * prefix.
+     */
+    public static final ConfigSuffix<Integer> DATABASE_POOL_CONNECTION_TIMEOUT = new IntegerConfigSuffix(
+            ".connectionTimeout",
+            List.of(KeyType.CONFIG),
+            30);
+
     /**
      * SQL query to check connection status. Default value is 'SELECT 1'. For Oracle database you can use
      * 'SELECT 1 FROM DUAL'.
@@ -475,6 +579,64 @@ public final class Keys {
             List.of(KeyType.CONFIG),
             "SELECT 1");
 
+    /**
+     * Read replica connection URL. If set, reports, exports and read-only API requests are served from the replica.
+     * The replica has to use the same driver as the primary database.
+     */
+    public static final ConfigKey<String> DATABASE_REPLICA_URL = new StringConfigKey(
+            "database.replica.url",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Read replica user name. By default the primary database user is used.
+     */
+    public static final ConfigKey<String> DATABASE_REPLICA_USER = new StringConfigKey(
+            "database.replica.user",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Read replica user password. By default the primary database password is used.
+     */
+    public static final ConfigKey<String> DATABASE_REPLICA_PASSWORD = new StringConfigKey(
+            "database.replica.password",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Time in seconds after a user modifies data during which reads of that user still go to the primary database,
+     * so that changes are visible despite replication lag.
+     */
+    public static final ConfigKey<Integer> DATABASE_REPLICA_PRIMARY_WINDOW = new IntegerConfigKey(
+            "database.replica.primaryWindow",
+            List.of(KeyType.CONFIG),
+            10);
+
+    /**
+     * Number of rows fetched from the database at a time for streamed queries. Some drivers also require cursor
+     * support to be enabled in the connection URL (for example, 'useCursorFetch=true' for MySQL). PostgreSQL only
+     * uses the fetch size outside of auto-commit mode, so streamed queries disable it while the result is open.
+     */
+    public static final ConfigKey<Integer> DATABASE_FETCH_SIZE = new IntegerConfigKey(
+            "database.fetchSize",
+            List.of(KeyType.CONFIG),
+            1000);
+
+    /**
+     * Maximum time in seconds a streamed query can keep its connection and cursor open. Reading is aborted and the
+     * connection is returned to the pool when the time runs out. Zero disables the limit.
+     */
+    public static final ConfigKey<Integer> DATABASE_STREAM_TIMEOUT = new IntegerConfigKey(
+            "database.streamTimeout",
+            List.of(KeyType.CONFIG),
+            600);
+
+    /**
+     * Number of positions written in one batch and transaction by the position import API.
+     */
+    public static final ConfigKey<Integer> DATABASE_IMPORT_BATCH_SIZE = new IntegerConfigKey(
+            "database.importBatchSize",
+            List.of(KeyType.CONFIG),
+            5000);
+
     /**
      * Store original HEX or string data as "raw" attribute in the corresponding position.
      */
@@ -532,6 +694,23 @@ public final class Keys {
             "database.saveEmpty",
             List.of(KeyType.CONFIG));
 
+    /**
+     * Store position attributes in compact binary form instead of JSON. Keys are replaced with dictionary ids and
+     * values are encoded as binary. Both formats are always readable, so the option can be changed at any time.
+     */
+    public static final ConfigKey<Boolean> DATABASE_COMPACT_ATTRIBUTES = new BooleanConfigKey(
+            "database.compactAttributes",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Convert attributes of existing positions to the currently configured format in the background. Rows are
+     * processed in small batches by id, so it can run on a live system. Progress is saved, so the conversion resumes
+     * after a restart.
+     */
+    public static final ConfigKey<Boolean> DATABASE_COMPACT_ATTRIBUTES_MIGRATE = new BooleanConfigKey(
+            "database.compactAttributes.migrate",
+            List.of(KeyType.CONFIG));
+
     /**
      * Device limit for self registered users. Default value is -1, which indicates no limit.
      */
@@ -762,6 +941,14 @@ public final class Keys {
             List.of(KeyType.CONFIG),
             600);
 
+    /**
+     * Maximum number of items in one page of positions or events. Larger requested limits are reduced to this value.
+     */
+    public static final ConfigKey<Integer> WEB_PAGE_LIMIT = new IntegerConfigKey(
+            "web.pageLimit",
+            List.of(KeyType.CONFIG),
+            10000);
+
     /**
      * Sanitize all strings returned via API. This is needed to fix XSS issues in the old web interface. New React-based
      * interface doesn't require this.
@@ -858,6 +1045,15 @@ public final class Keys {
             "server.forward",
             List.of(KeyType.CONFIG));
 
+    /**
+     * Maximum amount of raw data in bytes buffered for each forwarded connection. Data received while the buffer is
+     * full, for example when the forwarding target is slow or unavailable, is dropped. Default is 64 KB.
+     */
+    public static final ConfigKey<Integer> SERVER_FORWARD_BUFFER = new IntegerConfigKey(
+            "server.forward.buffer",
+            List.of(KeyType.CONFIG),
+            64 * 1024);
+
     /**
      * Position forwarding format. Available options are "url", "json" and "kafka". Default is "url".
      */
@@ -1479,6 +1675,50 @@ public final class Keys {
             "processing.remoteAddress.enable",
             List.of(KeyType.CONFIG));
 
+    /**
+     * Number of recent positions kept in memory for each connected device. Filtering, duplicate detection and distance
+     * calculation use them for out of order data instead of querying the database. Disabled by default.
+     */
+    public static final ConfigKey<Integer> PROCESSING_POSITION_HISTORY = new IntegerConfigKey(
+            "processing.positionHistory",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Positions with device time older than this number of seconds are processed as backlog. Backlog positions skip
+     * speed limit lookup, event handlers and live updates, and reverse geocoding is done later in the background.
+     * Disabled by default.
+     */
+    public static final ConfigKey<Long> PROCESSING_BACKLOG_THRESHOLD = new LongConfigKey(
+            "processing.backlog.threshold",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Maximum number of backlog positions waiting for background reverse geocoding. Positions are not geocoded if the
+     * queue is full.
+     */
+    public static final ConfigKey<Integer> PROCESSING_BACKLOG_QUEUE = new IntegerConfigKey(
+            "processing.backlog.queue",
+            List.of(KeyType.CONFIG),
+            10000);
+
+    /**
+     * Pass positions decoded from one multi-record message through processing as a batch and store them with a single
+     * database insert. Only the latest position of each device in the batch updates the device and live clients.
+     * Disabled by default.
+     */
+    public static final ConfigKey<Boolean> PROCESSING_BATCH_ENABLE = new BooleanConfigKey(
+            "processing.batch.enable",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Run position processing and event handlers as a single pipeline entry with direct calls between handlers
+     * instead of adding each handler to every channel pipeline. Reduces memory used by each connection and per message
+     * overhead. Disabled by default.
+     */
+    public static final ConfigKey<Boolean> PROCESSING_FUSED_ENABLE = new BooleanConfigKey(
+            "processing.fused.enable",
+            List.of(KeyType.CONFIG));
+
     /**
      * Enable copying of missing attributes from last position to the current one. Might be useful if device doesn't
      * send some values in every message.
@@ -1838,6 +2078,31 @@ public final class Keys {
             List.of(KeyType.CONFIG),
             "time,position,speed,course,accuracy,result");
 
+    /**
+     * Write raw message and position logs from a background thread instead of network threads. Messages are queued in
+     * a bounded buffer and dropped if logging can't keep up, so logging never slows down processing.
+     */
+    public static final ConfigKey<Boolean> LOGGER_ASYNC = new BooleanConfigKey(
+            "logger.async",
+            List.of(KeyType.CONFIG));
+
+    /**
+     * Asynchronous logging buffer size. Rounded up to a power of two.
+     */
+    public static final ConfigKey<Integer> LOGGER_QUEUE_SIZE = new IntegerConfigKey(
+            "logger.queueSize",
+            List.of(KeyType.CONFIG),
+            65536);
+
+    /**
+     * Log only every Nth raw message and position for each connection and device. Default value is 1, which means
+     * everything is logged. Devices with active tracing are always logged.
+     */
+    public static final ConfigKey<Integer> LOGGER_SAMPLING = new IntegerConfigKey(
+            "logger.sampling",
+            List.of(KeyType.CONFIG),
+            1);
+
     /**
      * Broadcast method. Available options are "multicast" and "redis". By default (if the value is not
      * specified or does not matches available options) server disables broadcast.
@@ -0,0 +1,500 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.handler.DistanceHandler;
+import org.traccar.handler.FilterHandler;
+import org.traccar.helper.DateUtil;
+import org.traccar.helper.UnitsConverter;
+import org.traccar.helper.model.PositionUtil;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+import org.traccar.session.ConnectionManager;
+import org.traccar.session.cache.CacheManager;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Condition;
+import org.traccar.storage.query.Request;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk import of historic positions. Positions are read incrementally, go through distance calculation and filters,
+ * and are stored in batches, so large imports don't need the whole input in memory. Each position is compared with the
+ * previous imported position of the device, or with the stored position preceding it for the first one, never with
+ * the live position, which is usually newer than the imported history.
+ */
+@Singleton
+public class ImportManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportManager.class);
+
+    public interface PositionReader {
+        /**
+         * Next position or null at the end of input. Runtime exception means that the current entry is invalid and
+         * reading can continue with the next one, I/O exception means that the rest of input can't be read.
+         */
+        Position next() throws IOException;
+    }
+
+    public interface DeviceCheck {
+        void check(long deviceId) throws StorageException;
+    }
+
+    public static class Progress {
+
+        private final long id;
+        private final long userId;
+        private final Date startTime = new Date();
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong stored = new AtomicLong();
+        private final AtomicLong filtered = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final Set<Long> deviceIds = ConcurrentHashMap.newKeySet();
+        private volatile String error;
+
+        public Progress(long id, long userId) {
+            this.id = id;
+            this.userId = userId;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public Date getStartTime() {
+            return startTime;
+        }
+
+        public long getReceived() {
+            return received.get();
+        }
+
+        public long getStored() {
+            return stored.get();
+        }
+
+        public long getFiltered() {
+            return filtered.get();
+        }
+
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        public Set<Long> getDeviceIds() {
+            return deviceIds;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+    }
+
+    private final Storage storage;
+    private final CacheManager cacheManager;
+    private final ConnectionManager connectionManager;
+    private final DistanceHandler distanceHandler;
+    private final FilterHandler filterHandler;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    private final AtomicLong lastId = new AtomicLong();
+    private final Map<Long, Progress> imports = new ConcurrentHashMap<>();
+
+    @Inject
+    public ImportManager(
+            Config config, Storage storage, CacheManager cacheManager, ConnectionManager connectionManager,
+            DistanceHandler distanceHandler, FilterHandler filterHandler, ObjectMapper objectMapper) {
+        this.storage = storage;
+        this.cacheManager = cacheManager;
+        this.connectionManager = connectionManager;
+        this.distanceHandler = distanceHandler;
+        this.filterHandler = filterHandler;
+        this.objectMapper = objectMapper;
+        batchSize = config.getInteger(Keys.DATABASE_IMPORT_BATCH_SIZE);
+    }
+
+    /**
+     * Imports that are currently running.
+     */
+    public Collection<Progress> getImports() {
+        return imports.values();
+    }
+
+    /**
+     * Imports positions from the reader. Invalid entries and positions of devices that fail the check are counted as
+     * rejected and skipped. If the input can't be read to the end, positions read so far are still stored and the
+     * error is reported in the progress.
+     */
+    public Progress importPositions(
+            long userId, DeviceCheck deviceCheck, PositionReader reader) throws StorageException {
+
+        Progress progress = new Progress(lastId.incrementAndGet(), userId);
+        imports.put(progress.getId(), progress);
+
+        Set<Long> deviceIds = progress.getDeviceIds();
+        Set<Long> deniedIds = new HashSet<>();
+        Map<Long, Position> precedingPositions = new HashMap<>();
+        Map<Long, Position> latestPositions = new HashMap<>();
+        List<Position> pending = new ArrayList<>(batchSize);
+        Date serverTime = new Date();
+        try {
+            while (true) {
+                Position position;
+                try {
+                    position = reader.next();
+                } catch (IOException e) {
+                    LOGGER.warn("Import input error", e);
+                    progress.error = e.getMessage();
+                    break;
+                } catch (RuntimeException e) {
+                    progress.received.incrementAndGet();
+                    progress.rejected.incrementAndGet();
+                    continue;
+                }
+                if (position == null) {
+                    break;
+                }
+
+                progress.received.incrementAndGet();
+                long deviceId = position.getDeviceId();
+                if (!deviceIds.contains(deviceId)) {
+                    if (deniedIds.contains(deviceId)) {
+                        progress.rejected.incrementAndGet();
+                        continue;
+                    }
+                    try {
+                        deviceCheck.check(deviceId);
+                    } catch (SecurityException e) {
+                        deniedIds.add(deviceId);
+                        progress.rejected.incrementAndGet();
+                        continue;
+                    }
+                    cacheManager.addDevice(deviceId);
+                    deviceIds.add(deviceId);
+                }
+
+                position.setId(0);
+                position.setServerTime(serverTime);
+                if (position.getDeviceTime() == null) {
+                    position.setDeviceTime(position.getFixTime());
+                }
+
+                Position preceding = precedingPositions.get(deviceId);
+                if (preceding == null) {
+                    preceding = PositionUtil.getPrecedingPosition(storage, deviceId, position.getFixTime());
+                }
+                position = distanceHandler.calculateDistance(position, preceding);
+                if (filterHandler.isEnabled() && filterHandler.filterFollowing(position, preceding)) {
+                    progress.filtered.incrementAndGet();
+                    continue;
+                }
+
+                precedingPositions.put(deviceId, position);
+                Position latest = latestPositions.get(deviceId);
+                if (latest == null || position.getFixTime().compareTo(latest.getFixTime()) >= 0) {
+                    latestPositions.put(deviceId, position);
+                }
+                pending.add(position);
+                if (pending.size() >= batchSize) {
+                    store(pending, progress);
+                }
+            }
+            store(pending, progress);
+        } finally {
+            try {
+                for (Position latest : latestPositions.values()) {
+                    updateLatest(latest);
+                }
+            } catch (StorageException e) {
+                LOGGER.warn("Import latest position update error", e);
+            } finally {
+                for (long deviceId : deviceIds) {
+                    cacheManager.removeHistory(deviceId);
+                    cacheManager.removeDevice(deviceId);
+                }
+                imports.remove(progress.getId());
+            }
+        }
+
+        return progress;
+    }
+
+    private void store(List<Position> positions, Progress progress) throws StorageException {
+        if (!positions.isEmpty()) {
+            long[] ids = storage.addObjects(positions, new Request(new Columns.Exclude("id")));
+            for (int i = 0; i < ids.length; i++) {
+                positions.get(i).setId(ids[i]);
+            }
+            progress.stored.addAndGet(ids.length);
+            positions.clear();
+        }
+    }
+
+    private void updateLatest(Position position) throws StorageException {
+        if (position.getId() != 0 && PositionUtil.isLatest(cacheManager, position)) {
+            Device device = new Device();
+            device.setId(position.getDeviceId());
+            device.setPositionId(position.getId());
+            storage.updateObject(device, new Request(
+                    new Columns.Include("positionId"),
+                    new Condition.Equals("id", device.getId())));
+            cacheManager.updatePosition(position);
+            connectionManager.updatePosition(true, position);
+        }
+    }
+
+    /**
+     * Reader for newline delimited JSON positions. Device id is used for positions that don't specify one.
+     */
+    public PositionReader createJsonReader(InputStream inputStream, long deviceId) throws IOException {
+        MappingIterator<Position> iterator = objectMapper.readerFor(Position.class).readValues(inputStream);
+        return () -> {
+            if (!iterator.hasNextValue()) {
+                return null;
+            }
+            Position position;
+            try {
+                position = iterator.nextValue();
+            } catch (JsonMappingException e) {
+                throw new IllegalArgumentException(e);
+            }
+            if (position.getDeviceId() == 0) {
+                position.setDeviceId(deviceId);
+            }
+            if (position.getFixTime() == null) {
+                throw new IllegalArgumentException("Missing fix time");
+            }
+            return position;
+        };
+    }
+
+    /**
+     * Reader for CSV in the position export format. Columns that are not position fields are imported as attributes.
+     */
+    public PositionReader createCsvReader(InputStream inputStream, long deviceId) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return () -> null;
+        }
+        List<String> columns = splitCsv(header);
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            List<String> values = splitCsv(line);
+            Position position = new Position();
+            position.setDeviceId(deviceId);
+            for (int i = 0; i < columns.size() && i < values.size(); i++) {
+                String value = values.get(i);
+                if (!value.isEmpty()) {
+                    setCsvValue(position, columns.get(i), value);
+                }
+            }
+            if (position.getFixTime() == null) {
+                throw new IllegalArgumentException("Missing fix time");
+            }
+            return position;
+        };
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> result = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append(c);
+                    i += 1;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                result.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        result.add(value.toString());
+        return result;
+    }
+
+    private static void setCsvValue(Position position, String column, String value) {
+        switch (column) {
+            case "id":
+            case "serverTime":
+                break;
+            case "deviceId":
+                position.setDeviceId(Long.parseLong(value));
+                break;
+            case "protocol":
+                position.setProtocol(value);
+                break;
+            case "deviceTime":
+                position.setDeviceTime(DateUtil.parseDate(value));
+                break;
+            case "fixTime":
+                position.setFixTime(DateUtil.parseDate(value));
+                break;
+            case "valid":
+                position.setValid(Boolean.parseBoolean(value));
+                break;
+            case "latitude":
+                position.setLatitude(Double.parseDouble(value));
+                break;
+            case "longitude":
+                position.setLongitude(Double.parseDouble(value));
+                break;
+            case "altitude":
+                position.setAltitude(Double.parseDouble(value));
+                break;
+            case "speed":
+                position.setSpeed(Double.parseDouble(value));
+                break;
+            case "course":
+                position.setCourse(Double.parseDouble(value));
+                break;
+            case "address":
+                position.setAddress(value);
+                break;
+            case "accuracy":
+                position.setAccuracy(Double.parseDouble(value));
+                break;
+            default:
+                if (value.equals("true") || value.equals("false")) {
+                    position.set(column, Boolean.parseBoolean(value));
+                } else {
+                    try {
+                        position.set(column, Long.parseLong(value));
+                    } catch (NumberFormatException e) {
+                        try {
+                            position.set(column, Double.parseDouble(value));
+                        } catch (NumberFormatException ignored) {
+                            position.set(column, value);
+                        }
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Reader for GPX track points of one device.
+     */
+    public PositionReader createGpxReader(InputStream inputStream, long deviceId) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader;
+        try {
+            reader = factory.createXMLStreamReader(inputStream);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        return () -> {
+            try {
+                Position position = null;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (name.equals("trkpt")) {
+                            position = new Position();
+                            position.setDeviceId(deviceId);
+                            position.setValid(true);
+                            position.setLatitude(Double.parseDouble(reader.getAttributeValue(null, "lat")));
+                            position.setLongitude(Double.parseDouble(reader.getAttributeValue(null, "lon")));
+                        } else if (position != null) {
+                            switch (name) {
+                                case "ele":
+                                    position.setAltitude(Double.parseDouble(reader.getElementText().trim()));
+                                    break;
+                                case "time":
+                                    position.setTime(DateUtil.parseDate(reader.getElementText().trim()));
+                                    break;
+                                case "speed":
+                                    position.setSpeed(UnitsConverter.knotsFromMps(
+                                            Double.parseDouble(reader.getElementText().trim())));
+                                    break;
+                                case "course":
+                                    position.setCourse(Double.parseDouble(reader.getElementText().trim()));
+                                    break;
+                                default:
+                                    break;
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT
+                            && position != null && reader.getLocalName().equals("trkpt")) {
+                        if (position.getFixTime() == null) {
+                            throw new IllegalArgumentException("Missing track point time");
+                        }
+                        return position;
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.traccar.LifecycleObject;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.session.ConnectionManager;
+import org.traccar.session.DeviceSession;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.net.SocketAddress;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Logging of raw messages and decoded positions. Supports sampling, temporary full tracing of selected devices and
+ * optional asynchronous output, where messages are formatted and written by a background thread. The thread only runs
+ * between start and stop, and the queue is drained when stopping. Outside of that messages are logged directly.
+ */
+@Singleton
+public class MessageLogManager implements LifecycleObject {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageLogManager.class);
+
+    private static final long DROP_REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+    private static final long STOP_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final Config config;
+    private final ConnectionManager connectionManager;
+
+    private final int defaultSampling;
+    private final Map<String, Integer> protocolSampling = new ConcurrentHashMap<>();
+    private final Map<Long, Long> traces = new ConcurrentHashMap<>();
+
+    private final boolean async;
+    private final AtomicReferenceArray<Entry> buffer;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private final LongAdder dropped = new LongAdder();
+    private volatile Thread thread;
+    private volatile boolean waiting;
+
+    private static final class Entry {
+        private final Logger logger;
+        private final Supplier<String> message;
+
+        private Entry(Logger logger, Supplier<String> message) {
+            this.logger = logger;
+            this.message = message;
+        }
+    }
+
+    @Inject
+    public MessageLogManager(Config config, ConnectionManager connectionManager) {
+        this.config = config;
+        this.connectionManager = connectionManager;
+        defaultSampling = Math.max(config.getInteger(Keys.LOGGER_SAMPLING), 1);
+        async = config.getBoolean(Keys.LOGGER_ASYNC);
+        if (async) {
+            int capacity = Integer.highestOneBit(Math.max(config.getInteger(Keys.LOGGER_QUEUE_SIZE) - 1, 1)) << 1;
+            buffer = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        } else {
+            buffer = null;
+            mask = 0;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (async) {
+            Thread thread = new Thread(this::write, "message-logger");
+            thread.setDaemon(true);
+            this.thread = thread;
+            thread.start();
+        }
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        Thread thread = this.thread;
+        if (thread != null) {
+            this.thread = null;
+            LockSupport.unpark(thread);
+            thread.join(STOP_TIMEOUT);
+        }
+    }
+
+    /**
+     * Whether messages are currently written by the background thread.
+     */
+    public boolean isAsync() {
+        return thread != null;
+    }
+
+    /**
+     * Log every Nth message for the protocol.
+     */
+    public int getSampling(String protocol) {
+        if (protocol == null) {
+            return defaultSampling;
+        }
+        return protocolSampling.computeIfAbsent(protocol, key -> {
+            int sampling = config.getInteger(Keys.PROTOCOL_LOGGER_SAMPLING.withPrefix(key));
+            return sampling > 0 ? sampling : defaultSampling;
+        });
+    }
+
+    public void startTrace(long deviceId, long duration, TimeUnit unit) {
+        traces.put(deviceId, System.currentTimeMillis() + unit.toMillis(duration));
+    }
+
+    public void stopTrace(long deviceId) {
+        traces.remove(deviceId);
+    }
+
+    /**
+     * Active traces with expiration time.
+     */
+    public Map<Long, Date> getTraces() {
+        Map<Long, Date> result = new HashMap<>();
+        long now = System.currentTimeMillis();
+        traces.forEach((deviceId, expiration) -> {
+            if (expiration > now) {
+                result.put(deviceId, new Date(expiration));
+            }
+        });
+        return result;
+    }
+
+    public boolean isTraced(long deviceId) {
+        if (traces.isEmpty()) {
+            return false;
+        }
+        Long expiration = traces.get(deviceId);
+        if (expiration == null) {
+            return false;
+        }
+        if (expiration < System.currentTimeMillis()) {
+            traces.remove(deviceId, expiration);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check if any traced device is connected through the given channel and address.
+     */
+    public boolean isTraced(Channel channel, SocketAddress remoteAddress) {
+        if (traces.isEmpty()) {
+            return false;
+        }
+        for (long deviceId : traces.keySet()) {
+            DeviceSession deviceSession = connectionManager.getDeviceSession(deviceId);
+            if (deviceSession != null && deviceSession.getChannel() == channel
+                    && Objects.equals(deviceSession.getRemoteAddress(), remoteAddress)) {
+                return isTraced(deviceId);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Log message at info level. In asynchronous mode the supplier is called on the background thread, so it must
+     * only capture data that doesn't change after this call.
+     */
+    public void log(Logger logger, Supplier<String> message) {
+        Thread thread = this.thread;
+        if (thread == null) {
+            logger.info(message.get());
+            return;
+        }
+        while (true) {
+            long index = head.get();
+            if (index - tail > mask) {
+                dropped.increment();
+                return;
+            }
+            if (head.compareAndSet(index, index + 1)) {
+                buffer.set((int) index & mask, new Entry(logger, message));
+                if (waiting) {
+                    LockSupport.unpark(thread);
+                }
+                return;
+            }
+        }
+    }
+
+    private void write() {
+        long lastReport = System.nanoTime();
+        while (true) {
+            int slot = (int) tail & mask;
+            Entry entry = buffer.get(slot);
+            if (entry != null) {
+                buffer.set(slot, null);
+                tail += 1;
+                try {
+                    entry.logger.info(entry.message.get());
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Message logging error", e);
+                }
+            } else if (thread == null) {
+                break;
+            } else {
+                waiting = true;
+                if (buffer.get(slot) == null && thread != null) {
+                    LockSupport.parkNanos(this, DROP_REPORT_INTERVAL);
+                }
+                waiting = false;
+            }
+            if (System.nanoTime() - lastReport > DROP_REPORT_INTERVAL) {
+                lastReport = System.nanoTime();
+                reportDropped();
+            }
+        }
+        reportDropped();
+    }
+
+    private void reportDropped() {
+        long count = dropped.sumThenReset();
+        if (count > 0) {
+            LOGGER.warn("Message logging buffer full, {} messages dropped", count);
+        }
+    }
+
+}
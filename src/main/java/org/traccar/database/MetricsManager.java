@@ -0,0 +1,236 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.database;
+
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Live server metrics in Prometheus text exposition format. When metrics are disabled, nothing is registered and all
+ * recording methods are no-op, so instrumented code only pays for a boolean check.
+ */
+@Singleton
+public class MetricsManager {
+
+    private static final String TYPE_COUNTER = "counter";
+    private static final String TYPE_GAUGE = "gauge";
+    private static final String TYPE_HISTOGRAM = "histogram";
+
+    private static final double[] BUCKETS = {
+            0.00001, 0.00005, 0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10};
+
+    private final boolean enabled;
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    @Inject
+    public MetricsManager(Config config) {
+        enabled = config.getBoolean(Keys.METRICS_ENABLE);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static final class Counter {
+
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long delta) {
+            value.add(delta);
+        }
+
+    }
+
+    public static final class Histogram {
+
+        private static final long[] BOUNDS = new long[BUCKETS.length];
+
+        static {
+            for (int i = 0; i < BUCKETS.length; i++) {
+                BOUNDS[i] = (long) (BUCKETS[i] * 1_000_000_000L);
+            }
+        }
+
+        private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+        private final LongAdder sum = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Record duration in nanoseconds.
+         */
+        public void record(long nanos) {
+            int index = 0;
+            while (index < BOUNDS.length && nanos > BOUNDS[index]) {
+                index += 1;
+            }
+            counts[index].increment();
+            sum.add(nanos);
+        }
+
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+    }
+
+    private static final class Family {
+
+        private final String type;
+        private final String help;
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        private Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(labels[i]).append("=\"");
+            String value = labels[i + 1] != null ? labels[i + 1] : "";
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    result.append('\\').append(c);
+                } else if (c == '\n') {
+                    result.append("\\n");
+                } else {
+                    result.append(c);
+                }
+            }
+            result.append('"');
+        }
+        return result.toString();
+    }
+
+    private Object register(String name, String type, String help, String[] labels, Supplier<Object> factory) {
+        Family family = families.computeIfAbsent(name, key -> new Family(type, help));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        }
+        return family.series.computeIfAbsent(formatLabels(labels), key -> factory.get());
+    }
+
+    /**
+     * Get or create counter. Labels are name and value pairs. Returns null if metrics are disabled.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        if (!enabled) {
+            return null;
+        }
+        return (Counter) register(name, TYPE_COUNTER, help, labels, Counter::new);
+    }
+
+    /**
+     * Get or create latency histogram. Labels are name and value pairs. Returns null if metrics are disabled.
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        if (!enabled) {
+            return null;
+        }
+        return (Histogram) register(name, TYPE_HISTOGRAM, help, labels, Histogram::new);
+    }
+
+    /**
+     * Register gauge evaluated on every scrape. Existing gauge with the same labels is kept.
+     */
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        if (enabled) {
+            register(name, TYPE_GAUGE, help, labels, () -> supplier);
+        }
+    }
+
+    private static void appendSample(StringBuilder output, String name, String labels, String extra, double value) {
+        output.append(name);
+        if (!labels.isEmpty() || extra != null) {
+            output.append('{').append(labels);
+            if (extra != null) {
+                if (!labels.isEmpty()) {
+                    output.append(',');
+                }
+                output.append(extra);
+            }
+            output.append('}');
+        }
+        output.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            output.append((long) value);
+        } else {
+            output.append(value);
+        }
+        output.append('\n');
+    }
+
+    private static void appendHistogram(StringBuilder output, String name, String labels, Histogram histogram) {
+        long cumulative = 0;
+        for (int i = 0; i < histogram.counts.length; i++) {
+            cumulative += histogram.counts[i].sum();
+            String bound = i < BUCKETS.length ? String.valueOf(BUCKETS[i]) : "+Inf";
+            appendSample(output, name + "_bucket", labels, "le=\"" + bound + "\"", cumulative);
+        }
+        appendSample(output, name + "_sum", labels, null, histogram.sum.sum() / 1e9);
+        appendSample(output, name + "_count", labels, null, cumulative);
+    }
+
+    public String format() {
+        StringBuilder output = new StringBuilder();
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            output.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            output.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                Object metric = series.getValue();
+                if (metric instanceof Counter) {
+                    appendSample(output, name, series.getKey(), null, ((Counter) metric).value.sum());
+                } else if (metric instanceof Histogram) {
+                    appendHistogram(output, name, series.getKey(), (Histogram) metric);
+                } else {
+                    appendSample(output, name, series.getKey(), null, ((DoubleSupplier) metric).getAsDouble());
+                }
+            }
+        }
+        return output.toString();
+    }
+
+}
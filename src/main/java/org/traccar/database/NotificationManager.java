@@ -44,6 +44,8 @@ import jakarta.inject.Singleton;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Singleton
@@ -57,17 +59,24 @@ public class NotificationManager {
     private final NotificatorManager notificatorManager;
     private final Geocoder geocoder;
 
+    private final MetricsManager metricsManager;
+    private final AtomicInteger eventsPending = new AtomicInteger();
+    private final Map<String, MetricsManager.Histogram> histograms = new ConcurrentHashMap<>();
+
     private final boolean geocodeOnRequest;
 
     @Inject
     public NotificationManager(
             Config config, Storage storage, CacheManager cacheManager, @Nullable EventForwarder eventForwarder,
-            NotificatorManager notificatorManager, @Nullable Geocoder geocoder) {
+            NotificatorManager notificatorManager, @Nullable Geocoder geocoder, MetricsManager metricsManager) {
         this.storage = storage;
         this.cacheManager = cacheManager;
         this.eventForwarder = eventForwarder;
         this.notificatorManager = notificatorManager;
         this.geocoder = geocoder;
+        this.metricsManager = metricsManager;
+        metricsManager.gauge("traccar_forward_pending", "Forwarded messages waiting for delivery",
+                eventsPending::get, "type", "event");
         geocodeOnRequest = config.getBoolean(Keys.GEOCODER_ON_REQUEST);
     }
 
@@ -106,10 +115,17 @@ public class NotificationManager {
             notifications.forEach(notification -> {
                 cacheManager.getNotificationUsers(notification.getId(), event.getDeviceId()).forEach(user -> {
                     for (String notificator : notification.getNotificatorsTypes()) {
+                        long startTime = System.nanoTime();
                         try {
                             notificatorManager.getNotificator(notificator).send(notification, user, event, position);
                         } catch (MessageException exception) {
                             LOGGER.warn("Notification failed", exception);
+                        } finally {
+                            if (metricsManager.isEnabled()) {
+                                histograms.computeIfAbsent(notificator, key -> metricsManager.histogram(
+                                        "traccar_notification_duration_seconds", "Notification delivery time",
+                                        "notificator", key)).recordSince(startTime);
+                            }
                         }
                     }
                 });
@@ -131,7 +147,9 @@ public class NotificationManager {
             if (event.getMaintenanceId() != 0) {
                 eventData.setMaintenance(cacheManager.getObject(Maintenance.class, event.getMaintenanceId()));
             }
+            eventsPending.incrementAndGet();
             eventForwarder.forward(eventData, (success, throwable) -> {
+                eventsPending.decrementAndGet();
                 if (!success) {
                     LOGGER.warn("Event forwarding failed", throwable);
                 }
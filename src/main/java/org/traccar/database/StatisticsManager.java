@@ -37,10 +37,12 @@ import jakarta.ws.rs.core.Form;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 @Singleton
 public class StatisticsManager {
@@ -49,6 +51,9 @@ public class StatisticsManager {
 
     private static final int SPLIT_MODE = Calendar.DAY_OF_MONTH;
 
+    private static final int HISTORY_SIZE = 256;
+    private static final int[] RATE_WINDOWS = {1, 5, 15};
+
     private final Config config;
     private final Storage storage;
     private final Client client;
@@ -56,17 +61,42 @@ public class StatisticsManager {
 
     private final AtomicInteger lastUpdate = new AtomicInteger(Calendar.getInstance().get(SPLIT_MODE));
 
-    private final Set<Long> users = new HashSet<>();
-    private final Map<Long, String> deviceProtocols = new HashMap<>();
-    private final Map<Long, Integer> deviceMessages = new HashMap<>();
+    private final Set<Long> users = ConcurrentHashMap.newKeySet();
+    private final Map<Long, String> deviceProtocols = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> deviceMessages = new ConcurrentHashMap<>();
+
+    private static final class Counter {
+
+        private final LongAdder total = new LongAdder();
+        private final long[] history = new long[HISTORY_SIZE];
+        private long dailyBase;
+
+        private void increment() {
+            total.increment();
+        }
+
+        private int takeDaily() {
+            long current = total.sum();
+            int result = (int) (current - dailyBase);
+            dailyBase = current;
+            return result;
+        }
+
+    }
+
+    private final Counter requests = new Counter();
+    private final Counter messagesReceived = new Counter();
+    private final Counter messagesStored = new Counter();
+    private final Counter mailSent = new Counter();
+    private final Counter smsSent = new Counter();
+    private final Counter geocoderRequests = new Counter();
+    private final Counter geolocationRequests = new Counter();
 
-    private int requests;
-    private int messagesReceived;
-    private int messagesStored;
-    private int mailSent;
-    private int smsSent;
-    private int geocoderRequests;
-    private int geolocationRequests;
+    private final Map<String, Counter> counters = new LinkedHashMap<>();
+
+    private final long[] historyTimes = new long[HISTORY_SIZE];
+    private int historyIndex;
+    private int historyCount;
 
     @Inject
     public StatisticsManager(Config config, Storage storage, Client client, ObjectMapper objectMapper) {
@@ -74,6 +104,70 @@ public class StatisticsManager {
         this.storage = storage;
         this.client = client;
         this.objectMapper = objectMapper;
+
+        counters.put("requests", requests);
+        counters.put("messagesReceived", messagesReceived);
+        counters.put("messagesStored", messagesStored);
+        counters.put("mailSent", mailSent);
+        counters.put("smsSent", smsSent);
+        counters.put("geocoderRequests", geocoderRequests);
+        counters.put("geolocationRequests", geolocationRequests);
+    }
+
+    /**
+     * Called periodically by the scheduler. Records counter values for rate calculation and saves daily statistics
+     * when the day changes.
+     */
+    public void update() {
+        synchronized (historyTimes) {
+            historyIndex = (historyIndex + 1) % HISTORY_SIZE;
+            historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+            historyTimes[historyIndex] = System.currentTimeMillis();
+            for (Counter counter : counters.values()) {
+                counter.history[historyIndex] = counter.total.sum();
+            }
+        }
+        checkSplit();
+    }
+
+    /**
+     * Average per second rates over the last 1, 5 and 15 minutes. Until enough history is collected, rates are
+     * calculated over the available period.
+     */
+    public Map<String, Map<String, Double>> getRates() {
+        Map<String, Map<String, Double>> result = new LinkedHashMap<>();
+        synchronized (historyTimes) {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                Counter counter = entry.getValue();
+                long current = counter.total.sum();
+                Map<String, Double> rates = new LinkedHashMap<>();
+                for (int window : RATE_WINDOWS) {
+                    double rate = 0;
+                    if (historyCount > 0) {
+                        int index = findSample(now - window * 60_000L);
+                        long period = now - historyTimes[index];
+                        if (period > 0) {
+                            rate = (current - counter.history[index]) * 1000.0 / period;
+                        }
+                    }
+                    rates.put(window + "m", rate);
+                }
+                result.put(entry.getKey(), rates);
+            }
+        }
+        return result;
+    }
+
+    private int findSample(long time) {
+        int index = historyIndex;
+        for (int i = 1; i < historyCount; i++) {
+            if (historyTimes[index] <= time) {
+                break;
+            }
+            index = (index - 1 + HISTORY_SIZE) % HISTORY_SIZE;
+        }
+        return index;
     }
 
     private void checkSplit() {
@@ -81,39 +175,30 @@ public class StatisticsManager {
         if (lastUpdate.getAndSet(currentUpdate) != currentUpdate) {
             Statistics statistics = new Statistics();
 
-            synchronized (this) {
-                statistics.setCaptureTime(new Date());
-                statistics.setActiveUsers(users.size());
-                statistics.setActiveDevices(deviceProtocols.size());
-                statistics.setRequests(requests);
-                statistics.setMessagesReceived(messagesReceived);
-                statistics.setMessagesStored(messagesStored);
-                statistics.setMailSent(mailSent);
-                statistics.setSmsSent(smsSent);
-                statistics.setGeocoderRequests(geocoderRequests);
-                statistics.setGeolocationRequests(geolocationRequests);
-                if (!deviceProtocols.isEmpty()) {
-                    Map<String, Integer> protocols = new HashMap<>();
-                    for (String protocol : deviceProtocols.values()) {
-                        protocols.compute(protocol, (key, count) -> count != null ? count + 1 : 1);
-                    }
-                    statistics.setProtocols(protocols);
+            statistics.setCaptureTime(new Date());
+            statistics.setActiveUsers(users.size());
+            statistics.setActiveDevices(deviceMessages.size());
+            statistics.setRequests(requests.takeDaily());
+            statistics.setMessagesReceived(messagesReceived.takeDaily());
+            statistics.setMessagesStored(messagesStored.takeDaily());
+            statistics.setMailSent(mailSent.takeDaily());
+            statistics.setSmsSent(smsSent.takeDaily());
+            statistics.setGeocoderRequests(geocoderRequests.takeDaily());
+            statistics.setGeolocationRequests(geolocationRequests.takeDaily());
+            if (!deviceProtocols.isEmpty()) {
+                Map<String, Integer> protocols = new HashMap<>();
+                for (String protocol : deviceProtocols.values()) {
+                    protocols.merge(protocol, 1, Integer::sum);
                 }
-
-                statistics.set("modern", config.getString(Keys.WEB_PATH).contains("modern"));
-
-                users.clear();
-                deviceProtocols.clear();
-                deviceMessages.clear();
-                requests = 0;
-                messagesReceived = 0;
-                messagesStored = 0;
-                mailSent = 0;
-                smsSent = 0;
-                geocoderRequests = 0;
-                geolocationRequests = 0;
+                statistics.setProtocols(protocols);
             }
 
+            statistics.set("modern", config.getString(Keys.WEB_PATH).contains("modern"));
+
+            users.clear();
+            deviceProtocols.clear();
+            deviceMessages.clear();
+
             try {
                 storage.addObject(statistics, new Request(new Columns.Exclude("id")));
             } catch (StorageException e) {
@@ -156,50 +241,50 @@ public class StatisticsManager {
         }
     }
 
-    public synchronized void registerRequest(long userId) {
-        checkSplit();
-        requests += 1;
-        if (userId != 0 && userId != ServiceAccountUser.ID) {
+    public void registerRequest(long userId) {
+        requests.increment();
+        if (userId != 0 && userId != ServiceAccountUser.ID && !users.contains(userId)) {
             users.add(userId);
         }
     }
 
-    public synchronized void registerMessageReceived() {
-        checkSplit();
-        messagesReceived += 1;
+    public void registerMessageReceived() {
+        messagesReceived.increment();
     }
 
-    public synchronized void registerMessageStored(long deviceId, String protocol) {
-        checkSplit();
-        messagesStored += 1;
+    public void registerMessageStored(long deviceId, String protocol) {
+        messagesStored.increment();
         if (deviceId != 0) {
-            deviceProtocols.put(deviceId, protocol);
-            deviceMessages.merge(deviceId, 1, Integer::sum);
+            if (protocol != null && !protocol.equals(deviceProtocols.get(deviceId))) {
+                deviceProtocols.put(deviceId, protocol);
+            }
+            AtomicInteger count = deviceMessages.get(deviceId);
+            if (count == null) {
+                count = deviceMessages.computeIfAbsent(deviceId, key -> new AtomicInteger());
+            }
+            count.incrementAndGet();
         }
     }
 
-    public synchronized int messageStoredCount(long deviceId) {
-        return deviceMessages.getOrDefault(deviceId, 0);
+    public int messageStoredCount(long deviceId) {
+        AtomicInteger count = deviceMessages.get(deviceId);
+        return count != null ? count.get() : 0;
     }
 
-    public synchronized void registerMail() {
-        checkSplit();
-        mailSent += 1;
+    public void registerMail() {
+        mailSent.increment();
     }
 
-    public synchronized void registerSms() {
-        checkSplit();
-        smsSent += 1;
+    public void registerSms() {
+        smsSent.increment();
     }
 
-    public synchronized void registerGeocoderRequest() {
-        checkSplit();
-        geocoderRequests += 1;
+    public void registerGeocoderRequest() {
+        geocoderRequests.increment();
     }
 
-    public synchronized void registerGeolocationRequest() {
-        checkSplit();
-        geolocationRequests += 1;
+    public void registerGeolocationRequest() {
+        geolocationRequests.increment();
     }
 
 }
@@ -15,62 +15,217 @@
  */
 package org.traccar.forward;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.traccar.EventLoopGroupFactory;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.util.HashMap;
+import java.util.ArrayDeque;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Forwards raw data to another host using Netty client channels on the worker group. Each TCP connection is served by
+ * the event loop of its source channel, so connection state is never shared between threads. Data is forwarded as
+ * retained slices of the received buffers without copying. Writes never block; when the target is slow or unavailable,
+ * data over the buffer limit is dropped and counted.
+ */
 @Singleton
 public class NetworkForwarder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NetworkForwarder.class);
 
+    private static final long RETRY_DELAY_MIN = TimeUnit.SECONDS.toMillis(1);
+    private static final long RETRY_DELAY_MAX = TimeUnit.MINUTES.toMillis(1);
+
     private final InetAddress destination;
-    private final DatagramSocket connectionUdp;
-    private final Map<InetSocketAddress, Socket> connectionsTcp = new HashMap<>();
+    private final int bufferSize;
+    private final Bootstrap bootstrap;
+    private final Channel connectionUdp;
+    private final Map<InetSocketAddress, Connection> connectionsTcp = new ConcurrentHashMap<>();
+
+    private final MetricsManager.Counter droppedTcp;
+    private final MetricsManager.Counter droppedUdp;
+
+    @ChannelHandler.Sharable
+    private static final class DiscardHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            LOGGER.warn("Network forwarding error", cause);
+            ctx.close();
+        }
+
+    }
 
     @Inject
-    public NetworkForwarder(Config config) throws IOException {
+    public NetworkForwarder(Config config, MetricsManager metricsManager) throws IOException {
         destination = InetAddress.getByName(config.getString(Keys.SERVER_FORWARD));
-        connectionUdp = new DatagramSocket();
+        bufferSize = config.getInteger(Keys.SERVER_FORWARD_BUFFER);
+
+        DiscardHandler discardHandler = new DiscardHandler();
+        bootstrap = new Bootstrap()
+                .group(EventLoopGroupFactory.getWorkerGroup())
+                .channel(EventLoopGroupFactory.getSocketChannelClass())
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(bufferSize / 2, bufferSize))
+                .handler(discardHandler);
+        ChannelFuture bindFuture = new Bootstrap()
+                .group(EventLoopGroupFactory.getWorkerGroup())
+                .channel(EventLoopGroupFactory.getDatagramChannelClass())
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(bufferSize / 2, bufferSize))
+                .handler(discardHandler)
+                .bind(0)
+                .awaitUninterruptibly();
+        if (!bindFuture.isSuccess()) {
+            throw new IOException("Network forwarding UDP bind error", bindFuture.cause());
+        }
+        connectionUdp = bindFuture.channel();
+
+        String help = "Raw data messages dropped by network forwarding";
+        droppedTcp = metricsManager.counter("traccar_network_forward_dropped_total", help, "transport", "tcp");
+        droppedUdp = metricsManager.counter("traccar_network_forward_dropped_total", help, "transport", "udp");
     }
 
-    public void forward(InetSocketAddress source, int port, boolean datagram, byte[] data) {
-        try {
-            if (datagram) {
-                connectionUdp.send(new DatagramPacket(data, data.length, destination, port));
-            } else {
-                Socket connectionTcp = connectionsTcp.get(source);
-                if (connectionTcp == null || connectionTcp.isClosed()) {
-                    connectionTcp = new Socket(destination, port);
-                    connectionsTcp.put(source, connectionTcp);
+    private static void drop(MetricsManager.Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Connection to the target for one source channel. Only accessed from the event loop of the source channel, which
+     * is also the event loop of the target channel.
+     */
+    private final class Connection {
+
+        private final EventLoop eventLoop;
+        private final int port;
+        private final Queue<ByteBuf> pending = new ArrayDeque<>();
+        private int pendingBytes;
+        private Channel channel;
+        private long retryTime;
+        private long retryDelay = RETRY_DELAY_MIN;
+
+        private Connection(EventLoop eventLoop, int port) {
+            this.eventLoop = eventLoop;
+            this.port = port;
+        }
+
+        private void connect() {
+            ChannelFuture future = bootstrap.clone(eventLoop).connect(new InetSocketAddress(destination, port));
+            channel = future.channel();
+            future.addListener((ChannelFutureListener) result -> {
+                if (result.isSuccess()) {
+                    retryDelay = RETRY_DELAY_MIN;
+                    while (!pending.isEmpty()) {
+                        result.channel().write(pending.poll(), result.channel().voidPromise());
+                    }
+                    pendingBytes = 0;
+                    result.channel().flush();
+                } else {
+                    LOGGER.warn("Network forwarding connection error", result.cause());
+                    retryTime = System.currentTimeMillis() + retryDelay;
+                    retryDelay = Math.min(retryDelay * 2, RETRY_DELAY_MAX);
                 }
-                connectionTcp.getOutputStream().write(data);
+            });
+            future.channel().closeFuture().addListener(result -> {
+                if (channel == future.channel()) {
+                    channel = null;
+                }
+                releasePending();
+            });
+        }
+
+        private void releasePending() {
+            while (!pending.isEmpty()) {
+                pending.poll().release();
+                drop(droppedTcp);
+            }
+            pendingBytes = 0;
+        }
+
+        private void write(ByteBuf data) {
+            if (channel != null && channel.isActive()) {
+                if (channel.isWritable()) {
+                    channel.writeAndFlush(data.retainedSlice(), channel.voidPromise());
+                } else {
+                    drop(droppedTcp);
+                }
+                return;
+            }
+            if (channel == null) {
+                if (System.currentTimeMillis() < retryTime) {
+                    drop(droppedTcp);
+                    return;
+                }
+                connect();
+            }
+            if (pendingBytes + data.readableBytes() <= bufferSize) {
+                pending.add(data.retainedSlice());
+                pendingBytes += data.readableBytes();
+            } else {
+                drop(droppedTcp);
             }
-        } catch (IOException e) {
-            LOGGER.warn("Network forwarding error", e);
         }
+
+        private void close() {
+            releasePending();
+            if (channel != null) {
+                channel.close();
+            }
+        }
+
     }
 
-    public void disconnect(InetSocketAddress source) {
-        Socket connectionTcp = connectionsTcp.remove(source);
-        if (connectionTcp != null) {
-            try {
-                connectionTcp.close();
-            } catch (IOException e) {
-                LOGGER.warn("Connection close error", e);
+    /**
+     * Forward readable bytes of the buffer without changing its indexes. For TCP it must be called from the event loop
+     * of the source channel.
+     */
+    public void forward(EventLoop eventLoop, InetSocketAddress source, int port, boolean datagram, ByteBuf data) {
+        if (datagram) {
+            if (connectionUdp.isActive() && connectionUdp.isWritable()) {
+                connectionUdp.writeAndFlush(
+                        new DatagramPacket(data.retainedSlice(), new InetSocketAddress(destination, port)),
+                        connectionUdp.voidPromise());
+            } else {
+                drop(droppedUdp);
             }
+        } else {
+            connectionsTcp.computeIfAbsent(source, key -> new Connection(eventLoop, port)).write(data);
+        }
+    }
+
+    public void disconnect(InetSocketAddress source) {
+        Connection connection = connectionsTcp.remove(source);
+        if (connection != null) {
+            connection.close();
         }
     }
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.handler;
+
+import io.netty.channel.ChannelHandler;
+import org.traccar.BaseDataHandler;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.model.Position;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+@Singleton
+@ChannelHandler.Sharable
+public class BacklogHandler extends BaseDataHandler {
+
+    private final long threshold;
+
+    @Inject
+    public BacklogHandler(Config config) {
+        threshold = config.getLong(Keys.PROCESSING_BACKLOG_THRESHOLD) * 1000;
+    }
+
+    @Override
+    protected Position handlePosition(Position position) {
+        if (threshold > 0 && (position.getOutdated() || (position.getDeviceTime() != null
+                && position.getDeviceTime().getTime() < System.currentTimeMillis() - threshold))) {
+            position.setBacklog(true);
+        }
+        return position;
+    }
+
+}
@@ -36,8 +36,10 @@ import org.apache.commons.jexl3.MapContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.traccar.BaseDataHandler;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.helper.model.PositionUtil;
 import org.traccar.model.Attribute;
 import org.traccar.model.Device;
 import org.traccar.model.Position;
@@ -85,7 +87,7 @@ public class ComputedAttributesHandler extends BaseDataHandler {
         includeLastAttributes = config.getBoolean(Keys.PROCESSING_COMPUTED_ATTRIBUTES_LAST_ATTRIBUTES);
     }
 
-    private MapContext prepareContext(Position position) {
+    private MapContext prepareContext(Position position, PositionBatch batch) {
         MapContext result = new MapContext();
         if (includeDeviceAttributes) {
             Device device = cacheManager.getObject(Device.class, position.getDeviceId());
@@ -97,7 +99,7 @@ public class ComputedAttributesHandler extends BaseDataHandler {
         }
         Position last = null;
         if (includeLastAttributes) {
-            last = cacheManager.getPosition(position.getDeviceId());
+            last = PositionUtil.getLastPosition(cacheManager, position.getDeviceId(), batch);
         }
         Set<Method> methods = new HashSet<>(Arrays.asList(position.getClass().getMethods()));
         Arrays.asList(Object.class.getMethods()).forEach(methods::remove);
@@ -138,19 +140,28 @@ public class ComputedAttributesHandler extends BaseDataHandler {
      */
     @Deprecated
     public Object computeAttribute(Attribute attribute, Position position) throws JexlException {
+        return computeAttribute(attribute, position, null);
+    }
+
+    private Object computeAttribute(Attribute attribute, Position position, PositionBatch batch) throws JexlException {
         return engine
                 .createScript(features, engine.createInfo(), attribute.getExpression())
-                .execute(prepareContext(position));
+                .execute(prepareContext(position, batch));
     }
 
     @Override
     protected Position handlePosition(Position position) {
+        return handlePosition(position, null);
+    }
+
+    @Override
+    protected Position handlePosition(Position position, PositionBatch batch) {
         Collection<Attribute> attributes = cacheManager.getDeviceObjects(position.getDeviceId(), Attribute.class);
         for (Attribute attribute : attributes) {
             if (attribute.getAttribute() != null) {
                 Object result = null;
                 try {
-                    result = computeAttribute(attribute, position);
+                    result = computeAttribute(attribute, position, batch);
                 } catch (JexlException error) {
                     LOGGER.warn("Attribute computation error", error);
                 }
@@ -18,9 +18,11 @@ package org.traccar.handler;
 
 import io.netty.channel.ChannelHandler;
 import org.traccar.BaseDataHandler;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.helper.model.AttributeUtil;
+import org.traccar.helper.model.PositionUtil;
 import org.traccar.model.Position;
 import org.traccar.session.cache.CacheManager;
 
@@ -42,10 +44,15 @@ public class CopyAttributesHandler extends BaseDataHandler {
 
     @Override
     protected Position handlePosition(Position position) {
+        return handlePosition(position, null);
+    }
+
+    @Override
+    protected Position handlePosition(Position position, PositionBatch batch) {
         if (enabled) {
             String attributesString = AttributeUtil.lookup(
                     cacheManager, Keys.PROCESSING_COPY_ATTRIBUTES, position.getDeviceId());
-            Position last = cacheManager.getPosition(position.getDeviceId());
+            Position last = PositionUtil.getLastPosition(cacheManager, position.getDeviceId(), batch);
             if (last != null && attributesString != null) {
                 for (String attribute : attributesString.split("[ ,]")) {
                     if (last.hasAttribute(attribute) && !position.hasAttribute(attribute)) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2015 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,16 +16,20 @@
 package org.traccar.handler;
 
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.traccar.BaseDataHandler;
+import org.traccar.PositionBatch;
 import org.traccar.model.Position;
+import org.traccar.schedule.TaskBacklogGeocoding;
 import org.traccar.storage.Storage;
 import org.traccar.storage.query.Columns;
 import org.traccar.storage.query.Request;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.util.List;
 
 @Singleton
 @ChannelHandler.Sharable
@@ -34,10 +38,47 @@ public class DefaultDataHandler extends BaseDataHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDataHandler.class);
 
     private final Storage storage;
+    private final TaskBacklogGeocoding backlogGeocoding;
 
     @Inject
-    public DefaultDataHandler(Storage storage) {
+    public DefaultDataHandler(Storage storage, TaskBacklogGeocoding backlogGeocoding) {
         this.storage = storage;
+        this.backlogGeocoding = backlogGeocoding;
+    }
+
+    private void positionStored(Position position) {
+        if (position.getBacklog()) {
+            backlogGeocoding.add(position);
+        }
+    }
+
+    /**
+     * Store the batch in one insert and pass positions on one by one. The batch is kept as a channel attribute while
+     * its positions pass event handlers.
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof PositionBatch) {
+            PositionBatch batch = (PositionBatch) msg;
+            List<Position> positions = batch.getPositions();
+            try {
+                long[] ids = storage.addObjects(positions, new Request(new Columns.Exclude("id")));
+                for (int i = 0; i < ids.length; i++) {
+                    positions.get(i).setId(ids[i]);
+                    positionStored(positions.get(i));
+                }
+            } catch (Exception error) {
+                LOGGER.warn("Failed to store positions", error);
+            }
+            ctx.channel().attr(PositionBatch.KEY).set(batch);
+            try {
+                positions.forEach(ctx::fireChannelRead);
+            } finally {
+                ctx.channel().attr(PositionBatch.KEY).set(null);
+            }
+        } else {
+            super.channelRead(ctx, msg);
+        }
     }
 
     @Override
@@ -45,6 +86,7 @@ public class DefaultDataHandler extends BaseDataHandler {
 
         try {
             position.setId(storage.addObject(position, new Request(new Columns.Exclude("id"))));
+            positionStored(position);
         } catch (Exception error) {
             LOGGER.warn("Failed to store position", error);
         }
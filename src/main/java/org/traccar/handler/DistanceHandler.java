@@ -18,9 +18,11 @@ package org.traccar.handler;
 
 import io.netty.channel.ChannelHandler;
 import org.traccar.BaseDataHandler;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.helper.DistanceCalculator;
+import org.traccar.helper.model.PositionUtil;
 import org.traccar.model.Position;
 import org.traccar.session.cache.CacheManager;
 
@@ -49,6 +51,27 @@ public class DistanceHandler extends BaseDataHandler {
 
     @Override
     protected Position handlePosition(Position position) {
+        return handlePosition(position, null);
+    }
+
+    @Override
+    public Position handlePosition(Position position, PositionBatch batch) {
+        Position last = PositionUtil.getLastPosition(cacheManager, position.getDeviceId(), batch);
+        if (last != null && position.getFixTime().before(last.getFixTime())) {
+            Position preceding = PositionUtil.getPrecedingPosition(
+                    cacheManager, position.getDeviceId(), position.getFixTime(), batch);
+            if (preceding != null) {
+                last = preceding;
+            }
+        }
+        return calculateDistance(position, last);
+    }
+
+    /**
+     * Calculate distance from the given preceding position instead of the cache, e.g. for imported history. Preceding
+     * position can be null.
+     */
+    public Position calculateDistance(Position position, Position last) {
 
         double distance = 0.0;
         if (position.hasAttribute(Position.KEY_DISTANCE)) {
@@ -56,7 +79,6 @@ public class DistanceHandler extends BaseDataHandler {
         }
         double totalDistance = 0.0;
 
-        Position last = cacheManager.getPosition(position.getDeviceId());
         if (last != null) {
             totalDistance = last.getDouble(Position.KEY_TOTAL_DISTANCE);
             if (!position.hasAttribute(Position.KEY_DISTANCE)) {
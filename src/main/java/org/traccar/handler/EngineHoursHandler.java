@@ -18,6 +18,8 @@ package org.traccar.handler;
 
 import io.netty.channel.ChannelHandler;
 import org.traccar.BaseDataHandler;
+import org.traccar.PositionBatch;
+import org.traccar.helper.model.PositionUtil;
 import org.traccar.model.Position;
 import org.traccar.session.cache.CacheManager;
 
@@ -37,8 +39,13 @@ public class EngineHoursHandler extends BaseDataHandler {
 
     @Override
     protected Position handlePosition(Position position) {
+        return handlePosition(position, null);
+    }
+
+    @Override
+    protected Position handlePosition(Position position, PositionBatch batch) {
         if (!position.hasAttribute(Position.KEY_HOURS)) {
-            Position last = cacheManager.getPosition(position.getDeviceId());
+            Position last = PositionUtil.getLastPosition(cacheManager, position.getDeviceId(), batch);
             if (last != null) {
                 long hours = last.getLong(Position.KEY_HOURS);
                 if (last.getBoolean(Position.KEY_IGNITION) && position.getBoolean(Position.KEY_IGNITION)) {
@@ -20,21 +20,19 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.database.StatisticsManager;
 import org.traccar.helper.UnitsConverter;
 import org.traccar.helper.model.AttributeUtil;
+import org.traccar.helper.model.PositionUtil;
 import org.traccar.model.Calendar;
 import org.traccar.model.Device;
 import org.traccar.model.Position;
 import org.traccar.session.cache.CacheManager;
 import org.traccar.storage.Storage;
 import org.traccar.storage.StorageException;
-import org.traccar.storage.query.Columns;
-import org.traccar.storage.query.Condition;
-import org.traccar.storage.query.Order;
-import org.traccar.storage.query.Request;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -93,13 +91,8 @@ public class FilterHandler extends ChannelInboundHandlerAdapter {
         this.statisticsManager = statisticsManager;
     }
 
-    private Position getPrecedingPosition(long deviceId, Date date) throws StorageException {
-        return storage.getObject(Position.class, new Request(
-                new Columns.All(),
-                new Condition.And(
-                        new Condition.Equals("deviceId", deviceId),
-                        new Condition.Compare("fixTime", "<=", "time", date)),
-                new Order("fixTime", true, 1)));
+    public boolean isEnabled() {
+        return enabled;
     }
 
     private boolean filterInvalid(Position position) {
@@ -199,6 +192,53 @@ public class FilterHandler extends ChannelInboundHandlerAdapter {
     }
 
     protected boolean filter(Position position) {
+        return filter(position, null);
+    }
+
+    private boolean filterExcessive() {
+        return filterDuplicate || filterStatic || filterDistance > 0 || filterMaxSpeed > 0 || filterMinPeriod > 0;
+    }
+
+    /**
+     * Check position against filters. Positions of the batch that passed earlier are used as preceding positions, since
+     * they are not in the cache yet. Batch can be null.
+     */
+    public boolean filter(Position position, PositionBatch batch) {
+        Position preceding = null;
+        Position same = null;
+        if (filterExcessive()) {
+            long deviceId = position.getDeviceId();
+            if (filterRelative) {
+                try {
+                    Date newFixTime = position.getFixTime();
+                    preceding = PositionUtil.getPrecedingPosition(cacheManager, deviceId, newFixTime, batch);
+                    if (preceding == null) {
+                        preceding = PositionUtil.getPrecedingPosition(storage, deviceId, newFixTime);
+                    }
+                } catch (StorageException e) {
+                    LOGGER.warn("Error retrieving preceding position; fallbacking to last received position.", e);
+                    preceding = PositionUtil.getLastPosition(cacheManager, deviceId, batch);
+                }
+            } else {
+                preceding = PositionUtil.getLastPosition(cacheManager, deviceId, batch);
+            }
+            same = filterDuplicate ? cacheManager.getDuplicatePosition(position) : null;
+            if (same == null) {
+                same = preceding;
+            }
+        }
+        return filter(position, preceding, same);
+    }
+
+    /**
+     * Check position against filters using the given preceding position instead of the cache, e.g. for imported
+     * history. Preceding position can be null.
+     */
+    public boolean filterFollowing(Position position, Position preceding) {
+        return filter(position, preceding, preceding);
+    }
+
+    private boolean filter(Position position, Position preceding, Position same) {
 
         StringBuilder filterType = new StringBuilder();
 
@@ -229,21 +269,8 @@ public class FilterHandler extends ChannelInboundHandlerAdapter {
         }
 
         // filter out excessive data
-        long deviceId = position.getDeviceId();
-        if (filterDuplicate || filterStatic || filterDistance > 0 || filterMaxSpeed > 0 || filterMinPeriod > 0) {
-            Position preceding = null;
-            if (filterRelative) {
-                try {
-                    Date newFixTime = position.getFixTime();
-                    preceding = getPrecedingPosition(deviceId, newFixTime);
-                } catch (StorageException e) {
-                    LOGGER.warn("Error retrieving preceding position; fallbacking to last received position.", e);
-                    preceding = cacheManager.getPosition(deviceId);
-                }
-            } else {
-                preceding = cacheManager.getPosition(deviceId);
-            }
-            if (filterDuplicate(position, preceding) && !skipLimit(position, preceding) && !skipAttributes(position)) {
+        if (filterExcessive()) {
+            if (filterDuplicate(position, same) && !skipLimit(position, same) && !skipAttributes(position)) {
                 filterType.append("Duplicate ");
             }
             if (filterStatic(position) && !skipLimit(position, preceding) && !skipAttributes(position)) {
@@ -260,7 +287,7 @@ public class FilterHandler extends ChannelInboundHandlerAdapter {
             }
         }
 
-        Device device = cacheManager.getObject(Device.class, deviceId);
+        Device device = cacheManager.getObject(Device.class, position.getDeviceId());
         if (device.getCalendarId() > 0) {
             Calendar calendar = cacheManager.getObject(Calendar.class, device.getCalendarId());
             if (!calendar.checkMoment(position.getFixTime())) {
@@ -285,6 +312,20 @@ public class FilterHandler extends ChannelInboundHandlerAdapter {
             } else {
                 ctx.fireChannelRead(position);
             }
+        } else if (msg instanceof PositionBatch && enabled) {
+            PositionBatch batch = (PositionBatch) msg;
+            PositionBatch result = new PositionBatch(batch.size());
+            for (Position position : batch.getPositions()) {
+                if (filter(position, result)) {
+                    ctx.write(new AcknowledgementHandler.EventHandled(position));
+                } else {
+                    result.add(position);
+                }
+            }
+            ctx.flush();
+            if (!result.isEmpty()) {
+                ctx.fireChannelRead(result);
+            }
         } else {
             super.channelRead(ctx, msg);
         }
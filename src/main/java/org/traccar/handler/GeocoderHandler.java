@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 - 2021 Anton Tananaev (anton@traccar.org)
+ * Copyright 2012 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.geocoder.Geocoder;
@@ -47,39 +48,47 @@ public class GeocoderHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelRead(final ChannelHandlerContext ctx, Object message) {
-        if (message instanceof Position && !ignorePositions) {
-            final Position position = (Position) message;
-            if (processInvalidPositions || position.getValid()) {
-                if (reuseDistance != 0) {
-                    Position lastPosition = cacheManager.getPosition(position.getDeviceId());
-                    if (lastPosition != null && lastPosition.getAddress() != null
-                            && position.getDouble(Position.KEY_DISTANCE) <= reuseDistance) {
-                        position.setAddress(lastPosition.getAddress());
-                        ctx.fireChannelRead(position);
-                        return;
-                    }
-                }
+        if (message instanceof PositionBatch && !ignorePositions) {
+            PositionBatch batch = (PositionBatch) message;
+            batch.processAsync(this::handlePosition, () -> ctx.fireChannelRead(batch));
+        } else if (message instanceof Position && !ignorePositions) {
+            Position position = (Position) message;
+            handlePosition(position, () -> ctx.fireChannelRead(position));
+        } else {
+            ctx.fireChannelRead(message);
+        }
+    }
 
-                geocoder.getAddress(position.getLatitude(), position.getLongitude(),
-                        new Geocoder.ReverseGeocoderCallback() {
-                    @Override
-                    public void onSuccess(String address) {
-                        position.setAddress(address);
-                        ctx.fireChannelRead(position);
-                    }
+    private void handlePosition(Position position, Runnable callback) {
+        if (position.getBacklog() || !processInvalidPositions && !position.getValid()) {
+            callback.run();
+            return;
+        }
 
-                    @Override
-                    public void onFailure(Throwable e) {
-                        LOGGER.warn("Geocoding failed", e);
-                        ctx.fireChannelRead(position);
-                    }
-                });
-            } else {
-                ctx.fireChannelRead(position);
+        if (reuseDistance != 0) {
+            Position lastPosition = cacheManager.getPosition(position.getDeviceId());
+            if (lastPosition != null && lastPosition.getAddress() != null
+                    && position.getDouble(Position.KEY_DISTANCE) <= reuseDistance) {
+                position.setAddress(lastPosition.getAddress());
+                callback.run();
+                return;
             }
-        } else {
-            ctx.fireChannelRead(message);
         }
+
+        geocoder.getAddress(position.getLatitude(), position.getLongitude(),
+                new Geocoder.ReverseGeocoderCallback() {
+            @Override
+            public void onSuccess(String address) {
+                position.setAddress(address);
+                callback.run();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                LOGGER.warn("Geocoding failed", e);
+                callback.run();
+            }
+        });
     }
 
 }
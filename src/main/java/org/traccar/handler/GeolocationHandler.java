@@ -20,6 +20,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.database.StatisticsManager;
@@ -52,46 +53,56 @@ public class GeolocationHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelRead(final ChannelHandlerContext ctx, Object message) {
-        if (message instanceof Position) {
-            final Position position = (Position) message;
-            if ((position.getOutdated() || processInvalidPositions && !position.getValid())
-                    && position.getNetwork() != null
-                    && (!requireWifi || position.getNetwork().getWifiAccessPoints() != null)) {
-                if (reuse) {
-                    Position lastPosition = cacheManager.getPosition(position.getDeviceId());
-                    if (lastPosition != null && position.getNetwork().equals(lastPosition.getNetwork())) {
-                        updatePosition(
-                                position, lastPosition.getLatitude(), lastPosition.getLongitude(),
-                                lastPosition.getAccuracy());
-                        ctx.fireChannelRead(position);
-                        return;
-                    }
-                }
-
-                if (statisticsManager != null) {
-                    statisticsManager.registerGeolocationRequest();
-                }
+        if (message instanceof PositionBatch) {
+            PositionBatch batch = (PositionBatch) message;
+            // fix time can change, so the batch is indexed again
+            batch.processAsync(
+                    this::handlePosition, () -> ctx.fireChannelRead(new PositionBatch(batch.getPositions())));
+        } else if (message instanceof Position) {
+            Position position = (Position) message;
+            handlePosition(position, () -> ctx.fireChannelRead(position));
+        } else {
+            ctx.fireChannelRead(message);
+        }
+    }
 
-                geolocationProvider.getLocation(position.getNetwork(),
-                        new GeolocationProvider.LocationProviderCallback() {
-                    @Override
-                    public void onSuccess(double latitude, double longitude, double accuracy) {
-                        updatePosition(position, latitude, longitude, accuracy);
-                        ctx.fireChannelRead(position);
-                    }
+    private void handlePosition(Position position, Runnable callback) {
+        if (!(position.getOutdated() || processInvalidPositions && !position.getValid())
+                || position.getNetwork() == null
+                || requireWifi && position.getNetwork().getWifiAccessPoints() == null) {
+            callback.run();
+            return;
+        }
 
-                    @Override
-                    public void onFailure(Throwable e) {
-                        LOGGER.warn("Geolocation network error", e);
-                        ctx.fireChannelRead(position);
-                    }
-                });
-            } else {
-                ctx.fireChannelRead(position);
+        if (reuse) {
+            Position lastPosition = cacheManager.getPosition(position.getDeviceId());
+            if (lastPosition != null && position.getNetwork().equals(lastPosition.getNetwork())) {
+                updatePosition(
+                        position, lastPosition.getLatitude(), lastPosition.getLongitude(),
+                        lastPosition.getAccuracy());
+                callback.run();
+                return;
             }
-        } else {
-            ctx.fireChannelRead(message);
         }
+
+        if (statisticsManager != null) {
+            statisticsManager.registerGeolocationRequest();
+        }
+
+        geolocationProvider.getLocation(position.getNetwork(),
+                new GeolocationProvider.LocationProviderCallback() {
+            @Override
+            public void onSuccess(double latitude, double longitude, double accuracy) {
+                updatePosition(position, latitude, longitude, accuracy);
+                callback.run();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                LOGGER.warn("Geolocation network error", e);
+                callback.run();
+            }
+        });
     }
 
     private void updatePosition(Position position, double latitude, double longitude, double accuracy) {
@@ -16,6 +16,7 @@
 package org.traccar.handler;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.socket.DatagramChannel;
@@ -26,6 +27,7 @@ import jakarta.inject.Inject;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 
+@ChannelHandler.Sharable
 public class NetworkForwarderHandler extends ChannelInboundHandlerAdapter {
 
     private final int port;
@@ -55,9 +57,8 @@ public class NetworkForwarderHandler extends ChannelInboundHandlerAdapter {
             buffer = (ByteBuf) msg;
         }
 
-        byte[] data = new byte[buffer.readableBytes()];
-        buffer.getBytes(buffer.readerIndex(), data);
-        networkForwarder.forward((InetSocketAddress) remoteAddress, port, datagram, data);
+        networkForwarder.forward(
+                ctx.channel().eventLoop(), (InetSocketAddress) remoteAddress, port, datagram, buffer);
         super.channelRead(ctx, msg);
     }
 
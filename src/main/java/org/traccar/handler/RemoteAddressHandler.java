@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2015 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.traccar.handler;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.model.Position;
@@ -47,6 +48,10 @@ public class RemoteAddressHandler extends ChannelInboundHandlerAdapter {
             if (msg instanceof Position) {
                 Position position = (Position) msg;
                 position.set(Position.KEY_IP, hostAddress);
+            } else if (msg instanceof PositionBatch) {
+                for (Position position : ((PositionBatch) msg).getPositions()) {
+                    position.set(Position.KEY_IP, hostAddress);
+                }
             }
         }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2020 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2020 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.traccar.PositionBatch;
 import org.traccar.model.Position;
 import org.traccar.speedlimit.SpeedLimitProvider;
 
@@ -41,25 +42,36 @@ public class SpeedLimitHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelRead(final ChannelHandlerContext ctx, Object message) {
-        if (message instanceof Position) {
-            final Position position = (Position) message;
-            speedLimitProvider.getSpeedLimit(position.getLatitude(), position.getLongitude(),
-                    new SpeedLimitProvider.SpeedLimitProviderCallback() {
-                @Override
-                public void onSuccess(double speedLimit) {
-                    position.set(Position.KEY_SPEED_LIMIT, speedLimit);
-                    ctx.fireChannelRead(position);
-                }
-
-                @Override
-                public void onFailure(Throwable e) {
-                    LOGGER.warn("Speed limit provider failed", e);
-                    ctx.fireChannelRead(position);
-                }
-            });
+        if (message instanceof PositionBatch) {
+            PositionBatch batch = (PositionBatch) message;
+            batch.processAsync(this::handlePosition, () -> ctx.fireChannelRead(batch));
+        } else if (message instanceof Position) {
+            Position position = (Position) message;
+            handlePosition(position, () -> ctx.fireChannelRead(position));
         } else {
             ctx.fireChannelRead(message);
         }
     }
 
+    private void handlePosition(Position position, Runnable callback) {
+        if (position.getBacklog()) {
+            callback.run();
+            return;
+        }
+        speedLimitProvider.getSpeedLimit(position.getLatitude(), position.getLongitude(),
+                new SpeedLimitProvider.SpeedLimitProviderCallback() {
+            @Override
+            public void onSuccess(double speedLimit) {
+                position.set(Position.KEY_SPEED_LIMIT, speedLimit);
+                callback.run();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                LOGGER.warn("Speed limit provider failed", e);
+                callback.run();
+            }
+        });
+    }
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2019 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2019 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,12 +17,14 @@ package org.traccar.handler;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.traccar.NetworkMessage;
+import org.traccar.database.MessageLogManager;
 import org.traccar.helper.NetworkUtil;
 
 import java.net.InetSocketAddress;
@@ -33,9 +35,16 @@ public class StandardLoggingHandler extends ChannelDuplexHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(StandardLoggingHandler.class);
 
     private final String protocol;
+    private final MessageLogManager messageLogManager;
+    private final int sampling;
 
-    public StandardLoggingHandler(String protocol) {
+    private int counter;
+    private boolean sampled;
+
+    public StandardLoggingHandler(String protocol, MessageLogManager messageLogManager) {
         this.protocol = protocol;
+        this.messageLogManager = messageLogManager;
+        this.sampling = messageLogManager.getSampling(protocol);
     }
 
     @Override
@@ -61,10 +70,40 @@ public class StandardLoggingHandler extends ChannelDuplexHandler {
         }
     }
 
+    /**
+     * Decide if the message is logged. Responses are logged together with the message they belong to.
+     */
+    private boolean isSampled(Channel channel, boolean downstream, SocketAddress remoteAddress) {
+        if (!downstream) {
+            if (sampling <= 1) {
+                sampled = true;
+            } else {
+                sampled = counter == 0;
+                counter = counter + 1 < sampling ? counter + 1 : 0;
+            }
+        }
+        return sampled || messageLogManager.isTraced(channel, remoteAddress);
+    }
+
     public void log(ChannelHandlerContext ctx, boolean downstream, SocketAddress remoteAddress, ByteBuf buf) {
+        if (!LOGGER.isInfoEnabled() || !isSampled(ctx.channel(), downstream, remoteAddress)) {
+            return;
+        }
+
+        String session = NetworkUtil.session(ctx.channel());
+        if (messageLogManager.isAsync()) {
+            byte[] data = ByteBufUtil.getBytes(buf);
+            messageLogManager.log(
+                    LOGGER, () -> formatMessage(session, downstream, remoteAddress, ByteBufUtil.hexDump(data)));
+        } else {
+            LOGGER.info(formatMessage(session, downstream, remoteAddress, ByteBufUtil.hexDump(buf)));
+        }
+    }
+
+    private String formatMessage(String session, boolean downstream, SocketAddress remoteAddress, String data) {
         StringBuilder message = new StringBuilder();
 
-        message.append("[").append(NetworkUtil.session(ctx.channel())).append(": ");
+        message.append("[").append(session).append(": ");
         message.append(protocol);
         if (downstream) {
             message.append(" > ");
@@ -79,9 +118,9 @@ public class StandardLoggingHandler extends ChannelDuplexHandler {
         }
         message.append("] ");
 
-        message.append(ByteBufUtil.hexDump(buf));
+        message.append(data);
 
-        LOGGER.info(message.toString());
+        return message.toString();
     }
 
 }
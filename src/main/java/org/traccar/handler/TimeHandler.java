@@ -1,5 +1,5 @@
 /*
- * Copyright 2019 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2019 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.traccar.BaseProtocolDecoder;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.model.Position;
@@ -53,18 +54,25 @@ public class TimeHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    private void overrideTime(Position position) {
+        if (useServerTime) {
+            position.setDeviceTime(position.getServerTime());
+            position.setFixTime(position.getServerTime());
+        } else {
+            position.setFixTime(position.getDeviceTime());
+        }
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
 
-        if (enabled && msg instanceof Position && (protocols == null
+        if (enabled && (msg instanceof Position || msg instanceof PositionBatch) && (protocols == null
                 || protocols.contains(ctx.pipeline().get(BaseProtocolDecoder.class).getProtocolName()))) {
 
-            Position position = (Position) msg;
-            if (useServerTime) {
-                position.setDeviceTime(position.getServerTime());
-                position.setFixTime(position.getServerTime());
+            if (msg instanceof Position) {
+                overrideTime((Position) msg);
             } else {
-                position.setFixTime(position.getDeviceTime());
+                ((PositionBatch) msg).getPositions().forEach(this::overrideTime);
             }
 
         }
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.helper;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits delimited text directly in the buffer. Fields follow {@code String.split(delimiter, -1)} semantics and
+ * numeric values are parsed without creating intermediate strings. The buffer reader index is not modified.
+ */
+public class BufferTokenizer {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private final ByteBuf buf;
+    private final byte delimiter;
+    private final int end;
+    private int position;
+    private boolean finished;
+
+    public BufferTokenizer(ByteBuf buf, char delimiter) {
+        this(buf, buf.readerIndex(), buf.writerIndex(), delimiter);
+    }
+
+    public BufferTokenizer(ByteBuf buf, int start, int end, char delimiter) {
+        this.buf = buf;
+        this.delimiter = (byte) delimiter;
+        this.end = end;
+        this.position = start;
+    }
+
+    private int fieldEnd() {
+        if (finished) {
+            throw new NoSuchElementException();
+        }
+        int index = buf.indexOf(position, end, delimiter);
+        return index >= 0 ? index : end;
+    }
+
+    private int advance() {
+        int fieldEnd = fieldEnd();
+        int start = position;
+        if (fieldEnd < end) {
+            position = fieldEnd + 1;
+        } else {
+            position = end;
+            finished = true;
+        }
+        return start;
+    }
+
+    public boolean hasNext() {
+        return !finished;
+    }
+
+    public int remaining() {
+        if (finished) {
+            return 0;
+        }
+        int count = 1;
+        int index = buf.indexOf(position, end, delimiter);
+        while (index >= 0) {
+            count += 1;
+            index = buf.indexOf(index + 1, end, delimiter);
+        }
+        return count;
+    }
+
+    public int peekLength() {
+        return fieldEnd() - position;
+    }
+
+    public boolean isNextEmpty() {
+        return peekLength() == 0;
+    }
+
+    /**
+     * Skip the next field if it is empty. Returns true if the field was skipped.
+     */
+    public boolean skipEmpty() {
+        if (isNextEmpty()) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    public void skip() {
+        advance();
+    }
+
+    public void skip(int count) {
+        for (int i = 0; i < count; i++) {
+            advance();
+        }
+    }
+
+    public String next() {
+        int length = peekLength();
+        return buf.toString(advance(), length, StandardCharsets.US_ASCII);
+    }
+
+    public ByteBuf nextSlice() {
+        int length = peekLength();
+        return buf.slice(advance(), length);
+    }
+
+    public BufferTokenizer nextTokenizer(char delimiter) {
+        int length = peekLength();
+        int start = advance();
+        return new BufferTokenizer(buf, start, start + length, delimiter);
+    }
+
+    public boolean nextEquals(String value) {
+        int length = peekLength();
+        int start = advance();
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf.getByte(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int nextInt() {
+        return nextInt(10);
+    }
+
+    public int nextInt(int radix) {
+        long value = nextLong(radix);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    public long nextLong() {
+        return nextLong(10);
+    }
+
+    public long nextLong(int radix) {
+        int length = peekLength();
+        int start = advance();
+        return parseLong(start, start + length, radix);
+    }
+
+    private long parseLong(int start, int limit, int radix) {
+        int index = start;
+        boolean negative = false;
+        if (index < limit && (buf.getByte(index) == '-' || buf.getByte(index) == '+')) {
+            negative = buf.getByte(index) == '-';
+            index += 1;
+        }
+        if (index == limit || limit - index > (radix == 10 ? 18 : 15)) {
+            return Long.parseLong(buf.toString(start, limit - start, StandardCharsets.US_ASCII), radix);
+        }
+        long value = 0;
+        for (; index < limit; index++) {
+            int digit = Character.digit(buf.getByte(index), radix);
+            if (digit < 0) {
+                throw new NumberFormatException(buf.toString(start, limit - start, StandardCharsets.US_ASCII));
+            }
+            value = value * radix + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public double nextDouble() {
+        int length = peekLength();
+        int start = advance();
+        int limit = start + length;
+
+        int index = start;
+        boolean negative = false;
+        if (index < limit && (buf.getByte(index) == '-' || buf.getByte(index) == '+')) {
+            negative = buf.getByte(index) == '-';
+            index += 1;
+        }
+
+        long mantissa = 0;
+        boolean hasDigits = false;
+        int digits = 0;
+        int scale = -1;
+        for (; index < limit; index++) {
+            byte b = buf.getByte(index);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                hasDigits = true;
+                if (mantissa > 0) {
+                    digits += 1;
+                }
+                if (scale >= 0) {
+                    scale += 1;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+
+        boolean simple = index == limit && hasDigits && digits <= MAX_EXACT_DIGITS && scale < POWERS_OF_TEN.length;
+        if (!simple) {
+            return Double.parseDouble(buf.toString(start, length, StandardCharsets.US_ASCII));
+        }
+
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2022 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -69,7 +69,7 @@ public final class ClassScanner {
 
         var classes = new LinkedList<Class<?>>();
         for (String name : names) {
-            var clazz = Class.forName(packageName + '.' + name);
+            var clazz = Class.forName(packageName + '.' + name, false, baseClass.getClassLoader());
             if (baseClass.isAssignableFrom(clazz)) {
                 classes.add(clazz);
             }
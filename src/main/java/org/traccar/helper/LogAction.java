@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 - 2020 Anton Tananaev (anton@traccar.org)
+ * Copyright 2017 - 2023 Anton Tananaev (anton@traccar.org)
  * Copyright 2017 Andrey Kunitsyn (andrey@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
@@ -19,6 +19,7 @@ package org.traccar.helper;
 import java.beans.Introspector;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -44,12 +45,14 @@ public final class LogAction {
     private static final String ACTION_LOGOUT = "logout";
 
     private static final String ACTION_DEVICE_ACCUMULATORS = "resetDeviceAccumulators";
+    private static final String ACTION_IMPORT_POSITIONS = "importPositions";
 
     private static final String PATTERN_OBJECT = "user: %d, action: %s, object: %s, id: %d";
     private static final String PATTERN_LINK = "user: %d, action: %s, owner: %s, id: %d, property: %s, id: %d";
     private static final String PATTERN_LOGIN = "user: %d, action: %s, from: %s";
     private static final String PATTERN_LOGIN_FAILED = "login failed from: %s";
     private static final String PATTERN_DEVICE_ACCUMULATORS = "user: %d, action: %s, deviceId: %d";
+    private static final String PATTERN_IMPORT = "user: %d, action: %s, devices: %s, positions: %d, rejected: %d";
     private static final String PATTERN_REPORT = "user: %d, report: %s, from: %s, to: %s, devices: %s, groups: %s";
 
     public static void create(long userId, BaseModel object) {
@@ -92,6 +95,11 @@ public final class LogAction {
                 PATTERN_DEVICE_ACCUMULATORS, userId, ACTION_DEVICE_ACCUMULATORS, deviceId));
     }
 
+    public static void importPositions(long userId, Collection<Long> deviceIds, long count, long rejected) {
+        LOGGER.info(String.format(
+                PATTERN_IMPORT, userId, ACTION_IMPORT_POSITIONS, deviceIds, count, rejected));
+    }
+
     private static void logObjectAction(String action, long userId, Class<?> clazz, long objectId) {
         LOGGER.info(String.format(
                 PATTERN_OBJECT, userId, action, Introspector.decapitalize(clazz.getSimpleName()), objectId));
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Declarative table of tag handlers for tag based binary protocols. Handlers can be limited to a set of device
+ * models. The table is compiled into an array indexed by tag once per model, so decoding a tag is an array lookup.
+ * All handlers must be registered before the first {@link #resolve(String)} call.
+ */
+public final class TagRegistry<T> {
+
+    public static final class Table<T> {
+
+        private final Object[] handlers;
+
+        private Table(Object[] handlers) {
+            this.handlers = handlers;
+        }
+
+        /**
+         * Handler for the tag or null if there isn't one.
+         */
+        @SuppressWarnings("unchecked")
+        public T get(int tag) {
+            return tag >= 0 && tag < handlers.length ? (T) handlers[tag] : null;
+        }
+
+    }
+
+    private static final class Entry<T> {
+
+        private final int tag;
+        private final Set<String> models;
+        private final T handler;
+
+        private Entry(int tag, Set<String> models, T handler) {
+            this.tag = tag;
+            this.models = models;
+            this.handler = handler;
+        }
+
+    }
+
+    private final List<Entry<T>> entries = new ArrayList<>();
+    private final Map<String, Table<T>> tables = new ConcurrentHashMap<>();
+    private Table<T> defaultTable;
+
+    /**
+     * Register handler for the tag. Null models means any model. Handlers limited to models take precedence.
+     */
+    public void register(int tag, Set<String> models, T handler) {
+        if (tag < 0) {
+            throw new IllegalArgumentException("Negative tag " + tag);
+        }
+        entries.add(new Entry<>(tag, models, handler));
+    }
+
+    private Table<T> compile(String model) {
+        int size = 0;
+        for (Entry<T> entry : entries) {
+            size = Math.max(size, entry.tag + 1);
+        }
+        Object[] handlers = new Object[size];
+        for (Entry<T> entry : entries) {
+            if (entry.models == null) {
+                if (handlers[entry.tag] == null) {
+                    handlers[entry.tag] = entry.handler;
+                }
+            } else if (model != null && entry.models.contains(model)) {
+                handlers[entry.tag] = entry.handler;
+            }
+        }
+        return new Table<>(handlers);
+    }
+
+    /**
+     * Handlers that apply to the model. Model can be null.
+     */
+    public Table<T> resolve(String model) {
+        if (model == null) {
+            Table<T> table = defaultTable;
+            if (table == null) {
+                table = compile(null);
+                defaultTable = table;
+            }
+            return table;
+        }
+        return tables.computeIfAbsent(model, this::compile);
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.helper;
+
+import org.traccar.model.Position;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Streaming track simplification. Tolerance is applied using the opening window variant of Douglas-Peucker, point
+ * limit is applied using Visvalingam-Whyatt elimination over a bounded buffer. Preserved positions are never removed.
+ */
+public class TrackSimplifier {
+
+    private static final int WINDOW_LIMIT = 1000;
+
+    private final double tolerance;
+    private final int maxPoints;
+    private final Predicate<Position> preserve;
+
+    private Position anchor;
+    private final List<Position> window = new ArrayList<>();
+
+    private Node head;
+    private Node tail;
+    private int size;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    public TrackSimplifier(double tolerance, int maxPoints, Predicate<Position> preserve) {
+        this.tolerance = tolerance;
+        this.maxPoints = maxPoints;
+        this.preserve = preserve;
+    }
+
+    public List<Position> simplify(Iterator<Position> positions) {
+        while (positions.hasNext()) {
+            accept(positions.next());
+        }
+        return finish();
+    }
+
+    private void accept(Position position) {
+        if (tolerance <= 0) {
+            append(position);
+            return;
+        }
+        if (anchor == null) {
+            anchor = position;
+            append(position);
+            return;
+        }
+        if (!window.isEmpty() && (window.size() >= WINDOW_LIMIT || !withinTolerance(position))) {
+            Position last = window.get(window.size() - 1);
+            append(last);
+            anchor = last;
+            window.clear();
+        }
+        if (preserve.test(position)) {
+            append(position);
+            anchor = position;
+            window.clear();
+        } else {
+            window.add(position);
+        }
+    }
+
+    private boolean withinTolerance(Position position) {
+        boolean degenerate = anchor.getLatitude() == position.getLatitude()
+                && anchor.getLongitude() == position.getLongitude();
+        for (Position intermediate : window) {
+            double distance;
+            if (degenerate) {
+                distance = DistanceCalculator.distance(
+                        intermediate.getLatitude(), intermediate.getLongitude(),
+                        anchor.getLatitude(), anchor.getLongitude());
+            } else {
+                distance = DistanceCalculator.distanceToLine(
+                        intermediate.getLatitude(), intermediate.getLongitude(),
+                        anchor.getLatitude(), anchor.getLongitude(),
+                        position.getLatitude(), position.getLongitude());
+            }
+            if (!(distance <= tolerance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Position> finish() {
+        if (!window.isEmpty()) {
+            append(window.get(window.size() - 1));
+            window.clear();
+        }
+        List<Position> result = new ArrayList<>(size);
+        for (Node node = head; node != null; node = node.next) {
+            result.add(node.position);
+        }
+        return result;
+    }
+
+    private void append(Position position) {
+        Node node = new Node(position, preserve.test(position));
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+            node.previous = tail;
+            enqueue(tail);
+        }
+        tail = node;
+        size += 1;
+        if (maxPoints > 0) {
+            while (size > maxPoints && eliminate()) {
+                if (queue.size() > 4 * maxPoints) {
+                    rebuildQueue();
+                }
+            }
+        }
+    }
+
+    private void enqueue(Node node) {
+        if (!node.preserved && node.previous != null && node.next != null) {
+            node.version += 1;
+            queue.add(new Entry(node, area(node.previous.position, node.position, node.next.position)));
+        }
+    }
+
+    private boolean eliminate() {
+        while (!queue.isEmpty()) {
+            Entry entry = queue.poll();
+            Node node = entry.node;
+            if (!node.removed && entry.version == node.version) {
+                node.removed = true;
+                node.previous.next = node.next;
+                node.next.previous = node.previous;
+                size -= 1;
+                enqueue(node.previous);
+                enqueue(node.next);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rebuildQueue() {
+        queue.clear();
+        for (Node node = head; node != null; node = node.next) {
+            enqueue(node);
+        }
+    }
+
+    private static double area(Position first, Position second, Position third) {
+        double a = DistanceCalculator.distance(
+                first.getLatitude(), first.getLongitude(), second.getLatitude(), second.getLongitude());
+        double b = DistanceCalculator.distance(
+                second.getLatitude(), second.getLongitude(), third.getLatitude(), third.getLongitude());
+        double c = DistanceCalculator.distance(
+                third.getLatitude(), third.getLongitude(), first.getLatitude(), first.getLongitude());
+        double halfP = (a + b + c) * 0.5;
+        return Math.sqrt(Math.max(halfP * (halfP - a) * (halfP - b) * (halfP - c), 0));
+    }
+
+    private static final class Node {
+        private final Position position;
+        private final boolean preserved;
+        private Node previous;
+        private Node next;
+        private int version;
+        private boolean removed;
+
+        private Node(Position position, boolean preserved) {
+            this.position = position;
+            this.preserved = preserved;
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final Node node;
+        private final int version;
+        private final double area;
+
+        private Entry(Node node, double area) {
+            this.node = node;
+            this.version = node.version;
+            this.area = area;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Double.compare(area, other.area);
+        }
+    }
+
+}
@@ -15,8 +15,11 @@
  */
 package org.traccar.helper.model;
 
+import org.traccar.PositionBatch;
+import org.traccar.helper.TrackSimplifier;
 import org.traccar.model.BaseModel;
 import org.traccar.model.Device;
+import org.traccar.model.Event;
 import org.traccar.model.Position;
 import org.traccar.model.User;
 import org.traccar.session.cache.CacheManager;
@@ -28,8 +31,11 @@ import org.traccar.storage.query.Order;
 import org.traccar.storage.query.Request;
 
 import java.util.Date;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public final class PositionUtil {
 
@@ -41,6 +47,49 @@ public final class PositionUtil {
         return lastPosition == null || position.getFixTime().compareTo(lastPosition.getFixTime()) >= 0;
     }
 
+    /**
+     * Last position of the device, taking into account positions of the batch that are not in the cache yet. Batch
+     * can be null.
+     */
+    public static Position getLastPosition(CacheManager cacheManager, long deviceId, PositionBatch batch) {
+        Position last = cacheManager.getPosition(deviceId);
+        Position latest = batch != null ? batch.getLatest(deviceId) : null;
+        if (latest != null && (last == null || latest.getFixTime().compareTo(last.getFixTime()) >= 0)) {
+            return latest;
+        }
+        return last;
+    }
+
+    /**
+     * Latest position of the device with fix time not after the given time, from recent history or the batch. Returns
+     * null if neither covers that time. Batch can be null.
+     */
+    public static Position getPrecedingPosition(
+            CacheManager cacheManager, long deviceId, Date time, PositionBatch batch) {
+        Position preceding = cacheManager.getPrecedingPosition(deviceId, time);
+        Position candidate = batch != null ? batch.getPreceding(deviceId, time) : null;
+        if (candidate != null) {
+            Position reference = preceding != null ? preceding : cacheManager.getPosition(deviceId);
+            if (reference == null || candidate.getFixTime().compareTo(reference.getFixTime()) >= 0) {
+                return candidate;
+            }
+        }
+        return preceding;
+    }
+
+    /**
+     * Latest stored position of the device with fix time not after the given time or null if there is none.
+     */
+    public static Position getPrecedingPosition(
+            Storage storage, long deviceId, Date time) throws StorageException {
+        return storage.getObject(Position.class, new Request(
+                new Columns.All(),
+                new Condition.And(
+                        new Condition.Equals("deviceId", deviceId),
+                        new Condition.Compare("fixTime", "<=", "time", time)),
+                new Order("fixTime", true, 1)));
+    }
+
     public static double calculateDistance(Position first, Position last, boolean useOdometer) {
         double distance;
         double firstOdometer = first.getDouble(Position.KEY_ODOMETER);
@@ -64,6 +113,56 @@ public final class PositionUtil {
                 new Order("fixTime")));
     }
 
+    public static List<Position> getPositionsPage(
+            Storage storage, long deviceId, Date from, Date to,
+            Date afterTime, long afterId, int limit) throws StorageException {
+        var conditions = new LinkedList<Condition>();
+        conditions.add(new Condition.Equals("deviceId", deviceId));
+        if (from != null && to != null) {
+            conditions.add(new Condition.Between("fixTime", "from", from, "to", to));
+        }
+        if (afterTime != null) {
+            conditions.add(new Condition.Keyset("fixTime", afterTime, afterId));
+        }
+        return storage.getObjects(Position.class, new Request(
+                new Columns.All(), Condition.merge(conditions), new Order("fixTime", "id", false, limit)));
+    }
+
+    public static List<Position> getPositions(
+            Storage storage, long deviceId, Date from, Date to,
+            double tolerance, int maxPoints) throws StorageException {
+        if (tolerance <= 0 && maxPoints <= 0) {
+            return getPositions(storage, deviceId, from, to);
+        }
+
+        Set<Long> eventPositionIds = storage.getObjects(Event.class, new Request(
+                new Columns.Include("positionId"),
+                new Condition.And(
+                        new Condition.Equals("deviceId", deviceId),
+                        new Condition.Between("eventTime", "from", from, "to", to))))
+                .stream()
+                .map(Event::getPositionId)
+                .filter(positionId -> positionId > 0)
+                .collect(Collectors.toUnmodifiableSet());
+
+        var simplifier = new TrackSimplifier(tolerance, maxPoints,
+                position -> position.hasAttribute(Position.KEY_ALARM) || eventPositionIds.contains(position.getId()));
+
+        try (Stream<Position> positions = getPositionsStream(storage, deviceId, from, to)) {
+            return simplifier.simplify(positions.iterator());
+        }
+    }
+
+    public static Stream<Position> getPositionsStream(
+            Storage storage, long deviceId, Date from, Date to) throws StorageException {
+        return storage.getObjectsStream(Position.class, new Request(
+                new Columns.All(),
+                new Condition.And(
+                        new Condition.Equals("deviceId", deviceId),
+                        new Condition.Between("fixTime", "from", from, "to", to)),
+                new Order("fixTime")));
+    }
+
     public static List<Position> getLatestPositions(Storage storage, long userId) throws StorageException {
         var devices = storage.getObjects(Device.class, new Request(
                 new Columns.Include("id"),
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Insertion ordered map for model attributes. Entries are kept in parallel arrays and found by linear search, with a
+ * small open addressing index for larger maps. Integer, long and double values are stored unboxed and only boxed when
+ * read through the map interface.
+ * <p>
+ * Keys of copied maps are replaced with shared instances, so attributes loaded from storage don't hold own copies of
+ * the same key strings. Not thread safe, same as the map it replaces.
+ */
+public class AttributeMap extends AbstractMap<String, Object> {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int INDEX_THRESHOLD = 32;
+    private static final int MAX_SHARED_KEYS = 10000;
+
+    private static final Map<String, String> SHARED_KEYS = new ConcurrentHashMap<>();
+
+    private static final Object INTEGER = new Object();
+    private static final Object LONG = new Object();
+    private static final Object DOUBLE = new Object();
+
+    private String[] keys;
+    private Object[] values;
+    private long[] numbers;
+    private int[] index;
+    private int size;
+
+    public AttributeMap() {
+    }
+
+    public AttributeMap(Map<String, ?> map) {
+        if (!map.isEmpty()) {
+            allocate(map.size());
+            for (Map.Entry<String, ?> entry : map.entrySet()) {
+                put(sharedKey(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    private static String sharedKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        String shared = SHARED_KEYS.get(key);
+        if (shared != null) {
+            return shared;
+        }
+        if (SHARED_KEYS.size() < MAX_SHARED_KEYS) {
+            shared = SHARED_KEYS.putIfAbsent(key, key);
+            return shared != null ? shared : key;
+        }
+        return key;
+    }
+
+    private void allocate(int capacity) {
+        keys = Arrays.copyOf(keys != null ? keys : new String[0], capacity);
+        values = Arrays.copyOf(values != null ? values : new Object[0], capacity);
+        if (numbers != null) {
+            numbers = Arrays.copyOf(numbers, capacity);
+        }
+        if (capacity > INDEX_THRESHOLD) {
+            rebuildIndex();
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private void rebuildIndex() {
+        int length = Integer.highestOneBit(keys.length * 2 - 1) << 1;
+        index = new int[length];
+        for (int i = 0; i < size; i++) {
+            addIndex(i);
+        }
+    }
+
+    private void addIndex(int position) {
+        int mask = index.length - 1;
+        int slot = hash(keys[position]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    private int find(Object key) {
+        if (index != null) {
+            int mask = index.length - 1;
+            int slot = hash(key) & mask;
+            while (index[slot] != 0) {
+                int position = index[slot] - 1;
+                if (Objects.equals(keys[position], key)) {
+                    return position;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(keys[i], key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object valueAt(int position) {
+        Object value = values[position];
+        if (value == INTEGER) {
+            return (int) numbers[position];
+        } else if (value == LONG) {
+            return numbers[position];
+        } else if (value == DOUBLE) {
+            return Double.longBitsToDouble(numbers[position]);
+        }
+        return value;
+    }
+
+    private void setNumber(int position, Object type, long bits) {
+        if (numbers == null) {
+            numbers = new long[keys.length];
+        }
+        values[position] = type;
+        numbers[position] = bits;
+    }
+
+    private void setValue(int position, Object value) {
+        if (value instanceof Integer) {
+            setNumber(position, INTEGER, (Integer) value);
+        } else if (value instanceof Long) {
+            setNumber(position, LONG, (Long) value);
+        } else if (value instanceof Double) {
+            setNumber(position, DOUBLE, Double.doubleToRawLongBits((Double) value));
+        } else {
+            values[position] = value;
+        }
+    }
+
+    private int add(String key) {
+        if (keys == null) {
+            allocate(INITIAL_CAPACITY);
+        } else if (size == keys.length) {
+            allocate(size + (size >> 1));
+        }
+        int position = size++;
+        keys[position] = key;
+        if (index != null) {
+            addIndex(position);
+        }
+        return position;
+    }
+
+    private int findOrAdd(String key) {
+        int position = find(key);
+        return position >= 0 ? position : add(key);
+    }
+
+    /**
+     * Store integer without boxing.
+     */
+    public void putInteger(String key, int value) {
+        setNumber(findOrAdd(key), INTEGER, value);
+    }
+
+    /**
+     * Store long without boxing.
+     */
+    public void putLong(String key, long value) {
+        setNumber(findOrAdd(key), LONG, value);
+    }
+
+    /**
+     * Store double without boxing.
+     */
+    public void putDouble(String key, double value) {
+        setNumber(findOrAdd(key), DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int position = find(key);
+        return position >= 0 ? valueAt(position) : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int position = find(key);
+        Object previous = null;
+        if (position >= 0) {
+            previous = valueAt(position);
+        } else {
+            position = add(key);
+        }
+        setValue(position, value);
+        return previous;
+    }
+
+    private void removeAt(int position) {
+        int moved = size - position - 1;
+        System.arraycopy(keys, position + 1, keys, position, moved);
+        System.arraycopy(values, position + 1, values, position, moved);
+        if (numbers != null) {
+            System.arraycopy(numbers, position + 1, numbers, position, moved);
+        }
+        size -= 1;
+        keys[size] = null;
+        values[size] = null;
+        if (index != null) {
+            rebuildIndex();
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int position = find(key);
+        if (position < 0) {
+            return null;
+        }
+        Object previous = valueAt(position);
+        removeAt(position);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        keys = null;
+        values = null;
+        numbers = null;
+        index = null;
+        size = 0;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(keys[i], valueAt(i));
+        }
+    }
+
+    private final class Entry implements Map.Entry<String, Object> {
+
+        private final int position;
+
+        private Entry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey() {
+            return keys[position];
+        }
+
+        @Override
+        public Object getValue() {
+            return valueAt(position);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = valueAt(position);
+            AttributeMap.this.setValue(position, value);
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private int next;
+        private boolean removable;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            removable = true;
+            return new Entry(next++);
+        }
+
+        @Override
+        public void remove() {
+            if (!removable) {
+                throw new IllegalStateException();
+            }
+            removable = false;
+            next -= 1;
+            removeAt(next);
+        }
+
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                AttributeMap.this.clear();
+            }
+        };
+    }
+
+}
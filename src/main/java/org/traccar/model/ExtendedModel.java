@@ -15,13 +15,11 @@
  */
 package org.traccar.model;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Objects;
 
 public class ExtendedModel extends BaseModel {
 
-    private Map<String, Object> attributes = new LinkedHashMap<>();
+    private AttributeMap attributes = new AttributeMap();
 
     public boolean hasAttribute(String key) {
         return attributes.containsKey(key);
@@ -32,7 +30,25 @@ public class ExtendedModel extends BaseModel {
     }
 
     public void setAttributes(Map<String, Object> attributes) {
-        this.attributes = Objects.requireNonNullElseGet(attributes, LinkedHashMap::new);
+        if (attributes instanceof AttributeMap) {
+            this.attributes = (AttributeMap) attributes;
+        } else if (attributes != null) {
+            this.attributes = new AttributeMap(attributes);
+        } else {
+            this.attributes = new AttributeMap();
+        }
+    }
+
+    public void set(String key, int value) {
+        attributes.putInteger(key, value);
+    }
+
+    public void set(String key, long value) {
+        attributes.putLong(key, value);
+    }
+
+    public void set(String key, double value) {
+        attributes.putDouble(key, value);
     }
 
     public void set(String key, Boolean value) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2012 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@ package org.traccar.model;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -150,6 +152,25 @@ public class Position extends Message {
     public static final String ALARM_TAMPERING = "tampering";
     public static final String ALARM_REMOVING = "removing";
 
+    private static final int KEY_CACHE_SIZE = 1024;
+    private static final Map<String, String[]> KEY_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Numbered attribute key, for example "io239". Common keys are cached to avoid creating a string per value.
+     */
+    public static String key(String prefix, int number) {
+        if (number < 0 || number >= KEY_CACHE_SIZE) {
+            return prefix + number;
+        }
+        String[] keys = KEY_CACHE.computeIfAbsent(prefix, k -> new String[KEY_CACHE_SIZE]);
+        String key = keys[number];
+        if (key == null) {
+            key = prefix + number;
+            keys[number] = key;
+        }
+        return key;
+    }
+
     public Position() {
     }
 
@@ -215,6 +236,23 @@ public class Position extends Message {
         this.outdated = outdated;
     }
 
+    private boolean backlog;
+
+    /**
+     * Position is historic data uploaded late by the device and skips live processing.
+     */
+    @JsonIgnore
+    @QueryIgnore
+    public boolean getBacklog() {
+        return backlog;
+    }
+
+    @JsonIgnore
+    @QueryIgnore
+    public void setBacklog(boolean backlog) {
+        this.backlog = backlog;
+    }
+
     private boolean valid;
 
     public boolean getValid() {
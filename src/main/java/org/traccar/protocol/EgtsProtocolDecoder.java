@@ -268,7 +268,7 @@ public class EgtsProtocolDecoder extends BaseProtocolDecoder {
 
                     for (int i = 0; i < 8; i++) {
                         if (BitUtil.check(adcMask, i)) {
-                            position.set(Position.PREFIX_ADC + (i + 1), buf.readUnsignedMediumLE());
+                            position.set(Position.key(Position.PREFIX_ADC, i + 1), buf.readUnsignedMediumLE());
                         }
                     }
 
@@ -34,11 +34,9 @@ import java.net.SocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 
@@ -61,7 +59,7 @@ public class GalileoProtocolDecoder extends BaseProtocolDecoder {
         return value != null ? value : compressed;
     }
 
-    private static final Map<Integer, Integer> TAG_LENGTH_MAP = new HashMap<>();
+    private static final int[] TAG_LENGTHS = new int[256];
 
     static {
         int[] l1 = {
@@ -89,26 +87,26 @@ public class GalileoProtocolDecoder extends BaseProtocolDecoder {
             0xf7, 0xf8, 0xe2, 0xe9
         };
         for (int i : l1) {
-            TAG_LENGTH_MAP.put(i, 1);
+            TAG_LENGTHS[i] = 1;
         }
         for (int i : l2) {
-            TAG_LENGTH_MAP.put(i, 2);
+            TAG_LENGTHS[i] = 2;
         }
         for (int i : l3) {
-            TAG_LENGTH_MAP.put(i, 3);
+            TAG_LENGTHS[i] = 3;
         }
         for (int i : l4) {
-            TAG_LENGTH_MAP.put(i, 4);
+            TAG_LENGTHS[i] = 4;
         }
-        TAG_LENGTH_MAP.put(0x5b, 7); // variable length
-        TAG_LENGTH_MAP.put(0x5c, 68);
-        TAG_LENGTH_MAP.put(0xfd, 8);
-        TAG_LENGTH_MAP.put(0xfe, 8);
+        TAG_LENGTHS[0x5b] = 7; // variable length
+        TAG_LENGTHS[0x5c] = 68;
+        TAG_LENGTHS[0xfd] = 8;
+        TAG_LENGTHS[0xfe] = 8;
     }
 
     private static int getTagLength(int tag) {
-        Integer length = TAG_LENGTH_MAP.get(tag);
-        if (length == null) {
+        int length = tag >= 0 && tag < TAG_LENGTHS.length ? TAG_LENGTHS[tag] : 0;
+        if (length == 0) {
             throw new IllegalArgumentException(String.format("Unknown tag: 0x%02x", tag));
         }
         return length;
@@ -125,7 +123,7 @@ public class GalileoProtocolDecoder extends BaseProtocolDecoder {
 
     private void decodeTag(Position position, ByteBuf buf, int tag) {
         if (tag >= 0x50 && tag <= 0x57) {
-            position.set(Position.PREFIX_ADC + (tag - 0x50), buf.readUnsignedShortLE());
+            position.set(Position.key(Position.PREFIX_ADC, tag - 0x50), buf.readUnsignedShortLE());
         } else if (tag >= 0x60 && tag <= 0x62) {
             position.set("fuel" + (tag - 0x60), buf.readUnsignedShortLE());
         } else if (tag >= 0xa0 && tag <= 0xaf) {
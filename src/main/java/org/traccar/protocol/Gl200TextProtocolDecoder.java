@@ -23,6 +23,8 @@ import org.traccar.NetworkMessage;
 import org.traccar.Protocol;
 import org.traccar.config.Keys;
 import org.traccar.helper.BitUtil;
+import org.traccar.helper.BufferTokenizer;
+import org.traccar.helper.BufferUtil;
 import org.traccar.helper.Parser;
 import org.traccar.helper.PatternBuilder;
 import org.traccar.helper.UnitsConverter;
@@ -388,194 +390,193 @@ public class Gl200TextProtocolDecoder extends BaseProtocolDecoder {
         return position;
     }
 
-    private Object decodeCan(Channel channel, SocketAddress remoteAddress, String sentence) throws ParseException {
+    private Object decodeCan(Channel channel, SocketAddress remoteAddress, ByteBuf buf) throws ParseException {
         Position position = new Position(getProtocolName());
 
-        int index = 0;
-        String[] values = sentence.split(",");
+        BufferTokenizer tokenizer = new BufferTokenizer(buf, ',');
 
-        index += 1; // header
-        index += 1; // protocol version
+        tokenizer.skip(); // header
+        tokenizer.skip(); // protocol version
 
-        DeviceSession deviceSession = getDeviceSession(channel, remoteAddress, values[index++]);
+        DeviceSession deviceSession = getDeviceSession(channel, remoteAddress, tokenizer.next());
         position.setDeviceId(deviceSession.getDeviceId());
 
-        String deviceName = values[index++];
-        index += 1; // report type
-        index += 1; // canbus state
-        long reportMask = Long.parseLong(values[index++], 16);
+        String deviceName = tokenizer.next();
+        tokenizer.skip(); // report type
+        tokenizer.skip(); // canbus state
+        long reportMask = tokenizer.nextLong(16);
         long reportMaskExt = 0;
 
         if (BitUtil.check(reportMask, 0)) {
-            position.set(Position.KEY_VIN, values[index++]);
+            position.set(Position.KEY_VIN, tokenizer.next());
         }
         if (BitUtil.check(reportMask, 1)) {
-            position.set(Position.KEY_IGNITION, Integer.parseInt(values[index++]) > 0);
+            position.set(Position.KEY_IGNITION, tokenizer.nextInt() > 0);
         }
         if (BitUtil.check(reportMask, 2)) {
-            position.set(Position.KEY_OBD_ODOMETER, values[index++]);
+            position.set(Position.KEY_OBD_ODOMETER, tokenizer.next());
         }
-        if (BitUtil.check(reportMask, 3) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_FUEL_USED, Double.parseDouble(values[index - 1]));
+        if (BitUtil.check(reportMask, 3) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_FUEL_USED, tokenizer.nextDouble());
         }
-        if (BitUtil.check(reportMask, 5) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_RPM, Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMask, 5) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_RPM, tokenizer.nextInt());
         }
-        if (BitUtil.check(reportMask, 4) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_OBD_SPEED, Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMask, 4) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_OBD_SPEED, tokenizer.nextInt());
         }
-        if (BitUtil.check(reportMask, 6) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_COOLANT_TEMP, Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMask, 6) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_COOLANT_TEMP, tokenizer.nextInt());
         }
-        if (BitUtil.check(reportMask, 7) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_FUEL_CONSUMPTION, Double.parseDouble(values[index - 1].substring(1)));
+        if (BitUtil.check(reportMask, 7) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_FUEL_CONSUMPTION, Double.parseDouble(tokenizer.next().substring(1)));
         }
-        if (BitUtil.check(reportMask, 8) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_FUEL_LEVEL, Double.parseDouble(values[index - 1].substring(1)));
+        if (BitUtil.check(reportMask, 8) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_FUEL_LEVEL, Double.parseDouble(tokenizer.next().substring(1)));
         }
-        if (BitUtil.check(reportMask, 9) && !values[index++].isEmpty()) {
-            position.set("range", Long.parseLong(values[index - 1]) * 100);
+        if (BitUtil.check(reportMask, 9) && !tokenizer.skipEmpty()) {
+            position.set("range", tokenizer.nextLong() * 100);
         }
-        if (BitUtil.check(reportMask, 10) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_THROTTLE, Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMask, 10) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_THROTTLE, tokenizer.nextInt());
         }
-        if (BitUtil.check(reportMask, 11) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_HOURS, UnitsConverter.msFromHours(Double.parseDouble(values[index - 1])));
+        if (BitUtil.check(reportMask, 11) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_HOURS, UnitsConverter.msFromHours(tokenizer.nextDouble()));
         }
-        if (BitUtil.check(reportMask, 12) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_DRIVING_TIME, Double.parseDouble(values[index - 1]));
+        if (BitUtil.check(reportMask, 12) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_DRIVING_TIME, tokenizer.nextDouble());
         }
-        if (BitUtil.check(reportMask, 13) && !values[index++].isEmpty()) {
-            position.set("idleHours", Double.parseDouble(values[index - 1]));
+        if (BitUtil.check(reportMask, 13) && !tokenizer.skipEmpty()) {
+            position.set("idleHours", tokenizer.nextDouble());
         }
-        if (BitUtil.check(reportMask, 14) && !values[index++].isEmpty()) {
-            position.set("idleFuelConsumption", Double.parseDouble(values[index - 1]));
+        if (BitUtil.check(reportMask, 14) && !tokenizer.skipEmpty()) {
+            position.set("idleFuelConsumption", tokenizer.nextDouble());
         }
-        if (BitUtil.check(reportMask, 15) && !values[index++].isEmpty()) {
-            position.set(Position.KEY_AXLE_WEIGHT, Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMask, 15) && !tokenizer.skipEmpty()) {
+            position.set(Position.KEY_AXLE_WEIGHT, tokenizer.nextInt());
         }
-        if (BitUtil.check(reportMask, 16) && !values[index++].isEmpty()) {
-            position.set("tachographInfo", Integer.parseInt(values[index - 1], 16));
+        if (BitUtil.check(reportMask, 16) && !tokenizer.skipEmpty()) {
+            position.set("tachographInfo", tokenizer.nextInt(16));
         }
-        if (BitUtil.check(reportMask, 17) && !values[index++].isEmpty()) {
-            position.set("indicators", Integer.parseInt(values[index - 1], 16));
+        if (BitUtil.check(reportMask, 17) && !tokenizer.skipEmpty()) {
+            position.set("indicators", tokenizer.nextInt(16));
         }
-        if (BitUtil.check(reportMask, 18) && !values[index++].isEmpty()) {
-            position.set("lights", Integer.parseInt(values[index - 1], 16));
+        if (BitUtil.check(reportMask, 18) && !tokenizer.skipEmpty()) {
+            position.set("lights", tokenizer.nextInt(16));
         }
-        if (BitUtil.check(reportMask, 19) && !values[index++].isEmpty()) {
-            position.set("doors", Integer.parseInt(values[index - 1], 16));
+        if (BitUtil.check(reportMask, 19) && !tokenizer.skipEmpty()) {
+            position.set("doors", tokenizer.nextInt(16));
         }
-        if (BitUtil.check(reportMask, 20) && !values[index++].isEmpty()) {
-            position.set("vehicleOverspeed", Double.parseDouble(values[index - 1]));
+        if (BitUtil.check(reportMask, 20) && !tokenizer.skipEmpty()) {
+            position.set("vehicleOverspeed", tokenizer.nextDouble());
         }
-        if (BitUtil.check(reportMask, 21) && !values[index++].isEmpty()) {
-            position.set("engineOverspeed", Double.parseDouble(values[index - 1]));
+        if (BitUtil.check(reportMask, 21) && !tokenizer.skipEmpty()) {
+            position.set("engineOverspeed", tokenizer.nextDouble());
         }
         if ("GV350M".equals(deviceName)) {
             if (BitUtil.check(reportMask, 22)) {
-                index += 1; // impulse distance
+                tokenizer.skip(); // impulse distance
             }
             if (BitUtil.check(reportMask, 23)) {
-                index += 1; // gross vehicle weight
+                tokenizer.skip(); // gross vehicle weight
             }
             if (BitUtil.check(reportMask, 24)) {
-                index += 1; // catalyst liquid level
+                tokenizer.skip(); // catalyst liquid level
             }
         }
-        if (BitUtil.check(reportMask, 29) && !values[index++].isEmpty()) {
-            reportMaskExt = Long.parseLong(values[index - 1], 16);
+        if (BitUtil.check(reportMask, 29) && !tokenizer.skipEmpty()) {
+            reportMaskExt = tokenizer.nextLong(16);
         }
-        if (BitUtil.check(reportMaskExt, 0) && !values[index++].isEmpty()) {
-            position.set("adBlueLevel", Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMaskExt, 0) && !tokenizer.skipEmpty()) {
+            position.set("adBlueLevel", tokenizer.nextInt());
         }
-        if (BitUtil.check(reportMaskExt, 1) && !values[index++].isEmpty()) {
-            position.set("axleWeight1", Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMaskExt, 1) && !tokenizer.skipEmpty()) {
+            position.set("axleWeight1", tokenizer.nextInt());
         }
-        if (BitUtil.check(reportMaskExt, 2) && !values[index++].isEmpty()) {
-            position.set("axleWeight3", Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMaskExt, 2) && !tokenizer.skipEmpty()) {
+            position.set("axleWeight3", tokenizer.nextInt());
         }
-        if (BitUtil.check(reportMaskExt, 3) && !values[index++].isEmpty()) {
-            position.set("axleWeight4", Integer.parseInt(values[index - 1]));
+        if (BitUtil.check(reportMaskExt, 3) && !tokenizer.skipEmpty()) {
+            position.set("axleWeight4", tokenizer.nextInt());
         }
         if (BitUtil.check(reportMaskExt, 4)) {
-            index += 1; // tachograph overspeed
+            tokenizer.skip(); // tachograph overspeed
         }
         if (BitUtil.check(reportMaskExt, 5)) {
-            index += 1; // tachograph motion
+            tokenizer.skip(); // tachograph motion
         }
         if (BitUtil.check(reportMaskExt, 6)) {
-            index += 1; // tachograph direction
+            tokenizer.skip(); // tachograph direction
         }
-        if (BitUtil.check(reportMaskExt, 7) && !values[index++].isEmpty()) {
-            position.set(Position.PREFIX_ADC + 1, Integer.parseInt(values[index - 1]) * 0.001);
+        if (BitUtil.check(reportMaskExt, 7) && !tokenizer.skipEmpty()) {
+            position.set(Position.PREFIX_ADC + 1, tokenizer.nextInt() * 0.001);
         }
         if (BitUtil.check(reportMaskExt, 8)) {
-            index += 1; // pedal breaking factor
+            tokenizer.skip(); // pedal breaking factor
         }
         if (BitUtil.check(reportMaskExt, 9)) {
-            index += 1; // engine breaking factor
+            tokenizer.skip(); // engine breaking factor
         }
         if (BitUtil.check(reportMaskExt, 10)) {
-            index += 1; // total accelerator kick-downs
+            tokenizer.skip(); // total accelerator kick-downs
         }
         if (BitUtil.check(reportMaskExt, 11)) {
-            index += 1; // total effective engine speed
+            tokenizer.skip(); // total effective engine speed
         }
         if (BitUtil.check(reportMaskExt, 12)) {
-            index += 1; // total cruise control time
+            tokenizer.skip(); // total cruise control time
         }
         if (BitUtil.check(reportMaskExt, 13)) {
-            index += 1; // total accelerator kick-down time
+            tokenizer.skip(); // total accelerator kick-down time
         }
         if (BitUtil.check(reportMaskExt, 14)) {
-            index += 1; // total brake application
+            tokenizer.skip(); // total brake application
         }
-        if (BitUtil.check(reportMaskExt, 15) && !values[index++].isEmpty()) {
-            position.set("driver1Card", values[index - 1]);
+        if (BitUtil.check(reportMaskExt, 15) && !tokenizer.skipEmpty()) {
+            position.set("driver1Card", tokenizer.next());
         }
-        if (BitUtil.check(reportMaskExt, 16) && !values[index++].isEmpty()) {
-            position.set("driver2Card", values[index - 1]);
+        if (BitUtil.check(reportMaskExt, 16) && !tokenizer.skipEmpty()) {
+            position.set("driver2Card", tokenizer.next());
         }
-        if (BitUtil.check(reportMaskExt, 17) && !values[index++].isEmpty()) {
-            position.set("driver1Name", values[index - 1]);
+        if (BitUtil.check(reportMaskExt, 17) && !tokenizer.skipEmpty()) {
+            position.set("driver1Name", tokenizer.next());
         }
-        if (BitUtil.check(reportMaskExt, 18) && !values[index++].isEmpty()) {
-            position.set("driver2Name", values[index - 1]);
+        if (BitUtil.check(reportMaskExt, 18) && !tokenizer.skipEmpty()) {
+            position.set("driver2Name", tokenizer.next());
         }
-        if (BitUtil.check(reportMaskExt, 19) && !values[index++].isEmpty()) {
-            position.set("registration", values[index - 1]);
+        if (BitUtil.check(reportMaskExt, 19) && !tokenizer.skipEmpty()) {
+            position.set("registration", tokenizer.next());
         }
         if (BitUtil.check(reportMaskExt, 20)) {
-            index += 1; // expansion information
+            tokenizer.skip(); // expansion information
         }
         if (BitUtil.check(reportMaskExt, 21)) {
-            index += 1; // rapid brakings
+            tokenizer.skip(); // rapid brakings
         }
         if (BitUtil.check(reportMaskExt, 22)) {
-            index += 1; // rapid accelerations
+            tokenizer.skip(); // rapid accelerations
         }
         if (BitUtil.check(reportMaskExt, 23)) {
-            index += 1; // engine torque
+            tokenizer.skip(); // engine torque
         }
 
         DateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
         dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
 
         if (BitUtil.check(reportMask, 30)) {
-            while (values[index].isEmpty()) {
-                index += 1;
+            while (tokenizer.hasNext() && tokenizer.isNextEmpty()) {
+                tokenizer.skip();
             }
-            position.setValid(Integer.parseInt(values[index++]) > 0);
-            if (!values[index].isEmpty()) {
-                position.setSpeed(UnitsConverter.knotsFromKph(Double.parseDouble(values[index++])));
-                position.setCourse(Integer.parseInt(values[index++]));
-                position.setAltitude(Double.parseDouble(values[index++]));
-                position.setLongitude(Double.parseDouble(values[index++]));
-                position.setLatitude(Double.parseDouble(values[index++]));
-                position.setTime(dateFormat.parse(values[index++]));
+            position.setValid(tokenizer.nextInt() > 0);
+            if (!tokenizer.isNextEmpty()) {
+                position.setSpeed(UnitsConverter.knotsFromKph(tokenizer.nextDouble()));
+                position.setCourse(tokenizer.nextInt());
+                position.setAltitude(tokenizer.nextDouble());
+                position.setLongitude(tokenizer.nextDouble());
+                position.setLatitude(tokenizer.nextDouble());
+                position.setTime(dateFormat.parse(tokenizer.next()));
             } else {
-                index += 6; // no location
+                tokenizer.skip(6); // no location
                 getLastLocation(position, null);
             }
         } else {
@@ -583,14 +584,14 @@ public class Gl200TextProtocolDecoder extends BaseProtocolDecoder {
         }
 
         if (BitUtil.check(reportMask, 31)) {
-            index += 4; // cell
-            index += 1; // reserved
+            tokenizer.skip(4); // cell
+            tokenizer.skip(); // reserved
         }
 
         if (ignoreFixTime) {
-            position.setTime(dateFormat.parse(values[index]));
+            position.setTime(dateFormat.parse(tokenizer.next()));
         } else {
-            position.setDeviceTime(dateFormat.parse(values[index]));
+            position.setDeviceTime(dateFormat.parse(tokenizer.next()));
         }
 
         return position;
@@ -1448,82 +1449,85 @@ public class Gl200TextProtocolDecoder extends BaseProtocolDecoder {
     protected Object decode(
             Channel channel, SocketAddress remoteAddress, Object msg) throws Exception {
 
-        String sentence = ((ByteBuf) msg).toString(StandardCharsets.US_ASCII);
+        ByteBuf buf = (ByteBuf) msg;
 
-        int typeIndex = sentence.indexOf(":GT");
+        int typeIndex = BufferUtil.indexOf(":GT", buf);
         if (typeIndex < 0) {
             return null;
         }
 
         Object result;
-        String type = sentence.substring(typeIndex + 3, typeIndex + 6);
-        if (sentence.startsWith("+ACK")) {
-            result = decodeAck(channel, remoteAddress, sentence, type);
+        String type = buf.toString(typeIndex + 3, 3, StandardCharsets.US_ASCII);
+        if (buf.toString(buf.readerIndex(), 4, StandardCharsets.US_ASCII).equals("+ACK")) {
+            result = decodeAck(channel, remoteAddress, buf.toString(StandardCharsets.US_ASCII), type);
         } else {
-            switch (type) {
-                case "INF":
-                    result = decodeInf(channel, remoteAddress, sentence);
-                    break;
-                case "OBD":
-                    result = decodeObd(channel, remoteAddress, sentence);
-                    break;
-                case "CAN":
-                    result = decodeCan(channel, remoteAddress, sentence);
-                    break;
-                case "CTN":
-                case "FRI":
-                case "GEO":
-                case "RTL":
-                case "DOG":
-                case "STR":
-                    result = decodeFri(channel, remoteAddress, sentence);
-                    break;
-                case "ERI":
-                    result = decodeEri(channel, remoteAddress, sentence);
-                    break;
-                case "IGN":
-                case "IGF":
-                    result = decodeIgn(channel, remoteAddress, sentence);
-                    break;
-                case "LSW":
-                case "TSW":
-                    result = decodeLsw(channel, remoteAddress, sentence);
-                    break;
-                case "IDA":
-                    result = decodeIda(channel, remoteAddress, sentence);
-                    break;
-                case "WIF":
-                    result = decodeWif(channel, remoteAddress, sentence);
-                    break;
-                case "GSM":
-                    result = decodeGsm(channel, remoteAddress, sentence);
-                    break;
-                case "VER":
-                    result = decodeVer(channel, remoteAddress, sentence);
-                    break;
-                case "PNA":
-                case "PFA":
-                    result = decodePna(channel, remoteAddress, sentence);
-                    break;
-                case "DAR":
-                    result = decodeDar(channel, remoteAddress, sentence);
-                    break;
-                case "DTT":
-                    result = decodeDtt(channel, remoteAddress, sentence);
-                    break;
-                case "BAA":
-                    result = decodeBaa(channel, remoteAddress, sentence);
-                    break;
-                case "BID":
-                    result = decodeBid(channel, remoteAddress, sentence);
-                    break;
-                default:
-                    result = decodeOther(channel, remoteAddress, sentence, type);
-                    break;
-            }
+            if (type.equals("CAN")) {
+                // frequent report, so fields are read directly from the buffer
+                result = decodeCan(channel, remoteAddress, buf);
+            } else {
+                String sentence = buf.toString(StandardCharsets.US_ASCII);
+                switch (type) {
+                    case "INF":
+                        result = decodeInf(channel, remoteAddress, sentence);
+                        break;
+                    case "OBD":
+                        result = decodeObd(channel, remoteAddress, sentence);
+                        break;
+                    case "CTN":
+                    case "FRI":
+                    case "GEO":
+                    case "RTL":
+                    case "DOG":
+                    case "STR":
+                        result = decodeFri(channel, remoteAddress, sentence);
+                        break;
+                    case "ERI":
+                        result = decodeEri(channel, remoteAddress, sentence);
+                        break;
+                    case "IGN":
+                    case "IGF":
+                        result = decodeIgn(channel, remoteAddress, sentence);
+                        break;
+                    case "LSW":
+                    case "TSW":
+                        result = decodeLsw(channel, remoteAddress, sentence);
+                        break;
+                    case "IDA":
+                        result = decodeIda(channel, remoteAddress, sentence);
+                        break;
+                    case "WIF":
+                        result = decodeWif(channel, remoteAddress, sentence);
+                        break;
+                    case "GSM":
+                        result = decodeGsm(channel, remoteAddress, sentence);
+                        break;
+                    case "VER":
+                        result = decodeVer(channel, remoteAddress, sentence);
+                        break;
+                    case "PNA":
+                    case "PFA":
+                        result = decodePna(channel, remoteAddress, sentence);
+                        break;
+                    case "DAR":
+                        result = decodeDar(channel, remoteAddress, sentence);
+                        break;
+                    case "DTT":
+                        result = decodeDtt(channel, remoteAddress, sentence);
+                        break;
+                    case "BAA":
+                        result = decodeBaa(channel, remoteAddress, sentence);
+                        break;
+                    case "BID":
+                        result = decodeBid(channel, remoteAddress, sentence);
+                        break;
+                    default:
+                        result = decodeOther(channel, remoteAddress, sentence, type);
+                        break;
+                }
 
-            if (result == null) {
-                result = decodeBasic(channel, remoteAddress, sentence, type);
+                if (result == null) {
+                    result = decodeBasic(channel, remoteAddress, sentence, type);
+                }
             }
 
             if (result != null) {
@@ -1538,12 +1542,11 @@ public class Gl200TextProtocolDecoder extends BaseProtocolDecoder {
         }
 
         if (channel != null && getConfig().getBoolean(Keys.PROTOCOL_ACK.withPrefix(getProtocolName()))) {
-            String checksum;
-            if (sentence.endsWith("$")) {
-                checksum = sentence.substring(sentence.length() - 1 - 4, sentence.length() - 1);
-            } else {
-                checksum = sentence.substring(sentence.length() - 4);
+            int checksumEnd = buf.writerIndex();
+            if (buf.getByte(checksumEnd - 1) == '$') {
+                checksumEnd -= 1;
             }
+            String checksum = buf.toString(checksumEnd - 4, 4, StandardCharsets.US_ASCII);
             channel.writeAndFlush(new NetworkMessage("+SACK:" + checksum + "$", remoteAddress));
         }
 
@@ -31,10 +31,8 @@ import java.net.SocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.BitSet;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 public class NavtelecomProtocolDecoder extends BaseProtocolDecoder {
 
@@ -42,7 +40,7 @@ public class NavtelecomProtocolDecoder extends BaseProtocolDecoder {
         super(protocol);
     }
 
-    private static final Map<Integer, Integer> ITEM_LENGTH_MAP = new HashMap<>();
+    private static final int[] ITEM_LENGTHS = new int[256];
 
     static {
         int[] l1 = {
@@ -66,38 +64,38 @@ public class NavtelecomProtocolDecoder extends BaseProtocolDecoder {
                 246, 247, 248, 249, 250, 251, 252
         };
         for (int i : l1) {
-            ITEM_LENGTH_MAP.put(i, 1);
+            ITEM_LENGTHS[i] = 1;
         }
         for (int i : l2) {
-            ITEM_LENGTH_MAP.put(i, 2);
+            ITEM_LENGTHS[i] = 2;
         }
         for (int i : l3) {
-            ITEM_LENGTH_MAP.put(i, 3);
+            ITEM_LENGTHS[i] = 3;
         }
         for (int i : l4) {
-            ITEM_LENGTH_MAP.put(i, 4);
+            ITEM_LENGTHS[i] = 4;
         }
-        ITEM_LENGTH_MAP.put(70, 8);
-        ITEM_LENGTH_MAP.put(73, 16);
-        ITEM_LENGTH_MAP.put(77, 37);
-        ITEM_LENGTH_MAP.put(94, 6);
-        ITEM_LENGTH_MAP.put(95, 12);
-        ITEM_LENGTH_MAP.put(96, 24);
-        ITEM_LENGTH_MAP.put(97, 48);
-        ITEM_LENGTH_MAP.put(107, 6);
-        ITEM_LENGTH_MAP.put(109, 6);
-        ITEM_LENGTH_MAP.put(197, 6);
-        ITEM_LENGTH_MAP.put(204, 5);
-        ITEM_LENGTH_MAP.put(253, 8);
-        ITEM_LENGTH_MAP.put(254, 8);
-        ITEM_LENGTH_MAP.put(255, 8);
+        ITEM_LENGTHS[70] = 8;
+        ITEM_LENGTHS[73] = 16;
+        ITEM_LENGTHS[77] = 37;
+        ITEM_LENGTHS[94] = 6;
+        ITEM_LENGTHS[95] = 12;
+        ITEM_LENGTHS[96] = 24;
+        ITEM_LENGTHS[97] = 48;
+        ITEM_LENGTHS[107] = 6;
+        ITEM_LENGTHS[109] = 6;
+        ITEM_LENGTHS[197] = 6;
+        ITEM_LENGTHS[204] = 5;
+        ITEM_LENGTHS[253] = 8;
+        ITEM_LENGTHS[254] = 8;
+        ITEM_LENGTHS[255] = 8;
     }
 
     private BitSet bits;
 
     public static int getItemLength(int id) {
-        Integer length = ITEM_LENGTH_MAP.get(id);
-        if (length == null) {
+        int length = id >= 0 && id < ITEM_LENGTHS.length ? ITEM_LENGTHS[id] : 0;
+        if (length == 0) {
             throw new IllegalArgumentException(String.format("Unknown item: %d", id));
         }
         return length;
@@ -258,23 +256,26 @@ public class NavtelecomProtocolDecoder extends BaseProtocolDecoder {
                                 case 24:
                                 case 25:
                                 case 26:
-                                    position.set(Position.PREFIX_ADC + (j + 1 - 21), buf.readUnsignedShortLE() * 0.001);
+                                    position.set(
+                                            Position.key(Position.PREFIX_ADC, j + 1 - 21),
+                                            buf.readUnsignedShortLE() * 0.001);
                                     break;
                                 case 29:
                                     value = buf.readUnsignedByte();
                                     for (int k = 0; k <= 7; k++) {
-                                        position.set(Position.PREFIX_IN + (k + 1), BitUtil.check(value, k));
+                                        position.set(Position.key(Position.PREFIX_IN, k + 1), BitUtil.check(value, k));
                                     }
                                     break;
                                 case 31:
                                     value = buf.readUnsignedByte();
                                     for (int k = 0; k <= 3; k++) {
-                                        position.set(Position.PREFIX_OUT + (k + 1), BitUtil.check(value, k));
+                                        position.set(Position.key(Position.PREFIX_OUT, k + 1), BitUtil.check(value, k));
                                     }
                                     break;
                                 case 33:
                                 case 34:
-                                    position.set(Position.PREFIX_COUNT + (j + 1 - 33), buf.readUnsignedIntLE());
+                                    position.set(
+                                            Position.key(Position.PREFIX_COUNT, j + 1 - 33), buf.readUnsignedIntLE());
                                     break;
                                 case 35:
                                 case 36:
@@ -307,7 +308,8 @@ public class NavtelecomProtocolDecoder extends BaseProtocolDecoder {
                                 case 52:
                                     value = buf.readByte();
                                     position.set(
-                                            Position.PREFIX_TEMP + (j + 1 - 45), (value != (byte) 0x80) ? value : null);
+                                            Position.key(Position.PREFIX_TEMP, j + 1 - 45),
+                                            (value != (byte) 0x80) ? value : null);
                                     break;
                                 case 53:
                                     value = buf.readUnsignedShortLE();
@@ -391,7 +393,7 @@ public class NavtelecomProtocolDecoder extends BaseProtocolDecoder {
                                 case 166:
                                     value = buf.readShortLE();
                                     position.set(
-                                            Position.PREFIX_TEMP + (j + 1 + 8 - 163),
+                                            Position.key(Position.PREFIX_TEMP, j + 1 + 8 - 163),
                                             (value != (short) 0x8000) ? value * 0.05 : null);
                                     break;
                                 case 167:
@@ -110,7 +110,7 @@ public class RuptelaProtocolDecoder extends BaseProtocolDecoder {
             case 3:
             case 4:
             case 5:
-                position.set(Position.PREFIX_IN + (id - 1), readValue(buf, length, false));
+                position.set(Position.key(Position.PREFIX_IN, id - 1), readValue(buf, length, false));
                 break;
             case 20:
                 position.set(Position.PREFIX_ADC + 3, readValue(buf, length, false));
@@ -142,7 +142,7 @@ public class RuptelaProtocolDecoder extends BaseProtocolDecoder {
             case 78:
             case 79:
             case 80:
-                position.set(Position.PREFIX_TEMP + (id - 78), readValue(buf, length, true) * 0.1);
+                position.set(Position.key(Position.PREFIX_TEMP, id - 78), readValue(buf, length, true) * 0.1);
                 break;
             case 88:
                 if (readValue(buf, length, false) > 0) {
@@ -202,7 +202,7 @@ public class RuptelaProtocolDecoder extends BaseProtocolDecoder {
                 }
                 break;
             default:
-                position.set(Position.PREFIX_IO + id, readValue(buf, length, false));
+                position.set(Position.key(Position.PREFIX_IO, id), readValue(buf, length, false));
                 break;
         }
     }
@@ -26,6 +26,7 @@ import org.traccar.helper.model.AttributeUtil;
 import org.traccar.session.DeviceSession;
 import org.traccar.Protocol;
 import org.traccar.helper.BitUtil;
+import org.traccar.helper.BufferTokenizer;
 import org.traccar.helper.DateBuilder;
 import org.traccar.helper.UnitsConverter;
 import org.traccar.model.CellTower;
@@ -118,17 +119,24 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
         return value != null ? value : includeTemp;
     }
 
-    private Position decode9(
-            Channel channel, SocketAddress remoteAddress, String[] values) throws ParseException {
-        int index = 1;
+    private Date readDateTime(BufferTokenizer tokenizer) {
+        int date = tokenizer.nextInt();
+        BufferTokenizer time = tokenizer.nextTokenizer(':');
+        return new DateBuilder()
+                .setDate(date / 10000, date / 100 % 100, date % 100)
+                .setTime(time.nextInt(), time.nextInt(), time.nextInt())
+                .getDate();
+    }
 
-        String type = values[index++];
+    private Position decode9(
+            Channel channel, SocketAddress remoteAddress, BufferTokenizer tokenizer) {
+        String type = tokenizer.next();
 
         if (!type.equals("Location") && !type.equals("Emergency") && !type.equals("Alert")) {
             return null;
         }
 
-        DeviceSession deviceSession = getDeviceSession(channel, remoteAddress, values[index++]);
+        DeviceSession deviceSession = getDeviceSession(channel, remoteAddress, tokenizer.next());
         if (deviceSession == null) {
             return null;
         }
@@ -141,26 +149,24 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
         }
 
         if (!type.equals("Alert") || getProtocolType(deviceSession.getDeviceId()) == 0) {
-            position.set(Position.KEY_VERSION_FW, values[index++]);
+            position.set(Position.KEY_VERSION_FW, tokenizer.next());
         }
 
-        DateFormat dateFormat = new SimpleDateFormat("yyyyMMddHH:mm:ss");
-        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-        position.setTime(dateFormat.parse(values[index++] + values[index++]));
+        position.setTime(readDateTime(tokenizer));
 
         if (getProtocolType(deviceSession.getDeviceId()) == 1) {
-            index += 1; // cell
+            tokenizer.skip(); // cell
         }
 
-        position.setLatitude(Double.parseDouble(values[index++]));
-        position.setLongitude(Double.parseDouble(values[index++]));
-        position.setSpeed(UnitsConverter.knotsFromKph(Double.parseDouble(values[index++])));
-        position.setCourse(Double.parseDouble(values[index++]));
+        position.setLatitude(tokenizer.nextDouble());
+        position.setLongitude(tokenizer.nextDouble());
+        position.setSpeed(UnitsConverter.knotsFromKph(tokenizer.nextDouble()));
+        position.setCourse(tokenizer.nextDouble());
 
-        position.setValid(values[index++].equals("1"));
+        position.setValid(tokenizer.nextEquals("1"));
 
         if (getProtocolType(deviceSession.getDeviceId()) == 1) {
-            position.set(Position.KEY_ODOMETER, Integer.parseInt(values[index++]));
+            position.set(Position.KEY_ODOMETER, tokenizer.nextInt());
         }
 
         return position;
@@ -219,16 +225,14 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
         }
     }
     private Position decode4(
-            Channel channel, SocketAddress remoteAddress, String[] values) throws ParseException {
-        int index = 0;
-
-        String type = values[index++].substring(5);
+            Channel channel, SocketAddress remoteAddress, BufferTokenizer tokenizer) {
+        String type = prefix.substring(5);
 
         if (!type.equals("STT") && !type.equals("ALT")) {
             return null;
         }
 
-        DeviceSession deviceSession = getDeviceSession(channel, remoteAddress, values[index++]);
+        DeviceSession deviceSession = getDeviceSession(channel, remoteAddress, tokenizer.next());
         if (deviceSession == null) {
             return null;
         }
@@ -237,24 +241,24 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
         position.setDeviceId(deviceSession.getDeviceId());
         position.set(Position.KEY_TYPE, type);
 
-        position.set(Position.KEY_VERSION_FW, values[index++]);
-        index += 1; // model
+        position.set(Position.KEY_VERSION_FW, tokenizer.next());
+        tokenizer.skip(); // model
 
         Network network = new Network();
 
         for (int i = 0; i < 7; i++) {
-            int cid = Integer.parseInt(values[index++]);
-            int mcc = Integer.parseInt(values[index++]);
-            int mnc = Integer.parseInt(values[index++]);
+            int cid = tokenizer.nextInt();
+            int mcc = tokenizer.nextInt();
+            int mnc = tokenizer.nextInt();
             int lac, rssi;
             if (i == 0) {
-                rssi = Integer.parseInt(values[index++]);
-                lac = Integer.parseInt(values[index++]);
+                rssi = tokenizer.nextInt();
+                lac = tokenizer.nextInt();
             } else {
-                lac = Integer.parseInt(values[index++]);
-                rssi = Integer.parseInt(values[index++]);
+                lac = tokenizer.nextInt();
+                rssi = tokenizer.nextInt();
             }
-            index += 1; // timing advance
+            tokenizer.skip(); // timing advance
             if (cid > 0) {
                 network.addCellTower(CellTower.from(mcc, mnc, lac, cid, rssi));
             }
@@ -262,33 +266,31 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
 
         position.setNetwork(network);
 
-        position.set(Position.KEY_BATTERY, Double.parseDouble(values[index++]));
-        position.set(Position.KEY_ARCHIVE, values[index++].equals("0") ? true : null);
-        position.set(Position.KEY_INDEX, Integer.parseInt(values[index++]));
-        position.set(Position.KEY_STATUS, Integer.parseInt(values[index++]));
+        position.set(Position.KEY_BATTERY, tokenizer.nextDouble());
+        position.set(Position.KEY_ARCHIVE, tokenizer.nextEquals("0") ? true : null);
+        position.set(Position.KEY_INDEX, tokenizer.nextInt());
+        position.set(Position.KEY_STATUS, tokenizer.nextInt());
 
-        if (values[index].length() == 3) {
-            index += 1; // collaborative network
+        if (tokenizer.peekLength() == 3) {
+            tokenizer.skip(); // collaborative network
         }
 
-        if (values[index].isEmpty()) {
+        if (tokenizer.isNextEmpty()) {
 
             getLastLocation(position, null);
 
         } else {
 
-            DateFormat dateFormat = new SimpleDateFormat("yyyyMMddHH:mm:ss");
-            dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-            position.setTime(dateFormat.parse(values[index++] + values[index++]));
+            position.setTime(readDateTime(tokenizer));
 
-            position.setLatitude(Double.parseDouble(values[index++]));
-            position.setLongitude(Double.parseDouble(values[index++]));
-            position.setSpeed(UnitsConverter.knotsFromKph(Double.parseDouble(values[index++])));
-            position.setCourse(Double.parseDouble(values[index++]));
+            position.setLatitude(tokenizer.nextDouble());
+            position.setLongitude(tokenizer.nextDouble());
+            position.setSpeed(UnitsConverter.knotsFromKph(tokenizer.nextDouble()));
+            position.setCourse(tokenizer.nextDouble());
 
-            position.set(Position.KEY_SATELLITES, Integer.parseInt(values[index++]));
+            position.set(Position.KEY_SATELLITES, tokenizer.nextInt());
 
-            position.setValid(values[index++].equals("1"));
+            position.setValid(tokenizer.nextEquals("1"));
 
         }
 
@@ -296,17 +298,15 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
     }
 
     private Position decode2356(
-            Channel channel, SocketAddress remoteAddress, String protocol, String[] values) throws ParseException {
-        int index = 0;
-
-        String type = values[index++].substring(5);
+            Channel channel, SocketAddress remoteAddress, String protocol, BufferTokenizer tokenizer) {
+        String type = prefix.substring(5);
 
         if (!type.equals("STT") && !type.equals("EMG") && !type.equals("EVT")
                 && !type.equals("ALT") && !type.equals("UEX")) {
             return null;
         }
 
-        DeviceSession deviceSession = getDeviceSession(channel, remoteAddress, values[index++]);
+        DeviceSession deviceSession = getDeviceSession(channel, remoteAddress, tokenizer.next());
         if (deviceSession == null) {
             return null;
         }
@@ -316,37 +316,35 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
         position.set(Position.KEY_TYPE, type);
 
         if (protocol.startsWith("ST3") || protocol.equals("ST500") || protocol.equals("ST600")) {
-            index += 1; // model
+            tokenizer.skip(); // model
         }
 
-        position.set(Position.KEY_VERSION_FW, values[index++]);
+        position.set(Position.KEY_VERSION_FW, tokenizer.next());
 
-        DateFormat dateFormat = new SimpleDateFormat("yyyyMMddHH:mm:ss");
-        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-        position.setTime(dateFormat.parse(values[index++] + values[index++]));
+        position.setTime(readDateTime(tokenizer));
 
         if (!protocol.equals("ST500")) {
-            long cid = Long.parseLong(values[index++], 16);
+            long cid = tokenizer.nextLong(16);
             if (protocol.equals("ST600")) {
                 position.setNetwork(new Network(CellTower.from(
-                        Integer.parseInt(values[index++]), Integer.parseInt(values[index++]),
-                        Integer.parseInt(values[index++], 16), cid, Integer.parseInt(values[index++]))));
+                        tokenizer.nextInt(), tokenizer.nextInt(),
+                        tokenizer.nextInt(16), cid, tokenizer.nextInt())));
             }
         }
 
-        position.setLatitude(Double.parseDouble(values[index++]));
-        position.setLongitude(Double.parseDouble(values[index++]));
-        position.setSpeed(UnitsConverter.knotsFromKph(Double.parseDouble(values[index++])));
-        position.setCourse(Double.parseDouble(values[index++]));
+        position.setLatitude(tokenizer.nextDouble());
+        position.setLongitude(tokenizer.nextDouble());
+        position.setSpeed(UnitsConverter.knotsFromKph(tokenizer.nextDouble()));
+        position.setCourse(tokenizer.nextDouble());
 
-        position.set(Position.KEY_SATELLITES, Integer.parseInt(values[index++]));
+        position.set(Position.KEY_SATELLITES, tokenizer.nextInt());
 
-        position.setValid(values[index++].equals("1"));
+        position.setValid(tokenizer.nextEquals("1"));
 
-        position.set(Position.KEY_ODOMETER, Integer.parseInt(values[index++]));
-        position.set(Position.KEY_POWER, Double.parseDouble(values[index++]));
+        position.set(Position.KEY_ODOMETER, tokenizer.nextInt());
+        position.set(Position.KEY_POWER, tokenizer.nextDouble());
 
-        String io = values[index++];
+        String io = tokenizer.next();
         if (io.length() >= 6) {
             position.set(Position.KEY_IGNITION, io.charAt(0) == '1');
             position.set(Position.PREFIX_IN + 1, io.charAt(1) == '1');
@@ -358,23 +356,23 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
 
         switch (type) {
             case "STT":
-                position.set(Position.KEY_STATUS, Integer.parseInt(values[index++]));
-                position.set(Position.KEY_INDEX, Integer.parseInt(values[index++]));
+                position.set(Position.KEY_STATUS, tokenizer.nextInt());
+                position.set(Position.KEY_INDEX, tokenizer.nextInt());
                 break;
             case "EMG":
-                position.set(Position.KEY_ALARM, decodeEmergency(Integer.parseInt(values[index++])));
+                position.set(Position.KEY_ALARM, decodeEmergency(tokenizer.nextInt()));
                 break;
             case "EVT":
-                position.set(Position.KEY_EVENT, Integer.parseInt(values[index++]));
+                position.set(Position.KEY_EVENT, tokenizer.nextInt());
                 break;
             case "ALT":
-                position.set(Position.KEY_ALARM, decodeAlert(Integer.parseInt(values[index++])));
+                position.set(Position.KEY_ALARM, decodeAlert(tokenizer.nextInt()));
                 break;
             case "UEX":
-                int remaining = Integer.parseInt(values[index++]);
+                int remaining = tokenizer.nextInt();
                 double totalFuel = 0;
                 while (remaining > 0) {
-                    String attribute = values[index++];
+                    String attribute = tokenizer.next();
                     if (attribute.startsWith("CabAVL")) {
                         String[] data = attribute.split(",");
                         double fuel1 = Double.parseDouble(data[2]);
@@ -420,7 +418,9 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
                 if (totalFuel > 0) {
                     position.set(Position.KEY_FUEL_LEVEL, totalFuel);
                 }
-                index += 1; // checksum
+                if (tokenizer.hasNext()) {
+                    tokenizer.skip(); // checksum
+                }
                 break;
             default:
                 break;
@@ -428,40 +428,44 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
 
         if (isHbm(deviceSession.getDeviceId())) {
 
-            if (index < values.length) {
-                position.set(Position.KEY_HOURS, UnitsConverter.msFromMinutes(Integer.parseInt(values[index++])));
+            if (tokenizer.hasNext()) {
+                position.set(Position.KEY_HOURS, UnitsConverter.msFromMinutes(tokenizer.nextInt()));
             }
 
-            if (index < values.length) {
-                position.set(Position.KEY_BATTERY, Double.parseDouble(values[index++]));
+            if (tokenizer.hasNext()) {
+                position.set(Position.KEY_BATTERY, tokenizer.nextDouble());
             }
 
-            if (index < values.length && values[index++].equals("0")) {
+            if (tokenizer.hasNext() && tokenizer.nextEquals("0")) {
                 position.set(Position.KEY_ARCHIVE, true);
             }
 
             if (isIncludeAdc(deviceSession.getDeviceId())) {
                 for (int i = 1; i <= 3; i++) {
-                    if (index < values.length && !values[index++].isEmpty()) {
-                        position.set(Position.PREFIX_ADC + i, Double.parseDouble(values[index - 1]));
+                    if (tokenizer.hasNext()) {
+                        if (tokenizer.isNextEmpty()) {
+                            tokenizer.skip();
+                        } else {
+                            position.set(Position.PREFIX_ADC + i, tokenizer.nextDouble());
+                        }
                     }
                 }
             }
 
-            if (isIncludeRpm(deviceSession.getDeviceId()) && index < values.length) {
-                position.set(Position.KEY_RPM, Integer.parseInt(values[index++]));
+            if (isIncludeRpm(deviceSession.getDeviceId()) && tokenizer.hasNext()) {
+                position.set(Position.KEY_RPM, tokenizer.nextInt());
             }
 
-            if (values.length - index >= 2) {
-                String driverUniqueId = values[index++];
-                if (values[index++].equals("1") && !driverUniqueId.isEmpty()) {
+            if (tokenizer.remaining() >= 2) {
+                String driverUniqueId = tokenizer.next();
+                if (tokenizer.nextEquals("1") && !driverUniqueId.isEmpty()) {
                     position.set(Position.KEY_DRIVER_UNIQUE_ID, driverUniqueId);
                 }
             }
 
             if (isIncludeTemp(deviceSession.getDeviceId())) {
                 for (int i = 1; i <= 3; i++) {
-                    String temperature = values[index++];
+                    String temperature = tokenizer.next();
                     String value = temperature.substring(temperature.indexOf(':') + 1);
                     if (!value.isEmpty()) {
                         position.set(Position.PREFIX_TEMP + i, Double.parseDouble(value));
@@ -851,6 +855,10 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
 
     }
 
+    private static String[] split(ByteBuf buf) {
+        return buf.toString(StandardCharsets.US_ASCII).split(";", -1);
+    }
+
     @Override
     protected Object decode(
             Channel channel, SocketAddress remoteAddress, Object msg) throws Exception {
@@ -864,22 +872,22 @@ public class SuntechProtocolDecoder extends BaseProtocolDecoder {
 
         } else {
 
-            String[] values = buf.toString(StandardCharsets.US_ASCII).split(";", -1);
-            prefix = values[0];
+            BufferTokenizer tokenizer = new BufferTokenizer(buf, ';');
+            prefix = tokenizer.next();
 
             if (prefix.equals("CRR")) {
                 return decodeCrashReport(channel, remoteAddress, buf);
             } else if (prefix.length() < 5) {
                 universal = true;
-                return decodeUniversal(channel, remoteAddress, values);
+                return decodeUniversal(channel, remoteAddress, split(buf));
             } else if (prefix.endsWith("HTE")) {
-                return decodeTravelReport(channel, remoteAddress, values);
+                return decodeTravelReport(channel, remoteAddress, split(buf));
             } else if (prefix.startsWith("ST9")) {
-                return decode9(channel, remoteAddress, values);
+                return decode9(channel, remoteAddress, tokenizer);
             } else if (prefix.startsWith("ST4")) {
-                return decode4(channel, remoteAddress, values);
+                return decode4(channel, remoteAddress, tokenizer);
             } else {
-                return decode2356(channel, remoteAddress, prefix.substring(0, 5), values);
+                return decode2356(channel, remoteAddress, prefix.substring(0, 5), tokenizer);
             }
         }
     }
@@ -28,6 +28,7 @@ import org.traccar.Protocol;
 import org.traccar.config.Keys;
 import org.traccar.helper.BitUtil;
 import org.traccar.helper.Checksum;
+import org.traccar.helper.TagRegistry;
 import org.traccar.helper.UnitsConverter;
 import org.traccar.model.CellTower;
 import org.traccar.model.Network;
@@ -47,7 +48,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
 
     private static final int IMAGE_PACKET_MAX = 2048;
 
-    private static final Map<Integer, Map<Set<String>, BiConsumer<Position, ByteBuf>>> PARAMETERS = new HashMap<>();
+    private static final TagRegistry<BiConsumer<Position, ByteBuf>> PARAMETERS = new TagRegistry<>();
 
     private final boolean connectionless;
     private boolean extended;
@@ -192,7 +193,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
     }
 
     private static void register(int id, Set<String> models, BiConsumer<Position, ByteBuf> handler) {
-        PARAMETERS.computeIfAbsent(id, key -> new HashMap<>()).put(models, handler);
+        PARAMETERS.register(id, models, handler);
     }
 
     static {
@@ -332,28 +333,24 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
                 position.set(Position.KEY_ROAMING, readValue(buf, length) == 1);
                 break;
             default:
-                position.set(Position.PREFIX_IO + id, readValue(buf, length));
+                position.set(Position.key(Position.PREFIX_IO, id), readValue(buf, length));
                 break;
         }
     }
 
-    private void decodeParameter(Position position, int id, ByteBuf buf, int length, int codec, String model) {
+    private void decodeParameter(
+            Position position, int id, ByteBuf buf, int length, int codec,
+            TagRegistry.Table<BiConsumer<Position, ByteBuf>> parameters) {
         if (codec == CODEC_GH3000) {
             decodeGh3000Parameter(position, id, buf, length);
         } else {
             int index = buf.readerIndex();
-            boolean decoded = false;
-            for (var entry : PARAMETERS.getOrDefault(id, new HashMap<>()).entrySet()) {
-                if (entry.getKey() == null || model != null && entry.getKey().contains(model)) {
-                    entry.getValue().accept(position, buf);
-                    decoded = true;
-                    break;
-                }
-            }
-            if (decoded) {
+            var handler = parameters.get(id);
+            if (handler != null) {
+                handler.accept(position, buf);
                 buf.readerIndex(index + length);
             } else {
-                position.set(Position.PREFIX_IO + id, readValue(buf, length));
+                position.set(Position.key(Position.PREFIX_IO, id), readValue(buf, length));
             }
         }
     }
@@ -419,7 +416,9 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
         }
     }
 
-    private void decodeLocation(Position position, ByteBuf buf, int codec, String model) {
+    private void decodeLocation(
+            Position position, ByteBuf buf, int codec, String model,
+            TagRegistry.Table<BiConsumer<Position, ByteBuf>> parameters) {
 
         int globalMask = 0x0f;
 
@@ -516,7 +515,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
         if (BitUtil.check(globalMask, 1)) {
             int cnt = readExtByte(buf, codec, CODEC_8_EXT);
             for (int j = 0; j < cnt; j++) {
-                decodeParameter(position, readExtByte(buf, codec, CODEC_8_EXT, CODEC_16), buf, 1, codec, model);
+                decodeParameter(position, readExtByte(buf, codec, CODEC_8_EXT, CODEC_16), buf, 1, codec, parameters);
             }
         }
 
@@ -524,7 +523,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
         if (BitUtil.check(globalMask, 2)) {
             int cnt = readExtByte(buf, codec, CODEC_8_EXT);
             for (int j = 0; j < cnt; j++) {
-                decodeParameter(position, readExtByte(buf, codec, CODEC_8_EXT, CODEC_16), buf, 2, codec, model);
+                decodeParameter(position, readExtByte(buf, codec, CODEC_8_EXT, CODEC_16), buf, 2, codec, parameters);
             }
         }
 
@@ -532,7 +531,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
         if (BitUtil.check(globalMask, 3)) {
             int cnt = readExtByte(buf, codec, CODEC_8_EXT);
             for (int j = 0; j < cnt; j++) {
-                decodeParameter(position, readExtByte(buf, codec, CODEC_8_EXT, CODEC_16), buf, 4, codec, model);
+                decodeParameter(position, readExtByte(buf, codec, CODEC_8_EXT, CODEC_16), buf, 4, codec, parameters);
             }
         }
 
@@ -540,7 +539,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
         if (codec == CODEC_8 || codec == CODEC_8_EXT || codec == CODEC_16) {
             int cnt = readExtByte(buf, codec, CODEC_8_EXT);
             for (int j = 0; j < cnt; j++) {
-                decodeParameter(position, readExtByte(buf, codec, CODEC_8_EXT, CODEC_16), buf, 8, codec, model);
+                decodeParameter(position, readExtByte(buf, codec, CODEC_8_EXT, CODEC_16), buf, 8, codec, parameters);
             }
         }
 
@@ -549,7 +548,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
             int cnt = readExtByte(buf, codec, CODEC_8_EXT);
             for (int j = 0; j < cnt; j++) {
                 int id = readExtByte(buf, codec, CODEC_8_EXT, CODEC_16);
-                position.set(Position.PREFIX_IO + id, ByteBufUtil.hexDump(buf.readSlice(16)));
+                position.set(Position.key(Position.PREFIX_IO, id), ByteBufUtil.hexDump(buf.readSlice(16)));
             }
         }
 
@@ -621,7 +620,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
                         }
                     }
                 } else {
-                    position.set(Position.PREFIX_IO + id, ByteBufUtil.hexDump(buf.readSlice(length)));
+                    position.set(Position.key(Position.PREFIX_IO, id), ByteBufUtil.hexDump(buf.readSlice(length)));
                 }
             }
         }
@@ -646,6 +645,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
             return null;
         }
         String model = getCacheManager().getObject(Device.class, deviceSession.getDeviceId()).getModel();
+        var parameters = PARAMETERS.resolve(model);
 
         for (int i = 0; i < count; i++) {
             Position position = new Position(getProtocolName());
@@ -671,7 +671,7 @@ public class TeltonikaProtocolDecoder extends BaseProtocolDecoder {
             } else if (codec == CODEC_12) {
                 decodeSerial(channel, remoteAddress, deviceSession, position, buf);
             } else {
-                decodeLocation(position, buf, codec, model);
+                decodeLocation(position, buf, codec, model, parameters);
             }
 
             if (!position.getOutdated() || !position.getAttributes().isEmpty()) {
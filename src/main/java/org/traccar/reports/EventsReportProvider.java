@@ -47,6 +47,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 
 public class EventsReportProvider {
@@ -71,6 +72,27 @@ public class EventsReportProvider {
                 new Order("eventTime")));
     }
 
+    private List<Event> getEvents(
+            long deviceId, Date from, Date to, Date afterTime, long afterId, int limit) throws StorageException {
+        var conditions = new LinkedList<Condition>();
+        conditions.add(new Condition.Equals("deviceId", deviceId));
+        if (from != null && to != null) {
+            conditions.add(new Condition.Between("eventTime", "from", from, "to", to));
+        }
+        if (afterTime != null) {
+            conditions.add(new Condition.Keyset("eventTime", afterTime, afterId));
+        }
+        return storage.getObjects(Event.class, new Request(
+                new Columns.All(), Condition.merge(conditions), new Order("eventTime", "id", false, limit)));
+    }
+
+    private boolean isAccessible(long userId, Event event) throws StorageException {
+        long geofenceId = event.getGeofenceId();
+        long maintenanceId = event.getMaintenanceId();
+        return (geofenceId == 0 || reportUtils.getObject(userId, Geofence.class, geofenceId) != null)
+                && (maintenanceId == 0 || reportUtils.getObject(userId, Maintenance.class, maintenanceId) != null);
+    }
+
     public Collection<Event> getObjects(
             long userId, Collection<Long> deviceIds, Collection<Long> groupIds,
             Collection<String> types, Date from, Date to) throws StorageException {
@@ -81,16 +103,41 @@ public class EventsReportProvider {
             Collection<Event> events = getEvents(device.getId(), from, to);
             boolean all = types.isEmpty() || types.contains(Event.ALL_EVENTS);
             for (Event event : events) {
-                if (all || types.contains(event.getType())) {
-                    long geofenceId = event.getGeofenceId();
-                    long maintenanceId = event.getMaintenanceId();
-                    if ((geofenceId == 0 || reportUtils.getObject(userId, Geofence.class, geofenceId) != null)
-                            && (maintenanceId == 0
-                            || reportUtils.getObject(userId, Maintenance.class, maintenanceId) != null)) {
-                       result.add(event);
+                if ((all || types.contains(event.getType())) && isAccessible(userId, event)) {
+                    result.add(event);
+                }
+            }
+        }
+        return result;
+    }
+
+    public Collection<Event> getPage(
+            long userId, long deviceId, Collection<String> types,
+            Date from, Date to, Date afterTime, long afterId, int limit) throws StorageException {
+        if (from != null && to != null) {
+            reportUtils.checkPeriodLimit(from, to);
+        }
+
+        boolean all = types.isEmpty() || types.contains(Event.ALL_EVENTS);
+        ArrayList<Event> result = new ArrayList<>();
+        Date cursorTime = afterTime;
+        long cursorId = afterId;
+        while (result.size() < limit) {
+            List<Event> events = getEvents(deviceId, from, to, cursorTime, cursorId, limit);
+            for (Event event : events) {
+                if ((all || types.contains(event.getType())) && isAccessible(userId, event)) {
+                    result.add(event);
+                    if (result.size() >= limit) {
+                        break;
                     }
                 }
             }
+            if (events.size() < limit) {
+                break;
+            }
+            Event last = events.get(events.size() - 1);
+            cursorTime = last.getEventTime();
+            cursorId = last.getId();
         }
         return result;
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2016 - 2023 Anton Tananaev (anton@traccar.org)
  * Copyright 2016 Andrey Kunitsyn (andrey@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
@@ -44,6 +44,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.stream.Stream;
 
 public class RouteReportProvider {
 
@@ -61,17 +62,40 @@ public class RouteReportProvider {
     }
 
     public Collection<Position> getObjects(long userId, Collection<Long> deviceIds, Collection<Long> groupIds,
-            Date from, Date to) throws StorageException {
+            Date from, Date to, double tolerance, int maxPoints) throws StorageException {
         reportUtils.checkPeriodLimit(from, to);
 
         ArrayList<Position> result = new ArrayList<>();
         for (Device device: DeviceUtil.getAccessibleDevices(storage, userId, deviceIds, groupIds)) {
-            result.addAll(PositionUtil.getPositions(storage, device.getId(), from, to));
+            result.addAll(PositionUtil.getPositions(storage, device.getId(), from, to, tolerance, maxPoints));
         }
         return result;
     }
 
 
+    /**
+     * Positions of each device are read lazily. Without simplification they are streamed directly from the database,
+     * otherwise simplified positions of one device are kept in memory at a time.
+     */
+    public Stream<Position> getObjectsStream(
+            long userId, Collection<Long> deviceIds, Collection<Long> groupIds,
+            Date from, Date to, double tolerance, int maxPoints) throws StorageException {
+        reportUtils.checkPeriodLimit(from, to);
+
+        return DeviceUtil.getAccessibleDevices(storage, userId, deviceIds, groupIds).stream()
+                .flatMap(device -> {
+                    try {
+                        if (tolerance > 0 || maxPoints > 0) {
+                            return PositionUtil.getPositions(
+                                    storage, device.getId(), from, to, tolerance, maxPoints).stream();
+                        }
+                        return PositionUtil.getPositionsStream(storage, device.getId(), from, to);
+                    } catch (StorageException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
     private String getUniqueSheetName(String key) {
         namesCount.compute(key, (k, value) -> value == null ? 1 : (value + 1));
         return namesCount.get(key) > 1 ? key + '-' + namesCount.get(key) : key;
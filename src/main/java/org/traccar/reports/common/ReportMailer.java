@@ -20,6 +20,8 @@ import org.slf4j.LoggerFactory;
 import org.traccar.api.security.PermissionsService;
 import org.traccar.mail.MailManager;
 import org.traccar.model.User;
+import org.traccar.storage.DatabasePools;
+import org.traccar.storage.ReplicaRouting;
 import org.traccar.storage.StorageException;
 
 import jakarta.activation.DataHandler;
@@ -36,18 +38,27 @@ public class ReportMailer {
 
     private final PermissionsService permissionsService;
     private final MailManager mailManager;
+    private final DatabasePools databasePools;
+    private final ReplicaRouting replicaRouting;
 
     @Inject
-    public ReportMailer(PermissionsService permissionsService, MailManager mailManager) {
+    public ReportMailer(
+            PermissionsService permissionsService, MailManager mailManager,
+            DatabasePools databasePools, ReplicaRouting replicaRouting) {
         this.permissionsService = permissionsService;
         this.mailManager = mailManager;
+        this.databasePools = databasePools;
+        this.replicaRouting = replicaRouting;
     }
 
     public void sendAsync(long userId, ReportExecutor executor) {
         new Thread(() -> {
             try {
                 var stream = new ByteArrayOutputStream();
-                executor.execute(stream);
+                try (var poolScope = databasePools.open(DatabasePools.Workload.REPORTS);
+                        var replicaScope = replicaRouting.open(true, userId)) {
+                    executor.execute(stream);
+                }
 
                 MimeBodyPart attachment = new MimeBodyPart();
                 attachment.setFileName("report.xlsx");
@@ -17,6 +17,7 @@ package org.traccar.schedule;
 
 import com.google.inject.Injector;
 import org.traccar.LifecycleObject;
+import org.traccar.storage.DatabasePools;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -28,21 +29,30 @@ import java.util.concurrent.ScheduledExecutorService;
 public class ScheduleManager implements LifecycleObject {
 
     private final Injector injector;
+    private final DatabasePools databasePools;
     private ScheduledExecutorService executor;
 
     @Inject
-    public ScheduleManager(Injector injector) {
+    public ScheduleManager(Injector injector, DatabasePools databasePools) {
         this.injector = injector;
+        this.databasePools = databasePools;
     }
 
     @Override
     public void start() {
-        executor = Executors.newSingleThreadScheduledExecutor();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(() -> {
+            try (var scope = databasePools.open(DatabasePools.Workload.BACKGROUND)) {
+                runnable.run();
+            }
+        }));
         var tasks = List.of(
                 TaskReports.class,
                 TaskDeviceInactivityCheck.class,
                 TaskWebSocketKeepalive.class,
-                TaskHealthCheck.class);
+                TaskHealthCheck.class,
+                TaskStatisticsUpdate.class,
+                TaskAttributesMigration.class,
+                TaskBacklogGeocoding.class);
         tasks.forEach(task -> injector.getInstance(task).schedule(executor));
     }
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.schedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.model.Position;
+import org.traccar.model.Server;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Condition;
+import org.traccar.storage.query.Order;
+import org.traccar.storage.query.Request;
+
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rewrites attributes of stored positions in the configured format. Reading accepts both formats, so each batch only
+ * needs to load and store the rows again. The last converted id is saved in server attributes together with the target
+ * format, so after a restart the conversion resumes where it stopped unless the format has changed.
+ */
+public class TaskAttributesMigration implements ScheduleTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskAttributesMigration.class);
+
+    private static final long PERIOD_SECONDS = 1;
+    private static final int BATCH_SIZE = 1000;
+
+    static final String KEY_LAST_ID = "attributesMigrationId";
+    static final String KEY_COMPACT = "attributesMigrationCompact";
+
+    private final Config config;
+    private final Storage storage;
+
+    private ScheduledExecutorService executor;
+    private boolean started;
+    private long lastId;
+    private long count;
+
+    @Inject
+    public TaskAttributesMigration(Config config, Storage storage) {
+        this.config = config;
+        this.storage = storage;
+    }
+
+    @Override
+    public void schedule(ScheduledExecutorService executor) {
+        if (config.getBoolean(Keys.DATABASE_COMPACT_ATTRIBUTES_MIGRATE)) {
+            this.executor = executor;
+            executor.schedule(this, PERIOD_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private Server getServer() throws StorageException {
+        return storage.getObject(Server.class, new Request(new Columns.All()));
+    }
+
+    private long loadProgress() throws StorageException {
+        Server server = getServer();
+        if (server != null && server.hasAttribute(KEY_LAST_ID)
+                && server.getBoolean(KEY_COMPACT) == config.getBoolean(Keys.DATABASE_COMPACT_ATTRIBUTES)) {
+            return server.getLong(KEY_LAST_ID);
+        }
+        return 0;
+    }
+
+    private void saveProgress() throws StorageException {
+        Server server = getServer();
+        if (server != null) {
+            server.set(KEY_LAST_ID, lastId);
+            server.set(KEY_COMPACT, config.getBoolean(Keys.DATABASE_COMPACT_ATTRIBUTES));
+            storage.updateObject(server, new Request(
+                    new Columns.Include("attributes"),
+                    new Condition.Equals("id", server.getId())));
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (!started) {
+                lastId = loadProgress();
+                started = true;
+                if (lastId > 0) {
+                    LOGGER.info("Attributes migration resumed after position {}", lastId);
+                }
+            }
+            List<Position> positions = storage.getObjects(Position.class, new Request(
+                    new Columns.Include("id", "attributes"),
+                    new Condition.Compare("id", ">", "id", lastId),
+                    new Order("id", false, BATCH_SIZE)));
+            if (!positions.isEmpty()) {
+                storage.updateObjects(positions, new Columns.Include("attributes"));
+                lastId = positions.get(positions.size() - 1).getId();
+                saveProgress();
+            }
+            count += positions.size();
+            if (positions.size() < BATCH_SIZE) {
+                LOGGER.info("Attributes migration completed, {} positions converted", count);
+                return;
+            }
+        } catch (StorageException e) {
+            LOGGER.warn("Attributes migration error", e);
+        }
+        executor.schedule(this, PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.schedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.geocoder.Geocoder;
+import org.traccar.model.Position;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Condition;
+import org.traccar.storage.query.Request;
+
+import jakarta.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reverse geocoding of stored backlog positions. Requests are limited per run, so that geocoding of historic data
+ * doesn't compete with live positions.
+ */
+@Singleton
+public class TaskBacklogGeocoding implements ScheduleTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskBacklogGeocoding.class);
+
+    private static final long PERIOD_SECONDS = 10;
+    private static final int LIMIT = 100;
+
+    private final Storage storage;
+    private final Geocoder geocoder;
+    private final boolean processInvalidPositions;
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Inject
+    public TaskBacklogGeocoding(Config config, Storage storage, @Nullable Geocoder geocoder) {
+        this.storage = storage;
+        this.geocoder = config.getBoolean(Keys.GEOCODER_IGNORE_POSITIONS) ? null : geocoder;
+        processInvalidPositions = config.getBoolean(Keys.GEOCODER_PROCESS_INVALID_POSITIONS);
+        queue = new ArrayBlockingQueue<>(config.getInteger(Keys.PROCESSING_BACKLOG_QUEUE));
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final double latitude;
+        private final double longitude;
+
+        private Entry(long id, double latitude, double longitude) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    /**
+     * Queue stored position for geocoding. Only the id and coordinates are kept, so the position itself is not retained
+     * or modified. Returns false if it won't be geocoded. Positions that don't fit into the queue are counted and
+     * reported on the next run.
+     */
+    public boolean add(Position position) {
+        if (geocoder == null || position.getId() == 0 || (!processInvalidPositions && !position.getValid())) {
+            return false;
+        }
+        if (!queue.offer(new Entry(position.getId(), position.getLatitude(), position.getLongitude()))) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Number of positions dropped because the queue was full since the last run.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void schedule(ScheduledExecutorService executor) {
+        if (geocoder != null) {
+            executor.scheduleWithFixedDelay(this, PERIOD_SECONDS, PERIOD_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void updateAddress(long id, String address) {
+        Position position = new Position();
+        position.setId(id);
+        position.setAddress(address);
+        try {
+            storage.updateObject(position, new Request(
+                    new Columns.Include("address"),
+                    new Condition.Equals("id", position.getId())));
+        } catch (StorageException e) {
+            LOGGER.warn("Failed to update address", e);
+        }
+    }
+
+    @Override
+    public void run() {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            LOGGER.warn("Backlog geocoding queue is full, {} positions won't be geocoded", count);
+        }
+        List<Entry> entries = new ArrayList<>(LIMIT);
+        queue.drainTo(entries, LIMIT);
+        for (Entry entry : entries) {
+            geocoder.getAddress(entry.latitude, entry.longitude,
+                    new Geocoder.ReverseGeocoderCallback() {
+                @Override
+                public void onSuccess(String address) {
+                    if (address != null) {
+                        updateAddress(entry.id, address);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    LOGGER.warn("Backlog geocoding failed", e);
+                }
+            });
+        }
+    }
+
+}
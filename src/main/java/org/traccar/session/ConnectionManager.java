@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2015 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,6 @@
 package org.traccar.session;
 
 import io.netty.channel.Channel;
-import io.netty.util.Timeout;
-import io.netty.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.traccar.Protocol;
@@ -53,7 +51,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Singleton
@@ -61,16 +59,19 @@ public class ConnectionManager implements BroadcastInterface {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionManager.class);
 
-    private final long deviceTimeout;
-
     private final Map<Long, DeviceSession> sessionsByDeviceId = new ConcurrentHashMap<>();
-    private final Map<Endpoint, Map<String, DeviceSession>> sessionsByEndpoint = new ConcurrentHashMap<>();
+
+    /**
+     * Sessions by channel and remote address. Connection oriented channels have a single remote address. Sessions of
+     * an endpoint are kept in an array that is replaced on change, so lookups don't allocate.
+     */
+    private final Map<Channel, Map<SocketAddress, DeviceSession[]>> sessionsByEndpoint = new ConcurrentHashMap<>();
 
     private final Config config;
     private final CacheManager cacheManager;
     private final Storage storage;
     private final NotificationManager notificationManager;
-    private final Timer timer;
+    private final LivenessTracker livenessTracker;
     private final BroadcastService broadcastService;
     private final DeviceLookupService deviceLookupService;
 
@@ -78,21 +79,19 @@ public class ConnectionManager implements BroadcastInterface {
     private final Map<Long, Set<Long>> userDevices = new HashMap<>();
     private final Map<Long, Set<Long>> deviceUsers = new HashMap<>();
 
-    private final Map<Long, Timeout> timeouts = new ConcurrentHashMap<>();
-
     @Inject
     public ConnectionManager(
             Config config, CacheManager cacheManager, Storage storage,
-            NotificationManager notificationManager, Timer timer, BroadcastService broadcastService,
+            NotificationManager notificationManager, LivenessTracker livenessTracker, BroadcastService broadcastService,
             DeviceLookupService deviceLookupService) {
         this.config = config;
         this.cacheManager = cacheManager;
         this.storage = storage;
         this.notificationManager = notificationManager;
-        this.timer = timer;
+        this.livenessTracker = livenessTracker;
         this.broadcastService = broadcastService;
         this.deviceLookupService = deviceLookupService;
-        deviceTimeout = config.getLong(Keys.STATUS_TIMEOUT);
+        livenessTracker.setStatusTimeoutHandler(this::deviceUnknown);
         broadcastService.registerListener(this);
     }
 
@@ -100,26 +99,92 @@ public class ConnectionManager implements BroadcastInterface {
         return sessionsByDeviceId.get(deviceId);
     }
 
+    private DeviceSession[] getEndpointSessions(Channel channel, SocketAddress remoteAddress) {
+        Map<SocketAddress, DeviceSession[]> channelSessions = sessionsByEndpoint.get(channel);
+        if (channelSessions == null || remoteAddress == null) {
+            return null;
+        }
+        return channelSessions.get(remoteAddress);
+    }
+
+    /**
+     * Replace sessions of the endpoint. Endpoints and channels without sessions are removed.
+     */
+    private void updateEndpointSessions(
+            Channel channel, SocketAddress remoteAddress, UnaryOperator<DeviceSession[]> update) {
+        if (remoteAddress == null) {
+            return;
+        }
+        sessionsByEndpoint.compute(channel, (key, channelSessions) -> {
+            if (channelSessions == null) {
+                channelSessions = new ConcurrentHashMap<>();
+            }
+            channelSessions.compute(remoteAddress, (address, sessions) -> {
+                DeviceSession[] result = update.apply(sessions);
+                return result != null && result.length > 0 ? result : null;
+            });
+            return channelSessions.isEmpty() ? null : channelSessions;
+        });
+    }
+
+    private DeviceSession[] removeEndpointSessions(Channel channel, SocketAddress remoteAddress) {
+        Map<SocketAddress, DeviceSession[]> channelSessions = sessionsByEndpoint.get(channel);
+        if (channelSessions == null || remoteAddress == null) {
+            return null;
+        }
+        DeviceSession[] sessions = channelSessions.remove(remoteAddress);
+        sessionsByEndpoint.computeIfPresent(channel, (key, value) -> value.isEmpty() ? null : value);
+        return sessions;
+    }
+
+    private static DeviceSession findSession(DeviceSession[] sessions, String uniqueId) {
+        if (sessions != null) {
+            for (DeviceSession deviceSession : sessions) {
+                if (deviceSession.getUniqueId().equals(uniqueId)) {
+                    return deviceSession;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static DeviceSession[] addSession(DeviceSession[] sessions, DeviceSession deviceSession) {
+        DeviceSession[] result = removeSession(sessions, deviceSession.getUniqueId());
+        result = Arrays.copyOf(result, result.length + 1);
+        result[result.length - 1] = deviceSession;
+        return result;
+    }
+
+    private static DeviceSession[] removeSession(DeviceSession[] sessions, String uniqueId) {
+        if (sessions == null) {
+            return new DeviceSession[0];
+        }
+        return Arrays.stream(sessions)
+                .filter(deviceSession -> !deviceSession.getUniqueId().equals(uniqueId))
+                .toArray(DeviceSession[]::new);
+    }
+
     public DeviceSession getDeviceSession(
             Protocol protocol, Channel channel, SocketAddress remoteAddress,
             String... uniqueIds) throws StorageException {
 
-        Endpoint endpoint = new Endpoint(channel, remoteAddress);
-        Map<String, DeviceSession> endpointSessions = sessionsByEndpoint.getOrDefault(
-                endpoint, new ConcurrentHashMap<>());
+        DeviceSession[] endpointSessions = getEndpointSessions(channel, remoteAddress);
 
-        uniqueIds = Arrays.stream(uniqueIds).filter(Objects::nonNull).toArray(String[]::new);
-        if (uniqueIds.length > 0) {
-            for (String uniqueId : uniqueIds) {
-                DeviceSession deviceSession = endpointSessions.get(uniqueId);
+        boolean identified = false;
+        for (String uniqueId : uniqueIds) {
+            if (uniqueId != null) {
+                identified = true;
+                DeviceSession deviceSession = findSession(endpointSessions, uniqueId);
                 if (deviceSession != null) {
                     return deviceSession;
                 }
             }
-        } else {
-            return endpointSessions.values().stream().findAny().orElse(null);
+        }
+        if (!identified) {
+            return endpointSessions != null ? endpointSessions[0] : null;
         }
 
+        uniqueIds = Arrays.stream(uniqueIds).filter(Objects::nonNull).toArray(String[]::new);
         Device device = deviceLookupService.lookup(uniqueIds);
 
         if (device == null && config.getBoolean(Keys.DATABASE_REGISTER_UNKNOWN)) {
@@ -131,21 +196,17 @@ public class ConnectionManager implements BroadcastInterface {
         if (device != null) {
             device.checkDisabled();
 
+            String uniqueId = device.getUniqueId();
             DeviceSession oldSession = sessionsByDeviceId.remove(device.getId());
             if (oldSession != null) {
-                Endpoint oldEndpoint = new Endpoint(oldSession.getChannel(), oldSession.getRemoteAddress());
-                Map<String, DeviceSession> oldEndpointSessions = sessionsByEndpoint.get(oldEndpoint);
-                if (oldEndpointSessions != null && oldEndpointSessions.size() > 1) {
-                    oldEndpointSessions.remove(device.getUniqueId());
-                } else {
-                    sessionsByEndpoint.remove(oldEndpoint);
-                }
+                updateEndpointSessions(
+                        oldSession.getChannel(), oldSession.getRemoteAddress(),
+                        sessions -> removeSession(sessions, uniqueId));
             }
 
             DeviceSession deviceSession = new DeviceSession(
-                    device.getId(), device.getUniqueId(), protocol, channel, remoteAddress);
-            endpointSessions.put(device.getUniqueId(), deviceSession);
-            sessionsByEndpoint.put(endpoint, endpointSessions);
+                    device.getId(), uniqueId, protocol, channel, remoteAddress);
+            updateEndpointSessions(channel, remoteAddress, sessions -> addSession(sessions, deviceSession));
             sessionsByDeviceId.put(device.getId(), deviceSession);
 
             if (oldSession == null) {
@@ -182,10 +243,9 @@ public class ConnectionManager implements BroadcastInterface {
     }
 
     public void deviceDisconnected(Channel channel, boolean supportsOffline) {
-        Endpoint endpoint = new Endpoint(channel, channel.remoteAddress());
-        Map<String, DeviceSession> endpointSessions = sessionsByEndpoint.remove(endpoint);
+        DeviceSession[] endpointSessions = removeEndpointSessions(channel, channel.remoteAddress());
         if (endpointSessions != null) {
-            for (DeviceSession deviceSession : endpointSessions.values()) {
+            for (DeviceSession deviceSession : endpointSessions) {
                 if (supportsOffline) {
                     updateDevice(deviceSession.getDeviceId(), Device.STATUS_OFFLINE, null);
                 }
@@ -204,11 +264,9 @@ public class ConnectionManager implements BroadcastInterface {
         DeviceSession deviceSession = sessionsByDeviceId.remove(deviceId);
         if (deviceSession != null) {
             cacheManager.removeDevice(deviceId);
-            Endpoint endpoint = new Endpoint(deviceSession.getChannel(), deviceSession.getRemoteAddress());
-            sessionsByEndpoint.computeIfPresent(endpoint, (e, sessions) -> {
-                sessions.remove(deviceSession.getUniqueId());
-                return sessions.isEmpty() ? null : sessions;
-            });
+            updateEndpointSessions(
+                    deviceSession.getChannel(), deviceSession.getRemoteAddress(),
+                    sessions -> removeSession(sessions, deviceSession.getUniqueId()));
         }
     }
 
@@ -251,17 +309,10 @@ public class ConnectionManager implements BroadcastInterface {
             device.setLastUpdate(time);
         }
 
-        Timeout timeout = timeouts.remove(deviceId);
-        if (timeout != null) {
-            timeout.cancel();
-        }
-
         if (status.equals(Device.STATUS_ONLINE)) {
-            timeouts.put(deviceId, timer.newTimeout(timeout1 -> {
-                if (!timeout1.isCancelled()) {
-                    deviceUnknown(deviceId);
-                }
-            }, deviceTimeout, TimeUnit.SECONDS));
+            livenessTracker.deviceOnline(deviceId, System.currentTimeMillis());
+        } else {
+            livenessTracker.deviceOffline(deviceId);
         }
 
         try {
@@ -288,7 +339,7 @@ public class ConnectionManager implements BroadcastInterface {
         if (local) {
             broadcastService.updateDevice(true, device);
         } else if (Device.STATUS_ONLINE.equals(device.getStatus())) {
-            timeouts.remove(device.getId());
+            livenessTracker.deviceOffline(device.getId());
             removeDeviceSession(device.getId());
         }
         for (long userId : deviceUsers.getOrDefault(device.getId(), Collections.emptySet())) {
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.session;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deadlines of ids grouped into time buckets. Moving a deadline later only updates the entry without locking. The
+ * entry is looked at again when its old bucket is due and moved to the right bucket then, so the cost depends on the
+ * number of expirations rather than the number of updates.
+ */
+public class ExpiryQueue {
+
+    /**
+     * Deadline for ids that are tracked but never expire.
+     */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private static final long NOT_QUEUED = Long.MAX_VALUE;
+
+    private static final class Entry {
+        private volatile long deadline;
+        private volatile long bucket = NOT_QUEUED;
+    }
+
+    private final long bucketMillis;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, Set<Long>> buckets = new TreeMap<>();
+
+    public ExpiryQueue(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    private long getBucket(long deadline) {
+        return deadline != NEVER ? deadline / bucketMillis : NOT_QUEUED;
+    }
+
+    public boolean contains(long id) {
+        return entries.containsKey(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void enqueue(long id, Entry entry, long deadline) {
+        long bucket = getBucket(deadline);
+        if (bucket < entry.bucket) {
+            entry.bucket = bucket;
+            buckets.computeIfAbsent(bucket, key -> new HashSet<>()).add(id);
+        } else if (bucket == NOT_QUEUED) {
+            entry.bucket = NOT_QUEUED;
+        }
+    }
+
+    /**
+     * Set deadline for the id. Use {@link #NEVER} to keep the id tracked without expiration.
+     */
+    public void schedule(long id, long deadline) {
+        Entry entry = entries.get(id);
+        if (entry != null && deadline != NEVER && entry.bucket <= getBucket(deadline)) {
+            entry.deadline = deadline;
+            if (entries.get(id) == entry) {
+                return;
+            }
+        }
+        synchronized (this) {
+            entry = entries.computeIfAbsent(id, key -> new Entry());
+            entry.deadline = deadline;
+            enqueue(id, entry, deadline);
+        }
+    }
+
+    public synchronized void remove(long id) {
+        entries.remove(id);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        buckets.clear();
+    }
+
+    /**
+     * Remove and return expired ids. Only buckets that ended before the given time are checked, so ids expire with a
+     * delay of up to one bucket.
+     */
+    public synchronized List<Long> poll(long time) {
+        List<Long> result = new ArrayList<>();
+        long current = getBucket(time);
+        while (!buckets.isEmpty() && buckets.firstKey() < current) {
+            var bucket = buckets.pollFirstEntry();
+            for (long id : bucket.getValue()) {
+                Entry entry = entries.get(id);
+                if (entry == null || entry.bucket != bucket.getKey()) {
+                    continue;
+                }
+                entries.remove(id);
+                entry.bucket = NOT_QUEUED;
+                long deadline = entry.deadline;
+                if (deadline <= time) {
+                    result.add(id);
+                } else {
+                    entries.put(id, entry);
+                    enqueue(id, entry, deadline);
+                }
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.session;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.traccar.broadcast.BroadcastInterface;
+import org.traccar.broadcast.BroadcastService;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.database.NotificationManager;
+import org.traccar.model.BaseModel;
+import org.traccar.model.Device;
+import org.traccar.model.Event;
+import org.traccar.model.Group;
+import org.traccar.model.Position;
+import org.traccar.session.cache.CacheManager;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Condition;
+import org.traccar.storage.query.Request;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks when devices were last seen. Online status timeout and inactivity notifications are both driven by expiry
+ * queues, so a message only updates a deadline and work is done when a deadline passes. Devices and groups are only
+ * loaded in full on the first inactivity check and after a group change.
+ */
+@Singleton
+public class LivenessTracker implements BroadcastInterface {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LivenessTracker.class);
+
+    public static final String ATTRIBUTE_DEVICE_INACTIVITY_START = "deviceInactivityStart";
+    public static final String ATTRIBUTE_DEVICE_INACTIVITY_PERIOD = "deviceInactivityPeriod";
+    public static final String ATTRIBUTE_LAST_UPDATE = "lastUpdate";
+
+    private static final long STATUS_BUCKET = TimeUnit.SECONDS.toMillis(1);
+    private static final long INACTIVITY_BUCKET = TimeUnit.MINUTES.toMillis(1);
+
+    private final CacheManager cacheManager;
+    private final Storage storage;
+    private final NotificationManager notificationManager;
+
+    private final long statusTimeout;
+    private final ExpiryQueue statusQueue = new ExpiryQueue(STATUS_BUCKET);
+    private final ExpiryQueue inactivityQueue = new ExpiryQueue(INACTIVITY_BUCKET);
+    private volatile boolean inactivityLoaded;
+
+    private LongConsumer statusTimeoutHandler;
+
+    @Inject
+    public LivenessTracker(
+            Config config, CacheManager cacheManager, Storage storage, NotificationManager notificationManager,
+            Timer timer, BroadcastService broadcastService) {
+        this.cacheManager = cacheManager;
+        this.storage = storage;
+        this.notificationManager = notificationManager;
+        statusTimeout = TimeUnit.SECONDS.toMillis(config.getLong(Keys.STATUS_TIMEOUT));
+        broadcastService.registerListener(this);
+        timer.newTimeout(this::checkStatus, STATUS_BUCKET, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Set handler called with device id when online status times out.
+     */
+    public void setStatusTimeoutHandler(LongConsumer statusTimeoutHandler) {
+        this.statusTimeoutHandler = statusTimeoutHandler;
+    }
+
+    public void deviceOnline(long deviceId, long time) {
+        statusQueue.schedule(deviceId, time + statusTimeout);
+        if (inactivityLoaded && !inactivityQueue.contains(deviceId)) {
+            Device device = cacheManager.getObject(Device.class, deviceId);
+            if (device != null) {
+                scheduleInactivity(device, this::getGroup, time, time);
+            }
+        }
+    }
+
+    public void deviceOffline(long deviceId) {
+        statusQueue.remove(deviceId);
+    }
+
+    private void checkStatus(Timeout timeout) {
+        try {
+            List<Long> expired = statusQueue.poll(System.currentTimeMillis());
+            if (statusTimeoutHandler != null) {
+                expired.forEach(statusTimeoutHandler::accept);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Status timeout error", e);
+        } finally {
+            timeout.timer().newTimeout(this::checkStatus, STATUS_BUCKET, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static long getAttribute(Device device, LongFunction<Group> groups, String key) {
+        long deviceValue = device.getLong(key);
+        if (deviceValue > 0) {
+            return deviceValue;
+        }
+        long groupId = device.getGroupId();
+        while (groupId > 0) {
+            Group group = groups.apply(groupId);
+            if (group == null) {
+                return 0;
+            }
+            long groupValue = group.getLong(key);
+            if (groupValue > 0) {
+                return groupValue;
+            }
+            groupId = group.getGroupId();
+        }
+        return 0;
+    }
+
+    /**
+     * Next inactivity threshold after the given time, or {@link ExpiryQueue#NEVER} if there isn't one.
+     */
+    static long getInactivityDeadline(Device device, LongFunction<Group> groups, long lastUpdate, long time) {
+        long start = getAttribute(device, groups, ATTRIBUTE_DEVICE_INACTIVITY_START);
+        if (start <= 0) {
+            return ExpiryQueue.NEVER;
+        }
+        long threshold = lastUpdate + start;
+        if (time < threshold) {
+            return threshold;
+        }
+        long period = getAttribute(device, groups, ATTRIBUTE_DEVICE_INACTIVITY_PERIOD);
+        if (period <= 0) {
+            return ExpiryQueue.NEVER;
+        }
+        return threshold + ((time - threshold) / period + 1) * period;
+    }
+
+    /**
+     * Schedule next inactivity check. Devices that already passed the threshold and have no repeat period are removed
+     * from the queue, so that they are scheduled again when they come back online.
+     */
+    private void scheduleInactivity(Device device, LongFunction<Group> groups, long lastUpdate, long time) {
+        long deadline = getInactivityDeadline(device, groups, lastUpdate, time);
+        if (deadline == ExpiryQueue.NEVER && getAttribute(device, groups, ATTRIBUTE_DEVICE_INACTIVITY_START) > 0) {
+            inactivityQueue.remove(device.getId());
+        } else {
+            inactivityQueue.schedule(device.getId(), deadline);
+        }
+    }
+
+    private Group getGroup(long groupId) {
+        Group group = cacheManager.getObject(Group.class, groupId);
+        if (group == null) {
+            try {
+                group = storage.getObject(Group.class, new Request(
+                        new Columns.All(), new Condition.Equals("id", groupId)));
+            } catch (StorageException e) {
+                LOGGER.warn("Failed to get group", e);
+            }
+        }
+        return group;
+    }
+
+    private Device getDevice(long deviceId) throws StorageException {
+        Device device = cacheManager.getObject(Device.class, deviceId);
+        if (device == null) {
+            device = storage.getObject(Device.class, new Request(
+                    new Columns.All(), new Condition.Equals("id", deviceId)));
+        }
+        return device;
+    }
+
+    private void loadInactivity(long time) throws StorageException {
+        Map<Long, Group> groups = storage.getObjects(Group.class, new Request(new Columns.All()))
+                .stream().collect(Collectors.toMap(Group::getId, group -> group));
+        for (Device device : storage.getObjects(Device.class, new Request(new Columns.All()))) {
+            if (device.getLastUpdate() != null) {
+                scheduleInactivity(device, groups::get, device.getLastUpdate().getTime(), time);
+            }
+        }
+        inactivityLoaded = true;
+    }
+
+    /**
+     * Generate inactivity events for devices that passed their threshold. Called periodically.
+     */
+    public void checkInactivity() {
+        checkInactivity(System.currentTimeMillis());
+    }
+
+    void checkInactivity(long time) {
+        Map<Event, Position> events = new HashMap<>();
+        try {
+            if (!inactivityLoaded) {
+                loadInactivity(time);
+            }
+            for (long deviceId : inactivityQueue.poll(time)) {
+                Device device = getDevice(deviceId);
+                if (device == null || device.getLastUpdate() == null) {
+                    continue;
+                }
+                long lastUpdate = device.getLastUpdate().getTime();
+                long start = getAttribute(device, this::getGroup, ATTRIBUTE_DEVICE_INACTIVITY_START);
+                if (start > 0 && time >= lastUpdate + start) {
+                    Event event = new Event(Event.TYPE_DEVICE_INACTIVE, deviceId);
+                    event.set(ATTRIBUTE_LAST_UPDATE, lastUpdate);
+                    events.put(event, null);
+                }
+                scheduleInactivity(device, this::getGroup, lastUpdate, time);
+            }
+        } catch (StorageException e) {
+            LOGGER.warn("Database error", e);
+        }
+        notificationManager.updateEvents(events);
+    }
+
+    @Override
+    public void invalidateObject(boolean local, Class<? extends BaseModel> clazz, long id) {
+        if (clazz.equals(Device.class)) {
+            inactivityQueue.remove(id);
+            if (inactivityLoaded) {
+                try {
+                    Device device = getDevice(id);
+                    if (device != null && device.getLastUpdate() != null) {
+                        scheduleInactivity(
+                                device, this::getGroup, device.getLastUpdate().getTime(), System.currentTimeMillis());
+                    }
+                } catch (StorageException e) {
+                    LOGGER.warn("Failed to get device", e);
+                }
+            }
+        } else if (clazz.equals(Group.class)) {
+            inactivityLoaded = false;
+            inactivityQueue.clear();
+        }
+    }
+
+}
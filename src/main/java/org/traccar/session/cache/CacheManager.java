@@ -20,6 +20,7 @@ import org.slf4j.LoggerFactory;
 import org.traccar.broadcast.BroadcastInterface;
 import org.traccar.broadcast.BroadcastService;
 import org.traccar.config.Config;
+import org.traccar.config.Keys;
 import org.traccar.model.Attribute;
 import org.traccar.model.BaseModel;
 import org.traccar.model.Calendar;
@@ -45,6 +46,7 @@ import jakarta.inject.Singleton;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -53,6 +55,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
@@ -75,6 +78,8 @@ public class CacheManager implements BroadcastInterface {
     private final Map<Long, Integer> deviceReferences = new HashMap<>();
     private final Map<Long, Map<Class<? extends BaseModel>, Set<Long>>> deviceLinks = new HashMap<>();
     private final Map<Long, Position> devicePositions = new HashMap<>();
+    private final Map<Long, PositionHistory> deviceHistories = new ConcurrentHashMap<>();
+    private final int historySize;
 
     private Server server;
     private final Map<Long, List<User>> notificationUsers = new HashMap<>();
@@ -84,6 +89,7 @@ public class CacheManager implements BroadcastInterface {
         this.config = config;
         this.storage = storage;
         this.broadcastService = broadcastService;
+        historySize = config.getInteger(Keys.PROCESSING_POSITION_HISTORY);
         invalidateServer();
         invalidateUsers();
         broadcastService.registerListener(this);
@@ -133,6 +139,24 @@ public class CacheManager implements BroadcastInterface {
         }
     }
 
+    /**
+     * Latest recent position with fix time not after the given time. Returns null if history is disabled or doesn't
+     * go back far enough, in which case the database has to be checked.
+     */
+    public Position getPrecedingPosition(long deviceId, Date time) {
+        PositionHistory history = deviceHistories.get(deviceId);
+        return history != null ? history.getPreceding(time.getTime()) : null;
+    }
+
+    /**
+     * Recent position with the same fix time and coordinates as the given one. Returns null if history is disabled or
+     * there is no such position.
+     */
+    public Position getDuplicatePosition(Position position) {
+        PositionHistory history = deviceHistories.get(position.getDeviceId());
+        return history != null ? history.getDuplicate(position) : null;
+    }
+
     public Server getServer() {
         try {
             lock.readLock().lock();
@@ -187,6 +211,7 @@ public class CacheManager implements BroadcastInterface {
                 if (references <= 0) {
                     unsafeRemoveDevice(deviceId);
                     deviceReferences.remove(deviceId);
+                    deviceHistories.remove(deviceId);
                 } else {
                     deviceReferences.put(deviceId, references);
                 }
@@ -207,6 +232,45 @@ public class CacheManager implements BroadcastInterface {
         }
     }
 
+    /**
+     * Drop recent history of the device, e.g. after positions were stored outside of the processing pipeline. History
+     * is built again from the following positions.
+     */
+    public void removeHistory(long deviceId) {
+        deviceHistories.remove(deviceId);
+    }
+
+    /**
+     * Add stored position to the recent history of the device.
+     */
+    public void addHistoryPosition(Position position) {
+        if (historySize > 0 && position.getFixTime() != null) {
+            long deviceId = position.getDeviceId();
+            PositionHistory history = deviceHistories.get(deviceId);
+            if (history == null) {
+                Position last;
+                try {
+                    lock.readLock().lock();
+                    if (!deviceLinks.containsKey(deviceId)) {
+                        return;
+                    }
+                    last = devicePositions.get(deviceId);
+                } finally {
+                    lock.readLock().unlock();
+                }
+                history = new PositionHistory(historySize);
+                if (last != null && last != position) {
+                    history.add(last);
+                }
+                PositionHistory existing = deviceHistories.putIfAbsent(deviceId, history);
+                if (existing != null) {
+                    history = existing;
+                }
+            }
+            history.add(position);
+        }
+    }
+
     @Override
     public void invalidateObject(boolean local, Class<? extends BaseModel> clazz, long id) {
         try {
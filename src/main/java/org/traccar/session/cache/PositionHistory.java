@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.session.cache;
+
+import org.traccar.model.Position;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded ring of recent stored positions of one device, ordered by fix time. The ring is complete from its oldest
+ * entry onwards, so any time not older than that entry can be answered without the database. Positions older than the
+ * oldest entry are not added, because other stored positions around them are unknown. Entries are also indexed by a
+ * hash of fix time and coordinates to find retransmitted duplicates.
+ */
+final class PositionHistory {
+
+    private final Position[] positions;
+    private final Map<Long, Position> duplicates;
+    private int start;
+    private int size;
+
+    PositionHistory(int capacity) {
+        positions = new Position[capacity];
+        duplicates = new HashMap<>(capacity * 2);
+    }
+
+    static long duplicateKey(Position position) {
+        long key = position.getFixTime().getTime();
+        key = 31 * key + Double.hashCode(position.getLatitude());
+        key = 31 * key + Double.hashCode(position.getLongitude());
+        return key;
+    }
+
+    private Position at(int index) {
+        return positions[(start + index) % positions.length];
+    }
+
+    private long timeAt(int index) {
+        return at(index).getFixTime().getTime();
+    }
+
+    /**
+     * Number of entries with fix time not after the given time.
+     */
+    private int countUntil(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeAt(middle) <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    synchronized void add(Position position) {
+        long time = position.getFixTime().getTime();
+        if (size > 0 && time < timeAt(0)) {
+            return;
+        }
+        if (size == positions.length) {
+            duplicates.remove(duplicateKey(positions[start]), positions[start]);
+            positions[start] = null;
+            start = (start + 1) % positions.length;
+            size -= 1;
+        }
+        int index = countUntil(time);
+        for (int i = size; i > index; i--) {
+            positions[(start + i) % positions.length] = at(i - 1);
+        }
+        positions[(start + index) % positions.length] = position;
+        size += 1;
+        duplicates.put(duplicateKey(position), position);
+    }
+
+    /**
+     * Recent position with the same fix time and coordinates or null if there is none. Hash collisions are possible,
+     * so callers still have to compare the positions.
+     */
+    synchronized Position getDuplicate(Position position) {
+        return duplicates.get(duplicateKey(position));
+    }
+
+    /**
+     * Latest position with fix time not after the given time or null if the history doesn't cover that time.
+     */
+    synchronized Position getPreceding(long time) {
+        if (size == 0 || time < timeAt(0)) {
+            return null;
+        }
+        return at(countUntil(time) - 1);
+    }
+
+}
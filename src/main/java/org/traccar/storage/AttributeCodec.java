@@ -0,0 +1,322 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.traccar.model.AttributeMap;
+import org.traccar.model.Position;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact encoding of attribute maps. Well known keys are replaced with dictionary ids, numbered keys like "io239"
+ * with prefix id and number, and values are stored in binary form with variable length integers. The result is Base64
+ * text with a marker character, so it fits into existing text columns and can't be confused with JSON.
+ * <p>
+ * Dictionary and prefix lists are part of the stored format. New entries can only be appended.
+ */
+public final class AttributeCodec {
+
+    public static final char MARKER = '~';
+
+    private static final int VERSION = 1;
+
+    private static final List<String> DICTIONARY = List.of(
+            "raw", "index", "hdop", "vdop", "pdop", "sat", "satVisible", "rssi", "gps", "roaming",
+            "event", "alarm", "status", "odometer", "serviceOdometer", "tripOdometer", "hours", "steps", "heartRate",
+            "input", "output", "image", "video", "audio", "power", "battery", "batteryLevel", "fuel", "fuelUsed",
+            "fuelConsumption", "versionFw", "versionHw", "type", "ignition", "flags", "antenna", "charge", "ip",
+            "archive", "distance", "totalDistance", "rpm", "vin", "approximate", "throttle", "motion", "armed",
+            "geofence", "acceleration", "deviceTemp", "coolantTemp", "engineLoad", "operator", "command", "blocked",
+            "lock", "door", "axleWeight", "gSensor", "iccid", "phone", "speedLimit", "drivingTime", "dtcs", "obdSpeed",
+            "obdOdometer", "result", "driverUniqueId", "card", "priority", "axisX", "axisY", "axisZ");
+
+    private static final List<String> PREFIXES = List.of("io", "adc", "temp", "in", "out", "count");
+
+    private static final Map<String, Integer> DICTIONARY_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.size(); i++) {
+            DICTIONARY_IDS.put(DICTIONARY.get(i), i);
+        }
+    }
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_INTEGER = 3;
+    private static final int TAG_DECIMAL = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_STRING = 6;
+    private static final int TAG_JSON = 7;
+
+    private static final int MAX_SCALE = 9;
+    private static final double[] POWERS = new double[MAX_SCALE + 1];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    private static final double MAX_EXACT = 1L << 53;
+
+    private AttributeCodec() {
+    }
+
+    public static boolean isEncoded(String value) {
+        return value != null && !value.isEmpty() && value.charAt(0) == MARKER;
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        private Output() {
+            super(128);
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeSigned(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        private String toBase64() {
+            return MARKER + Base64.getEncoder().withoutPadding().encodeToString(toByteArray());
+        }
+
+    }
+
+    private static final class Input {
+
+        private final byte[] data;
+        private int index;
+
+        private Input(byte[] data) {
+            this.data = data;
+        }
+
+        private long readVarint() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                int b = data[index++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Varint too long");
+                }
+            }
+        }
+
+        private long readSigned() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private String readString() {
+            int length = (int) readVarint();
+            String result = new String(data, index, length, StandardCharsets.UTF_8);
+            index += length;
+            return result;
+        }
+
+    }
+
+    private static int prefixNumber(String key, String prefix) {
+        int length = key.length() - prefix.length();
+        if (length < 1 || length > 9 || !key.startsWith(prefix)) {
+            return -1;
+        }
+        if (length > 1 && key.charAt(prefix.length()) == '0') {
+            return -1;
+        }
+        int number = 0;
+        for (int i = prefix.length(); i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    /**
+     * Key reference is odd for dictionary entries, even non-zero for prefixed keys (followed by number) and zero for
+     * literal keys (followed by string).
+     */
+    private static void writeKey(Output output, String key) {
+        Integer id = DICTIONARY_IDS.get(key);
+        if (id != null) {
+            output.writeVarint(((long) id << 1) | 1);
+            return;
+        }
+        for (int i = 0; i < PREFIXES.size(); i++) {
+            int number = prefixNumber(key, PREFIXES.get(i));
+            if (number >= 0) {
+                output.writeVarint((long) (i + 1) << 1);
+                output.writeVarint(number);
+                return;
+            }
+        }
+        output.writeVarint(0);
+        output.writeString(key);
+    }
+
+    private static String readKey(Input input) {
+        long reference = input.readVarint();
+        if ((reference & 1) != 0) {
+            return DICTIONARY.get((int) (reference >>> 1));
+        } else if (reference != 0) {
+            return Position.key(PREFIXES.get((int) (reference >>> 1) - 1), (int) input.readVarint());
+        } else {
+            return input.readString();
+        }
+    }
+
+    /**
+     * Doubles that have a short decimal representation are stored as scaled integers. Division of two exactly
+     * representable values is correctly rounded, so the check below guarantees an exact round trip.
+     */
+    private static void writeDouble(Output output, double value) {
+        for (int scale = 0; scale <= MAX_SCALE; scale++) {
+            double scaled = value * POWERS[scale];
+            if (Math.abs(scaled) >= MAX_EXACT) {
+                break;
+            }
+            if (scaled == Math.rint(scaled)
+                    && Double.doubleToRawLongBits((long) scaled / POWERS[scale]) == Double.doubleToRawLongBits(value)) {
+                output.write(TAG_DECIMAL);
+                output.write(scale);
+                output.writeSigned((long) scaled);
+                return;
+            }
+        }
+        output.write(TAG_DOUBLE);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            output.write((int) (bits >>> (i * 8)));
+        }
+    }
+
+    private static void writeValue(Output output, Object value, ObjectMapper objectMapper)
+            throws JsonProcessingException {
+        if (value == null) {
+            output.write(TAG_NULL);
+        } else if (value instanceof Boolean) {
+            output.write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            output.write(TAG_INTEGER);
+            output.writeSigned(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDouble(output, ((Number) value).doubleValue());
+        } else if (value instanceof String) {
+            output.write(TAG_STRING);
+            output.writeString((String) value);
+        } else {
+            output.write(TAG_JSON);
+            output.writeString(objectMapper.writeValueAsString(value));
+        }
+    }
+
+    private static Object readValue(Input input, ObjectMapper objectMapper) throws JsonProcessingException {
+        int tag = input.data[input.index++];
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return false;
+            case TAG_TRUE:
+                return true;
+            case TAG_INTEGER:
+                long value = input.readSigned();
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            case TAG_DECIMAL:
+                int scale = input.data[input.index++];
+                return input.readSigned() / POWERS[scale];
+            case TAG_DOUBLE:
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits |= (input.data[input.index++] & 0xFFL) << (i * 8);
+                }
+                return Double.longBitsToDouble(bits);
+            case TAG_STRING:
+                return input.readString();
+            case TAG_JSON:
+                return objectMapper.readValue(input.readString(), Object.class);
+            default:
+                throw new IllegalArgumentException("Unknown value tag " + tag);
+        }
+    }
+
+    public static String encode(Map<String, Object> attributes, ObjectMapper objectMapper)
+            throws JsonProcessingException {
+        Output output = new Output();
+        output.write(VERSION);
+        output.writeVarint(attributes.size());
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            writeKey(output, entry.getKey());
+            writeValue(output, entry.getValue(), objectMapper);
+        }
+        return output.toBase64();
+    }
+
+    /**
+     * Decode value produced by {@link #encode}. Numbers are returned with the same types as JSON parsing would give.
+     */
+    public static Map<String, Object> decode(String value, ObjectMapper objectMapper)
+            throws JsonProcessingException {
+        Input input = new Input(Base64.getDecoder().decode(value.substring(1)));
+        int version = input.data[input.index++];
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported attribute encoding version " + version);
+        }
+        int count = (int) input.readVarint();
+        Map<String, Object> result = new AttributeMap();
+        for (int i = 0; i < count; i++) {
+            String key = readKey(input);
+            result.put(key, readValue(input, objectMapper));
+        }
+        return result;
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2022 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
 import liquibase.Contexts;
 import liquibase.Liquibase;
 import liquibase.database.Database;
@@ -26,8 +27,13 @@ import liquibase.database.DatabaseFactory;
 import liquibase.exception.LiquibaseException;
 import liquibase.resource.DirectoryResourceAccessor;
 import liquibase.resource.ResourceAccessor;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
 
 import jakarta.inject.Singleton;
 import javax.sql.DataSource;
@@ -35,13 +41,126 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class DatabaseModule extends AbstractModule {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseModule.class);
+
+    /**
+     * Checksum of all files in the changelog directory, so that included changelogs are covered too.
+     */
+    private static String changelogChecksum(String changelog) throws IOException {
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        File[] files = new File(changelog).getAbsoluteFile().getParentFile().listFiles(File::isFile);
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                digest.update(file.getName().getBytes(StandardCharsets.UTF_8));
+                DigestUtils.updateDigest(digest, file);
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Whether the database was already updated with the same changelog files, in which case parsing the changelog
+     * can be skipped. The checksum is stored as a Liquibase tag. Missing changelog table means a new database. Other
+     * errors are logged and the changelog is applied as usual, so that Liquibase reports the actual problem.
+     */
+    static boolean isChangelogApplied(DataSource dataSource, String tag) {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT COUNT(*) FROM DATABASECHANGELOG WHERE TAG = ?")) {
+            statement.setString(1, tag);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
+        } catch (SQLException e) {
+            String state = e.getSQLState();
+            if (state == null || !state.startsWith("42")) {
+                LOGGER.warn("Database changelog check error", e);
+            }
+            return false;
+        }
+    }
+
+    private static HikariDataSource createDataSource(
+            Config config, MetricsManager metricsManager, String url, String user, String password,
+            int maxPoolSize, int connectionTimeout, String... labels) {
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setDriverClassName(config.getString(Keys.DATABASE_DRIVER));
+        hikariConfig.setJdbcUrl(url);
+        hikariConfig.setUsername(user);
+        hikariConfig.setPassword(password);
+        hikariConfig.setConnectionInitSql(config.getString(Keys.DATABASE_CHECK_CONNECTION));
+        hikariConfig.setIdleTimeout(600000);
+        hikariConfig.setConnectionTimeout(TimeUnit.SECONDS.toMillis(connectionTimeout));
+
+        if (maxPoolSize != 0) {
+            hikariConfig.setMaximumPoolSize(maxPoolSize);
+        }
+
+        if (metricsManager.isEnabled()) {
+            hikariConfig.setMetricsTrackerFactory((poolName, poolStats) -> {
+                String help = "Database connections by state";
+                metricsManager.gauge("traccar_database_connections", help,
+                        () -> poolStats.getActiveConnections(), withLabels(labels, "state", "active"));
+                metricsManager.gauge("traccar_database_connections", help,
+                        () -> poolStats.getIdleConnections(), withLabels(labels, "state", "idle"));
+                metricsManager.gauge("traccar_database_connections", help,
+                        () -> poolStats.getPendingThreads(), withLabels(labels, "state", "pending"));
+                var acquire = metricsManager.histogram(
+                        "traccar_database_connection_wait_seconds", "Time waiting for a pooled database connection",
+                        labels);
+                var usage = metricsManager.histogram(
+                        "traccar_database_connection_usage_seconds", "Time a database connection is held", labels);
+                var timeouts = metricsManager.counter(
+                        "traccar_database_connection_timeouts_total", "Database connection acquisition timeouts",
+                        labels);
+                return new IMetricsTracker() {
+                    @Override
+                    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                        acquire.record(elapsedAcquiredNanos);
+                    }
+
+                    @Override
+                    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                        usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+                    }
+
+                    @Override
+                    public void recordConnectionTimeout() {
+                        timeouts.increment();
+                    }
+                };
+            });
+        }
+
+        return new HikariDataSource(hikariConfig);
+    }
+
+    private static String[] withLabels(String[] labels, String... extra) {
+        String[] result = Arrays.copyOf(labels, labels.length + extra.length);
+        System.arraycopy(extra, 0, result, labels.length, extra.length);
+        return result;
+    }
+
     @Singleton
     @Provides
     public static DataSource provideDataSource(
-            Config config) throws ReflectiveOperationException, IOException, LiquibaseException {
+            Config config, MetricsManager metricsManager)
+            throws ReflectiveOperationException, IOException, LiquibaseException {
 
         String driverFile = config.getString(Keys.DATABASE_DRIVER_FILE);
         if (driverFile != null) {
@@ -63,23 +182,20 @@ public class DatabaseModule extends AbstractModule {
             Class.forName(driver);
         }
 
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setDriverClassName(driver);
-        hikariConfig.setJdbcUrl(config.getString(Keys.DATABASE_URL));
-        hikariConfig.setUsername(config.getString(Keys.DATABASE_USER));
-        hikariConfig.setPassword(config.getString(Keys.DATABASE_PASSWORD));
-        hikariConfig.setConnectionInitSql(config.getString(Keys.DATABASE_CHECK_CONNECTION));
-        hikariConfig.setIdleTimeout(600000);
-
-        int maxPoolSize = config.getInteger(Keys.DATABASE_MAX_POOL_SIZE);
-        if (maxPoolSize != 0) {
-            hikariConfig.setMaximumPoolSize(maxPoolSize);
-        }
-
-        DataSource dataSource = new HikariDataSource(hikariConfig);
+        DataSource dataSource = createDataSource(
+                config, metricsManager, config.getString(Keys.DATABASE_URL),
+                config.getString(Keys.DATABASE_USER), config.getString(Keys.DATABASE_PASSWORD),
+                config.getInteger(Keys.DATABASE_MAX_POOL_SIZE), config.getInteger(Keys.DATABASE_CONNECTION_TIMEOUT),
+                "pool", "main");
 
         if (config.hasKey(Keys.DATABASE_CHANGELOG)) {
 
+            String changelog = config.getString(Keys.DATABASE_CHANGELOG);
+            String tag = "traccar-" + changelogChecksum(changelog);
+            if (isChangelogApplied(dataSource, tag)) {
+                return dataSource;
+            }
+
             ResourceAccessor resourceAccessor = new DirectoryResourceAccessor(new File("."));
 
             Database database = DatabaseFactory.getInstance().openDatabase(
@@ -89,15 +205,57 @@ public class DatabaseModule extends AbstractModule {
                     config.getString(Keys.DATABASE_DRIVER),
                     null, null, null, resourceAccessor);
 
-            String changelog = config.getString(Keys.DATABASE_CHANGELOG);
-
             try (Liquibase liquibase = new Liquibase(changelog, resourceAccessor, database)) {
                 liquibase.clearCheckSums();
                 liquibase.update(new Contexts());
+                liquibase.tag(tag);
             }
         }
 
         return dataSource;
     }
 
+    /**
+     * Depends on the primary data source, so that the driver is already loaded and the schema is up to date.
+     */
+    @Singleton
+    @Provides
+    public static ReplicaRouting provideReplicaRouting(
+            Config config, MetricsManager metricsManager, DataSource dataSource) {
+        DataSource replica = null;
+        String url = config.getString(Keys.DATABASE_REPLICA_URL);
+        if (url != null) {
+            replica = createDataSource(
+                    config, metricsManager, url,
+                    config.getString(Keys.DATABASE_REPLICA_USER, config.getString(Keys.DATABASE_USER)),
+                    config.getString(Keys.DATABASE_REPLICA_PASSWORD, config.getString(Keys.DATABASE_PASSWORD)),
+                    config.getInteger(Keys.DATABASE_MAX_POOL_SIZE), config.getInteger(Keys.DATABASE_CONNECTION_TIMEOUT),
+                    "pool", "replica");
+        }
+        return new ReplicaRouting(
+                replica, TimeUnit.SECONDS.toMillis(config.getInteger(Keys.DATABASE_REPLICA_PRIMARY_WINDOW)));
+    }
+
+    /**
+     * Depends on the main data source, so that the driver is already loaded and the schema is up to date.
+     */
+    @Singleton
+    @Provides
+    public static DatabasePools provideDatabasePools(
+            Config config, MetricsManager metricsManager, DataSource dataSource) {
+        Map<DatabasePools.Workload, DataSource> pools = new EnumMap<>(DatabasePools.Workload.class);
+        for (DatabasePools.Workload workload : DatabasePools.Workload.values()) {
+            String prefix = "database.pool." + workload.getName();
+            int maxPoolSize = config.getInteger(Keys.DATABASE_POOL_MAX_SIZE.withPrefix(prefix));
+            if (maxPoolSize > 0) {
+                pools.put(workload, createDataSource(
+                        config, metricsManager, config.getString(Keys.DATABASE_URL),
+                        config.getString(Keys.DATABASE_USER), config.getString(Keys.DATABASE_PASSWORD),
+                        maxPoolSize, config.getInteger(Keys.DATABASE_POOL_CONNECTION_TIMEOUT.withPrefix(prefix)),
+                        "pool", workload.getName()));
+            }
+        }
+        return new DatabasePools(dataSource, pools);
+    }
+
 }
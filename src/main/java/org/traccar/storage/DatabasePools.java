@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.storage;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Connection pools isolated by workload, so that long running reports can't take all connections needed for
+ * processing positions. Workload is selected for the current thread by the call site. Threads without a workload,
+ * like device connection threads, and workloads without a dedicated pool use the main pool.
+ */
+public class DatabasePools {
+
+    public enum Workload {
+        API, REPORTS, BACKGROUND;
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final ThreadLocal<Workload> WORKLOAD = new ThreadLocal<>();
+
+    private final DataSource mainPool;
+    private final Map<Workload, DataSource> pools;
+
+    public DatabasePools(DataSource mainPool, Map<Workload, DataSource> pools) {
+        this.mainPool = mainPool;
+        this.pools = pools;
+    }
+
+    /**
+     * Use pool of the workload on the current thread until the scope is closed.
+     */
+    public Scope open(Workload workload) {
+        Workload previous = WORKLOAD.get();
+        WORKLOAD.set(workload);
+        return () -> {
+            if (previous != null) {
+                WORKLOAD.set(previous);
+            } else {
+                WORKLOAD.remove();
+            }
+        };
+    }
+
+    /**
+     * Pool for the workload of the current thread.
+     */
+    public DataSource getDataSource() {
+        Workload workload = WORKLOAD.get();
+        if (workload != null) {
+            DataSource pool = pools.get(workload);
+            if (pool != null) {
+                return pool;
+            }
+        }
+        return mainPool;
+    }
+
+}
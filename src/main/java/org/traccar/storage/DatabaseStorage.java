@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2022 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package org.traccar.storage;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.traccar.config.Config;
+import org.traccar.database.MetricsManager;
 import org.traccar.model.BaseModel;
 import org.traccar.model.Device;
 import org.traccar.model.Group;
@@ -34,21 +35,34 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class DatabaseStorage extends Storage {
 
     private final Config config;
     private final DataSource dataSource;
     private final ObjectMapper objectMapper;
+    private final MetricsManager metricsManager;
+    private final DatabasePools databasePools;
+    private final ReplicaRouting replicaRouting;
     private final String databaseType;
+    private final Map<String, Map<String, MetricsManager.Histogram>> queryHistograms = new ConcurrentHashMap<>();
+
+    private volatile boolean batchKeysUnsupported;
 
     @Inject
-    public DatabaseStorage(Config config, DataSource dataSource, ObjectMapper objectMapper) {
+    public DatabaseStorage(
+            Config config, DataSource dataSource, ObjectMapper objectMapper, MetricsManager metricsManager,
+            DatabasePools databasePools, ReplicaRouting replicaRouting) {
         this.config = config;
         this.dataSource = dataSource;
         this.objectMapper = objectMapper;
+        this.metricsManager = metricsManager;
+        this.databasePools = databasePools;
+        this.replicaRouting = replicaRouting;
 
         try {
             databaseType = dataSource.getConnection().getMetaData().getDatabaseProductName();
@@ -57,8 +71,52 @@ public class DatabaseStorage extends Storage {
         }
     }
 
+    private DataSource getDataSource() {
+        return databasePools.getDataSource();
+    }
+
+    private DataSource getReadDataSource() {
+        return replicaRouting.getReadDataSource(databasePools.getDataSource());
+    }
+
+    private void recordQuery(String operation, String table, long startTime) {
+        if (metricsManager.isEnabled()) {
+            var histograms = queryHistograms.computeIfAbsent(operation, key -> new ConcurrentHashMap<>());
+            var histogram = histograms.get(table);
+            if (histogram == null) {
+                histogram = histograms.computeIfAbsent(table, key -> metricsManager.histogram(
+                        "traccar_database_query_seconds", "Database query time by operation and table",
+                        "operation", operation, "table", key));
+            }
+            histogram.recordSince(startTime);
+        }
+    }
+
     @Override
     public <T> List<T> getObjects(Class<T> clazz, Request request) throws StorageException {
+        long startTime = System.nanoTime();
+        try {
+            return createSelectQuery(clazz, request).executeQuery(clazz);
+        } catch (SQLException e) {
+            throw new StorageException(e);
+        } finally {
+            recordQuery("select", getStorageName(clazz), startTime);
+        }
+    }
+
+    @Override
+    public <T> Stream<T> getObjectsStream(Class<T> clazz, Request request) throws StorageException {
+        long startTime = System.nanoTime();
+        try {
+            return createSelectQuery(clazz, request).executeQueryStreamed(clazz);
+        } catch (SQLException e) {
+            throw new StorageException(e);
+        } finally {
+            recordQuery("select", getStorageName(clazz), startTime);
+        }
+    }
+
+    private QueryBuilder createSelectQuery(Class<?> clazz, Request request) throws StorageException, SQLException {
         StringBuilder query = new StringBuilder("SELECT ");
         if (request.getColumns() instanceof Columns.All) {
             query.append('*');
@@ -68,15 +126,11 @@ public class DatabaseStorage extends Storage {
         query.append(" FROM ").append(getStorageName(clazz));
         query.append(formatCondition(request.getCondition()));
         query.append(formatOrder(request.getOrder()));
-        try {
-            QueryBuilder builder = QueryBuilder.create(config, dataSource, objectMapper, query.toString());
-            for (Map.Entry<String, Object> variable : getConditionVariables(request.getCondition()).entrySet()) {
-                builder.setValue(variable.getKey(), variable.getValue());
-            }
-            return builder.executeQuery(clazz);
-        } catch (SQLException e) {
-            throw new StorageException(e);
+        QueryBuilder builder = QueryBuilder.create(config, getReadDataSource(), objectMapper, query.toString());
+        for (Map.Entry<String, Object> variable : getConditionVariables(request.getCondition()).entrySet()) {
+            builder.setValue(variable.getKey(), variable.getValue());
         }
+        return builder;
     }
 
     @Override
@@ -89,15 +143,57 @@ public class DatabaseStorage extends Storage {
         query.append(") VALUES (");
         query.append(formatColumns(columns, c -> ':' + c));
         query.append(")");
+        long startTime = System.nanoTime();
         try {
-            QueryBuilder builder = QueryBuilder.create(config, dataSource, objectMapper, query.toString(), true);
+            QueryBuilder builder = QueryBuilder.create(config, getDataSource(), objectMapper, query.toString(), true);
             builder.setObject(entity, columns);
-            return builder.executeUpdate();
+            long id = builder.executeUpdate();
+            replicaRouting.recordWrite();
+            return id;
         } catch (SQLException e) {
             throw new StorageException(e);
+        } finally {
+            recordQuery("insert", getStorageName(entity.getClass()), startTime);
         }
     }
 
+    @Override
+    public <T> long[] addObjects(List<T> entities, Request request) throws StorageException {
+        if (entities.size() < 2 || batchKeysUnsupported) {
+            return super.addObjects(entities, request);
+        }
+        Class<?> clazz = entities.get(0).getClass();
+        List<String> columns = request.getColumns().getColumns(clazz, "get");
+        StringBuilder query = new StringBuilder("INSERT INTO ");
+        query.append(getStorageName(clazz));
+        query.append("(");
+        query.append(formatColumns(columns, c -> c));
+        query.append(") VALUES (");
+        query.append(formatColumns(columns, c -> ':' + c));
+        query.append(")");
+        long startTime = System.nanoTime();
+        long[] result;
+        try {
+            QueryBuilder builder = QueryBuilder.create(config, getDataSource(), objectMapper, query.toString(), true);
+            for (T entity : entities) {
+                builder.setObject(entity, columns).addBatch();
+            }
+            result = builder.executeBatch(entities.size());
+            if (result != null) {
+                replicaRouting.recordWrite();
+            }
+        } catch (SQLException e) {
+            throw new StorageException(e);
+        } finally {
+            recordQuery("insert_batch", getStorageName(clazz), startTime);
+        }
+        if (result == null) {
+            batchKeysUnsupported = true;
+            return super.addObjects(entities, request);
+        }
+        return result;
+    }
+
     @Override
     public <T> void updateObject(T entity, Request request) throws StorageException {
         List<String> columns = request.getColumns().getColumns(entity.getClass(), "get");
@@ -106,15 +202,49 @@ public class DatabaseStorage extends Storage {
         query.append(" SET ");
         query.append(formatColumns(columns, c -> c + " = :" + c));
         query.append(formatCondition(request.getCondition()));
+        long startTime = System.nanoTime();
         try {
-            QueryBuilder builder = QueryBuilder.create(config, dataSource, objectMapper, query.toString());
+            QueryBuilder builder = QueryBuilder.create(config, getDataSource(), objectMapper, query.toString());
             builder.setObject(entity, columns);
             for (Map.Entry<String, Object> variable : getConditionVariables(request.getCondition()).entrySet()) {
                 builder.setValue(variable.getKey(), variable.getValue());
             }
             builder.executeUpdate();
+            replicaRouting.recordWrite();
+        } catch (SQLException e) {
+            throw new StorageException(e);
+        } finally {
+            recordQuery("update", getStorageName(entity.getClass()), startTime);
+        }
+    }
+
+    @Override
+    public <T extends BaseModel> void updateObjects(List<T> entities, Columns columns) throws StorageException {
+        if (entities.size() < 2) {
+            super.updateObjects(entities, columns);
+            return;
+        }
+        Class<?> clazz = entities.get(0).getClass();
+        List<String> updated = columns.getColumns(clazz, "get");
+        StringBuilder query = new StringBuilder("UPDATE ");
+        query.append(getStorageName(clazz));
+        query.append(" SET ");
+        query.append(formatColumns(updated, c -> c + " = :" + c));
+        query.append(" WHERE id = :id");
+        List<String> parameters = new LinkedList<>(updated);
+        parameters.add("id");
+        long startTime = System.nanoTime();
+        try {
+            QueryBuilder builder = QueryBuilder.create(config, getDataSource(), objectMapper, query.toString());
+            for (T entity : entities) {
+                builder.setObject(entity, parameters).addBatch();
+            }
+            builder.executeBatch(entities.size());
+            replicaRouting.recordWrite();
         } catch (SQLException e) {
             throw new StorageException(e);
+        } finally {
+            recordQuery("update_batch", getStorageName(clazz), startTime);
         }
     }
 
@@ -123,14 +253,18 @@ public class DatabaseStorage extends Storage {
         StringBuilder query = new StringBuilder("DELETE FROM ");
         query.append(getStorageName(clazz));
         query.append(formatCondition(request.getCondition()));
+        long startTime = System.nanoTime();
         try {
-            QueryBuilder builder = QueryBuilder.create(config, dataSource, objectMapper, query.toString());
+            QueryBuilder builder = QueryBuilder.create(config, getDataSource(), objectMapper, query.toString());
             for (Map.Entry<String, Object> variable : getConditionVariables(request.getCondition()).entrySet()) {
                 builder.setValue(variable.getKey(), variable.getValue());
             }
             builder.executeUpdate();
+            replicaRouting.recordWrite();
         } catch (SQLException e) {
             throw new StorageException(e);
+        } finally {
+            recordQuery("delete", getStorageName(clazz), startTime);
         }
     }
 
@@ -149,14 +283,17 @@ public class DatabaseStorage extends Storage {
         }
         Condition combinedCondition = Condition.merge(conditions);
         query.append(formatCondition(combinedCondition));
+        long startTime = System.nanoTime();
         try {
-            QueryBuilder builder = QueryBuilder.create(config, dataSource, objectMapper, query.toString());
+            QueryBuilder builder = QueryBuilder.create(config, getReadDataSource(), objectMapper, query.toString());
             for (Map.Entry<String, Object> variable : getConditionVariables(combinedCondition).entrySet()) {
                 builder.setValue(variable.getKey(), variable.getValue());
             }
             return builder.executePermissionsQuery();
         } catch (SQLException e) {
             throw new StorageException(e);
+        } finally {
+            recordQuery("select", Permission.getStorageName(ownerClass, propertyClass), startTime);
         }
     }
 
@@ -168,11 +305,12 @@ public class DatabaseStorage extends Storage {
         query.append(permission.get().keySet().stream().map(key -> ':' + key).collect(Collectors.joining(", ")));
         query.append(")");
         try {
-            QueryBuilder builder = QueryBuilder.create(config, dataSource, objectMapper, query.toString(), true);
+            QueryBuilder builder = QueryBuilder.create(config, getDataSource(), objectMapper, query.toString(), true);
             for (var entry : permission.get().entrySet()) {
                 builder.setLong(entry.getKey(), entry.getValue());
             }
             builder.executeUpdate();
+            replicaRouting.recordWrite();
         } catch (SQLException e) {
             throw new StorageException(e);
         }
@@ -186,11 +324,12 @@ public class DatabaseStorage extends Storage {
         query.append(permission
                 .get().keySet().stream().map(key -> key + " = :" + key).collect(Collectors.joining(" AND ")));
         try {
-            QueryBuilder builder = QueryBuilder.create(config, dataSource, objectMapper, query.toString(), true);
+            QueryBuilder builder = QueryBuilder.create(config, getDataSource(), objectMapper, query.toString(), true);
             for (var entry : permission.get().entrySet()) {
                 builder.setLong(entry.getKey(), entry.getValue());
             }
             builder.executeUpdate();
+            replicaRouting.recordWrite();
         } catch (SQLException e) {
             throw new StorageException(e);
         }
@@ -215,6 +354,10 @@ public class DatabaseStorage extends Storage {
             var condition = (Condition.Between) genericCondition;
             results.put(condition.getFromVariable(), condition.getFromValue());
             results.put(condition.getToVariable(), condition.getToValue());
+        } else if (genericCondition instanceof Condition.Keyset) {
+            var condition = (Condition.Keyset) genericCondition;
+            results.put(condition.getValueVariable(), condition.getValue());
+            results.put(condition.getIdVariable(), condition.getId());
         } else if (genericCondition instanceof Condition.Binary) {
             var condition = (Condition.Binary) genericCondition;
             results.putAll(getConditionVariables(condition.getFirst()));
@@ -267,6 +410,20 @@ public class DatabaseStorage extends Storage {
                 result.append(" AND :");
                 result.append(condition.getToVariable());
 
+            } else if (genericCondition instanceof Condition.Keyset) {
+
+                var condition = (Condition.Keyset) genericCondition;
+                result.append(condition.getColumn());
+                result.append(" >= :");
+                result.append(condition.getValueVariable());
+                result.append(" AND (");
+                result.append(condition.getColumn());
+                result.append(" > :");
+                result.append(condition.getValueVariable());
+                result.append(" OR id > :");
+                result.append(condition.getIdVariable());
+                result.append(")");
+
             } else if (genericCondition instanceof Condition.Binary) {
 
                 var condition = (Condition.Binary) genericCondition;
@@ -307,6 +464,13 @@ public class DatabaseStorage extends Storage {
             if (order.getDescending()) {
                 result.append(" DESC");
             }
+            if (order.getSecondaryColumn() != null) {
+                result.append(", ");
+                result.append(order.getSecondaryColumn());
+                if (order.getDescending()) {
+                    result.append(" DESC");
+                }
+            }
             if (order.getLimit() > 0) {
                 if (databaseType.equals("Microsoft SQL Server")) {
                     result.append(" OFFSET 0 ROWS FETCH FIRST ");
@@ -32,6 +32,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class MemoryStorage extends Storage {
 
@@ -55,6 +56,11 @@ public class MemoryStorage extends Storage {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public <T> Stream<T> getObjectsStream(Class<T> clazz, Request request) {
+        return getObjects(clazz, request).stream();
+    }
+
     private boolean checkCondition(Condition genericCondition, Object object) {
         if (genericCondition == null) {
             return true;
@@ -89,6 +95,14 @@ public class MemoryStorage extends Storage {
             int toResult = ((Comparable) toValue).compareTo(condition.getToValue());
             return fromResult >= 0 && toResult <= 0;
 
+        } else if (genericCondition instanceof Condition.Keyset) {
+
+            var condition = (Condition.Keyset) genericCondition;
+            Object value = retrieveValue(object, condition.getColumn());
+            int result = ((Comparable) value).compareTo(condition.getValue());
+            long id = (Long) retrieveValue(object, "id");
+            return result > 0 || result == 0 && id > condition.getId();
+
         } else if (genericCondition instanceof Condition.Binary) {
 
             var condition = (Condition.Binary) genericCondition;
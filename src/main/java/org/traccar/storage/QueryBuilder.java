@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 - 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2015 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.model.Permission;
+import org.traccar.model.Position;
 
 import javax.sql.DataSource;
 import java.io.IOException;
@@ -32,6 +33,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
@@ -41,6 +43,12 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @SuppressWarnings("UnusedReturnValue")
 public final class QueryBuilder {
@@ -283,8 +291,11 @@ public final class QueryBuilder {
         return this;
     }
 
+    @SuppressWarnings("unchecked")
     public QueryBuilder setObject(Object object, List<String> columns) throws SQLException {
 
+        boolean compactAttributes = object instanceof Position && config.getBoolean(Keys.DATABASE_COMPACT_ATTRIBUTES);
+
         try {
             for (String column : columns) {
                 Method method = object.getClass().getMethod(
@@ -303,6 +314,8 @@ public final class QueryBuilder {
                     setDate(column, (Date) method.invoke(object));
                 } else if (method.getReturnType().equals(byte[].class)) {
                     setBlob(column, (byte[]) method.invoke(object));
+                } else if (compactAttributes && column.equals("attributes")) {
+                    setString(column, AttributeCodec.encode((Map<String, Object>) method.invoke(object), objectMapper));
                 } else {
                     setString(column, objectMapper.writeValueAsString(method.invoke(object)));
                 }
@@ -386,8 +399,13 @@ public final class QueryBuilder {
                 String value = resultSet.getString(name);
                 if (value != null && !value.isEmpty()) {
                     try {
-                        method.invoke(object, objectMapper.readValue(value, parameterType));
-                    } catch (InvocationTargetException | IllegalAccessException | IOException error) {
+                        if (AttributeCodec.isEncoded(value)) {
+                            method.invoke(object, AttributeCodec.decode(value, objectMapper));
+                        } else {
+                            method.invoke(object, objectMapper.readValue(value, parameterType));
+                        }
+                    } catch (InvocationTargetException | IllegalAccessException | IOException
+                            | IllegalArgumentException | IndexOutOfBoundsException error) {
                         LOGGER.warn("Set property error", error);
                     }
                 }
@@ -401,54 +419,65 @@ public final class QueryBuilder {
         }
     }
 
-    public <T> List<T> executeQuery(Class<T> clazz) throws SQLException {
-        List<T> result = new LinkedList<>();
+    private <T> List<ResultSetProcessor<T>> createProcessors(
+            Class<T> clazz, ResultSetMetaData resultMetaData) throws SQLException {
 
-        if (query != null) {
+        List<ResultSetProcessor<T>> processors = new LinkedList<>();
 
-            try {
+        Method[] methods = clazz.getMethods();
 
-                logQuery();
+        for (final Method method : methods) {
+            if (method.getName().startsWith("set") && method.getParameterTypes().length == 1) {
 
-                try (ResultSet resultSet = statement.executeQuery()) {
+                final String name = method.getName().substring(3);
 
-                    ResultSetMetaData resultMetaData = resultSet.getMetaData();
+                // Check if column exists
+                boolean column = false;
+                for (int i = 1; i <= resultMetaData.getColumnCount(); i++) {
+                    if (name.equalsIgnoreCase(resultMetaData.getColumnLabel(i))) {
+                        column = true;
+                        break;
+                    }
+                }
+                if (!column) {
+                    continue;
+                }
 
-                    List<ResultSetProcessor<T>> processors = new LinkedList<>();
+                addProcessors(processors, method.getParameterTypes()[0], method, name);
+            }
+        }
 
-                    Method[] methods = clazz.getMethods();
+        return processors;
+    }
 
-                    for (final Method method : methods) {
-                        if (method.getName().startsWith("set") && method.getParameterTypes().length == 1) {
+    private <T> T createObject(
+            Class<T> clazz, List<ResultSetProcessor<T>> processors, ResultSet resultSet) throws SQLException {
+        try {
+            T object = clazz.getDeclaredConstructor().newInstance();
+            for (ResultSetProcessor<T> processor : processors) {
+                processor.process(object, resultSet);
+            }
+            return object;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException();
+        }
+    }
 
-                            final String name = method.getName().substring(3);
+    public <T> List<T> executeQuery(Class<T> clazz) throws SQLException {
+        List<T> result = new LinkedList<>();
 
-                            // Check if column exists
-                            boolean column = false;
-                            for (int i = 1; i <= resultMetaData.getColumnCount(); i++) {
-                                if (name.equalsIgnoreCase(resultMetaData.getColumnLabel(i))) {
-                                    column = true;
-                                    break;
-                                }
-                            }
-                            if (!column) {
-                                continue;
-                            }
+        if (query != null) {
 
-                            addProcessors(processors, method.getParameterTypes()[0], method, name);
-                        }
-                    }
+            try {
+
+                logQuery();
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+
+                    List<ResultSetProcessor<T>> processors = createProcessors(clazz, resultSet.getMetaData());
 
                     while (resultSet.next()) {
-                        try {
-                            T object = clazz.getDeclaredConstructor().newInstance();
-                            for (ResultSetProcessor<T> processor : processors) {
-                                processor.process(object, resultSet);
-                            }
-                            result.add(object);
-                        } catch (ReflectiveOperationException e) {
-                            throw new IllegalArgumentException();
-                        }
+                        result.add(createObject(clazz, processors, resultSet));
                     }
                 }
 
@@ -461,6 +490,82 @@ public final class QueryBuilder {
         return result;
     }
 
+    public <T> Stream<T> executeQueryStreamed(Class<T> clazz) throws SQLException {
+
+        if (query == null) {
+            return Stream.empty();
+        }
+
+        int timeout = config.getInteger(Keys.DATABASE_STREAM_TIMEOUT);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        ResultSet resultSet;
+        List<ResultSetProcessor<T>> processors;
+        boolean autoCommit;
+        try {
+            autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false); // required for cursor-based fetching in PostgreSQL
+            }
+        } catch (SQLException error) {
+            statement.close();
+            connection.close();
+            throw error;
+        }
+        try {
+            logQuery();
+            statement.setFetchSize(config.getInteger(Keys.DATABASE_FETCH_SIZE));
+            statement.setQueryTimeout(timeout);
+            resultSet = statement.executeQuery();
+            processors = createProcessors(clazz, resultSet.getMetaData());
+        } catch (SQLException error) {
+            try {
+                statement.close();
+                restoreAutoCommit(autoCommit);
+            } finally {
+                connection.close();
+            }
+            throw error;
+        }
+
+        var spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (timeout > 0 && System.nanoTime() - deadline > 0) {
+                        throw new SQLTimeoutException("Streamed query timeout after " + timeout + " seconds");
+                    }
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(createObject(clazz, processors, resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                try {
+                    resultSet.close();
+                    statement.close();
+                    restoreAutoCommit(autoCommit);
+                } finally {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                LOGGER.warn("Close query error", e);
+            }
+        });
+    }
+
+    private void restoreAutoCommit(boolean autoCommit) throws SQLException {
+        if (autoCommit) {
+            connection.setAutoCommit(true);
+        }
+    }
+
     public long executeUpdate() throws SQLException {
 
         if (query != null) {
@@ -481,6 +586,58 @@ public final class QueryBuilder {
         return 0;
     }
 
+    /**
+     * Add current parameters to the batch. Parameters can then be set again for the next row.
+     */
+    public QueryBuilder addBatch() throws SQLException {
+        if (query != null) {
+            statement.addBatch();
+        }
+        return this;
+    }
+
+    /**
+     * Execute batched rows in one transaction. Returns generated keys for all rows or null if the driver didn't
+     * report a key for each row, in which case the transaction is rolled back.
+     */
+    public long[] executeBatch(int count) throws SQLException {
+
+        if (query != null) {
+            try {
+                logQuery();
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    statement.executeBatch();
+                    long[] result = new long[count];
+                    if (returnGeneratedKeys) {
+                        int index = 0;
+                        try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                            while (resultSet.next() && index < count) {
+                                result[index++] = resultSet.getLong(1);
+                            }
+                        }
+                        if (index < count) {
+                            connection.rollback();
+                            return null;
+                        }
+                    }
+                    connection.commit();
+                    return result;
+                } catch (SQLException error) {
+                    connection.rollback();
+                    throw error;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } finally {
+                statement.close();
+                connection.close();
+            }
+        }
+        return new long[count];
+    }
+
     public List<Permission> executePermissionsQuery() throws SQLException {
         List<Permission> result = new LinkedList<>();
         if (query != null) {
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.storage;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes reads to an optional read replica database. Only reads inside a read-only scope, like GET API requests and
+ * emailed reports, use the replica, and only if the user of the scope hasn't modified any data recently, so that users
+ * see their own changes despite replication lag. All other queries use the primary database.
+ */
+public class ReplicaRouting {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private final DataSource replica;
+    private final long primaryWindow;
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    /**
+     * @param replica replica data source or null if there is none
+     * @param primaryWindow time in milliseconds after a write during which reads of the user stay on the primary
+     */
+    public ReplicaRouting(DataSource replica, long primaryWindow) {
+        this.replica = replica;
+        this.primaryWindow = primaryWindow;
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope previous;
+        private final boolean readOnly;
+        private long userId;
+
+        private Scope(Scope previous, boolean readOnly, long userId) {
+            this.previous = previous;
+            this.readOnly = readOnly;
+            this.userId = userId;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                SCOPE.set(previous);
+            } else {
+                SCOPE.remove();
+            }
+        }
+
+    }
+
+    /**
+     * Start a scope on the current thread. User id can be zero if it's not known yet. The scope has to be closed on the
+     * same thread.
+     */
+    public Scope open(boolean readOnly, long userId) {
+        Scope scope = new Scope(SCOPE.get(), readOnly, userId);
+        SCOPE.set(scope);
+        return scope;
+    }
+
+    /**
+     * Set user of the current scope, e.g. after the request is authenticated.
+     */
+    public void setUserId(long userId) {
+        Scope scope = SCOPE.get();
+        if (scope != null) {
+            scope.userId = userId;
+        }
+    }
+
+    /**
+     * Data source for reads on the current thread.
+     */
+    public DataSource getReadDataSource(DataSource primary) {
+        Scope scope = SCOPE.get();
+        if (replica == null || scope == null || !scope.readOnly || scope.userId == 0) {
+            return primary;
+        }
+        Long lastWrite = lastWrites.get(scope.userId);
+        if (lastWrite != null) {
+            if (System.currentTimeMillis() - lastWrite < primaryWindow) {
+                return primary;
+            }
+            lastWrites.remove(scope.userId, lastWrite);
+        }
+        return replica;
+    }
+
+    /**
+     * Record a modification by the user of the current scope.
+     */
+    public void recordWrite() {
+        Scope scope = SCOPE.get();
+        if (replica != null && scope != null && scope.userId != 0) {
+            lastWrites.put(scope.userId, System.currentTimeMillis());
+        }
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Anton Tananaev (anton@traccar.org)
+ * Copyright 2022 - 2023 Anton Tananaev (anton@traccar.org)
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,18 +17,43 @@ package org.traccar.storage;
 
 import org.traccar.model.BaseModel;
 import org.traccar.model.Permission;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Condition;
 import org.traccar.storage.query.Request;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public abstract class Storage {
 
     public abstract <T> List<T> getObjects(Class<T> clazz, Request request) throws StorageException;
 
+    public abstract <T> Stream<T> getObjectsStream(Class<T> clazz, Request request) throws StorageException;
+
     public abstract <T> long addObject(T entity, Request request) throws StorageException;
 
     public abstract <T> void updateObject(T entity, Request request) throws StorageException;
 
+    /**
+     * Add objects in one operation where the storage supports it. Returns generated ids in the same order.
+     */
+    public <T> long[] addObjects(List<T> entities, Request request) throws StorageException {
+        long[] result = new long[entities.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = addObject(entities.get(i), request);
+        }
+        return result;
+    }
+
+    /**
+     * Update columns of objects matched by id in one operation where the storage supports it.
+     */
+    public <T extends BaseModel> void updateObjects(List<T> entities, Columns columns) throws StorageException {
+        for (T entity : entities) {
+            updateObject(entity, new Request(columns, new Condition.Equals("id", entity.getId())));
+        }
+    }
+
     public abstract void removeObject(Class<?> clazz, Request request) throws StorageException;
 
     public abstract List<Permission> getPermissions(
@@ -105,6 +105,42 @@ public interface Condition {
         }
     }
 
+    class Keyset implements Condition {
+        private final String column;
+        private final String valueVariable;
+        private final Object value;
+        private final String idVariable;
+        private final long id;
+
+        public Keyset(String column, Object value, long id) {
+            this.column = column;
+            this.valueVariable = column + "After";
+            this.value = value;
+            this.idVariable = column + "AfterId";
+            this.id = id;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public String getValueVariable() {
+            return valueVariable;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public String getIdVariable() {
+            return idVariable;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+
     class Or extends Binary {
         public Or(Condition first, Condition second) {
             super(first, second, "OR");
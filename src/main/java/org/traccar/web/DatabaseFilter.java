@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Anton Tananaev (anton@traccar.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.traccar.web;
+
+import org.traccar.storage.DatabasePools;
+import org.traccar.storage.ReplicaRouting;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Selects database connections for each API request. Reports and position exports use the reports pool, position
+ * imports use the background pool and other requests use the API pool. Routes are matched on the decoded servlet path.
+ * GET and HEAD requests are read-only, so once the user is authenticated their queries can go to the read replica.
+ * Scopes stay open while the response is written, which covers streamed exports.
+ */
+@Singleton
+public class DatabaseFilter implements Filter {
+
+    private final DatabasePools databasePools;
+    private final ReplicaRouting replicaRouting;
+
+    @Inject
+    public DatabaseFilter(DatabasePools databasePools, ReplicaRouting replicaRouting) {
+        this.databasePools = databasePools;
+        this.replicaRouting = replicaRouting;
+    }
+
+    private static DatabasePools.Workload getWorkload(String path) {
+        if (path.startsWith("/api/reports/")
+                || path.equals("/api/positions/kml")
+                || path.equals("/api/positions/csv")
+                || path.equals("/api/positions/gpx")) {
+            return DatabasePools.Workload.REPORTS;
+        } else if (path.equals("/api/positions/import")) {
+            return DatabasePools.Workload.BACKGROUND;
+        }
+        return DatabasePools.Workload.API;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String path = httpRequest.getServletPath();
+        if (httpRequest.getPathInfo() != null) {
+            path += httpRequest.getPathInfo();
+        }
+        var workload = getWorkload(path);
+        String method = httpRequest.getMethod();
+        boolean readOnly = method.equals("GET") || method.equals("HEAD");
+        try (var poolScope = databasePools.open(workload);
+                var replicaScope = replicaRouting.open(readOnly, 0)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+}
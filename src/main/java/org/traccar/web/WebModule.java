@@ -25,6 +25,7 @@ public class WebModule extends ServletModule {
     protected void configureServlets() {
         filter("/*").through(OverrideFilter.class);
         filter("/api/*").through(ThrottlingFilter.class);
+        filter("/api/*").through(DatabaseFilter.class);
         filter("/api/media/*").through(MediaFilter.class);
         serve("/api/socket").with(AsyncSocketServlet.class);
     }
@@ -0,0 +1,97 @@
+package org.traccar;
+
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventLoopGroupFactoryTest {
+
+    @AfterEach
+    public void release() {
+        EventLoopGroupFactory.release();
+    }
+
+    private static int size(EventLoopGroup group) {
+        int count = 0;
+        for (var ignored : group) {
+            count += 1;
+        }
+        return count;
+    }
+
+    @Test
+    public void testDefaultGroups() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<EventLoopGroup>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(EventLoopGroupFactory::getWorkerGroup);
+            }
+            EventLoopGroup workerGroup = EventLoopGroupFactory.getWorkerGroup();
+            for (Future<EventLoopGroup> future : executor.invokeAll(tasks)) {
+                assertSame(workerGroup, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertSame(EventLoopGroupFactory.getWorkerGroup(), EventLoopGroupFactory.getWorkerGroup("gps103"));
+        assertEquals(1, EventLoopGroupFactory.getDatagramChannels(EventLoopGroupFactory.getWorkerGroup()));
+        assertFalse(EventLoopGroupFactory.isEpoll());
+
+        EventLoopGroup workerGroup = EventLoopGroupFactory.getWorkerGroup();
+        EventLoopGroupFactory.release();
+        assertTrue(workerGroup.isShuttingDown());
+        assertNotSame(workerGroup, EventLoopGroupFactory.getWorkerGroup());
+    }
+
+    @Test
+    public void testProtocolGroups() {
+        var config = new Config();
+        config.setString(Keys.METRICS_ENABLE, "true");
+        config.setString(Keys.NETWORK_WORKER_THREADS, "2");
+        config.setString(Keys.PROTOCOL_EVENT_LOOP.withPrefix("gps103"), "alarm");
+        config.setString(Keys.PROTOCOL_EVENT_LOOP.withPrefix("osmand"), "alarm");
+        config.setString(Keys.NETWORK_EVENT_LOOP_THREADS.withPrefix("network.eventLoop.alarm"), "3");
+        var metricsManager = new MetricsManager(config);
+        EventLoopGroupFactory.initialize(config, metricsManager);
+
+        EventLoopGroup bossGroup = EventLoopGroupFactory.getBossGroup();
+        EventLoopGroup workerGroup = EventLoopGroupFactory.getWorkerGroup();
+        assertEquals(1, size(bossGroup));
+        assertEquals(2, size(workerGroup));
+
+        EventLoopGroup alarmGroup = EventLoopGroupFactory.getWorkerGroup("gps103");
+        assertNotSame(workerGroup, alarmGroup);
+        assertSame(alarmGroup, EventLoopGroupFactory.getWorkerGroup("osmand"));
+        assertSame(workerGroup, EventLoopGroupFactory.getWorkerGroup("h02"));
+        assertEquals(3, size(alarmGroup));
+        assertTrue(metricsManager.format().contains("traccar_event_loop_threads{group=\"alarm\"} 3"));
+
+        EventLoopGroupFactory.release();
+        assertTrue(bossGroup.isShuttingDown());
+        assertTrue(workerGroup.isShuttingDown());
+        assertTrue(alarmGroup.isShuttingDown());
+
+        EventLoopGroup restarted = EventLoopGroupFactory.getWorkerGroup("gps103");
+        assertFalse(restarted.isShuttingDown());
+        assertSame(EventLoopGroupFactory.getWorkerGroup(), restarted);
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.traccar;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.database.MessageLogManager;
+import org.traccar.database.StatisticsManager;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+import org.traccar.session.ConnectionManager;
+import org.traccar.session.cache.CacheManager;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MainEventHandlerTest {
+
+    private Position createPosition(long id, long time) {
+        Position position = new Position();
+        position.setId(id);
+        position.setDeviceId(1);
+        position.setTime(new Date(time));
+        return position;
+    }
+
+    @Test
+    public void testDeferredUpdate() throws StorageException {
+        var cacheManager = mock(CacheManager.class);
+        when(cacheManager.getObject(eq(Device.class), anyLong())).thenReturn(mock(Device.class));
+        var storage = mock(Storage.class);
+        var connectionManager = mock(ConnectionManager.class);
+        var messageLogManager = mock(MessageLogManager.class);
+        when(messageLogManager.getSampling(any())).thenReturn(1);
+        var mainEventHandler = new MainEventHandler(
+                new Config(), cacheManager, storage, connectionManager,
+                mock(StatisticsManager.class), messageLogManager);
+
+        var first = createPosition(1, 1000);
+        var second = createPosition(2, 2000);
+        var channel = new EmbeddedChannel(mainEventHandler);
+        channel.attr(PositionBatch.KEY).set(new PositionBatch(List.of(first, second)));
+        channel.writeInbound(first);
+        channel.writeInbound(second);
+
+        verify(storage, times(1)).updateObject(any(), any());
+        verify(connectionManager, times(0)).updatePosition(anyBoolean(), eq(first));
+        verify(connectionManager, times(1)).updatePosition(true, second);
+        verify(cacheManager, times(0)).updatePosition(first);
+        verify(cacheManager, times(1)).updatePosition(second);
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.traccar;
+
+import org.junit.jupiter.api.Test;
+import org.traccar.model.Position;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PositionBatchTest {
+
+    private Position createPosition(long deviceId, long time) {
+        Position position = new Position();
+        position.setDeviceId(deviceId);
+        position.setTime(new Date(time));
+        return position;
+    }
+
+    @Test
+    public void testLatest() {
+        var first = createPosition(1, 2000);
+        var second = createPosition(1, 1000);
+        var other = createPosition(2, 500);
+        var batch = new PositionBatch(List.of(first, second, other));
+
+        assertEquals(3, batch.size());
+        assertSame(first, batch.getLatest(1));
+        assertSame(other, batch.getLatest(2));
+        assertNull(batch.getLatest(3));
+    }
+
+    @Test
+    public void testPreceding() {
+        var batch = new PositionBatch(2);
+        var first = createPosition(1, 1000);
+        var second = createPosition(1, 3000);
+        batch.add(second);
+        batch.add(first);
+        batch.add(createPosition(2, 2000));
+
+        assertNull(batch.getPreceding(1, new Date(999)));
+        assertSame(first, batch.getPreceding(1, new Date(1000)));
+        assertSame(first, batch.getPreceding(1, new Date(2999)));
+        assertSame(second, batch.getPreceding(1, new Date(5000)));
+    }
+
+    @Test
+    public void testProcessAsync() {
+        var batch = new PositionBatch(List.of(createPosition(1, 1000), createPosition(1, 2000)));
+        List<Runnable> callbacks = new ArrayList<>();
+        List<Boolean> completed = new ArrayList<>();
+        batch.processAsync((position, callback) -> callbacks.add(callback), () -> completed.add(true));
+
+        assertEquals(2, callbacks.size());
+        callbacks.get(1).run();
+        assertTrue(completed.isEmpty());
+        callbacks.get(0).run();
+        assertEquals(1, completed.size());
+    }
+
+}
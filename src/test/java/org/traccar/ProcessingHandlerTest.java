@@ -0,0 +1,74 @@
+package org.traccar;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ProcessingHandlerTest {
+
+    private static final class AppendHandler extends ChannelInboundHandlerAdapter {
+
+        private final String suffix;
+
+        private AppendHandler(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (!msg.equals("drop")) {
+                ctx.fireChannelRead(msg + suffix);
+            }
+        }
+
+    }
+
+    @Test
+    public void testChannelRead() {
+        var channel = new EmbeddedChannel(new ProcessingHandler(
+                List.of(new AppendHandler("a"), new AppendHandler("b")), null));
+
+        channel.writeInbound("x");
+        assertEquals("xab", channel.readInbound());
+
+        channel.writeInbound("drop");
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void testExceptionCaught() {
+        List<String> caught = new ArrayList<>();
+        var failing = new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                caught.add("failing");
+                ctx.fireExceptionCaught(cause);
+            }
+        };
+        var last = new ChannelInboundHandlerAdapter() {
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                caught.add("last");
+            }
+        };
+        var channel = new EmbeddedChannel(new ProcessingHandler(
+                List.of(new AppendHandler("a"), failing, last), null));
+
+        channel.writeInbound("x");
+        assertEquals(List.of("failing", "last"), caught);
+        assertNull(channel.readInbound());
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.traccar;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class ServerManagerTest {
+
+    @Test
+    public void testProtocolIndex() throws Exception {
+        assertNotNull(ServerManager.class.getResource("/META-INF/traccar/protocols"));
+
+        File[] files = new File("src/main/java/org/traccar/protocol").listFiles();
+        assertNotNull(files);
+        List<String> expected = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(".java")) {
+                Class<?> clazz = Class.forName(
+                        "org.traccar.protocol." + name.substring(0, name.length() - 5), false,
+                        getClass().getClassLoader());
+                if (BaseProtocol.class.isAssignableFrom(clazz) && !Modifier.isAbstract(clazz.getModifiers())) {
+                    expected.add(clazz.getName());
+                }
+            }
+        }
+        expected.sort(null);
+
+        assertEquals(expected, ServerManager.getProtocolClassNames());
+    }
+
+}
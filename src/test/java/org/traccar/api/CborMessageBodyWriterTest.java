@@ -0,0 +1,81 @@
+package org.traccar.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.traccar.model.Position;
+
+import jakarta.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CborMessageBodyWriterTest {
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    private static Position createPosition(long id, double latitude) {
+        Position position = new Position("test");
+        position.setId(id);
+        position.setDeviceId(1);
+        position.setTime(new Date(1000 * id));
+        position.setValid(true);
+        position.setLatitude(latitude);
+        position.setLongitude(10.5);
+        position.set(Position.KEY_IGNITION, true);
+        return position;
+    }
+
+    private byte[] write(Object value) throws IOException {
+        var writer = new CborMessageBodyWriter(new ObjectMapper());
+        var output = new ByteArrayOutputStream();
+        writer.writeTo(
+                value, value.getClass(), value.getClass(), null,
+                MediaType.valueOf(CborMessageBodyWriter.MEDIA_TYPE), null, output);
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        List<Position> positions = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            positions.add(createPosition(i, 50 + i * 0.1));
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+
+        byte[] data = write(positions.stream().onClose(() -> closed.set(true)));
+
+        List<Position> decoded = cborMapper.readValue(data, new TypeReference<>() { });
+        assertEquals(positions.size(), decoded.size());
+        for (int i = 0; i < positions.size(); i++) {
+            assertEquals(positions.get(i).getId(), decoded.get(i).getId());
+            assertEquals(positions.get(i).getFixTime(), decoded.get(i).getFixTime());
+            assertEquals(positions.get(i).getLatitude(), decoded.get(i).getLatitude());
+            assertEquals(positions.get(i).getLongitude(), decoded.get(i).getLongitude());
+            assertTrue(decoded.get(i).getBoolean(Position.KEY_IGNITION));
+        }
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        List<Position> decoded = cborMapper.readValue(write(Stream.empty()), new TypeReference<>() { });
+        assertTrue(decoded.isEmpty());
+    }
+
+    @Test
+    public void testObject() throws IOException {
+        Position decoded = cborMapper.readValue(write(createPosition(7, 50)), Position.class);
+        assertEquals(7, decoded.getId());
+        assertEquals(50, decoded.getLatitude());
+    }
+
+}
@@ -0,0 +1,298 @@
+package org.traccar.database;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.handler.DistanceHandler;
+import org.traccar.handler.FilterHandler;
+import org.traccar.helper.DistanceCalculator;
+import org.traccar.model.Device;
+import org.traccar.model.Position;
+import org.traccar.session.ConnectionManager;
+import org.traccar.session.cache.CacheManager;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImportManagerTest {
+
+    private static final String CSV_HEADER = "deviceId,fixTime,latitude,longitude,speed,ignition\n";
+
+    private Storage storage;
+    private CacheManager cacheManager;
+    private ConnectionManager connectionManager;
+    private FilterHandler filterHandler;
+    private List<Integer> batches;
+    private List<Position> stored;
+
+    private ImportManager createImportManager(int batchSize) throws StorageException {
+        Config config = new Config();
+        config.setString(Keys.DATABASE_IMPORT_BATCH_SIZE, String.valueOf(batchSize));
+
+        batches = new ArrayList<>();
+        stored = new ArrayList<>();
+        AtomicLong lastId = new AtomicLong();
+        storage = mock(Storage.class);
+        when(storage.addObjects(any(), any())).thenAnswer(invocation -> {
+            List<Position> positions = invocation.getArgument(0);
+            batches.add(positions.size());
+            stored.addAll(positions);
+            long[] ids = new long[positions.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = lastId.incrementAndGet();
+            }
+            return ids;
+        });
+        cacheManager = mock(CacheManager.class);
+        connectionManager = mock(ConnectionManager.class);
+        filterHandler = mock(FilterHandler.class);
+
+        return new ImportManager(
+                config, storage, cacheManager, connectionManager,
+                new DistanceHandler(config, cacheManager), filterHandler, new ObjectMapper());
+    }
+
+    private static InputStream stream(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String csvRow(long deviceId, int minute) {
+        return deviceId + ",2023-06-01T10:" + String.format("%02d", minute) + ":00Z,50." + minute + ",10.0,5.0,true\n";
+    }
+
+    @Test
+    public void testSplitCsv() {
+        assertEquals(List.of("1", "", "abc"), ImportManager.splitCsv("1,,abc"));
+        assertEquals(List.of("a,b", "c\"d", ""), ImportManager.splitCsv("\"a,b\",\"c\"\"d\","));
+        assertEquals(List.of(""), ImportManager.splitCsv(""));
+    }
+
+    @Test
+    public void testCsvReader() throws Exception {
+        var importManager = createImportManager(10);
+        var reader = importManager.createCsvReader(stream(
+                "fixTime,latitude,longitude,address,ignition,fuel\n"
+                        + "2023-06-01T10:00:00Z,50.5,10.25,\"Main St, 1\",true,12.5\n"
+                        + "\n"
+                        + ",50.5,10.25\n"), 7);
+
+        Position position = reader.next();
+        assertEquals(7, position.getDeviceId());
+        assertEquals(1685613600000L, position.getFixTime().getTime());
+        assertEquals(50.5, position.getLatitude());
+        assertEquals(10.25, position.getLongitude());
+        assertEquals("Main St, 1", position.getAddress());
+        assertTrue(position.getBoolean(Position.KEY_IGNITION));
+        assertEquals(12.5, position.getDouble("fuel"));
+
+        assertThrows(IllegalArgumentException.class, reader::next);
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testGpxReader() throws Exception {
+        var importManager = createImportManager(10);
+        var reader = importManager.createGpxReader(stream(
+                "<?xml version=\"1.0\"?>\n"
+                        + "<gpx version=\"1.1\"><trk><trkseg>"
+                        + "<trkpt lat=\"50.5\" lon=\"10.25\"><ele>120.0</ele><time>2023-06-01T10:00:00Z</time></trkpt>"
+                        + "<trkpt lat=\"50.6\" lon=\"10.35\"><ele>121.0</ele></trkpt>"
+                        + "<trkpt lat=\"50.7\" lon=\"10.45\"><time>2023-06-01T10:02:00Z</time></trkpt>"
+                        + "</trkseg></trk></gpx>"), 7);
+
+        Position position = reader.next();
+        assertEquals(7, position.getDeviceId());
+        assertEquals(50.5, position.getLatitude());
+        assertEquals(10.25, position.getLongitude());
+        assertEquals(120.0, position.getAltitude());
+        assertEquals(1685613600000L, position.getFixTime().getTime());
+
+        assertThrows(IllegalArgumentException.class, reader::next);
+
+        position = reader.next();
+        assertEquals(50.7, position.getLatitude());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        var importManager = createImportManager(2);
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int i = 0; i < 5; i++) {
+            csv.append(csvRow(1, i));
+        }
+
+        var progress = importManager.importPositions(
+                1, id -> { }, importManager.createCsvReader(stream(csv.toString()), 0));
+
+        assertEquals(5, progress.getReceived());
+        assertEquals(5, progress.getStored());
+        assertEquals(0, progress.getRejected());
+        assertEquals(List.of(2, 2, 1), batches);
+        verify(cacheManager).addDevice(1);
+        verify(cacheManager).removeDevice(1);
+        assertTrue(importManager.getImports().isEmpty());
+    }
+
+    @Test
+    public void testUpdateLatest() throws Exception {
+        var importManager = createImportManager(2);
+        String csv = CSV_HEADER + csvRow(1, 0) + csvRow(2, 0) + csvRow(1, 2) + csvRow(1, 1);
+
+        importManager.importPositions(1, id -> { }, importManager.createCsvReader(stream(csv), 0));
+
+        verify(storage).updateObject(
+                argThat((Device device) -> device.getId() == 1 && device.getPositionId() == 3), any());
+        verify(storage).updateObject(
+                argThat((Device device) -> device.getId() == 2 && device.getPositionId() == 2), any());
+        verify(connectionManager, times(2)).updatePosition(eq(true), any());
+    }
+
+    @Test
+    public void testNewerLivePosition() throws Exception {
+        var importManager = createImportManager(2);
+        Position live = new Position();
+        live.setDeviceId(1);
+        live.setTime(new Date());
+        live.setLatitude(10.0);
+        live.setLongitude(10.0);
+        live.set(Position.KEY_TOTAL_DISTANCE, 100000.0);
+        when(cacheManager.getPosition(1)).thenReturn(live);
+        Position preceding = new Position();
+        preceding.setDeviceId(1);
+        preceding.setTime(new Date(1685613600000L));
+        preceding.setLatitude(50.0);
+        preceding.setLongitude(10.0);
+        preceding.set(Position.KEY_TOTAL_DISTANCE, 500.0);
+        when(storage.getObject(eq(Position.class), any())).thenReturn(preceding);
+        String csv = CSV_HEADER + csvRow(1, 1) + csvRow(1, 2) + csvRow(1, 3);
+
+        importManager.importPositions(1, id -> { }, importManager.createCsvReader(stream(csv), 0));
+
+        assertEquals(3, stored.size());
+        double previousTotal = 500.0;
+        double previousLatitude = 50.0;
+        for (Position position : stored) {
+            double distance = DistanceCalculator.distance(
+                    previousLatitude, 10.0, position.getLatitude(), position.getLongitude());
+            assertEquals(distance, position.getDouble(Position.KEY_DISTANCE), 0.01);
+            assertEquals(previousTotal + distance, position.getDouble(Position.KEY_TOTAL_DISTANCE), 0.02);
+            previousTotal = position.getDouble(Position.KEY_TOTAL_DISTANCE);
+            previousLatitude = position.getLatitude();
+        }
+        verify(storage, times(1)).getObject(eq(Position.class), any());
+        verify(storage, never()).updateObject(any(), any());
+        verify(cacheManager).removeHistory(1);
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        var importManager = createImportManager(10);
+        when(filterHandler.isEnabled()).thenReturn(true);
+        when(filterHandler.filterFollowing(any(), any()))
+                .thenAnswer(invocation -> invocation.<Position>getArgument(0).getLatitude() > 50.15);
+        String csv = CSV_HEADER + csvRow(1, 0) + csvRow(1, 10) + csvRow(1, 20) + csvRow(1, 30);
+
+        var progress = importManager.importPositions(1, id -> { }, importManager.createCsvReader(stream(csv), 0));
+
+        assertEquals(4, progress.getReceived());
+        assertEquals(2, progress.getStored());
+        assertEquals(2, progress.getFiltered());
+    }
+
+    @Test
+    public void testPermission() throws Exception {
+        var importManager = createImportManager(10);
+        String csv = CSV_HEADER + csvRow(1, 0) + csvRow(2, 0) + csvRow(2, 1) + csvRow(1, 1);
+
+        var progress = importManager.importPositions(1, id -> {
+            if (id == 2) {
+                throw new SecurityException("Device access denied");
+            }
+        }, importManager.createCsvReader(stream(csv), 0));
+
+        assertEquals(4, progress.getReceived());
+        assertEquals(2, progress.getStored());
+        assertEquals(2, progress.getRejected());
+        assertEquals(List.of(1L), List.copyOf(progress.getDeviceIds()));
+        verify(cacheManager, never()).addDevice(2);
+    }
+
+    @Test
+    public void testInvalidRows() throws Exception {
+        var importManager = createImportManager(2);
+        String csv = CSV_HEADER + csvRow(1, 0) + "1,invalid,50.0,10.0,0,false\n" + csvRow(1, 1) + csvRow(1, 2);
+
+        var progress = importManager.importPositions(1, id -> { }, importManager.createCsvReader(stream(csv), 0));
+
+        assertEquals(4, progress.getReceived());
+        assertEquals(3, progress.getStored());
+        assertEquals(1, progress.getRejected());
+        assertNull(progress.getError());
+    }
+
+    @Test
+    public void testInputError() throws Exception {
+        var importManager = createImportManager(2);
+        String json = "{\"deviceId\":1,\"fixTime\":\"2023-06-01T10:00:00.000+00:00\",\"latitude\":50.0}\n"
+                + "{\"deviceId\":1,\"fixTime\":\"2023-06-01T10:01:00.000+00:00\",\"latitude\":\"invalid\"}\n"
+                + "{\"deviceId\":1,\"fixTime\":\"2023-06-01T10:02:00.000+00:00\",\"latitude\":50.2}\n"
+                + "{\"deviceId\":1,";
+
+        var progress = importManager.importPositions(1, id -> { }, importManager.createJsonReader(stream(json), 0));
+
+        assertEquals(3, progress.getReceived());
+        assertEquals(2, progress.getStored());
+        assertEquals(1, progress.getRejected());
+        assertNotNull(progress.getError());
+        verify(storage).updateObject(argThat((Device device) -> device.getPositionId() == 2), any());
+        verify(cacheManager).removeDevice(anyLong());
+    }
+
+    @Test
+    public void testStorageError() throws Exception {
+        var importManager = createImportManager(2);
+        doThrow(new StorageException("Connection lost")).when(storage).addObjects(any(), any());
+        String csv = CSV_HEADER + csvRow(1, 0) + csvRow(1, 1);
+
+        assertThrows(StorageException.class, () -> importManager.importPositions(
+                1, id -> { }, importManager.createCsvReader(stream(csv), 0)));
+        verify(storage, never()).updateObject(any(), any());
+        verify(cacheManager).removeDevice(1);
+        assertTrue(importManager.getImports().isEmpty());
+    }
+
+    @Test
+    public void testEmptyInput() throws IOException, StorageException {
+        var importManager = createImportManager(2);
+        var progress = importManager.importPositions(1, id -> { }, importManager.createCsvReader(stream(""), 0));
+        assertEquals(0, progress.getReceived());
+        assertTrue(batches.isEmpty());
+    }
+
+}
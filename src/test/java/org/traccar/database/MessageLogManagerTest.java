@@ -0,0 +1,89 @@
+package org.traccar.database;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.session.ConnectionManager;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MessageLogManagerTest {
+
+    @Test
+    public void testSampling() {
+        var config = new Config();
+        config.setString(Keys.LOGGER_SAMPLING, "10");
+        config.setString(Keys.PROTOCOL_LOGGER_SAMPLING.withPrefix("gt06"), "5");
+        var messageLogManager = new MessageLogManager(config, mock(ConnectionManager.class));
+        assertEquals(5, messageLogManager.getSampling("gt06"));
+        assertEquals(10, messageLogManager.getSampling("h02"));
+        assertEquals(10, messageLogManager.getSampling(null));
+    }
+
+    @Test
+    public void testTracing() {
+        var messageLogManager = new MessageLogManager(new Config(), mock(ConnectionManager.class));
+        assertFalse(messageLogManager.isTraced(1));
+        messageLogManager.startTrace(1, 1, TimeUnit.MINUTES);
+        messageLogManager.startTrace(2, -1, TimeUnit.MINUTES);
+        assertTrue(messageLogManager.isTraced(1));
+        assertFalse(messageLogManager.isTraced(2));
+        assertEquals(1, messageLogManager.getTraces().size());
+        messageLogManager.stopTrace(1);
+        assertFalse(messageLogManager.isTraced(1));
+    }
+
+    @Test
+    public void testAsync() throws InterruptedException {
+        var config = new Config();
+        config.setString(Keys.LOGGER_ASYNC, "true");
+        config.setString(Keys.LOGGER_QUEUE_SIZE, "4");
+        var messageLogManager = new MessageLogManager(config, mock(ConnectionManager.class));
+        Logger logger = mock(Logger.class);
+
+        messageLogManager.log(logger, () -> "direct");
+        verify(logger).info("direct");
+
+        messageLogManager.start();
+        assertTrue(messageLogManager.isAsync());
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            messageLogManager.log(logger, () -> "message " + index);
+        }
+        verify(logger, timeout(1000)).info("message 0");
+        verify(logger, timeout(1000)).info("message 2");
+
+        Thread.sleep(50);
+        messageLogManager.log(logger, () -> "idle");
+        verify(logger, timeout(1000)).info("idle");
+
+        messageLogManager.stop();
+        assertFalse(messageLogManager.isAsync());
+    }
+
+    @Test
+    public void testDrainOnStop() throws InterruptedException {
+        var config = new Config();
+        config.setString(Keys.LOGGER_ASYNC, "true");
+        config.setString(Keys.LOGGER_QUEUE_SIZE, "1024");
+        var messageLogManager = new MessageLogManager(config, mock(ConnectionManager.class));
+        Logger logger = mock(Logger.class);
+
+        messageLogManager.start();
+        for (int i = 0; i < 100; i++) {
+            messageLogManager.log(logger, () -> "message");
+        }
+        messageLogManager.stop();
+        verify(logger, times(100)).info("message");
+    }
+
+}
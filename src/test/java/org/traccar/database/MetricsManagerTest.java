@@ -0,0 +1,63 @@
+package org.traccar.database;
+
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsManagerTest {
+
+    private MetricsManager createManager() {
+        var config = new Config();
+        config.setString(Keys.METRICS_ENABLE, "true");
+        return new MetricsManager(config);
+    }
+
+    @Test
+    public void testDisabled() {
+        var metricsManager = new MetricsManager(new Config());
+        assertNull(metricsManager.counter("test_total", "Test"));
+        assertNull(metricsManager.histogram("test_seconds", "Test"));
+        metricsManager.gauge("test", "Test", () -> 1);
+        assertEquals("", metricsManager.format());
+    }
+
+    @Test
+    public void testCounter() {
+        var metricsManager = createManager();
+        var counter = metricsManager.counter("test_total", "Test counter", "protocol", "gt06");
+        assertSame(counter, metricsManager.counter("test_total", "Test counter", "protocol", "gt06"));
+        counter.increment();
+        counter.add(2);
+        assertEquals(
+                "# HELP test_total Test counter\n# TYPE test_total counter\ntest_total{protocol=\"gt06\"} 3\n",
+                metricsManager.format());
+    }
+
+    @Test
+    public void testHistogram() {
+        var metricsManager = createManager();
+        var histogram = metricsManager.histogram("test_seconds", "Test histogram");
+        histogram.record(2_000);
+        histogram.record(2_000_000);
+        histogram.record(20_000_000_000L);
+        String output = metricsManager.format();
+        assertTrue(output.contains("test_seconds_bucket{le=\"1.0E-5\"} 1\n"));
+        assertTrue(output.contains("test_seconds_bucket{le=\"0.005\"} 2\n"));
+        assertTrue(output.contains("test_seconds_bucket{le=\"10.0\"} 2\n"));
+        assertTrue(output.contains("test_seconds_bucket{le=\"+Inf\"} 3\n"));
+        assertTrue(output.contains("test_seconds_count 3\n"));
+    }
+
+    @Test
+    public void testGaugeEscaping() {
+        var metricsManager = createManager();
+        metricsManager.gauge("test", "Test gauge", () -> 1.5, "name", "a\"b");
+        assertTrue(metricsManager.format().contains("test{name=\"a\\\"b\"} 1.5\n"));
+    }
+
+}
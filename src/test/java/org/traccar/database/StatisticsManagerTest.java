@@ -0,0 +1,40 @@
+package org.traccar.database;
+
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatisticsManagerTest {
+
+    @Test
+    public void testMessageStoredCount() {
+        var statisticsManager = new StatisticsManager(new Config(), null, null, null);
+        statisticsManager.registerMessageStored(1, "gt06");
+        statisticsManager.registerMessageStored(1, "gt06");
+        statisticsManager.registerMessageStored(2, null);
+        assertEquals(2, statisticsManager.messageStoredCount(1));
+        assertEquals(1, statisticsManager.messageStoredCount(2));
+        assertEquals(0, statisticsManager.messageStoredCount(3));
+    }
+
+    @Test
+    public void testRates() throws InterruptedException {
+        var statisticsManager = new StatisticsManager(new Config(), null, null, null);
+        assertEquals(0.0, statisticsManager.getRates().get("messagesReceived").get("1m"));
+
+        statisticsManager.update();
+        for (int i = 0; i < 10; i++) {
+            statisticsManager.registerMessageReceived();
+        }
+        Thread.sleep(10);
+
+        var rates = statisticsManager.getRates();
+        assertEquals(7, rates.size());
+        assertTrue(rates.get("messagesReceived").get("1m") > 0);
+        assertTrue(rates.get("messagesReceived").get("15m") > 0);
+        assertEquals(0.0, rates.get("messagesStored").get("5m"));
+    }
+
+}
@@ -0,0 +1,149 @@
+package org.traccar.forward;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoop;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.traccar.EventLoopGroupFactory;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NetworkForwarderTest {
+
+    private static final InetSocketAddress SOURCE = new InetSocketAddress("10.0.0.1", 5000);
+
+    private MetricsManager metricsManager;
+    private EventLoop eventLoop;
+
+    @BeforeEach
+    public void createMetrics() {
+        var config = new Config();
+        config.setString(Keys.METRICS_ENABLE, "true");
+        metricsManager = new MetricsManager(config);
+        eventLoop = EventLoopGroupFactory.getWorkerGroup().next();
+    }
+
+    private NetworkForwarder createForwarder(int bufferSize) throws IOException {
+        var config = new Config();
+        config.setString(Keys.SERVER_FORWARD, "127.0.0.1");
+        config.setString(Keys.SERVER_FORWARD_BUFFER, String.valueOf(bufferSize));
+        return new NetworkForwarder(config, metricsManager);
+    }
+
+    private static ByteBuf data(String value) {
+        return Unpooled.copiedBuffer(value, StandardCharsets.US_ASCII);
+    }
+
+    private void forward(NetworkForwarder forwarder, int port, String... values)
+            throws InterruptedException, ExecutionException {
+        eventLoop.submit(() -> {
+            for (String value : values) {
+                ByteBuf buf = data(value);
+                forwarder.forward(eventLoop, SOURCE, port, false, buf);
+                buf.release();
+            }
+        }).get();
+    }
+
+    private String getDropped(String transport) {
+        String prefix = "traccar_network_forward_dropped_total{transport=\"" + transport + "\"} ";
+        for (String line : metricsManager.format().split("\n")) {
+            if (line.startsWith(prefix)) {
+                return line.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String read(Socket socket, int length) throws IOException {
+        socket.setSoTimeout(5000);
+        InputStream input = socket.getInputStream();
+        return new String(input.readNBytes(length), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testPendingOverflow() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            var forwarder = createForwarder(10);
+
+            forward(forwarder, server.getLocalPort(), "first1", "second", "third3");
+            try (Socket socket = server.accept()) {
+                assertEquals("first1", read(socket, 6));
+                forward(forwarder, server.getLocalPort(), "after1");
+                assertEquals("after1", read(socket, 6));
+            }
+            assertEquals("2", getDropped("tcp"));
+
+            forwarder.disconnect(SOURCE);
+        }
+    }
+
+    @Test
+    public void testReconnectBackoff() throws Exception {
+        int port = getFreePort();
+        var forwarder = createForwarder(1024);
+
+        forward(forwarder, port, "refused");
+        Thread.sleep(200);
+        assertEquals("1", getDropped("tcp"));
+
+        try (ServerSocket server = new ServerSocket()) {
+            server.setReuseAddress(true);
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+            forward(forwarder, port, "backoff");
+            assertEquals("2", getDropped("tcp"));
+
+            Thread.sleep(1200);
+            forward(forwarder, port, "resumed");
+            try (Socket socket = server.accept()) {
+                assertEquals("resumed", read(socket, 7));
+            }
+            assertEquals("2", getDropped("tcp"));
+        }
+
+        forwarder.disconnect(SOURCE);
+    }
+
+    @Test
+    public void testDatagram() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            socket.setSoTimeout(5000);
+            var forwarder = createForwarder(1024);
+
+            ByteBuf buf = data("datagram");
+            buf.readerIndex(4);
+            forwarder.forward(eventLoop, SOURCE, socket.getLocalPort(), true, buf);
+            assertEquals(4, buf.readerIndex());
+            buf.release();
+
+            DatagramPacket packet = new DatagramPacket(new byte[64], 64);
+            socket.receive(packet);
+            assertEquals("gram", new String(
+                    packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.US_ASCII));
+            assertEquals("0", getDropped("udp"));
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.traccar.handler;
+
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.model.Position;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BacklogHandlerTest {
+
+    private Position createPosition(long age, boolean outdated) {
+        Position position = new Position();
+        position.setDeviceTime(new Date(System.currentTimeMillis() - age));
+        position.setOutdated(outdated);
+        return position;
+    }
+
+    @Test
+    public void testBacklog() {
+        var config = new Config();
+        config.setString(Keys.PROCESSING_BACKLOG_THRESHOLD, "3600");
+        var backlogHandler = new BacklogHandler(config);
+
+        assertFalse(backlogHandler.handlePosition(createPosition(60000, false)).getBacklog());
+        assertTrue(backlogHandler.handlePosition(createPosition(7200000, false)).getBacklog());
+        assertTrue(backlogHandler.handlePosition(createPosition(0, true)).getBacklog());
+    }
+
+    @Test
+    public void testDisabled() {
+        var backlogHandler = new BacklogHandler(new Config());
+
+        assertFalse(backlogHandler.handlePosition(createPosition(7200000, false)).getBacklog());
+        assertFalse(backlogHandler.handlePosition(createPosition(0, true)).getBacklog());
+    }
+
+}
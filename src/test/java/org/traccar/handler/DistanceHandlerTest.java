@@ -5,8 +5,13 @@ import org.traccar.config.Config;
 import org.traccar.model.Position;
 import org.traccar.session.cache.CacheManager;
 
+import java.util.Date;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class DistanceHandlerTest {
 
@@ -29,4 +34,43 @@ public class DistanceHandlerTest {
 
     }
 
+    private Position createPosition(long time, double totalDistance) {
+        Position position = new Position();
+        position.setDeviceId(1);
+        position.setTime(new Date(time));
+        position.set(Position.KEY_TOTAL_DISTANCE, totalDistance);
+        return position;
+    }
+
+    @Test
+    public void testOutOfOrder() {
+
+        var cacheManager = mock(CacheManager.class);
+        Position preceding = createPosition(1000, 500.0);
+        Position last = createPosition(3000, 900.0);
+        when(cacheManager.getPosition(1)).thenReturn(last);
+        when(cacheManager.getPrecedingPosition(eq(1L), any())).thenReturn(preceding);
+
+        DistanceHandler distanceHandler = new DistanceHandler(new Config(), cacheManager);
+
+        Position position = new Position();
+        position.setDeviceId(1);
+        position.setTime(new Date(2000));
+        position.set(Position.KEY_DISTANCE, 100);
+        position = distanceHandler.handlePosition(position);
+
+        assertEquals(600.0, position.getAttributes().get(Position.KEY_TOTAL_DISTANCE));
+
+        when(cacheManager.getPrecedingPosition(eq(1L), any())).thenReturn(null);
+
+        position = new Position();
+        position.setDeviceId(1);
+        position.setTime(new Date(2000));
+        position.set(Position.KEY_DISTANCE, 100);
+        position = distanceHandler.handlePosition(position);
+
+        assertEquals(1000.0, position.getAttributes().get(Position.KEY_TOTAL_DISTANCE));
+
+    }
+
 }
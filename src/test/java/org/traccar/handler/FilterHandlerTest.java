@@ -1,8 +1,10 @@
 package org.traccar.handler;
 
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.traccar.BaseTest;
+import org.traccar.PositionBatch;
 import org.traccar.config.Config;
 import org.traccar.config.Keys;
 import org.traccar.model.Device;
@@ -10,8 +12,12 @@ import org.traccar.model.Position;
 import org.traccar.session.cache.CacheManager;
 
 import java.util.Date;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -97,4 +103,51 @@ public class FilterHandlerTest extends BaseTest {
 
     }
 
+    @Test
+    public void testFilterBatch() {
+
+        Date time = new Date();
+        Position first = createPosition(time, true, 10);
+        first.setServerTime(time);
+        Position duplicate = createPosition(time, true, 10);
+        duplicate.setServerTime(time);
+        Position next = createPosition(new Date(time.getTime() + 30000), true, 10);
+        next.setServerTime(time);
+        next.setLatitude(10.01);
+        next.set(Position.KEY_DISTANCE, 1000.0);
+
+        var channel = new EmbeddedChannel(filteringHandler);
+        channel.writeInbound(new PositionBatch(List.of(first, duplicate, next)));
+
+        PositionBatch result = channel.readInbound();
+        assertEquals(List.of(first, next), result.getPositions());
+        assertNull(channel.readInbound());
+        assertInstanceOf(AcknowledgementHandler.EventHandled.class, channel.readOutbound());
+
+    }
+
+    @Test
+    public void testFilterRecentDuplicate() {
+
+        var config = mock(Config.class);
+        when(config.getBoolean(Keys.FILTER_ENABLE)).thenReturn(true);
+        when(config.getBoolean(Keys.FILTER_DUPLICATE)).thenReturn(true);
+        var cacheManager = mock(CacheManager.class);
+        when(cacheManager.getConfig()).thenReturn(config);
+        when(cacheManager.getObject(any(), anyLong())).thenReturn(mock(Device.class));
+        var handler = new FilterHandler(config, cacheManager, null, null);
+
+        Date time = new Date();
+        Position recent = createPosition(new Date(time.getTime() - 60000), true, 10);
+        when(cacheManager.getPosition(0)).thenReturn(createPosition(time, true, 10));
+        when(cacheManager.getDuplicatePosition(any())).thenReturn(recent);
+
+        assertTrue(handler.filter(createPosition(recent.getFixTime(), true, 10)));
+
+        when(cacheManager.getDuplicatePosition(any())).thenReturn(null);
+
+        assertFalse(handler.filter(createPosition(recent.getFixTime(), true, 10)));
+
+    }
+
 }
@@ -0,0 +1,93 @@
+package org.traccar.helper;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BufferTokenizerTest {
+
+    private BufferTokenizer create(String value, char delimiter) {
+        ByteBuf buf = Unpooled.copiedBuffer(value, StandardCharsets.US_ASCII);
+        return new BufferTokenizer(buf, delimiter);
+    }
+
+    @Test
+    public void testFields() {
+        var tokenizer = create("a;;bc;", ';');
+        assertEquals(4, tokenizer.remaining());
+        assertEquals("a", tokenizer.next());
+        assertTrue(tokenizer.isNextEmpty());
+        tokenizer.skip();
+        assertEquals(2, tokenizer.peekLength());
+        assertTrue(tokenizer.nextEquals("bc"));
+        assertTrue(tokenizer.hasNext());
+        assertEquals("", tokenizer.next());
+        assertFalse(tokenizer.hasNext());
+        assertEquals(0, tokenizer.remaining());
+        assertThrows(NoSuchElementException.class, tokenizer::next);
+    }
+
+    @Test
+    public void testSkipEmpty() {
+        var tokenizer = create(",5,", ',');
+        assertTrue(tokenizer.skipEmpty());
+        assertFalse(tokenizer.skipEmpty());
+        assertEquals(5, tokenizer.nextInt());
+        assertTrue(tokenizer.skipEmpty());
+        assertFalse(tokenizer.hasNext());
+    }
+
+    @Test
+    public void testReaderIndex() {
+        ByteBuf buf = Unpooled.copiedBuffer("$1,2*", StandardCharsets.US_ASCII);
+        buf.readerIndex(1);
+        buf.writerIndex(4);
+        var tokenizer = new BufferTokenizer(buf, ',');
+        assertEquals(1, tokenizer.nextInt());
+        assertEquals(2, tokenizer.nextInt());
+        assertFalse(tokenizer.hasNext());
+        assertEquals(1, buf.readerIndex());
+    }
+
+    @Test
+    public void testNumbers() {
+        var tokenizer = create("0098;-15;2f19;+37.478519;-074.052583;000.000;1e3;12345678901234567890.5", ';');
+        assertEquals(98, tokenizer.nextInt());
+        assertEquals(-15L, tokenizer.nextLong());
+        assertEquals(0x2f19, tokenizer.nextInt(16));
+        assertEquals(37.478519, tokenizer.nextDouble());
+        assertEquals(-74.052583, tokenizer.nextDouble());
+        assertEquals(0.0, tokenizer.nextDouble());
+        assertEquals(1000.0, tokenizer.nextDouble());
+        assertEquals(12345678901234567890.5, tokenizer.nextDouble());
+    }
+
+    @Test
+    public void testInvalidNumbers() {
+        var tokenizer = create(";1x;.", ';');
+        assertThrows(NumberFormatException.class, tokenizer::nextInt);
+        assertThrows(NumberFormatException.class, tokenizer::nextInt);
+        assertThrows(NumberFormatException.class, tokenizer::nextDouble);
+    }
+
+    @Test
+    public void testNested() {
+        var tokenizer = create("20200106;19:18:04;1", ';');
+        assertEquals(20200106, tokenizer.nextInt());
+        var time = tokenizer.nextTokenizer(':');
+        assertEquals(19, time.nextInt());
+        assertEquals(18, time.nextInt());
+        assertEquals(4, time.nextInt());
+        assertFalse(time.hasNext());
+        assertTrue(tokenizer.nextEquals("1"));
+    }
+
+}
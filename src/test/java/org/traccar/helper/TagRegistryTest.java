@@ -0,0 +1,34 @@
+package org.traccar.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TagRegistryTest {
+
+    @Test
+    public void testResolve() {
+        var registry = new TagRegistry<String>();
+        registry.register(1, null, "any");
+        registry.register(2, Set.of("A"), "modelA");
+        registry.register(3, null, "defaultB");
+        registry.register(3, Set.of("B"), "modelB");
+
+        var table = registry.resolve(null);
+        assertEquals("any", table.get(1));
+        assertNull(table.get(2));
+        assertEquals("defaultB", table.get(3));
+        assertNull(table.get(4));
+        assertNull(table.get(-1));
+
+        assertEquals("modelA", registry.resolve("A").get(2));
+        assertEquals("defaultB", registry.resolve("A").get(3));
+        assertEquals("modelB", registry.resolve("B").get(3));
+        assertSame(registry.resolve("B"), registry.resolve("B"));
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.traccar.helper;
+
+import org.junit.jupiter.api.Test;
+import org.traccar.model.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TrackSimplifierTest {
+
+    private List<Position> createTrack(int count) {
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Position position = new Position();
+            position.setId(i + 1);
+            position.setLatitude(50 + i * 0.0001);
+            position.setLongitude(10 + Math.sin(i / 50.0) * 0.001);
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    @Test
+    public void testStraightLine() {
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Position position = new Position();
+            position.setId(i + 1);
+            position.setLongitude(i * 0.001);
+            positions.add(position);
+        }
+
+        var result = new TrackSimplifier(1, 0, position -> false).simplify(positions.iterator());
+        assertEquals(2, result.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(10, result.get(1).getId());
+
+        result = new TrackSimplifier(1, 0, position -> position.getId() == 5).simplify(positions.iterator());
+        assertEquals(3, result.size());
+        assertEquals(5, result.get(1).getId());
+    }
+
+    @Test
+    public void testClosedLoop() {
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Position position = new Position();
+            position.setId(i + 1);
+            position.setLongitude(i < 3 ? i * 0.001 : 0);
+            positions.add(position);
+        }
+
+        var result = new TrackSimplifier(1, 0, position -> false).simplify(positions.iterator());
+        assertEquals(3, result.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(3, result.get(1).getId());
+        assertEquals(4, result.get(2).getId());
+    }
+
+    @Test
+    public void testTolerance() {
+        var positions = createTrack(1000);
+        var result = new TrackSimplifier(5, 0, position -> false).simplify(positions.iterator());
+        assertTrue(result.size() < positions.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(1000, result.get(result.size() - 1).getId());
+    }
+
+    @Test
+    public void testMaxPoints() {
+        var positions = createTrack(1000);
+        var result = new TrackSimplifier(0, 50, position -> position.getId() == 500).simplify(positions.iterator());
+        assertEquals(50, result.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(1000, result.get(result.size() - 1).getId());
+        assertTrue(result.stream().anyMatch(position -> position.getId() == 500));
+    }
+
+}
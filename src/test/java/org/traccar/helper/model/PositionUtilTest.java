@@ -0,0 +1,102 @@
+package org.traccar.helper.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.database.MetricsManager;
+import org.traccar.model.Position;
+import org.traccar.storage.DatabasePools;
+import org.traccar.storage.DatabaseStorage;
+import org.traccar.storage.ReplicaRouting;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class PositionUtilTest {
+
+    private JdbcDataSource dataSource;
+    private Storage storage;
+
+    @BeforeEach
+    public void createStorage() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE tc_positions ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, deviceid INT, fixtime TIMESTAMP, "
+                    + "latitude DOUBLE DEFAULT 0, longitude DOUBLE DEFAULT 0)");
+        }
+        storage = new DatabaseStorage(
+                new Config(), dataSource, new ObjectMapper(), mock(MetricsManager.class),
+                new DatabasePools(dataSource, Map.of()), new ReplicaRouting(null, 0));
+    }
+
+    private long addPosition(long deviceId, long time) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO tc_positions (deviceid, fixtime) VALUES (?, ?)",
+                        Statement.RETURN_GENERATED_KEYS)) {
+            statement.setLong(1, deviceId);
+            statement.setTimestamp(2, new Timestamp(time));
+            statement.executeUpdate();
+            try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private List<Long> readAll(Date from, Date to, int limit) throws StorageException {
+        List<Long> result = new ArrayList<>();
+        Date afterTime = null;
+        long afterId = 0;
+        while (true) {
+            List<Position> page = PositionUtil.getPositionsPage(storage, 1, from, to, afterTime, afterId, limit);
+            assertTrue(page.size() <= limit);
+            for (Position position : page) {
+                result.add(position.getId());
+                afterTime = position.getFixTime();
+                afterId = position.getId();
+            }
+            if (page.size() < limit) {
+                return result;
+            }
+        }
+    }
+
+    @Test
+    public void testPositionsPage() throws SQLException, StorageException {
+        List<Long> expected = new ArrayList<>();
+        expected.add(addPosition(1, 1000));
+        long last = addPosition(1, 3000);
+        for (int i = 0; i < 5; i++) {
+            expected.add(addPosition(1, 2000));
+        }
+        expected.add(last);
+        addPosition(2, 2000);
+
+        assertEquals(expected, readAll(null, null, 2));
+        assertEquals(expected, readAll(null, null, 3));
+        assertEquals(expected, readAll(null, null, 100));
+
+        assertEquals(expected.subList(1, 6), readAll(new Date(1500), new Date(2500), 2));
+        assertTrue(PositionUtil.getPositionsPage(storage, 1, null, null, new Date(3000), last, 10).isEmpty());
+    }
+
+}
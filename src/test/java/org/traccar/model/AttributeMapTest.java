@@ -0,0 +1,103 @@
+package org.traccar.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AttributeMapTest {
+
+    @Test
+    public void testValueTypes() {
+        var map = new AttributeMap();
+        map.putInteger("integer", 1);
+        map.putLong("long", 1);
+        map.putDouble("double", 1);
+        map.put("boolean", true);
+        map.put("string", "value");
+        map.put("null", null);
+
+        assertEquals(Integer.valueOf(1), map.get("integer"));
+        assertEquals(Long.valueOf(1), map.get("long"));
+        assertEquals(Double.valueOf(1), map.get("double"));
+        assertEquals(true, map.get("boolean"));
+        assertEquals("value", map.get("string"));
+        assertNull(map.get("null"));
+        assertTrue(map.containsKey("null"));
+        assertFalse(map.containsKey("missing"));
+
+        assertEquals(1, map.put("integer", "replaced"));
+        assertEquals("replaced", map.get("integer"));
+        assertEquals(6, map.size());
+    }
+
+    @Test
+    public void testMapContract() {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        var map = new AttributeMap();
+        for (int i = 0; i < 40; i++) {
+            Object value = i;
+            if (i % 2 != 0) {
+                value = i * 0.5;
+            }
+            expected.put("io" + i, value);
+            map.put("io" + i, value);
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(map.keySet()));
+
+        assertEquals(20, map.remove("io20"));
+        expected.remove("io20");
+        assertNull(map.remove("io20"));
+        assertEquals(expected, map);
+        assertEquals(9.5, map.get("io19"));
+
+        Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Object> entry = iterator.next();
+            if (entry.getValue() instanceof Double) {
+                iterator.remove();
+            } else {
+                entry.setValue(entry.getKey());
+            }
+        }
+        assertEquals(19, map.size());
+        assertEquals("io38", map.get("io38"));
+        assertNull(map.get("io39"));
+    }
+
+    @Test
+    public void testCopy() {
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put(new String("custom"), 1L);
+        var first = new AttributeMap(source);
+        var second = new AttributeMap(source);
+        assertEquals(source, first);
+        assertSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+    }
+
+    @Test
+    public void testModel() {
+        var position = new Position();
+        position.set(Position.KEY_SATELLITES, (short) 5);
+        position.set(Position.KEY_ODOMETER, 10L);
+        position.set(Position.KEY_POWER, 12.5f);
+        position.set(Position.KEY_IGNITION, true);
+        assertEquals(5, position.getAttributes().get(Position.KEY_SATELLITES));
+        assertEquals(10L, position.getAttributes().get(Position.KEY_ODOMETER));
+        assertEquals(12.5, position.getAttributes().get(Position.KEY_POWER));
+        assertEquals(true, position.getAttributes().get(Position.KEY_IGNITION));
+        assertSame(Position.key(Position.PREFIX_IO, 239), Position.key(Position.PREFIX_IO, 239));
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.traccar.reports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.database.MetricsManager;
+import org.traccar.model.Event;
+import org.traccar.reports.common.ReportUtils;
+import org.traccar.storage.DatabasePools;
+import org.traccar.storage.DatabaseStorage;
+import org.traccar.storage.ReplicaRouting;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Request;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class EventsReportProviderTest {
+
+    private Storage storage;
+    private EventsReportProvider provider;
+
+    @BeforeEach
+    public void createProvider() throws SQLException {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE tc_events ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, type VARCHAR(128), eventtime TIMESTAMP, deviceid INT, "
+                    + "positionid INT, geofenceid INT, maintenanceid INT, attributes VARCHAR(4000))");
+        }
+        storage = new DatabaseStorage(
+                new Config(), dataSource, new ObjectMapper(), mock(MetricsManager.class),
+                new DatabasePools(dataSource, Map.of()), new ReplicaRouting(null, 0));
+        provider = new EventsReportProvider(new Config(), mock(ReportUtils.class), storage);
+    }
+
+    private long addEvent(long deviceId, String type, long time) throws StorageException {
+        Event event = new Event(type, deviceId);
+        event.setEventTime(new Date(time));
+        return storage.addObject(event, new Request(new Columns.Exclude("id")));
+    }
+
+    private List<Long> readAll(String type, int limit) throws StorageException {
+        List<Long> result = new ArrayList<>();
+        Date afterTime = null;
+        long afterId = 0;
+        while (true) {
+            Collection<Event> page = provider.getPage(1, 1, type != null ? List.of(type) : List.of(),
+                    null, null, afterTime, afterId, limit);
+            assertTrue(page.size() <= limit);
+            for (Event event : page) {
+                result.add(event.getId());
+                afterTime = event.getEventTime();
+                afterId = event.getId();
+            }
+            if (page.size() < limit) {
+                return result;
+            }
+        }
+    }
+
+    @Test
+    public void testTimeTies() throws StorageException {
+        List<Long> expected = new ArrayList<>();
+        expected.add(addEvent(1, Event.TYPE_ALARM, 1000));
+        long second = addEvent(1, Event.TYPE_ALARM, 3000);
+        expected.add(addEvent(1, Event.TYPE_ALARM, 2000));
+        for (int i = 0; i < 4; i++) {
+            expected.add(addEvent(1, Event.TYPE_ALARM, 2000));
+        }
+        expected.add(second);
+        addEvent(2, Event.TYPE_ALARM, 2000);
+
+        assertEquals(expected, readAll(null, 2));
+        assertEquals(expected, readAll(null, 3));
+        assertEquals(expected, readAll(null, 100));
+    }
+
+    @Test
+    public void testEmptyPage() throws StorageException {
+        assertTrue(provider.getPage(1, 1, List.of(), null, null, null, 0, 10).isEmpty());
+
+        long id = addEvent(1, Event.TYPE_ALARM, 1000);
+        assertEquals(List.of(id), readAll(null, 1));
+        assertTrue(provider.getPage(1, 1, List.of(), null, null, new Date(1000), id, 10).isEmpty());
+        assertTrue(provider.getPage(1, 2, List.of(), null, null, null, 0, 10).isEmpty());
+    }
+
+    @Test
+    public void testTypeFilter() throws StorageException {
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            long id = addEvent(1, i % 3 == 0 ? Event.TYPE_ALARM : Event.TYPE_DEVICE_MOVING, 1000 + i / 2 * 1000);
+            if (i % 3 == 0) {
+                expected.add(id);
+            }
+        }
+
+        var page = provider.getPage(1, 1, List.of(Event.TYPE_ALARM), null, null, null, 0, 2);
+        assertEquals(expected.subList(0, 2), page.stream().map(Event::getId).collect(Collectors.toList()));
+
+        assertEquals(expected, readAll(Event.TYPE_ALARM, 2));
+        assertEquals(expected, readAll(Event.TYPE_ALARM, 4));
+        assertEquals(10, readAll(Event.ALL_EVENTS, 3).size());
+    }
+
+}
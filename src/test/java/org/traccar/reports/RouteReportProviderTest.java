@@ -0,0 +1,75 @@
+package org.traccar.reports;
+
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.model.Device;
+import org.traccar.model.Event;
+import org.traccar.model.Group;
+import org.traccar.model.Position;
+import org.traccar.reports.common.ReportUtils;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RouteReportProviderTest {
+
+    private RouteReportProvider createProvider(int count) throws StorageException {
+        Device device = new Device();
+        device.setId(1);
+
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Position position = new Position("test");
+            position.setId(i + 1);
+            position.setDeviceId(1);
+            position.setTime(new Date(i * 1000L));
+            position.setLatitude(50 + i * 0.001);
+            position.setLongitude(10 + (i % 2) * 0.00001);
+            positions.add(position);
+        }
+
+        var storage = mock(Storage.class);
+        when(storage.getObjects(eq(Device.class), any())).thenReturn(List.of(device));
+        when(storage.getObjects(eq(Group.class), any())).thenReturn(List.of());
+        when(storage.getObjects(eq(Event.class), any())).thenReturn(List.of());
+        when(storage.getObjectsStream(eq(Position.class), any())).thenAnswer(invocation -> positions.stream());
+
+        return new RouteReportProvider(new Config(), mock(ReportUtils.class), storage);
+    }
+
+    @Test
+    public void testStream() throws StorageException {
+        var provider = createProvider(100);
+        try (var stream = provider.getObjectsStream(1, List.of(1L), List.of(), new Date(0), new Date(), 0, 0)) {
+            assertEquals(100, stream.count());
+        }
+    }
+
+    @Test
+    public void testStreamSimplified() throws StorageException {
+        var provider = createProvider(100);
+
+        List<Position> result;
+        try (var stream = provider.getObjectsStream(1, List.of(1L), List.of(), new Date(0), new Date(), 0, 10)) {
+            result = stream.collect(Collectors.toList());
+        }
+        assertEquals(10, result.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(100, result.get(result.size() - 1).getId());
+
+        try (var stream = provider.getObjectsStream(1, List.of(1L), List.of(), new Date(0), new Date(), 10, 0)) {
+            assertEquals(2, stream.count());
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.traccar.schedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.database.MetricsManager;
+import org.traccar.model.Server;
+import org.traccar.storage.AttributeCodec;
+import org.traccar.storage.DatabasePools;
+import org.traccar.storage.DatabaseStorage;
+import org.traccar.storage.ReplicaRouting;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Request;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TaskAttributesMigrationTest {
+
+    private JdbcDataSource dataSource;
+    private Storage storage;
+
+    @BeforeEach
+    public void createStorage() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE tc_servers (id INT PRIMARY KEY, attributes VARCHAR(4000))");
+            statement.execute("INSERT INTO tc_servers VALUES (1, '{}')");
+            statement.execute("CREATE TABLE tc_positions (id INT PRIMARY KEY, attributes VARCHAR(4000))");
+            for (int i = 1; i <= 2500; i++) {
+                statement.execute("INSERT INTO tc_positions VALUES (" + i + ", '{\"sat\":" + i % 20 + "}')");
+            }
+        }
+        storage = new DatabaseStorage(
+                new Config(), dataSource, new ObjectMapper(), mock(MetricsManager.class),
+                new DatabasePools(dataSource, Map.of()), new ReplicaRouting(null, 0));
+    }
+
+    private boolean isEncoded(long id) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT attributes FROM tc_positions WHERE id = ?")) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return AttributeCodec.isEncoded(resultSet.getString(1));
+            }
+        }
+    }
+
+    private long getProgress() throws StorageException {
+        return storage.getObject(Server.class, new Request(new Columns.All()))
+                .getLong(TaskAttributesMigration.KEY_LAST_ID);
+    }
+
+    private TaskAttributesMigration createTask(boolean compact, ScheduledExecutorService executor) {
+        var config = new Config();
+        config.setString(Keys.DATABASE_COMPACT_ATTRIBUTES_MIGRATE, "true");
+        config.setString(Keys.DATABASE_COMPACT_ATTRIBUTES, String.valueOf(compact));
+        var migrationStorage = new DatabaseStorage(
+                config, dataSource, new ObjectMapper(), mock(MetricsManager.class),
+                new DatabasePools(dataSource, Map.of()), new ReplicaRouting(null, 0));
+        var task = new TaskAttributesMigration(config, migrationStorage);
+        task.schedule(executor);
+        return task;
+    }
+
+    @Test
+    public void testResume() throws SQLException, StorageException {
+        var executor = mock(ScheduledExecutorService.class);
+
+        createTask(true, executor).run();
+        assertTrue(isEncoded(1));
+        assertTrue(isEncoded(1000));
+        assertFalse(isEncoded(1001));
+        assertEquals(1000, getProgress());
+
+        var restarted = createTask(true, executor);
+        restarted.run();
+        assertTrue(isEncoded(2000));
+        assertFalse(isEncoded(2001));
+        assertEquals(2000, getProgress());
+
+        restarted.run();
+        assertTrue(isEncoded(2500));
+        assertEquals(2500, getProgress());
+        verify(executor, times(4)).schedule(any(Runnable.class), anyLong(), any());
+
+        createTask(false, executor).run();
+        assertFalse(isEncoded(1));
+        assertTrue(isEncoded(1001));
+        assertEquals(1000, getProgress());
+    }
+
+}
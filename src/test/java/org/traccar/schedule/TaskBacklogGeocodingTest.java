@@ -0,0 +1,71 @@
+package org.traccar.schedule;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.traccar.config.Config;
+import org.traccar.config.Keys;
+import org.traccar.geocoder.Geocoder;
+import org.traccar.model.Position;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+import org.traccar.storage.query.Request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TaskBacklogGeocodingTest {
+
+    private Position createPosition(long id, boolean valid) {
+        Position position = new Position();
+        position.setId(id);
+        position.setValid(valid);
+        return position;
+    }
+
+    @Test
+    public void testQueue() throws StorageException {
+        var config = new Config();
+        config.setString(Keys.PROCESSING_BACKLOG_QUEUE, "2");
+        var geocoder = mock(Geocoder.class);
+        doAnswer(invocation -> {
+            Geocoder.ReverseGeocoderCallback callback = invocation.getArgument(2);
+            callback.onSuccess("address");
+            return null;
+        }).when(geocoder).getAddress(anyDouble(), anyDouble(), any());
+        var storage = mock(Storage.class);
+        var task = new TaskBacklogGeocoding(config, storage, geocoder);
+
+        var first = createPosition(1, true);
+        assertFalse(task.add(createPosition(0, true)));
+        assertFalse(task.add(createPosition(2, false)));
+        assertTrue(task.add(first));
+        assertTrue(task.add(createPosition(3, true)));
+        assertFalse(task.add(createPosition(4, true)));
+        assertEquals(1, task.getDropped());
+
+        task.run();
+        assertEquals(0, task.getDropped());
+        assertNull(first.getAddress());
+        ArgumentCaptor<Position> captor = ArgumentCaptor.forClass(Position.class);
+        verify(storage, times(2)).updateObject(captor.capture(), any(Request.class));
+        assertEquals(1, captor.getAllValues().get(0).getId());
+        assertEquals("address", captor.getAllValues().get(0).getAddress());
+        assertEquals(3, captor.getAllValues().get(1).getId());
+    }
+
+    @Test
+    public void testNoGeocoder() {
+        var task = new TaskBacklogGeocoding(new Config(), mock(Storage.class), null);
+        assertFalse(task.add(createPosition(1, true)));
+        assertEquals(0, task.getDropped());
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.traccar.session;
+
+import io.netty.channel.Channel;
+import org.junit.jupiter.api.Test;
+import org.traccar.Protocol;
+import org.traccar.broadcast.BroadcastService;
+import org.traccar.config.Config;
+import org.traccar.database.DeviceLookupService;
+import org.traccar.database.NotificationManager;
+import org.traccar.model.Device;
+import org.traccar.session.cache.CacheManager;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConnectionManagerTest {
+
+    private Device createDevice(long id, String uniqueId) {
+        Device device = new Device();
+        device.setId(id);
+        device.setUniqueId(uniqueId);
+        return device;
+    }
+
+    private ConnectionManager createConnectionManager(Device... devices) {
+        var deviceLookupService = mock(DeviceLookupService.class);
+        when(deviceLookupService.lookup(any())).thenAnswer(invocation -> {
+            String[] uniqueIds = invocation.getArgument(0);
+            for (Device device : devices) {
+                if (device.getUniqueId().equals(uniqueIds[0])) {
+                    return device;
+                }
+            }
+            return null;
+        });
+        return new ConnectionManager(
+                mock(Config.class), mock(CacheManager.class), mock(Storage.class), mock(NotificationManager.class),
+                mock(LivenessTracker.class), mock(BroadcastService.class), deviceLookupService);
+    }
+
+    @Test
+    public void testEndpointSessions() throws StorageException {
+        var connectionManager = createConnectionManager(createDevice(1, "123"), createDevice(2, "456"));
+        var protocol = mock(Protocol.class);
+        var channel = mock(Channel.class);
+        var address = new InetSocketAddress("10.0.0.1", 5000);
+        var otherAddress = new InetSocketAddress("10.0.0.2", 5000);
+
+        assertNull(connectionManager.getDeviceSession(protocol, channel, address));
+
+        var first = connectionManager.getDeviceSession(protocol, channel, address, "123");
+        assertNotNull(first);
+        assertSame(first, connectionManager.getDeviceSession(protocol, channel, address));
+        assertSame(first, connectionManager.getDeviceSession(protocol, channel, address, null, "123"));
+        assertNull(connectionManager.getDeviceSession(protocol, channel, otherAddress));
+
+        var second = connectionManager.getDeviceSession(protocol, channel, address, "456");
+        assertSame(second, connectionManager.getDeviceSession(protocol, channel, address, "456"));
+        assertSame(first, connectionManager.getDeviceSession(protocol, channel, address, "123"));
+
+        var moved = connectionManager.getDeviceSession(protocol, channel, otherAddress, "123");
+        assertSame(moved, connectionManager.getDeviceSession(protocol, channel, otherAddress));
+        assertSame(second, connectionManager.getDeviceSession(protocol, channel, address));
+
+        when(channel.remoteAddress()).thenReturn(address);
+        connectionManager.deviceDisconnected(channel, false);
+        assertNull(connectionManager.getDeviceSession(protocol, channel, address));
+        assertSame(moved, connectionManager.getDeviceSession(protocol, channel, otherAddress));
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.traccar.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExpiryQueueTest {
+
+    @Test
+    public void testExpiry() {
+        var queue = new ExpiryQueue(1000);
+        queue.schedule(1, 1500);
+        queue.schedule(2, 2500);
+        queue.schedule(3, ExpiryQueue.NEVER);
+
+        assertTrue(queue.poll(1999).isEmpty());
+        assertEquals(List.of(1L), queue.poll(2000));
+        assertFalse(queue.contains(1));
+        assertEquals(List.of(2L), queue.poll(10000));
+        assertTrue(queue.contains(3));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testReschedule() {
+        var queue = new ExpiryQueue(1000);
+        queue.schedule(1, 1500);
+        queue.schedule(1, 3500);
+        assertTrue(queue.poll(3000).isEmpty());
+        assertTrue(queue.contains(1));
+        assertEquals(List.of(1L), queue.poll(4000));
+
+        queue.schedule(2, 5500);
+        queue.schedule(2, 4500);
+        assertEquals(List.of(2L), queue.poll(5000));
+
+        queue.schedule(3, 6500);
+        queue.schedule(3, ExpiryQueue.NEVER);
+        assertTrue(queue.poll(10000).isEmpty());
+        assertTrue(queue.contains(3));
+    }
+
+    @Test
+    public void testRemove() {
+        var queue = new ExpiryQueue(1000);
+        queue.schedule(1, 1500);
+        queue.remove(1);
+        assertTrue(queue.poll(2000).isEmpty());
+
+        queue.schedule(1, 2500);
+        assertEquals(List.of(1L), queue.poll(3000));
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.traccar.session;
+
+import io.netty.util.Timer;
+import org.junit.jupiter.api.Test;
+import org.traccar.broadcast.BroadcastService;
+import org.traccar.config.Config;
+import org.traccar.database.NotificationManager;
+import org.traccar.model.Device;
+import org.traccar.model.Event;
+import org.traccar.model.Group;
+import org.traccar.model.Position;
+import org.traccar.session.cache.CacheManager;
+import org.traccar.storage.Storage;
+import org.traccar.storage.StorageException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LivenessTrackerTest {
+
+    private static final long MINUTE = 60000;
+
+    @Test
+    public void testInactivityAfterOnline() throws StorageException {
+        long time = 1000 * MINUTE;
+
+        Device device = new Device();
+        device.setId(1);
+        device.setLastUpdate(new Date(time));
+        device.set(LivenessTracker.ATTRIBUTE_DEVICE_INACTIVITY_START, 5 * MINUTE);
+
+        var cacheManager = mock(CacheManager.class);
+        when(cacheManager.getObject(eq(Device.class), anyLong())).thenReturn(device);
+        var storage = mock(Storage.class);
+        when(storage.getObjects(eq(Group.class), any())).thenReturn(List.of());
+        when(storage.getObjects(eq(Device.class), any())).thenReturn(List.of(device));
+
+        List<Event> events = new ArrayList<>();
+        var notificationManager = mock(NotificationManager.class);
+        doAnswer(invocation -> {
+            Map<Event, Position> updated = invocation.getArgument(0);
+            events.addAll(updated.keySet());
+            return null;
+        }).when(notificationManager).updateEvents(any());
+
+        var livenessTracker = new LivenessTracker(
+                mock(Config.class), cacheManager, storage, notificationManager,
+                mock(Timer.class), mock(BroadcastService.class));
+
+        livenessTracker.checkInactivity(time);
+        assertEquals(0, events.size());
+
+        livenessTracker.checkInactivity(time + 10 * MINUTE);
+        assertEquals(1, events.size());
+        assertEquals(Event.TYPE_DEVICE_INACTIVE, events.get(0).getType());
+
+        livenessTracker.checkInactivity(time + 20 * MINUTE);
+        assertEquals(1, events.size());
+
+        time += 30 * MINUTE;
+        device.setLastUpdate(new Date(time));
+        livenessTracker.deviceOnline(1, time);
+
+        livenessTracker.checkInactivity(time + 2 * MINUTE);
+        assertEquals(1, events.size());
+
+        livenessTracker.checkInactivity(time + 10 * MINUTE);
+        assertEquals(2, events.size());
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.traccar.session.cache;
+
+import org.junit.jupiter.api.Test;
+import org.traccar.model.Position;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PositionHistoryTest {
+
+    private Position createPosition(long time) {
+        Position position = new Position();
+        position.setTime(new Date(time));
+        return position;
+    }
+
+    private Position createPosition(long time, double latitude, double longitude) {
+        Position position = createPosition(time);
+        position.setLatitude(latitude);
+        position.setLongitude(longitude);
+        return position;
+    }
+
+    @Test
+    public void testPreceding() {
+        var history = new PositionHistory(3);
+        assertNull(history.getPreceding(1000));
+
+        var first = createPosition(1000);
+        var third = createPosition(3000);
+        history.add(first);
+        history.add(third);
+        assertNull(history.getPreceding(999));
+        assertSame(first, history.getPreceding(1000));
+        assertSame(first, history.getPreceding(2999));
+        assertSame(third, history.getPreceding(5000));
+
+        var second = createPosition(2000);
+        history.add(second);
+        assertSame(second, history.getPreceding(2500));
+        assertSame(third, history.getPreceding(3000));
+    }
+
+    @Test
+    public void testEviction() {
+        var history = new PositionHistory(2);
+        history.add(createPosition(1000));
+        history.add(createPosition(3000));
+
+        var older = createPosition(500);
+        history.add(older);
+        assertNull(history.getPreceding(500));
+
+        var middle = createPosition(2000);
+        history.add(middle);
+        assertNull(history.getPreceding(1500));
+        assertSame(middle, history.getPreceding(2500));
+
+        var latest = createPosition(4000);
+        history.add(latest);
+        assertNull(history.getPreceding(2500));
+        assertSame(latest, history.getPreceding(4000));
+    }
+
+    @Test
+    public void testDuplicate() {
+        var history = new PositionHistory(2);
+        var first = createPosition(1000, 50.1, 10.1);
+        var second = createPosition(2000, 50.2, 10.2);
+        history.add(first);
+        history.add(second);
+
+        assertSame(first, history.getDuplicate(createPosition(1000, 50.1, 10.1)));
+        assertSame(second, history.getDuplicate(createPosition(2000, 50.2, 10.2)));
+        assertNull(history.getDuplicate(createPosition(1000, 50.2, 10.2)));
+        assertNull(history.getDuplicate(createPosition(1500, 50.1, 10.1)));
+
+        var replayed = createPosition(2000, 50.2, 10.2);
+        history.add(replayed);
+        assertSame(replayed, history.getDuplicate(second));
+
+        history.add(createPosition(3000, 50.3, 10.3));
+        assertNull(history.getDuplicate(first));
+        assertSame(replayed, history.getDuplicate(second));
+    }
+
+}
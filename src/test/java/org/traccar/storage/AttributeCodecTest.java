@@ -0,0 +1,88 @@
+package org.traccar.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AttributeCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, Object> createAttributes() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("priority", 0);
+        attributes.put("sat", 12);
+        attributes.put("ignition", true);
+        attributes.put("motion", false);
+        attributes.put("io239", 1);
+        attributes.put("io0", 0);
+        attributes.put("io01", 5);
+        attributes.put("adc1", 12.345);
+        attributes.put("power", 12.41);
+        attributes.put("battery", -4.07);
+        attributes.put("odometer", 123456789012L);
+        attributes.put("totalDistance", 123456.0);
+        attributes.put("distance", 0.1 + 0.2);
+        attributes.put("hours", 1e300);
+        attributes.put("negativeZero", -0.0);
+        attributes.put("notNumber", Double.NaN);
+        attributes.put("driverUniqueId", "\u00c5ke 12");
+        attributes.put("custom", "value");
+        attributes.put("empty", null);
+        attributes.put("list", List.of(1, "two"));
+        return attributes;
+    }
+
+    @Test
+    public void testRoundTrip() throws JsonProcessingException {
+        Map<String, Object> attributes = createAttributes();
+        String encoded = AttributeCodec.encode(attributes, objectMapper);
+        assertTrue(AttributeCodec.isEncoded(encoded));
+        assertEquals(attributes, AttributeCodec.decode(encoded, objectMapper));
+        assertEquals(List.copyOf(attributes.keySet()),
+                List.copyOf(AttributeCodec.decode(encoded, objectMapper).keySet()));
+    }
+
+    @Test
+    public void testSameTypesAsJson() throws JsonProcessingException {
+        Map<String, Object> attributes = createAttributes();
+        attributes.remove("notNumber");
+        Map<?, ?> json = objectMapper.readValue(objectMapper.writeValueAsString(attributes), Map.class);
+        String encoded = AttributeCodec.encode(attributes, objectMapper);
+        Map<String, Object> compact = AttributeCodec.decode(encoded, objectMapper);
+        for (Map.Entry<?, ?> entry : json.entrySet()) {
+            Object value = compact.get(entry.getKey());
+            assertEquals(entry.getValue(), value);
+            if (value != null) {
+                assertEquals(entry.getValue().getClass(), value.getClass());
+            }
+        }
+    }
+
+    @Test
+    public void testSize() throws JsonProcessingException {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("batteryLevel", 85);
+        attributes.put("io239", 1);
+        attributes.put("power", 12.41);
+        attributes.put("totalDistance", 1234567.89);
+        String encoded = AttributeCodec.encode(attributes, objectMapper);
+        assertTrue(encoded.length() < objectMapper.writeValueAsString(attributes).length() / 2);
+    }
+
+    @Test
+    public void testJson() {
+        assertFalse(AttributeCodec.isEncoded("{\"sat\":12}"));
+        assertFalse(AttributeCodec.isEncoded(""));
+        assertFalse(AttributeCodec.isEncoded(null));
+    }
+
+}
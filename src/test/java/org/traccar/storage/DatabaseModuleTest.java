@@ -0,0 +1,45 @@
+package org.traccar.storage;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DatabaseModuleTest {
+
+    @Test
+    public void testChangelogApplied() throws SQLException {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+
+        assertFalse(DatabaseModule.isChangelogApplied(dataSource, "traccar-1"));
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE DATABASECHANGELOG (ID VARCHAR(255), TAG VARCHAR(255))");
+            statement.execute("INSERT INTO DATABASECHANGELOG VALUES ('1', NULL)");
+        }
+        assertFalse(DatabaseModule.isChangelogApplied(dataSource, "traccar-1"));
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE DATABASECHANGELOG SET TAG = 'traccar-1'");
+        }
+        assertTrue(DatabaseModule.isChangelogApplied(dataSource, "traccar-1"));
+        assertFalse(DatabaseModule.isChangelogApplied(dataSource, "traccar-2"));
+    }
+
+    @Test
+    public void testConnectionError() throws SQLException {
+        var dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused", "08001"));
+        assertFalse(DatabaseModule.isChangelogApplied(dataSource, "traccar-1"));
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.traccar.storage;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class DatabasePoolsTest {
+
+    @Test
+    public void testWorkloadPools() {
+        var main = mock(DataSource.class);
+        var reports = mock(DataSource.class);
+        var pools = new DatabasePools(main, Map.of(DatabasePools.Workload.REPORTS, reports));
+
+        assertSame(main, pools.getDataSource());
+        try (var scope = pools.open(DatabasePools.Workload.API)) {
+            assertSame(main, pools.getDataSource());
+            try (var nested = pools.open(DatabasePools.Workload.REPORTS)) {
+                assertSame(reports, pools.getDataSource());
+            }
+            assertSame(main, pools.getDataSource());
+        }
+        assertSame(main, pools.getDataSource());
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.traccar.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.database.MetricsManager;
+import org.traccar.model.Group;
+import org.traccar.storage.query.Columns;
+import org.traccar.storage.query.Condition;
+import org.traccar.storage.query.Order;
+import org.traccar.storage.query.Request;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class DatabaseStorageTest {
+
+    private Storage storage;
+
+    private DataSource createDataSource() throws SQLException {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE tc_groups ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(128), groupid INT, attributes VARCHAR(4000))");
+        }
+        return dataSource;
+    }
+
+    private Storage createStorage(DataSource dataSource, ReplicaRouting replicaRouting) {
+        return new DatabaseStorage(
+                new Config(), dataSource, new ObjectMapper(), mock(MetricsManager.class),
+                new DatabasePools(dataSource, Map.of()), replicaRouting);
+    }
+
+    @BeforeEach
+    public void createStorage() throws SQLException {
+        storage = createStorage(createDataSource(), new ReplicaRouting(null, 0));
+    }
+
+    private Group createGroup(String name) {
+        Group group = new Group();
+        group.setName(name);
+        return group;
+    }
+
+    @Test
+    public void testAddObjects() throws StorageException {
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            groups.add(createGroup("group" + i));
+        }
+
+        long[] ids = storage.addObjects(groups, new Request(new Columns.Exclude("id")));
+        assertEquals(5, ids.length);
+        assertEquals(5, ids[4] - ids[0] + 1);
+
+        var stored = storage.getObjects(Group.class, new Request(new Columns.All(), new Order("id")));
+        assertEquals(
+                groups.stream().map(Group::getName).collect(Collectors.toList()),
+                stored.stream().map(Group::getName).collect(Collectors.toList()));
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], stored.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testAddSingleObject() throws StorageException {
+        long[] ids = storage.addObjects(List.of(createGroup("single")), new Request(new Columns.Exclude("id")));
+        assertEquals(1, ids.length);
+        assertEquals("single", storage.getObject(Group.class, new Request(new Columns.All())).getName());
+    }
+
+    @Test
+    public void testReadAfterWrite() throws SQLException, StorageException {
+        var replica = createDataSource();
+        var replicaRouting = new ReplicaRouting(replica, 60000);
+        var routedStorage = createStorage(createDataSource(), replicaRouting);
+        var request = new Request(new Columns.All());
+
+        try (var scope = replicaRouting.open(false, 1)) {
+            routedStorage.addObject(createGroup("primary"), new Request(new Columns.Exclude("id")));
+        }
+        try (var scope = replicaRouting.open(true, 1)) {
+            assertEquals("primary", routedStorage.getObject(Group.class, request).getName());
+        }
+        try (var scope = replicaRouting.open(true, 2)) {
+            assertTrue(routedStorage.getObjects(Group.class, request).isEmpty());
+        }
+
+        try (var scope = replicaRouting.open(false, 3)) {
+            assertThrows(StorageException.class, () -> routedStorage.removeObject(
+                    Group.class, new Request(new Condition.Equals("missing", 1))));
+        }
+        try (var scope = replicaRouting.open(true, 3)) {
+            assertTrue(routedStorage.getObjects(Group.class, request).isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.traccar.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.traccar.config.Config;
+import org.traccar.model.Group;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+public class QueryBuilderTest {
+
+    private static final String INSERT = "INSERT INTO items (name) VALUES (:name)";
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    public void createDatabase() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(
+                    "CREATE TABLE items (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(128) NOT NULL UNIQUE)");
+        }
+    }
+
+    private int count() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM items")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Test
+    public void testExecuteBatch() throws SQLException {
+        var builder = QueryBuilder.create(new Config(), dataSource, new ObjectMapper(), INSERT, true);
+        builder.setString("name", "first").addBatch();
+        builder.setString("name", "second").addBatch();
+        builder.setString("name", "third").addBatch();
+
+        assertArrayEquals(new long[] {1, 2, 3}, builder.executeBatch(3));
+        assertEquals(3, count());
+    }
+
+    @Test
+    public void testExecuteBatchRollback() throws SQLException {
+        var builder = QueryBuilder.create(new Config(), dataSource, new ObjectMapper(), INSERT, true);
+        builder.setString("name", "first").addBatch();
+        builder.setString("name", "first").addBatch();
+
+        assertThrows(SQLException.class, () -> builder.executeBatch(2));
+        assertEquals(0, count());
+    }
+
+    @Test
+    public void testExecuteQueryStreamed() throws SQLException {
+        var builder = QueryBuilder.create(new Config(), dataSource, new ObjectMapper(), INSERT, true);
+        builder.setString("name", "first").addBatch();
+        builder.setString("name", "second").addBatch();
+        builder.executeBatch(2);
+
+        Connection connection = spy(dataSource.getConnection());
+        DataSource streamDataSource = mock(DataSource.class);
+        when(streamDataSource.getConnection()).thenReturn(connection);
+
+        var query = QueryBuilder.create(
+                new Config(), streamDataSource, new ObjectMapper(), "SELECT * FROM items ORDER BY id");
+        try (var stream = query.executeQueryStreamed(Group.class)) {
+            assertFalse(connection.getAutoCommit());
+            assertEquals("first,second", stream.map(Group::getName).collect(Collectors.joining(",")));
+        }
+
+        var order = inOrder(connection);
+        order.verify(connection).setAutoCommit(false);
+        order.verify(connection).setAutoCommit(true);
+        order.verify(connection).close();
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.traccar.storage;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class ReplicaRoutingTest {
+
+    @Test
+    public void testReadOnlyScope() {
+        var primary = mock(DataSource.class);
+        var replica = mock(DataSource.class);
+        var routing = new ReplicaRouting(replica, 10000);
+
+        assertSame(primary, routing.getReadDataSource(primary));
+
+        try (var scope = routing.open(true, 0)) {
+            assertSame(primary, routing.getReadDataSource(primary));
+            routing.setUserId(1);
+            assertSame(replica, routing.getReadDataSource(primary));
+        }
+        assertSame(primary, routing.getReadDataSource(primary));
+
+        try (var scope = routing.open(false, 1)) {
+            assertSame(primary, routing.getReadDataSource(primary));
+            try (var nested = routing.open(true, 1)) {
+                assertSame(replica, routing.getReadDataSource(primary));
+            }
+            assertSame(primary, routing.getReadDataSource(primary));
+        }
+    }
+
+    @Test
+    public void testPrimaryWindow() throws InterruptedException {
+        var primary = mock(DataSource.class);
+        var replica = mock(DataSource.class);
+        var routing = new ReplicaRouting(replica, 100);
+
+        try (var scope = routing.open(false, 1)) {
+            routing.recordWrite();
+        }
+        try (var scope = routing.open(true, 1)) {
+            assertSame(primary, routing.getReadDataSource(primary));
+        }
+        try (var scope = routing.open(true, 2)) {
+            assertSame(replica, routing.getReadDataSource(primary));
+        }
+
+        Thread.sleep(150);
+        try (var scope = routing.open(true, 1)) {
+            assertSame(replica, routing.getReadDataSource(primary));
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        var primary = mock(DataSource.class);
+        var routing = new ReplicaRouting(null, 10000);
+        try (var scope = routing.open(true, 1)) {
+            assertSame(primary, routing.getReadDataSource(primary));
+        }
+    }
+
+}
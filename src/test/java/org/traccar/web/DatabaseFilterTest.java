@@ -0,0 +1,54 @@
+package org.traccar.web;
+
+import org.junit.jupiter.api.Test;
+import org.traccar.storage.DatabasePools;
+import org.traccar.storage.ReplicaRouting;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DatabaseFilterTest {
+
+    private final DataSource main = mock(DataSource.class);
+    private final DataSource api = mock(DataSource.class);
+    private final DataSource reports = mock(DataSource.class);
+    private final DataSource background = mock(DataSource.class);
+
+    private final DatabasePools databasePools = new DatabasePools(main, Map.of(
+            DatabasePools.Workload.API, api,
+            DatabasePools.Workload.REPORTS, reports,
+            DatabasePools.Workload.BACKGROUND, background));
+
+    private DataSource filter(String method, String pathInfo) throws IOException, ServletException {
+        var request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getServletPath()).thenReturn("/api");
+        when(request.getPathInfo()).thenReturn(pathInfo);
+
+        AtomicReference<DataSource> used = new AtomicReference<>();
+        var filter = new DatabaseFilter(databasePools, new ReplicaRouting(null, 0));
+        filter.doFilter(request, mock(ServletResponse.class), (req, res) -> used.set(databasePools.getDataSource()));
+        return used.get();
+    }
+
+    @Test
+    public void testWorkloadPools() throws IOException, ServletException {
+        assertSame(reports, filter("GET", "/reports/route"));
+        assertSame(reports, filter("GET", "/positions/csv"));
+        assertSame(background, filter("POST", "/positions/import"));
+        assertSame(api, filter("GET", "/positions"));
+        assertSame(api, filter("GET", "/devices"));
+        assertSame(api, filter("GET", null));
+        assertSame(main, databasePools.getDataSource());
+    }
+
+}
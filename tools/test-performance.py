@@ -1,5 +1,9 @@
 #!/usr/bin/env python3
 
+# Load test of a running server over real TCP connections (Teltonika protocol on port 5027). Unlike the in-process
+# IngestBenchmark (./gradlew ingestBenchmark), it includes the network stack, event loop threads and the database of
+# the running instance, so it is used to check end-to-end behaviour with many connected devices.
+
 import asyncio
 import random
 